@@ -0,0 +1,61 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of HAR serialization and deserialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BrowserUpHarsBenchmark {
+
+    @Param({"10", "200"})
+    public int numEntries;
+
+    @Param({"STRICT", "LAX"})
+    public HarReaderMode readerMode;
+
+    private Har har;
+    private String harJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        har = HarFixtures.createHar(numEntries);
+        StringWriter writer = new StringWriter();
+        BrowserUpHars.writeHar(har, writer);
+        harJson = writer.toString();
+    }
+
+    @Benchmark
+    public String writeHar() throws IOException {
+        StringWriter writer = new StringWriter(harJson.length());
+        BrowserUpHars.writeHar(har, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Har readHar() throws IOException {
+        return BrowserUpHars.readHar(new StringReader(harJson), readerMode);
+    }
+}
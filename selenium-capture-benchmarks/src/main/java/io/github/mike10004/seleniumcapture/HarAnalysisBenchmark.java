@@ -0,0 +1,48 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.Har;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of extraction of cookies from a HAR and of building an index of HAR entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HarAnalysisBenchmark {
+
+    @Param({"10", "200", "2000"})
+    public int numEntries;
+
+    private Har har;
+
+    @Setup
+    public void setUp() {
+        har = HarFixtures.createHar(numEntries);
+    }
+
+    @Benchmark
+    public CookieCollection findCookies() {
+        return HarAnalysis.of(har).findCookies();
+    }
+
+    @Benchmark
+    public HarIndex buildIndex() {
+        return HarIndex.build(har);
+    }
+}
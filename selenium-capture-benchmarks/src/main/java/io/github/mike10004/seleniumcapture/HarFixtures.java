@@ -0,0 +1,227 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarContent;
+import com.browserup.harreader.model.HarCreatorBrowser;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarHeader;
+import com.browserup.harreader.model.HarLog;
+import com.browserup.harreader.model.HarPostData;
+import com.browserup.harreader.model.HarQueryParam;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HarTiming;
+import com.browserup.harreader.model.HttpMethod;
+import com.google.common.base.Strings;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Static utility methods that produce HAR fixtures resembling the traffic
+ * of a typical page load. Fixtures are generated from a fixed seed, so
+ * every invocation with the same parameters produces the same HAR.
+ */
+final class HarFixtures {
+
+    private static final long SEED = 0x5e1e0117L;
+
+    private static final String[] HOSTS = {
+            "www.example.com",
+            "static.example.com",
+            "api.example.com",
+            "cdn.example.net",
+            "fonts.example.org",
+            "tracker.example.io",
+    };
+
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/94.0.4606.61 Safari/537.36";
+
+    private HarFixtures() {}
+
+    /**
+     * Creates a HAR with the given number of entries. Entries have a mix of
+     * HTML, script, JSON and image responses, and some set cookies.
+     * @param numEntries number of entries
+     * @return a new HAR
+     */
+    public static Har createHar(int numEntries) {
+        Random random = new Random(SEED);
+        HarLog log = new HarLog();
+        log.setVersion("1.2");
+        HarCreatorBrowser creator = new HarCreatorBrowser();
+        creator.setName("selenium-capture-benchmarks");
+        creator.setVersion("1.0");
+        log.setCreator(creator);
+        List<HarEntry> entries = new ArrayList<>(numEntries);
+        Instant start = Instant.parse("2021-10-01T12:00:00Z");
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(createEntry(random, i, Date.from(start.plusMillis(i * 37L))));
+        }
+        log.setEntries(entries);
+        Har har = new Har();
+        har.setLog(log);
+        return har;
+    }
+
+    private static HarEntry createEntry(Random random, int index, Date startedDateTime) {
+        String host = HOSTS[index % HOSTS.length];
+        ResourceKind kind = ResourceKind.values()[index % ResourceKind.values().length];
+        HarEntry entry = new HarEntry();
+        entry.setStartedDateTime(startedDateTime);
+        entry.setTime(5 + random.nextInt(200));
+        entry.setServerIPAddress("93.184.216." + (index % 250));
+        entry.setRequest(createRequest(random, host, kind, index));
+        entry.setResponse(createResponse(random, host, kind, index));
+        HarTiming timings = new HarTiming();
+        timings.setSend(1);
+        timings.setWait((int) entry.getTime() - 2);
+        timings.setReceive(1);
+        entry.setTimings(timings);
+        return entry;
+    }
+
+    private static HarRequest createRequest(Random random, String host, ResourceKind kind, int index) {
+        HarRequest request = new HarRequest();
+        boolean post = kind == ResourceKind.JSON && index % 4 == 0;
+        request.setMethod(post ? HttpMethod.POST : HttpMethod.GET);
+        String path = kind.path(index);
+        String query = "v=" + index + "&session=" + Long.toHexString(random.nextLong());
+        request.setUrl("https://" + host + path + "?" + query);
+        request.setHttpVersion("HTTP/1.1");
+        List<HarHeader> headers = request.getHeaders();
+        headers.add(header("Host", host));
+        headers.add(header("User-Agent", USER_AGENT));
+        headers.add(header("Accept", kind.contentType + ",*/*;q=0.8"));
+        headers.add(header("Accept-Encoding", "gzip, deflate, br"));
+        headers.add(header("Accept-Language", "en-US,en;q=0.9"));
+        headers.add(header("Referer", "https://www.example.com/"));
+        headers.add(header("Cookie", "sid=" + Long.toHexString(random.nextLong()) + "; theme=dark; consent=yes"));
+        for (String pair : query.split("&")) {
+            String[] parts = pair.split("=", 2);
+            HarQueryParam param = new HarQueryParam();
+            param.setName(parts[0]);
+            param.setValue(parts[1]);
+            request.getQueryString().add(param);
+        }
+        if (post) {
+            HarPostData postData = new HarPostData();
+            postData.setMimeType("application/json");
+            postData.setText("{\"event\":\"view\",\"index\":" + index + ",\"payload\":\"" + Strings.repeat("x", 64) + "\"}");
+            request.setPostData(postData);
+            headers.add(header("Content-Type", "application/json"));
+        }
+        request.setHeadersSize(-1L);
+        request.setBodySize(post ? (long) request.getPostData().getText().length() : 0L);
+        return request;
+    }
+
+    private static HarResponse createResponse(Random random, String host, ResourceKind kind, int index) {
+        HarResponse response = new HarResponse();
+        response.setStatus(200);
+        response.setStatusText("OK");
+        response.setHttpVersion("HTTP/1.1");
+        List<HarHeader> headers = response.getHeaders();
+        headers.add(header("Content-Type", kind.contentType));
+        headers.add(header("Cache-Control", "max-age=3600"));
+        headers.add(header("Date", "Fri, 01 Oct 2021 12:00:00 GMT"));
+        headers.add(header("Server", "ECS (nyb/1D2E)"));
+        if (index % 3 == 0) {
+            headers.add(header("Set-Cookie", "visit" + index + "=" + Long.toHexString(random.nextLong())
+                    + "; Domain=" + host + "; Path=/; Max-Age=86400; Secure; HttpOnly; SameSite=Lax"));
+        }
+        if (index % 5 == 0) {
+            headers.add(header("Set-Cookie", "pref=" + index + "; Path=/; Expires=Sat, 01 Oct 2022 12:00:00 GMT"));
+        }
+        HarContent content = new HarContent();
+        content.setMimeType(kind.contentType);
+        byte[] body = kind.body(random, index);
+        content.setSize((long) body.length);
+        if (kind.binary) {
+            content.setEncoding("base64");
+            content.setText(Base64.getEncoder().encodeToString(body));
+        } else {
+            content.setText(new String(body, StandardCharsets.UTF_8));
+        }
+        response.setContent(content);
+        headers.add(header("Content-Length", String.valueOf(body.length)));
+        response.setRedirectURL("");
+        response.setHeadersSize(-1L);
+        response.setBodySize((long) body.length);
+        return response;
+    }
+
+    private static HarHeader header(String name, String value) {
+        HarHeader header = new HarHeader();
+        header.setName(name);
+        header.setValue(value);
+        return header;
+    }
+
+    /**
+     * Creates a body of the given length, consisting of text that
+     * resembles markup.
+     * @param length the length in bytes
+     * @return the body
+     */
+    public static byte[] createTextBody(int length) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        int i = 0;
+        while (sb.length() < length) {
+            sb.append("<div class=\"item\" data-index=\"").append(i++).append("\">lorem ipsum dolor sit amet</div>\n");
+        }
+        sb.setLength(length);
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private enum ResourceKind {
+
+        HTML("text/html; charset=UTF-8", false, 24 * 1024),
+        SCRIPT("application/javascript", false, 48 * 1024),
+        JSON("application/json", false, 2 * 1024),
+        STYLESHEET("text/css", false, 8 * 1024),
+        IMAGE("image/png", true, 16 * 1024);
+
+        public final String contentType;
+        public final boolean binary;
+        private final int typicalSize;
+
+        ResourceKind(String contentType, boolean binary, int typicalSize) {
+            this.contentType = contentType;
+            this.binary = binary;
+            this.typicalSize = typicalSize;
+        }
+
+        public String path(int index) {
+            switch (this) {
+                case HTML:
+                    return "/page/" + index + ".html";
+                case SCRIPT:
+                    return "/js/app-" + index + ".js";
+                case JSON:
+                    return "/api/v1/items/" + index;
+                case STYLESHEET:
+                    return "/css/style-" + index + ".css";
+                case IMAGE:
+                    return "/img/photo-" + index + ".png";
+                default:
+                    throw new IllegalStateException("unhandled: " + this);
+            }
+        }
+
+        public byte[] body(Random random, int index) {
+            int size = typicalSize / 2 + random.nextInt(typicalSize);
+            if (binary) {
+                byte[] bytes = new byte[size];
+                random.nextBytes(bytes);
+                return bytes;
+            }
+            return createTextBody(size);
+        }
+    }
+}
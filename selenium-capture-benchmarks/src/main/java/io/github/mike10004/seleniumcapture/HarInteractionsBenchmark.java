@@ -0,0 +1,50 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.HarEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the conversion of HAR requests and responses to immutable messages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HarInteractionsBenchmark {
+
+    private List<HarEntry> entries;
+
+    @Setup
+    public void setUp() {
+        entries = HarFixtures.createHar(100).getLog().getEntries();
+    }
+
+    @Benchmark
+    public void freezeRequests(Blackhole blackhole) {
+        for (HarEntry entry : entries) {
+            blackhole.consume(HarInteractions.freeze(entry.getRequest()));
+        }
+    }
+
+    @Benchmark
+    public void freezeResponses(Blackhole blackhole) {
+        for (HarEntry entry : entries) {
+            blackhole.consume(HarInteractions.freeze(entry.getResponse()));
+        }
+    }
+}
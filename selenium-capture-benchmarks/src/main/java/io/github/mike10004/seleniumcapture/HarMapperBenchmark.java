@@ -0,0 +1,87 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark that compares HAR serialization and deserialization with a new mapper
+ * per operation, as {@link BrowserUpHars} used to do, against shared mappers with
+ * and without the Afterburner module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HarMapperBenchmark {
+
+    public enum MapperSource {
+        UNCACHED,
+        SHARED,
+        SHARED_AFTERBURNER
+    }
+
+    @Param({"UNCACHED", "SHARED", "SHARED_AFTERBURNER"})
+    public MapperSource mapperSource;
+
+    @Param({"1", "50"})
+    public int numEntries;
+
+    private Har har;
+    private String harJson;
+    private HarMapperRegistry registry;
+
+    @Setup
+    public void setUp() throws IOException {
+        har = HarFixtures.createHar(numEntries);
+        StringWriter writer = new StringWriter();
+        BrowserUpHars.writeHar(har, writer);
+        harJson = writer.toString();
+        registry = HarMapperRegistry.create(mapperSource == MapperSource.SHARED_AFTERBURNER);
+    }
+
+    private ObjectWriter writer() {
+        if (mapperSource == MapperSource.UNCACHED) {
+            return new CustomHarMapperFactory().instance(HarReaderMode.STRICT).writerFor(Har.class);
+        }
+        return registry.getWriter();
+    }
+
+    private ObjectReader reader() {
+        if (mapperSource == MapperSource.UNCACHED) {
+            return new CustomHarMapperFactory().instance(HarReaderMode.STRICT).readerFor(Har.class);
+        }
+        return registry.getReader(HarReaderMode.STRICT);
+    }
+
+    @Benchmark
+    public String write() throws IOException {
+        StringWriter writer = new StringWriter(harJson.length());
+        writer().writeValue(writer, har);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Har read() throws IOException {
+        return reader().readValue(new StringReader(harJson));
+    }
+}
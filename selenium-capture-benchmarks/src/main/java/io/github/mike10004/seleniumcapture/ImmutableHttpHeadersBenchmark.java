@@ -0,0 +1,49 @@
+package io.github.mike10004.seleniumcapture;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of construction of immutable copies of message headers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImmutableHttpHeadersBenchmark {
+
+    @Param({"8", "32"})
+    public int numHeaders;
+
+    private HttpHeaders headers;
+
+    @Setup
+    public void setUp() {
+        headers = new DefaultHttpHeaders();
+        headers.add("Content-Type", "text/html; charset=UTF-8");
+        headers.add("Cache-Control", "max-age=3600");
+        for (int i = 2; i < numHeaders; i++) {
+            headers.add(i % 4 == 0 ? "Set-Cookie" : "X-Custom-" + i, "value-" + i + "; Path=/");
+        }
+    }
+
+    @Benchmark
+    public ImmutableHttpHeaders construct() {
+        return new ImmutableHttpHeaders(headers);
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of upstream proxy bypass decisions, which are made for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListHostBypassPredicateBenchmark {
+
+    @Param({"4", "64"})
+    public int numRules;
+
+    private ListHostBypassPredicate predicate;
+    private String[] uris;
+
+    @Setup
+    public void setUp() {
+        HostBypassRuleFactory ruleFactory = HostBypassRuleFactory.createDefault();
+        List<HostBypassRule> rules = new ArrayList<>(numRules);
+        String[] templates = {"internal%d.example.com", "*.corp%d.example.org", "10.%d.0.0/16", "192.168.%d.1"};
+        for (int i = 0; i < numRules; i++) {
+            rules.add(ruleFactory.fromSpec(String.format(templates[i % templates.length], i)));
+        }
+        predicate = new ListHostBypassPredicate(rules);
+        uris = new String[]{
+                "https://www.example.com/index.html",
+                "http://internal0.example.com:8080/status",
+                "https://app.corp1.example.org/login",
+                "http://10.2.3.4/",
+                "https://cdn.example.net/js/app.js?v=123",
+        };
+    }
+
+    @Benchmark
+    public void isBypass(Blackhole blackhole) {
+        for (String uri : uris) {
+            blackhole.consume(predicate.isBypass(uri));
+        }
+    }
+}
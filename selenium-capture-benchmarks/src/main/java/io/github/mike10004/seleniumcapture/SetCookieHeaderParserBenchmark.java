@@ -0,0 +1,68 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.apache.http.cookie.MalformedCookieException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of parsing of {@code Set-Cookie} header values, as in a response that sets many cookies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetCookieHeaderParserBenchmark {
+
+    private static final String[] TEMPLATES = {
+            "visit%d=5f2a9c3e77b1d0a4; Domain=www.example.com; Path=/; Max-Age=86400; Secure; HttpOnly; SameSite=Lax",
+            "pref%d=dark; Path=/; Expires=Sat, 01 Oct 2022 12:00:00 GMT",
+            "sid%d=\"a1b2c3d4e5f6\"; Path=/account; Secure",
+            "_ga%d=GA1.2.1234567890.1633089600; Domain=.example.com; Path=/; Expires=Mon, 02 Oct 2023 12:00:00 GMT",
+    };
+
+    @Param({"direct", "httpclient"})
+    public String parserType;
+
+    @Param({"200"})
+    public int numCookies;
+
+    private SetCookieHeaderParser parser;
+    private String[] headerValues;
+    private URL originUrl;
+    private Instant creationDate;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        parser = "direct".equals(parserType) ? SetCookieHeaderParser.create() : SetCookieHeaderParser.createHttpClientBased();
+        headerValues = new String[numCookies];
+        for (int i = 0; i < numCookies; i++) {
+            headerValues[i] = String.format(TEMPLATES[i % TEMPLATES.length], i);
+        }
+        originUrl = new URL("https://www.example.com/account/settings");
+        creationDate = Instant.parse("2021-10-01T12:00:00Z");
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws MalformedCookieException {
+        for (String headerValue : headerValues) {
+            blackhole.consume(parser.parse(headerValue, originUrl, creationDate));
+        }
+    }
+}
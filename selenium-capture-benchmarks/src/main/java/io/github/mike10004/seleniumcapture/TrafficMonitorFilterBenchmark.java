@@ -0,0 +1,96 @@
+package io.github.mike10004.seleniumcapture;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the accumulation of a request and a chunked response by a
+ * {@link TrafficMonitorFilter}, driven through an embedded channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TrafficMonitorFilterBenchmark {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Param({"1024", "65536", "1048576"})
+    public int responseBodySize;
+
+    @Param({"text/html; charset=UTF-8", "image/png"})
+    public String contentType;
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private byte[] responseBody;
+    private Blackhole blackhole;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ctx = channel.pipeline().firstContext();
+        responseBody = HarFixtures.createTextBody(responseBodySize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void accumulate() {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "http://www.example.com/page/1.html?v=1");
+        request.headers().set(HttpHeaderNames.HOST, "www.example.com");
+        request.headers().set(HttpHeaderNames.ACCEPT, "*/*");
+        TrafficMonitor monitor = (httpRequest, httpResponse) -> {
+            blackhole.consume(httpRequest);
+            blackhole.consume(httpResponse);
+        };
+        TrafficMonitorFilter filter = new TrafficMonitorFilter(request, ctx, monitor);
+        filter.clientToProxyRequest(request);
+        filter.clientToProxyRequest(LastHttpContent.EMPTY_LAST_CONTENT);
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, responseBody.length);
+        filter.serverToProxyResponse(response);
+        int offset = 0;
+        while (responseBody.length - offset > CHUNK_SIZE) {
+            filter.serverToProxyResponse(new DefaultHttpContent(Unpooled.wrappedBuffer(responseBody, offset, CHUNK_SIZE)));
+            offset += CHUNK_SIZE;
+        }
+        filter.serverToProxyResponse(new DefaultLastHttpContent(Unpooled.wrappedBuffer(responseBody, offset, responseBody.length - offset)));
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.mike10004.seleniumcapture.chrome;
+
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the time from launching Chrome to having a driver with cookies
+ * installed, comparing the implant extension with a DevTools command. Requires
+ * Chrome and a ChromeDriver executable, located as specified by the
+ * {@code webdriver.chrome.driver} system property or on the {@code PATH}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChromeCookiePreparerBenchmark {
+
+    @Param({"implant", "devtools"})
+    public String preparerType;
+
+    @Param({"10", "200"})
+    public int numCookies;
+
+    private ChromeWebDriverFactory.CookiePreparer preparer;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<DeserializableCookie> cookies = new ArrayList<>(numCookies);
+        Instant expiry = Instant.now().plus(1, ChronoUnit.DAYS);
+        for (int i = 0; i < numCookies; i++) {
+            cookies.add(DeserializableCookie.builder("cookie" + i, "value" + i)
+                    .domain("www" + (i % 8) + ".example.com")
+                    .path("/")
+                    .expiry(expiry)
+                    .build());
+        }
+        switch (preparerType) {
+            case "implant":
+                Path scratchDir = Files.createTempDirectory("chrome-cookie-benchmark");
+                scratchDir.toFile().deleteOnExit();
+                preparer = new ChromeCookiePreparer(scratchDir, () -> cookies);
+                break;
+            case "devtools":
+                preparer = new DevToolsCookiePreparer(() -> cookies);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown preparer type: " + preparerType);
+        }
+    }
+
+    @Benchmark
+    public void startAndPrepareCookies(Blackhole blackhole) throws IOException {
+        ChromeOptions options = new ChromeOptions();
+        // new headless mode supports extensions
+        options.addArguments("--headless=new", "--no-sandbox");
+        preparer.supplementOptions(options);
+        ChromeDriver driver = new ChromeDriver(options);
+        try {
+            preparer.prepareCookies(driver);
+            blackhole.consume(driver.getSessionId());
+        } finally {
+            driver.quit();
+        }
+    }
+}
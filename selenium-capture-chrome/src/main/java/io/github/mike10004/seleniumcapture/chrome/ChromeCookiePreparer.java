@@ -2,6 +2,7 @@ package io.github.mike10004.seleniumcapture.chrome;
 
 import com.github.mike10004.chromecookieimplant.ChromeCookie;
 import com.github.mike10004.chromecookieimplant.ChromeCookieImplanter;
+import com.google.common.io.ByteSource;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import io.github.mike10004.seleniumcapture.chrome.ChromeWebDriverFactory.CookiePreparer;
 import org.openqa.selenium.WebDriverException;
@@ -10,10 +11,9 @@ import org.openqa.selenium.chrome.ChromeOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
@@ -30,26 +30,46 @@ class ChromeCookiePreparer implements CookiePreparer {
 
     private static final Logger log = LoggerFactory.getLogger(ChromeCookiePreparer.class);
 
-    private final Path scratchDir;
+    static final String CRX_CACHE_DIR_NAME = "crx";
+
     private final Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier;
     private final transient ChromeCookieTransform chromeCookieTransform = new ChromeCookieTransform();
     private final ChromeCookieImplanter implanterClient;
+    private final CrxCache crxCache;
+    private volatile File crxFile;
 
     public ChromeCookiePreparer(Path scratchDir, Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier) {
         this(scratchDir, cookiesSupplier, new ChromeCookieImplanter());
     }
 
+    /**
+     * Constructs an instance that caches the implant extension in a directory under the scratch directory.
+     * @param scratchDir the scratch directory
+     * @param cookiesSupplier supplier of cookies to implant
+     * @param implanterClient the implanter
+     */
     public ChromeCookiePreparer(Path scratchDir, Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier, ChromeCookieImplanter implanterClient) {
-        this.scratchDir = checkNotNull(scratchDir);
+        this(cookiesSupplier, implanterClient, CrxCache.create(scratchDir.resolve(CRX_CACHE_DIR_NAME)));
+    }
+
+    public ChromeCookiePreparer(Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier, ChromeCookieImplanter implanterClient, CrxCache crxCache) {
         this.cookiesSupplier = checkNotNull(cookiesSupplier);
         this.implanterClient = checkNotNull(implanterClient);
+        this.crxCache = checkNotNull(crxCache);
     }
 
+    /**
+     * Adds the implant extension to the options. The extension file is obtained
+     * from the CRX cache on first use and reused for later sessions.
+     */
     @Override
     public void supplementOptions(ChromeOptions options) throws IOException {
-        File crxFile = File.createTempFile("chrome-cookie-implant", ".crx", scratchDir.toFile());
-        try (OutputStream crxOut = new FileOutputStream(crxFile)) {
+        File crxFile = this.crxFile;
+        if (crxFile == null || !crxFile.isFile()) {
+            ByteArrayOutputStream crxOut = new ByteArrayOutputStream();
             implanterClient.copyCrxTo(crxOut);
+            crxFile = crxCache.store(ByteSource.wrap(crxOut.toByteArray()));
+            this.crxFile = crxFile;
         }
         options.addExtensions(crxFile);
     }
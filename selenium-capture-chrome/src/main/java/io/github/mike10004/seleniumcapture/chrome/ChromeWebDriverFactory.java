@@ -9,6 +9,7 @@ import io.github.mike10004.seleniumcapture.WebdrivingProxyDefinition;
 import io.github.mike10004.seleniumcapture.WebdrivingSession;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
 import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeDriverService;
@@ -17,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -35,6 +37,10 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
 
     private final CookiePreparer cookiePreparer;
     private final ImmutableList<DriverServiceBuilderConfigurator> driverServiceBuilderConfigurators;
+    private final ImmutableList<ByteSource> extensions;
+    @Nullable
+    private volatile CrxCache crxCache;
+    private volatile ImmutableList<File> extensionFiles;
 
     @SuppressWarnings("unused")
     public ChromeWebDriverFactory() {
@@ -45,6 +51,8 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
         super(builder);
         driverServiceBuilderConfigurators = ImmutableList.copyOf(builder.driverServiceBuilderConfigurators);
         cookiePreparer = builder.cookiePreparer;
+        extensions = ImmutableList.copyOf(builder.extensions);
+        crxCache = builder.crxCache;
     }
 
     public static Builder builder() {
@@ -60,6 +68,7 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
     private ServiceWebdrivingSession createWebDriverMaybeWithProxy(WebdrivingConfig config) throws IOException {
         ChromeOptions chromeOptions = new ChromeOptions();
         configureProxy(chromeOptions, config);
+        chromeOptions.addExtensions(getExtensionFiles());
         cookiePreparer.supplementOptions(chromeOptions);
         ChromeDriverService.Builder serviceBuilder = createDriverServiceBuilder();
         serviceBuilder.withEnvironment(environmentSupplier.get());
@@ -84,6 +93,33 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
         return new ServiceWebdrivingSession(driver, service);
     }
 
+    /**
+     * Gets the cached files of the extensions added to the builder. The extensions
+     * are stored in the cache on first use; they are stored again only if a
+     * cached file has since been deleted. If no cache was specified, a temporary
+     * cache private to this factory is created on first use.
+     */
+    private List<File> getExtensionFiles() throws IOException {
+        if (extensions.isEmpty()) {
+            return ImmutableList.of();
+        }
+        ImmutableList<File> files = extensionFiles;
+        if (files == null || !files.stream().allMatch(File::isFile)) {
+            CrxCache crxCache = this.crxCache;
+            if (crxCache == null) {
+                crxCache = CrxCache.createTemporary();
+                this.crxCache = crxCache;
+            }
+            ImmutableList.Builder<File> builder = ImmutableList.builder();
+            for (ByteSource extension : extensions) {
+                builder.add(crxCache.store(extension));
+            }
+            files = builder.build();
+            extensionFiles = files;
+        }
+        return files;
+    }
+
     protected ChromeDriverService.Builder createDriverServiceBuilder() {
         return new ChromeDriverService.Builder().usingAnyFreePort();
     }
@@ -183,6 +219,17 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
         }
     }
 
+    /**
+     * Creates a cookie preparer that installs cookies with a single DevTools
+     * {@code Network.setCookies} command. Unlike the implant extension, this
+     * requires no extension and loads no page before the driver is returned.
+     * @param cookiesSupplier supplier of cookies to install
+     * @return a new cookie preparer
+     */
+    public static CookiePreparer makeDevToolsCookiePreparer(Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier) {
+        return new DevToolsCookiePreparer(cookiesSupplier);
+    }
+
     private static boolean isIgnoreCookieSupport() {
         return Boolean.parseBoolean(System.getProperty(SYSPROP_IGNORE_COOKIE_IMPLANTER, "false"));
     }
@@ -198,6 +245,9 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
 
         private CookiePreparer cookiePreparer;
         private List<DriverServiceBuilderConfigurator> driverServiceBuilderConfigurators = new ArrayList<>();
+        private final List<ByteSource> extensions = new ArrayList<>();
+        @Nullable
+        private CrxCache crxCache;
 
         private Builder() {
             cookiePreparer = cookielessPreparer();
@@ -231,6 +281,40 @@ public class ChromeWebDriverFactory extends CapableWebDriverFactory<ChromeOption
             return this;
         }
 
+        /**
+         * Adds an extension to be installed in each session. The extension
+         * content is stored in the CRX cache, so that each distinct extension
+         * is written to disk once rather than once per session.
+         * @param crxSource the extension content
+         * @return this builder
+         */
+        public Builder extension(ByteSource crxSource) {
+            extensions.add(checkNotNull(crxSource));
+            return this;
+        }
+
+        /**
+         * Adds an extension file to be installed in each session.
+         * @param crxFile the extension file
+         * @return this builder
+         * @see #extension(ByteSource)
+         */
+        public Builder extension(File crxFile) {
+            return extension(com.google.common.io.Files.asByteSource(crxFile));
+        }
+
+        /**
+         * Sets the cache used for extension files. By default, each factory stores
+         * extensions in a temporary cache of its own; specify a cache such as the
+         * {@link CrxCache#getDefault() default cache} to share it among factories.
+         * @param crxCache the cache
+         * @return this builder
+         */
+        public Builder crxCache(CrxCache crxCache) {
+            this.crxCache = checkNotNull(crxCache);
+            return this;
+        }
+
         public ChromeWebDriverFactory build() {
             return new ChromeWebDriverFactory(this);
         }
@@ -0,0 +1,183 @@
+package io.github.mike10004.seleniumcapture.chrome;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cache of Chrome extension files, keyed by a hash of their content. An extension
+ * is written to the cache directory the first time its content is stored, and the
+ * same file is returned for the same content thereafter, including in other
+ * processes that use the same directory. Files are written to a temporary file
+ * and moved into place, so readers never see partial files, and the content of an
+ * existing file is compared with the content being stored before the file is reused.
+ *
+ * <p>The cache directory is created with owner-only permissions where the file
+ * system supports them, and a directory owned by another user is rejected.
+ */
+public class CrxCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CrxCache.class);
+
+    /**
+     * Name of the system property that specifies the directory used by the {@link #getDefault() default} cache.
+     */
+    public static final String SYSPROP_CACHE_DIR = "selenium-capture.chrome.crxCacheDir";
+
+    private static final String CRX_SUFFIX = ".crx";
+
+    private static final String TEMP_DIR_PREFIX = "selenium-capture-crx";
+
+    private final Path cacheDir;
+    private volatile boolean cacheDirChecked;
+
+    private CrxCache(Path cacheDir) {
+        this.cacheDir = checkNotNull(cacheDir);
+    }
+
+    /**
+     * Creates a cache that stores extensions in the given directory.
+     * The directory is created when the first extension is stored.
+     * @param cacheDir the cache directory
+     * @return a new cache
+     */
+    public static CrxCache create(Path cacheDir) {
+        return new CrxCache(cacheDir);
+    }
+
+    /**
+     * Creates a cache in a new temporary directory that is private to the current user.
+     * @return a new cache
+     * @throws IOException if the directory cannot be created
+     */
+    public static CrxCache createTemporary() throws IOException {
+        return create(Files.createTempDirectory(TEMP_DIR_PREFIX));
+    }
+
+    private static final class DefaultHolder {
+        private static final CrxCache INSTANCE = createDefault();
+    }
+
+    /**
+     * Gets the default cache, which is shared by all users of it in this JVM. Its directory
+     * is the value of the {@link #SYSPROP_CACHE_DIR} system property, if set, or else a
+     * temporary directory created for this JVM. Set the property to a directory such as
+     * {@code ~/.cache/selenium-capture/crx} to keep entries across restarts.
+     * @return the default cache
+     */
+    public static CrxCache getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static CrxCache createDefault() {
+        String dir = System.getProperty(SYSPROP_CACHE_DIR);
+        if (dir != null && !dir.isEmpty()) {
+            return create(Paths.get(dir));
+        }
+        try {
+            return createTemporary();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores extension content in the cache, if not already present.
+     * @param crxSource the extension content
+     * @return the cached extension file
+     * @throws IOException on I/O error
+     */
+    public File store(ByteSource crxSource) throws IOException {
+        return store(crxSource.read());
+    }
+
+    /**
+     * Stores an extension file in the cache, if its content is not already present.
+     * @param crxFile the extension file
+     * @return the cached extension file
+     * @throws IOException on I/O error
+     */
+    public File store(File crxFile) throws IOException {
+        return store(com.google.common.io.Files.asByteSource(crxFile));
+    }
+
+    private File store(byte[] crxBytes) throws IOException {
+        checkCacheDir();
+        HashCode hash = Hashing.sha256().hashBytes(crxBytes);
+        Path entry = cacheDir.resolve(hash + CRX_SUFFIX);
+        if (Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS) && Files.size(entry) == crxBytes.length) {
+            if (Arrays.equals(crxBytes, Files.readAllBytes(entry))) {
+                return entry.toFile();
+            }
+            log.warn("content of {} does not match its name; replacing", entry);
+        }
+        Path tempFile = Files.createTempFile(cacheDir, "extension", ".tmp");
+        try {
+            Files.write(tempFile, crxBytes);
+            try {
+                Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("stored {} bytes in {}", crxBytes.length, entry);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return entry.toFile();
+    }
+
+    /**
+     * Creates the cache directory if it does not exist and checks that it is
+     * owned by the current user.
+     */
+    private void checkCacheDir() throws IOException {
+        if (cacheDirChecked) {
+            return;
+        }
+        if (!Files.isDirectory(cacheDir)) {
+            Files.createDirectories(cacheDir.toAbsolutePath().getParent());
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                try {
+                    Files.createDirectory(cacheDir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+                } catch (FileAlreadyExistsException ignore) {
+                }
+            } else {
+                Files.createDirectories(cacheDir);
+            }
+        }
+        UserPrincipal owner = Files.getOwner(cacheDir);
+        UserPrincipal currentUser = cacheDir.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(currentUser)) {
+            throw new IOException("CRX cache directory " + cacheDir + " is owned by " + owner.getName() + ", not the current user");
+        }
+        cacheDirChecked = true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("cacheDir", cacheDir)
+                .toString();
+    }
+}
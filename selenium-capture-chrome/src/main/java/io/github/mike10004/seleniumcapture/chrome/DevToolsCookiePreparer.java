@@ -0,0 +1,200 @@
+package io.github.mike10004.seleniumcapture.chrome;
+
+import com.github.mike10004.chromecookieimplant.ChromeCookie;
+import com.google.common.base.MoreObjects;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import io.github.mike10004.seleniumcapture.chrome.ChromeWebDriverFactory.CookiePreparer;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.SessionId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Implementation of a cookie preparer that sends all cookies to the browser in a
+ * single DevTools {@code Network.setCookies} command. The command is sent to the
+ * ChromeDriver server's {@code goog/cdp/execute} endpoint, so no extension is
+ * installed and no page is loaded before the driver is returned.
+ */
+class DevToolsCookiePreparer implements CookiePreparer {
+
+    private static final Logger log = LoggerFactory.getLogger(DevToolsCookiePreparer.class);
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier;
+    private final transient ChromeCookieTransform chromeCookieTransform = new ChromeCookieTransform();
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public DevToolsCookiePreparer(Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier) {
+        this(cookiesSupplier, DEFAULT_TIMEOUT);
+    }
+
+    public DevToolsCookiePreparer(Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier, Duration timeout) {
+        this(cookiesSupplier, timeout, HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build());
+    }
+
+    /**
+     * Constructs an instance that sends commands with the given client. The client is
+     * reused for every session, so its connections to the driver server may be reused too.
+     * @param cookiesSupplier supplier of cookies
+     * @param timeout request timeout
+     * @param httpClient client used to send commands
+     */
+    DevToolsCookiePreparer(Supplier<? extends Collection<DeserializableCookie>> cookiesSupplier, Duration timeout, HttpClient httpClient) {
+        this.cookiesSupplier = checkNotNull(cookiesSupplier);
+        this.timeout = checkNotNull(timeout);
+        this.httpClient = checkNotNull(httpClient);
+    }
+
+    @Override
+    public void supplementOptions(ChromeOptions options) {
+        // no op
+    }
+
+    @Override
+    public void prepareCookies(ChromeDriver driver) throws WebDriverException {
+        List<ChromeCookie> chromeCookies = cookiesSupplier.get().stream()
+                .map(chromeCookieTransform::transform)
+                .collect(Collectors.toList());
+        if (chromeCookies.isEmpty()) {
+            return;
+        }
+        sendCommand(resolveEndpoint(driver), chromeCookies);
+        log.debug("{} cookies imported using DevTools", chromeCookies.size());
+    }
+
+    void sendCommand(URI endpoint, Collection<ChromeCookie> chromeCookies) throws WebDriverException {
+        String body = new Gson().toJson(buildCommand(chromeCookies));
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new WebDriverException("failed to send Network.setCookies command to " + endpoint, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("interrupted while sending Network.setCookies command", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new WebDriverException("Network.setCookies failed with status " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    static URI resolveEndpoint(ChromeDriver driver) {
+        CommandExecutor executor = driver.getCommandExecutor();
+        if (!(executor instanceof HttpCommandExecutor)) {
+            throw new WebDriverException("command executor does not communicate over HTTP: " + executor);
+        }
+        SessionId sessionId = driver.getSessionId();
+        if (sessionId == null) {
+            throw new WebDriverException("driver has no session");
+        }
+        URL serverAddress = ((HttpCommandExecutor) executor).getAddressOfRemoteServer();
+        return resolveEndpoint(serverAddress, sessionId);
+    }
+
+    static URI resolveEndpoint(URL serverAddress, SessionId sessionId) {
+        String base = serverAddress.toString();
+        if (!base.endsWith("/")) {
+            base += "/";
+        }
+        return URI.create(base + "session/" + sessionId + "/goog/cdp/execute");
+    }
+
+    /**
+     * Builds the body of a {@code goog/cdp/execute} request that sets the given cookies.
+     * @param chromeCookies the cookies
+     * @return the request body
+     */
+    static JsonObject buildCommand(Collection<ChromeCookie> chromeCookies) {
+        JsonArray cookieParams = new JsonArray(chromeCookies.size());
+        chromeCookies.forEach(c -> cookieParams.add(toCookieParam(c)));
+        JsonObject params = new JsonObject();
+        params.add("cookies", cookieParams);
+        JsonObject command = new JsonObject();
+        command.addProperty("cmd", "Network.setCookies");
+        command.add("params", params);
+        return command;
+    }
+
+    /**
+     * Maps a cookie to a DevTools {@code Network.CookieParam} object.
+     * The {@code sameSite} property is omitted for insecure cookies that have
+     * no restriction, because the browser rejects {@code SameSite=None} cookies
+     * that are not secure.
+     * @param c the cookie
+     * @return the cookie parameter
+     */
+    static JsonObject toCookieParam(ChromeCookie c) {
+        JsonObject p = new JsonObject();
+        p.addProperty("name", c.name);
+        p.addProperty("value", c.value);
+        if (c.url != null) {
+            p.addProperty("url", c.url);
+        }
+        if (c.domain != null) {
+            p.addProperty("domain", c.domain);
+        }
+        if (c.path != null) {
+            p.addProperty("path", c.path);
+        }
+        boolean secure = Boolean.TRUE.equals(c.secure);
+        p.addProperty("secure", secure);
+        p.addProperty("httpOnly", Boolean.TRUE.equals(c.httpOnly));
+        if (c.sameSite != null) {
+            switch (c.sameSite) {
+                case lax:
+                    p.addProperty("sameSite", "Lax");
+                    break;
+                case strict:
+                    p.addProperty("sameSite", "Strict");
+                    break;
+                case no_restriction:
+                    if (secure) {
+                        p.addProperty("sameSite", "None");
+                    }
+                    break;
+            }
+        }
+        if (c.expirationDate != null) {
+            p.addProperty("expires", c.expirationDate);
+        }
+        return p;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("timeout", timeout)
+                .toString();
+    }
+}
@@ -1,12 +1,16 @@
 package io.github.mike10004.seleniumcapture.chrome;
 
 import com.github.mike10004.chromecookieimplant.ChromeCookie;
+import com.github.mike10004.chromecookieimplant.ChromeCookieImplanter;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import com.google.common.collect.ImmutableList;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.chrome.ChromeOptions;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 
@@ -25,6 +29,25 @@ public class ChromeCookiePreparerTest {
         System.out.format("instance: " + instance);
     }
 
+    @Test
+    public void supplementOptions_reusesCachedCrx() throws Exception {
+        CrxCache crxCache = CrxCache.create(tmp.getRoot().toPath().resolve("crx"));
+        ChromeCookiePreparer instance = new ChromeCookiePreparer(ImmutableList::of, new ChromeCookieImplanter(), crxCache);
+        instance.supplementOptions(new ChromeOptions());
+        instance.supplementOptions(new ChromeOptions());
+        new ChromeCookiePreparer(ImmutableList::of, new ChromeCookieImplanter(), crxCache).supplementOptions(new ChromeOptions());
+        assertEquals("crx files in cache", 1, Files.list(tmp.getRoot().toPath().resolve("crx")).count());
+        assertEquals("temp files in scratch dir", 0, Files.list(tmp.getRoot().toPath()).filter(p -> p.toString().endsWith(".crx")).count());
+    }
+
+    @Test
+    public void supplementOptions_defaultCacheUnderScratchDir() throws Exception {
+        Path scratchDir = tmp.newFolder().toPath();
+        new ChromeCookiePreparer(scratchDir, ImmutableList::of).supplementOptions(new ChromeOptions());
+        Path crxDir = scratchDir.resolve(ChromeCookiePreparer.CRX_CACHE_DIR_NAME);
+        assertEquals("crx files in scratch dir cache", 1, Files.list(crxDir).filter(p -> p.toString().endsWith(".crx")).count());
+    }
+
     @Test
     public void ChromeCookieTransform_transform_noExpiryDate() {
         DeserializableCookie d = DeserializableCookie.builder("foo", "bar").domain("example.com").build();
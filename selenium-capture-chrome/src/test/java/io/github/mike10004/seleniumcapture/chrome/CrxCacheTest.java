@@ -0,0 +1,60 @@
+package io.github.mike10004.seleniumcapture.chrome;
+
+import com.google.common.io.ByteSource;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CrxCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void store() throws Exception {
+        Path cacheDir = tmp.getRoot().toPath().resolve("crx");
+        ByteSource a = ByteSource.wrap("extension a".getBytes(StandardCharsets.UTF_8));
+        ByteSource b = ByteSource.wrap("extension b".getBytes(StandardCharsets.UTF_8));
+        File aFile = CrxCache.create(cacheDir).store(a);
+        assertArrayEquals("content", a.read(), Files.readAllBytes(aFile.toPath()));
+        long lastModified = aFile.lastModified();
+        assertEquals("same file from another instance", aFile, CrxCache.create(cacheDir).store(a));
+        assertEquals("not rewritten", lastModified, aFile.lastModified());
+        File copy = tmp.newFile("copy.crx");
+        a.copyTo(com.google.common.io.Files.asByteSink(copy));
+        assertEquals("same file for same content", aFile, CrxCache.create(cacheDir).store(copy));
+        assertNotEquals("different file for different content", aFile, CrxCache.create(cacheDir).store(b));
+        assertEquals("entries", 2, Files.list(cacheDir).count());
+    }
+
+    @Test
+    public void store_replacesTamperedEntry() throws Exception {
+        Path cacheDir = tmp.getRoot().toPath().resolve("crx");
+        ByteSource a = ByteSource.wrap("extension a".getBytes(StandardCharsets.UTF_8));
+        File aFile = CrxCache.create(cacheDir).store(a);
+        Files.write(aFile.toPath(), "extension z".getBytes(StandardCharsets.UTF_8));
+        File stored = CrxCache.create(cacheDir).store(a);
+        assertEquals("same entry", aFile, stored);
+        assertArrayEquals("content restored", a.read(), Files.readAllBytes(stored.toPath()));
+    }
+
+    @Test
+    public void store_createsPrivateDirectory() throws Exception {
+        Assume.assumeTrue("posix", FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path cacheDir = tmp.getRoot().toPath().resolve("crx");
+        CrxCache.create(cacheDir).store(ByteSource.wrap(new byte[]{1, 2, 3}));
+        assertEquals("permissions", PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(cacheDir));
+    }
+}
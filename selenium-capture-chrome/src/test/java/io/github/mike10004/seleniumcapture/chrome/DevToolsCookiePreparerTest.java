@@ -0,0 +1,96 @@
+package io.github.mike10004.seleniumcapture.chrome;
+
+import com.github.mike10004.chromecookieimplant.ChromeCookie;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.junit.Test;
+import org.openqa.selenium.remote.SessionId;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DevToolsCookiePreparerTest {
+
+    @Test
+    public void buildCommand() {
+        ChromeCookieTransform transform = new ChromeCookieTransform();
+        Instant expiry = Instant.ofEpochSecond(1700000000L);
+        ChromeCookie a = transform.transform(DeserializableCookie.builder("a", "1").domain("example.com").path("/").expiry(expiry).httpOnly(true).build());
+        ChromeCookie b = transform.transform(DeserializableCookie.builder("b", "2").domain("example.com").path("/x").secure(true).build());
+        JsonObject command = DevToolsCookiePreparer.buildCommand(ImmutableList.of(a, b));
+        assertEquals("cmd", "Network.setCookies", command.get("cmd").getAsString());
+        JsonArray cookies = command.getAsJsonObject("params").getAsJsonArray("cookies");
+        assertEquals("num cookies", 2, cookies.size());
+        JsonObject pa = cookies.get(0).getAsJsonObject();
+        assertEquals("name", "a", pa.get("name").getAsString());
+        assertEquals("value", "1", pa.get("value").getAsString());
+        assertEquals("domain", a.domain, pa.get("domain").getAsString());
+        assertEquals("expires", expiry.getEpochSecond(), pa.get("expires").getAsBigDecimal().longValue());
+        assertEquals("httpOnly", true, pa.get("httpOnly").getAsBoolean());
+        assertFalse("insecure cookie has no sameSite", pa.has("sameSite"));
+        JsonObject pb = cookies.get(1).getAsJsonObject();
+        assertEquals("path", "/x", pb.get("path").getAsString());
+        assertEquals("secure", true, pb.get("secure").getAsBoolean());
+        assertFalse("session cookie has no expiry", pb.has("expires"));
+    }
+
+    @Test
+    public void sendCommand_reusesClient() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        Set<InetSocketAddress> remotes = Collections.synchronizedSet(new HashSet<>());
+        server.createContext("/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            remotes.add(exchange.getRemoteAddress());
+            byte[] response = "{\"value\":null}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        try {
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            DevToolsCookiePreparer preparer = new DevToolsCookiePreparer(Collections::emptyList, Duration.ofSeconds(5), httpClient);
+            ChromeCookie cookie = new ChromeCookieTransform().transform(DeserializableCookie.builder("a", "1").domain("example.com").path("/").build());
+            URI endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/session/abc123/goog/cdp/execute");
+            preparer.sendCommand(endpoint, ImmutableList.of(cookie));
+            preparer.sendCommand(endpoint, ImmutableList.of(cookie));
+            assertEquals("requests", 2, bodies.size());
+            assertEquals("body", DevToolsCookiePreparer.buildCommand(ImmutableList.of(cookie)), JsonParser.parseString(bodies.get(0)));
+            assertEquals("connections", 1, remotes.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void resolveEndpoint() throws Exception {
+        SessionId sessionId = new SessionId("abc123");
+        URI expected = URI.create("http://localhost:9515/session/abc123/goog/cdp/execute");
+        assertEquals(expected, DevToolsCookiePreparer.resolveEndpoint(new URL("http://localhost:9515"), sessionId));
+        assertEquals(expected, DevToolsCookiePreparer.resolveEndpoint(new URL("http://localhost:9515/"), sessionId));
+    }
+}
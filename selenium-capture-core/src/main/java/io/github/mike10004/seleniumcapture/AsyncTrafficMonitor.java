@@ -0,0 +1,220 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Traffic monitor that queues response notifications and delivers them to another
+ * monitor on an executor, so that a slow monitor does not stall the proxy's I/O threads.
+ * Notifications are delivered to the delegate one at a time, in the order they were received.
+ * Other callbacks and properties are passed through to the delegate directly.
+ */
+public class AsyncTrafficMonitor implements TrafficMonitor, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncTrafficMonitor.class);
+
+    private final TrafficMonitor delegate;
+    private final MonitorDispatchSettings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Deque<Notification> queue;
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private boolean draining;
+    private boolean closed;
+
+    /**
+     * Constructs a new instance.
+     * @param delegate the monitor to which notifications are delivered
+     * @param settings dispatch settings
+     */
+    public AsyncTrafficMonitor(TrafficMonitor delegate, MonitorDispatchSettings settings) {
+        this.delegate = requireNonNull(delegate);
+        this.settings = requireNonNull(settings);
+        queue = new ArrayDeque<>(Math.min(settings.getQueueCapacity(), 1024));
+    }
+
+    private static final class Notification {
+
+        public final ImmutableHttpRequest request;
+        public final ImmutableHttpResponse response;
+
+        private Notification(ImmutableHttpRequest request, ImmutableHttpResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+    }
+
+    @Override
+    public void responseReceived(ImmutableHttpRequest httpRequest, ImmutableHttpResponse httpResponse) {
+        Notification notification = new Notification(httpRequest, httpResponse);
+        Notification dropped = null;
+        boolean startDrain = false;
+        lock.lock();
+        try {
+            if (closed) {
+                log.debug("monitor closed; dropping notification of response from {}", httpRequest.url);
+                dropped = notification;
+                return;
+            }
+            if (queue.size() >= settings.getQueueCapacity()) {
+                switch (settings.getOverflowPolicy()) {
+                    case BLOCK:
+                        while (queue.size() >= settings.getQueueCapacity() && !closed) {
+                            notFull.awaitUninterruptibly();
+                        }
+                        if (closed) {
+                            dropped = notification;
+                            return;
+                        }
+                        break;
+                    case DROP_OLDEST:
+                        dropped = queue.pollFirst();
+                        break;
+                    case DROP_NEWEST:
+                        dropped = notification;
+                        return;
+                    default:
+                        throw new IllegalStateException("unhandled policy: " + settings.getOverflowPolicy());
+                }
+            }
+            queue.addLast(notification);
+            if (!draining) {
+                draining = true;
+                startDrain = true;
+            }
+        } finally {
+            lock.unlock();
+            if (dropped != null) {
+                notifyDropped(dropped);
+            }
+        }
+        if (startDrain) {
+            try {
+                settings.getExecutor().execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.warn("executor rejected dispatch task; delivering on calling thread", e);
+                drain();
+            }
+        }
+    }
+
+    private void notifyDropped(Notification notification) {
+        droppedCount.incrementAndGet();
+        try {
+            settings.getDropListener().notificationDropped(notification.request, notification.response);
+        } catch (RuntimeException e) {
+            log.warn("drop listener threw exception on notification of response from {}", notification.request.url, e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Notification notification;
+            lock.lock();
+            try {
+                notification = queue.pollFirst();
+                if (notification == null) {
+                    draining = false;
+                    drained.signalAll();
+                    return;
+                }
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                delegate.responseReceived(notification.request, notification.response);
+            } catch (RuntimeException e) {
+                log.warn("traffic monitor threw exception on notification of response from {}", notification.request.url, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of notifications that were discarded because the queue was full
+     * or the monitor was closed. Each drop is also reported to the
+     * {@link MonitorDispatchSettings#getDropListener() drop listener}.
+     * @return the dropped notification count
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gets the number of notifications waiting to be delivered.
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaximumRequestBufferSizeInBytes() {
+        return delegate.getMaximumRequestBufferSizeInBytes();
+    }
+
+    @Override
+    public int getMaximumResponseBufferSizeInBytes() {
+        return delegate.getMaximumResponseBufferSizeInBytes();
+    }
+
+    @Override
+    public boolean retainsRawResponseContent() {
+        return delegate.retainsRawResponseContent();
+    }
+
+    @Override
+    public void sessionCreated(WeakReference<WebdrivingSession> session) {
+        delegate.sessionCreated(session);
+    }
+
+    /**
+     * Stops accepting notifications and waits until queued notifications have been delivered.
+     * If the calling thread is interrupted while waiting, this method returns early
+     * with the interrupt flag set.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+            while (draining) {
+                drained.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+        long dropped = droppedCount.get();
+        if (dropped > 0) {
+            log.info("{} notifications were dropped by {}", dropped, this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncTrafficMonitor{" +
+                "delegate=" + delegate +
+                ", settings=" + settings +
+                '}';
+    }
+}
@@ -7,7 +7,11 @@ import com.browserup.harreader.model.HarEntry;
 import com.browserup.harreader.model.HarLog;
 import com.browserup.harreader.model.HarRequest;
 import com.browserup.harreader.model.HarResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.MoreObjects;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -28,8 +32,55 @@ import java.util.function.BiConsumer;
  */
 public class BrowserUpHars {
 
+    /**
+     * Name of the system property that enables the Jackson Afterburner module for HAR
+     * serialization and deserialization. Afterburner generates bytecode for faster bean
+     * property access. If the property value is {@code true}, the
+     * {@code com.fasterxml.jackson.module:jackson-module-afterburner} artifact must be
+     * on the classpath; otherwise a warning is logged and the module is not used.
+     */
+    public static final String AFTERBURNER_SYSPROP = "selenium-capture.hars.afterburner";
+
     private BrowserUpHars() {}
 
+    private static final class RegistryHolder {
+
+        private static final HarMapperRegistry INSTANCE = HarMapperRegistry.create(isAfterburnerEnabled());
+
+        private static boolean isAfterburnerEnabled() {
+            if (Boolean.parseBoolean(System.getProperty(AFTERBURNER_SYSPROP))) {
+                if (CustomHarMapperFactory.isAfterburnerAvailable()) {
+                    return true;
+                }
+                LoggerFactory.getLogger(BrowserUpHars.class).warn("{} is true but the Afterburner module is not on the classpath", AFTERBURNER_SYSPROP);
+            }
+            return false;
+        }
+    }
+
+    static ObjectMapper getHarMapper(HarReaderMode mode) {
+        return RegistryHolder.INSTANCE.getMapper(mode);
+    }
+
+    /**
+     * Gets a shared reader of HARs. The reader is thread-safe and may be used to
+     * deserialize HARs from any source that Jackson supports.
+     * @param mode reader mode
+     * @return the reader
+     */
+    public static ObjectReader getHarReader(HarReaderMode mode) {
+        return RegistryHolder.INSTANCE.getReader(mode);
+    }
+
+    /**
+     * Gets a shared writer of HARs. The writer is thread-safe and may be used to
+     * serialize HARs to any destination that Jackson supports.
+     * @return the writer
+     */
+    public static ObjectWriter getHarWriter() {
+        return RegistryHolder.INSTANCE.getWriter();
+    }
+
     /**
      * Serializes a HAR to a stream.
      * @param har har
@@ -37,7 +88,7 @@ public class BrowserUpHars {
      * @throws IOException on I/O error
      */
     public static void writeHar(Har har, Writer writer) throws IOException {
-        new CustomHarMapperFactory().instance(HarReaderMode.STRICT).writeValue(writer, har);
+        getHarWriter().writeValue(writer, har);
     }
 
     /**
@@ -73,7 +124,7 @@ public class BrowserUpHars {
      * @throws IOException on I/O error
      */
     public static Har readHar(Reader reader, HarReaderMode mode) throws IOException {
-        return new CustomHarMapperFactory().instance(mode).readValue(reader, Har.class);
+        return getHarReader(mode).readValue(reader);
     }
 
     /**
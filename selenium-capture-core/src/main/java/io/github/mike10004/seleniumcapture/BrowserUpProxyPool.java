@@ -0,0 +1,372 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSource;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded pool of started proxy servers. Each server is configured and started once,
+ * then lent out for a collection session and reset when it is returned. Idle servers
+ * are stopped after the idle time specified in the settings, and servers that fail
+ * the health check are discarded.
+ */
+class BrowserUpProxyPool implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BrowserUpProxyPool.class);
+
+    private final ProxyPoolSettings settings;
+    private final Supplier<? extends BrowserUpProxy> instantiator;
+    private final Consumer<? super BrowserUpProxy> configurator;
+    private final Ticker ticker;
+    private final Semaphore permits;
+    private final Object lock = new Object();
+    private final Deque<PooledProxy> idle;
+    private final List<PooledProxy> leased;
+    @Nullable
+    private final ScheduledExecutorService evictionService;
+    private boolean closed;
+
+    /**
+     * Constructs a new pool.
+     * @param settings pool settings
+     * @param instantiator supplier of new proxy instances
+     * @param configurator action that configures a new proxy instance before it is started
+     */
+    public BrowserUpProxyPool(ProxyPoolSettings settings, Supplier<? extends BrowserUpProxy> instantiator, Consumer<? super BrowserUpProxy> configurator) {
+        this(settings, instantiator, configurator, Ticker.systemTicker(), true);
+    }
+
+    @VisibleForTesting
+    BrowserUpProxyPool(ProxyPoolSettings settings, Supplier<? extends BrowserUpProxy> instantiator, Consumer<? super BrowserUpProxy> configurator, Ticker ticker, boolean scheduleEviction) {
+        this.settings = requireNonNull(settings);
+        this.instantiator = requireNonNull(instantiator);
+        this.configurator = requireNonNull(configurator);
+        this.ticker = requireNonNull(ticker);
+        permits = new Semaphore(settings.getMaxSize(), true);
+        idle = new ArrayDeque<>(settings.getMaxSize());
+        leased = new ArrayList<>(settings.getMaxSize());
+        if (scheduleEviction) {
+            evictionService = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("proxy-pool-eviction-%d")
+                    .build());
+            long periodMs = Math.max(1000L, settings.getMaxIdleTime().toMillis() / 2);
+            evictionService.scheduleWithFixedDelay(this::evictIdle, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        } else {
+            evictionService = null;
+        }
+    }
+
+    /**
+     * Borrows a proxy from the pool, waiting if the maximum number of proxies are in use.
+     * The proxy is started and its pool filters are set to the given filters sources.
+     * @param filtersSources filters sources that apply for the duration of the lease
+     * @return the lease
+     * @throws IOException if the pool is closed or no proxy becomes available before the timeout
+     */
+    public Lease borrow(List<? extends HttpFiltersSource> filtersSources) throws IOException {
+        try {
+            if (!permits.tryAcquire(settings.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("timed out waiting for pooled proxy after " + settings.getBorrowTimeout());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for pooled proxy");
+        }
+        PooledProxy entry;
+        try {
+            entry = takeHealthyOrCreate();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        entry.filters.setDelegates(filtersSources);
+        return new Lease(entry);
+    }
+
+    private PooledProxy takeHealthyOrCreate() throws IOException {
+        List<PooledProxy> unhealthy = new ArrayList<>(0);
+        PooledProxy entry = null;
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("pool is closed");
+            }
+            while (entry == null && !idle.isEmpty()) {
+                PooledProxy candidate = idle.pollFirst();
+                if (isHealthy(candidate)) {
+                    entry = candidate;
+                } else {
+                    unhealthy.add(candidate);
+                }
+            }
+        }
+        unhealthy.forEach(this::discard);
+        if (entry == null) {
+            entry = create();
+        }
+        synchronized (lock) {
+            leased.add(entry);
+        }
+        return entry;
+    }
+
+    private PooledProxy create() {
+        BrowserUpProxy proxy = instantiator.get();
+        SwitchableFiltersSource filters = new SwitchableFiltersSource();
+        // per-lease filters precede any filters added by the configurator
+        proxy.addLastHttpFilterFactory(filters);
+        configurator.accept(proxy);
+        proxy.start();
+        log.debug("started pooled proxy on port {}", proxy.getPort());
+        return new PooledProxy(proxy, filters);
+    }
+
+    private boolean isHealthy(PooledProxy entry) {
+        try {
+            return settings.getHealthCheck().test(entry.proxy);
+        } catch (RuntimeException e) {
+            log.info("health check failed on pooled proxy: {}", e.toString());
+            return false;
+        }
+    }
+
+    private void discard(PooledProxy entry) {
+        try {
+            if (isStoppable(entry.proxy)) {
+                entry.proxy.stop();
+            }
+        } catch (RuntimeException e) {
+            log.warn("failed to stop pooled proxy", e);
+        }
+    }
+
+    private static boolean isStoppable(BrowserUpProxy proxy) {
+        if (proxy instanceof BrowserUpProxyServer) {
+            return proxy.isStarted() && !((BrowserUpProxyServer) proxy).isStopped();
+        }
+        return proxy.isStarted();
+    }
+
+    private void giveBack(PooledProxy entry, boolean reusable) {
+        entry.filters.setDelegates(ImmutableList.of());
+        boolean discard;
+        synchronized (lock) {
+            leased.remove(entry);
+            discard = closed || !reusable || !isHealthy(entry);
+            if (!discard) {
+                entry.idleSince = ticker.read();
+                idle.addFirst(entry);
+            }
+        }
+        if (discard) {
+            discard(entry);
+        }
+        permits.release();
+    }
+
+    /**
+     * Stops and removes servers that have been idle for longer than the maximum idle time.
+     * @return the number of servers evicted
+     */
+    @VisibleForTesting
+    int evictIdle() {
+        long maxIdleNanos = settings.getMaxIdleTime().toNanos();
+        long now = ticker.read();
+        List<PooledProxy> evicted = new ArrayList<>(0);
+        synchronized (lock) {
+            for (Iterator<PooledProxy> it = idle.iterator(); it.hasNext();) {
+                PooledProxy entry = it.next();
+                if (now - entry.idleSince >= maxIdleNanos) {
+                    it.remove();
+                    evicted.add(entry);
+                }
+            }
+        }
+        evicted.forEach(this::discard);
+        if (!evicted.isEmpty()) {
+            log.debug("evicted {} idle pooled proxies", evicted.size());
+        }
+        return evicted.size();
+    }
+
+    /**
+     * Gets the number of idle servers in the pool.
+     * @return the idle count
+     */
+    public int getIdleCount() {
+        synchronized (lock) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Gets the number of servers currently lent out.
+     * @return the leased count
+     */
+    public int getLeasedCount() {
+        synchronized (lock) {
+            return leased.size();
+        }
+    }
+
+    /**
+     * Closes the pool. Idle servers are stopped immediately, and leased servers
+     * are stopped when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledProxy> toStop;
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toStop = new ArrayList<>(idle);
+            idle.clear();
+        }
+        if (evictionService != null) {
+            evictionService.shutdownNow();
+        }
+        toStop.forEach(this::discard);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("settings", settings)
+                .add("idle", getIdleCount())
+                .add("leased", getLeasedCount())
+                .toString();
+    }
+
+    private static final class PooledProxy {
+
+        public final BrowserUpProxy proxy;
+        public final SwitchableFiltersSource filters;
+        public long idleSince;
+
+        private PooledProxy(BrowserUpProxy proxy, SwitchableFiltersSource filters) {
+            this.proxy = requireNonNull(proxy);
+            this.filters = requireNonNull(filters);
+        }
+    }
+
+    /**
+     * Lease of a proxy server from the pool. A lease must be returned exactly once,
+     * either by {@link #release()} or {@link #invalidate()}.
+     */
+    public final class Lease {
+
+        private final PooledProxy entry;
+        private boolean returned;
+
+        private Lease(PooledProxy entry) {
+            this.entry = requireNonNull(entry);
+        }
+
+        /**
+         * Gets the leased proxy server.
+         * @return the proxy
+         */
+        public BrowserUpProxy getProxy() {
+            return entry.proxy;
+        }
+
+        /**
+         * Returns the proxy server to the pool for reuse.
+         */
+        public void release() {
+            finish(true);
+        }
+
+        /**
+         * Returns the proxy server to the pool, which stops and discards it.
+         */
+        public void invalidate() {
+            finish(false);
+        }
+
+        private void finish(boolean reusable) {
+            checkState(!returned, "lease already returned");
+            returned = true;
+            giveBack(entry, reusable);
+        }
+    }
+
+    /**
+     * Filters source whose delegates can be replaced while the proxy is running.
+     * Filters are obtained from the delegates current at the time a request arrives.
+     */
+    static class SwitchableFiltersSource extends HttpFiltersSourceAdapter {
+
+        private volatile ImmutableList<HttpFiltersSource> delegates = ImmutableList.of();
+
+        public void setDelegates(List<? extends HttpFiltersSource> delegates) {
+            this.delegates = ImmutableList.copyOf(delegates);
+        }
+
+        @Override
+        public HttpFilters filterRequest(HttpRequest originalRequest) {
+            return filterRequest(originalRequest, null);
+        }
+
+        @Override
+        public HttpFilters filterRequest(HttpRequest originalRequest, @Nullable ChannelHandlerContext ctx) {
+            List<HttpFilters> filtersList = new ArrayList<>(delegates.size());
+            for (HttpFiltersSource delegate : delegates) {
+                HttpFilters filters = delegate.filterRequest(originalRequest, ctx);
+                if (filters != null) {
+                    filtersList.add(filters);
+                }
+            }
+            switch (filtersList.size()) {
+                case 0:
+                    return null;
+                case 1:
+                    return filtersList.get(0);
+                default:
+                    return new HttpFiltersChain(filtersList);
+            }
+        }
+
+        @Override
+        public int getMaximumRequestBufferSizeInBytes() {
+            return delegates.stream().mapToInt(HttpFiltersSource::getMaximumRequestBufferSizeInBytes).max().orElse(0);
+        }
+
+        @Override
+        public int getMaximumResponseBufferSizeInBytes() {
+            return delegates.stream().mapToInt(HttpFiltersSource::getMaximumResponseBufferSizeInBytes).max().orElse(0);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.filters.HttpsAwareFiltersAdapter;
+import com.browserup.bup.proxy.CaptureType;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.net.HostAndPort;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Value class that defines which HTTP interactions are captured, and what parts of them.
+ * Requests are checked by host and URL before any filter that buffers content is
+ * created, and responses are checked by content type and length when the response
+ * headers arrive, so interactions that are not selected are never buffered.
+ * @see TrafficCollector.Builder#captureSelector(CaptureSelector)
+ */
+public final class CaptureSelector {
+
+    /**
+     * Value that indicates there is no maximum body size.
+     */
+    public static final long UNLIMITED_BODY_SIZE = Long.MAX_VALUE;
+
+    private static final CaptureSelector ALL = builder().build();
+
+    private final ImmutableList<String> hostPatterns;
+    private final ImmutableList<Pattern> urlPatterns;
+    private final ImmutableList<String> allowedContentTypes;
+    private final ImmutableList<String> deniedContentTypes;
+    private final long maxBodySize;
+    private final Set<CaptureType> captureTypes;
+
+    private CaptureSelector(Builder builder) {
+        hostPatterns = ImmutableList.copyOf(builder.hostPatterns);
+        urlPatterns = ImmutableList.copyOf(builder.urlPatterns);
+        allowedContentTypes = ImmutableList.copyOf(builder.allowedContentTypes);
+        deniedContentTypes = ImmutableList.copyOf(builder.deniedContentTypes);
+        maxBodySize = builder.maxBodySize;
+        captureTypes = Sets.immutableEnumSet(builder.captureTypes);
+    }
+
+    /**
+     * Returns a selector that captures everything.
+     * @return a selector
+     */
+    public static CaptureSelector all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a new builder of a selector instance. By default, the builder
+     * produces a selector that captures everything.
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Determines whether requests to the given host and URL are selected for capture.
+     * @param host the request host
+     * @param url the request URL
+     * @return true if the request is selected
+     */
+    public boolean isRequestSelected(@Nullable String host, @Nullable String url) {
+        if (!hostPatterns.isEmpty()) {
+            if (host == null || hostPatterns.stream().noneMatch(pattern -> FilenameUtils.wildcardMatch(host, pattern, IOCase.INSENSITIVE))) {
+                return false;
+            }
+        }
+        if (!urlPatterns.isEmpty()) {
+            return url != null && urlPatterns.stream().anyMatch(pattern -> pattern.matcher(url).matches());
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether a response with the given content type is selected for capture.
+     * Denied content types take precedence over allowed content types. If any content types are
+     * allowed, a response without a content type is not selected.
+     * @param contentType value of the content type header, or null
+     * @return true if the response is selected
+     */
+    public boolean isResponseSelected(@Nullable String contentType) {
+        String mimeType = contentType == null ? null : toMimeType(contentType);
+        if (mimeType != null && deniedContentTypes.stream().anyMatch(pattern -> matchesMimeType(mimeType, pattern))) {
+            return false;
+        }
+        if (!allowedContentTypes.isEmpty()) {
+            return mimeType != null && allowedContentTypes.stream().anyMatch(pattern -> matchesMimeType(mimeType, pattern));
+        }
+        return true;
+    }
+
+    boolean isSelected(HttpRequest originalRequest, @Nullable ChannelHandlerContext ctx) {
+        if (hostPatterns.isEmpty() && urlPatterns.isEmpty()) {
+            return true;
+        }
+        if (ctx != null) {
+            HttpsAwareFiltersAdapter adapter = new HttpsAwareFiltersAdapter(originalRequest, ctx);
+            return isRequestSelected(adapter.getHost(originalRequest), adapter.getFullUrl(originalRequest));
+        }
+        String hostHeader = originalRequest.headers().get(HttpHeaderNames.HOST);
+        String host = null;
+        if (hostHeader != null) {
+            try {
+                host = HostAndPort.fromString(hostHeader).getHost();
+            } catch (IllegalArgumentException ignore) {
+            }
+        }
+        return isRequestSelected(host, originalRequest.uri());
+    }
+
+    private static String toMimeType(String contentType) {
+        int semicolon = contentType.indexOf(';');
+        String mimeType = semicolon >= 0 ? contentType.substring(0, semicolon) : contentType;
+        return mimeType.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean matchesMimeType(String mimeType, String pattern) {
+        if (pattern.endsWith("/*")) {
+            return mimeType.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+        return mimeType.equals(pattern);
+    }
+
+    /**
+     * Gets the maximum size of a body whose content is captured. Interactions
+     * with larger bodies are captured without content.
+     * @return the maximum body size in bytes
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Gets the set of capture types.
+     * @return the capture types
+     */
+    public Set<CaptureType> getCaptureTypes() {
+        return captureTypes;
+    }
+
+    /**
+     * Checks whether a capture type is enabled.
+     * @param captureType the capture type
+     * @return true if the capture type is enabled
+     */
+    public boolean isCaptureTypeEnabled(CaptureType captureType) {
+        return captureTypes.contains(captureType);
+    }
+
+    @Override
+    public String toString() {
+        MoreObjects.ToStringHelper h = MoreObjects.toStringHelper(this);
+        if (!hostPatterns.isEmpty()) h.add("hostPatterns", hostPatterns);
+        if (!urlPatterns.isEmpty()) h.add("urlPatterns", urlPatterns);
+        if (!allowedContentTypes.isEmpty()) h.add("allowedContentTypes", allowedContentTypes);
+        if (!deniedContentTypes.isEmpty()) h.add("deniedContentTypes", deniedContentTypes);
+        if (maxBodySize != UNLIMITED_BODY_SIZE) h.add("maxBodySize", maxBodySize);
+        h.add("captureTypes", captureTypes);
+        return h.toString();
+    }
+
+    /**
+     * Builder of capture selector instances.
+     */
+    public static final class Builder {
+
+        private final List<String> hostPatterns = new ArrayList<>();
+        private final List<Pattern> urlPatterns = new ArrayList<>();
+        private final List<String> allowedContentTypes = new ArrayList<>();
+        private final List<String> deniedContentTypes = new ArrayList<>();
+        private long maxBodySize = UNLIMITED_BODY_SIZE;
+        private Set<CaptureType> captureTypes = EnumSet.allOf(CaptureType.class);
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a host pattern. If any host patterns are added, only requests to hosts that
+         * match one of them are captured. Patterns may contain {@code *} and {@code ?} wildcards
+         * and are matched case-insensitively.
+         * @param hostPattern the host pattern, e.g. {@code *.example.com}
+         * @return this builder instance
+         */
+        public Builder host(String hostPattern) {
+            hostPatterns.add(requireNonNull(hostPattern));
+            return this;
+        }
+
+        /**
+         * Adds a URL pattern. If any URL patterns are added, only requests whose full URL
+         * matches one of them are captured.
+         * @param urlPattern regular expression that must match the entire URL
+         * @return this builder instance
+         */
+        public Builder url(Pattern urlPattern) {
+            urlPatterns.add(requireNonNull(urlPattern));
+            return this;
+        }
+
+        /**
+         * Adds a content type to the allow list. If any content types are allowed, only
+         * responses with an allowed content type are captured.
+         * @param contentType a MIME type, such as {@code application/json}, or a
+         *                    wildcard subtype, such as {@code text/*}
+         * @return this builder instance
+         */
+        public Builder allowContentType(String contentType) {
+            allowedContentTypes.add(normalizeContentTypePattern(contentType));
+            return this;
+        }
+
+        /**
+         * Adds a content type to the deny list. Responses with a denied content type
+         * are not captured.
+         * @param contentType a MIME type, such as {@code video/mp4}, or a
+         *                    wildcard subtype, such as {@code image/*}
+         * @return this builder instance
+         */
+        public Builder denyContentType(String contentType) {
+            deniedContentTypes.add(normalizeContentTypePattern(contentType));
+            return this;
+        }
+
+        private static String normalizeContentTypePattern(String contentType) {
+            String pattern = toMimeType(requireNonNull(contentType));
+            checkArgument(pattern.indexOf('/') > 0, "not a MIME type: %s", contentType);
+            return pattern;
+        }
+
+        /**
+         * Sets the maximum size of a body whose content is captured. Interactions with larger
+         * bodies are captured without content.
+         * @param maxBodySize the maximum size in bytes; must not be negative
+         * @return this builder instance
+         */
+        public Builder maxBodySize(long maxBodySize) {
+            checkArgument(maxBodySize >= 0, "maxBodySize must not be negative: %s", maxBodySize);
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        /**
+         * Sets the capture types. By default, all capture types are enabled.
+         * @param captureTypes the capture types
+         * @return this builder instance
+         */
+        public Builder captureTypes(Collection<CaptureType> captureTypes) {
+            this.captureTypes = captureTypes.isEmpty() ? EnumSet.noneOf(CaptureType.class) : EnumSet.copyOf(captureTypes);
+            return this;
+        }
+
+        /**
+         * Builds a selector instance.
+         * @return a new selector instance
+         */
+        public CaptureSelector build() {
+            return new CaptureSelector(this);
+        }
+    }
+}
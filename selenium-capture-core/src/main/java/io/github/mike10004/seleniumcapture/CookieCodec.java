@@ -0,0 +1,82 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.util.function.Consumer;
+
+/**
+ * Interface of a service that encodes and decodes collections of cookies.
+ * Cookies are written to and read from character streams one at a time, so
+ * a collection never needs to be held in memory in its serialized form.
+ * Instances returned by the static factory methods are immutable and safe
+ * for use by multiple threads.
+ */
+public interface CookieCodec {
+
+    /**
+     * Writes cookies to a character stream. The stream is not closed.
+     * @param cookies the cookies
+     * @param out the destination stream
+     * @throws IOException on I/O error
+     */
+    void encode(Iterable<? extends DeserializableCookie> cookies, Writer out) throws IOException;
+
+    /**
+     * Reads cookies from a character stream, passing each one to a consumer as
+     * soon as it has been read. The stream is not closed.
+     * @param in the source stream
+     * @param sink the consumer of cookies
+     * @throws IOException on I/O error or if the input is malformed
+     */
+    void decode(Reader in, Consumer<? super DeserializableCookie> sink) throws IOException;
+
+    /**
+     * Reads all cookies from a character stream. The stream is not closed.
+     * @param in the source stream
+     * @return a list of cookies, in the order they were read
+     * @throws IOException on I/O error or if the input is malformed
+     * @see #decode(Reader, Consumer)
+     */
+    default ImmutableList<DeserializableCookie> decodeAll(Reader in) throws IOException {
+        ImmutableList.Builder<DeserializableCookie> cookies = ImmutableList.builder();
+        decode(in, cookies::add);
+        return cookies.build();
+    }
+
+    /**
+     * Returns a codec for {@code Set-Cookie} header values, one per line.
+     * Cookies are encoded as by {@link CookieUtility#formatSetCookieHeader(DeserializableCookie)}
+     * and decoded with the default {@link SetCookieHeaderParser} as though they
+     * had been set in response to a request for the given URL.
+     * @param originUrl the URL that is the origin of decoded cookies
+     * @return a codec
+     */
+    static CookieCodec setCookieHeaders(URL originUrl) {
+        return new SetCookieHeaderCodec(SetCookieHeaderParser.create(), originUrl);
+    }
+
+    /**
+     * Returns a codec for the Netscape {@code cookies.txt} format, as used
+     * by {@code curl} and {@code wget}. The format does not represent creation dates or
+     * attributes other than domain, path, expiry, secure, and HttpOnly.
+     * @return a codec
+     */
+    static CookieCodec netscape() {
+        return NetscapeCookieCodec.getInstance();
+    }
+
+    /**
+     * Returns a codec for a JSON array of cookies. Cookies are serialized with
+     * the same field names as a {@link com.google.gson.Gson} instance would use,
+     * so the output can be read by Gson and vice versa.
+     * @return a codec
+     * @see DeserializableCookieTypeAdapter
+     */
+    static CookieCodec json() {
+        return JsonCookieCodec.getInstance();
+    }
+}
@@ -26,8 +26,13 @@ public interface CookieCollection {
         return makeCookieList(orderingByCreationDate());
     }
 
+    /**
+     * Returns an ordering of cookies by creation date. Cookies without a creation date
+     * are ordered before cookies with one.
+     * @return an ordering
+     */
     static Ordering<DeserializableCookie> orderingByCreationDate() {
-        return Ordering.natural().onResultOf(DeserializableCookie::getCreationInstant).nullsFirst();
+        return Ordering.natural().nullsFirst().onResultOf(DeserializableCookie::getCreationInstant).nullsFirst();
     }
 
     default ImmutableList<DeserializableCookie> makeCookieList(Comparator<? super DeserializableCookie> ordering) {
@@ -0,0 +1,287 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Reusable buffer of exploded cookies stored in columns, one array per cookie field.
+ * Values are stored as a {@link CookieExploder} would represent them in a map: a field
+ * whose value is the default for its type is stored as null. Rows are appended with
+ * {@link #add(DeserializableCookie)}, and {@link #clear()} empties the buffer without
+ * releasing its arrays, so the buffer can be refilled without allocation. A row may
+ * instead be appended as a map produced by {@link CookieExploder#explode(DeserializableCookie)},
+ * in which case values for that row are read from the map.
+ *
+ * <p>Instances are not safe for use by multiple threads.
+ * @see CookieExploder#explodeAll(java.util.Collection, CookieColumns)
+ */
+public final class CookieColumns {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private int size;
+    private String[] names;
+    private String[] values;
+    private String[] paths;
+    private String[] domains;
+    private ImmutableMap<?, ?>[] attributes;
+    private Instant[] expiryDates;
+    private Instant[] creationDates;
+    private Instant[] lastAccessedDates;
+    private Boolean[] secureFlags;
+    private Boolean[] httpOnlyFlags;
+    private Integer[] versions;
+    private String[] comments;
+    private Map<?, ?>[] explodedMaps;
+
+    public CookieColumns() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public CookieColumns(int initialCapacity) {
+        checkArgument(initialCapacity >= 0, "initialCapacity must be nonnegative");
+        names = new String[initialCapacity];
+        values = new String[initialCapacity];
+        paths = new String[initialCapacity];
+        domains = new String[initialCapacity];
+        attributes = new ImmutableMap<?, ?>[initialCapacity];
+        expiryDates = new Instant[initialCapacity];
+        creationDates = new Instant[initialCapacity];
+        lastAccessedDates = new Instant[initialCapacity];
+        secureFlags = new Boolean[initialCapacity];
+        httpOnlyFlags = new Boolean[initialCapacity];
+        versions = new Integer[initialCapacity];
+        comments = new String[initialCapacity];
+        explodedMaps = new Map<?, ?>[initialCapacity];
+    }
+
+    /**
+     * Gets the number of rows in the buffer.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all rows from the buffer. Capacity is retained.
+     */
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(paths, 0, size, null);
+        Arrays.fill(domains, 0, size, null);
+        Arrays.fill(attributes, 0, size, null);
+        Arrays.fill(expiryDates, 0, size, null);
+        Arrays.fill(creationDates, 0, size, null);
+        Arrays.fill(lastAccessedDates, 0, size, null);
+        Arrays.fill(secureFlags, 0, size, null);
+        Arrays.fill(httpOnlyFlags, 0, size, null);
+        Arrays.fill(versions, 0, size, null);
+        Arrays.fill(comments, 0, size, null);
+        Arrays.fill(explodedMaps, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Ensures the buffer can hold a number of rows without growing.
+     * @param capacity the minimum capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, names.length * 2);
+        names = Arrays.copyOf(names, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+        paths = Arrays.copyOf(paths, newCapacity);
+        domains = Arrays.copyOf(domains, newCapacity);
+        attributes = Arrays.copyOf(attributes, newCapacity);
+        expiryDates = Arrays.copyOf(expiryDates, newCapacity);
+        creationDates = Arrays.copyOf(creationDates, newCapacity);
+        lastAccessedDates = Arrays.copyOf(lastAccessedDates, newCapacity);
+        secureFlags = Arrays.copyOf(secureFlags, newCapacity);
+        httpOnlyFlags = Arrays.copyOf(httpOnlyFlags, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+        comments = Arrays.copyOf(comments, newCapacity);
+        explodedMaps = Arrays.copyOf(explodedMaps, newCapacity);
+    }
+
+    /**
+     * Appends a row containing the fields of a cookie.
+     * @param cookie the cookie
+     * @return the index of the new row
+     */
+    public int add(DeserializableCookie cookie) {
+        ensureCapacity(size + 1);
+        int row = size;
+        names[row] = cookie.getName();
+        values[row] = cookie.getValue();
+        paths[row] = cookie.getPath();
+        domains[row] = cookie.getDomain();
+        ImmutableMap<String, String> attributes_ = cookie.copyAttributes();
+        attributes[row] = attributes_.isEmpty() ? null : attributes_;
+        expiryDates[row] = cookie.getExpiryInstant();
+        creationDates[row] = cookie.getCreationInstant();
+        lastAccessedDates[row] = cookie.getLastAccessedInstant();
+        secureFlags[row] = cookie.isSecure() ? Boolean.TRUE : null;
+        httpOnlyFlags[row] = cookie.isHttpOnly() ? Boolean.TRUE : null;
+        versions[row] = cookie.getVersion() != 0 ? cookie.getVersion() : null;
+        comments[row] = cookie.getComment();
+        size++;
+        return row;
+    }
+
+    /**
+     * Appends a row containing the entries of an exploded cookie map. The map is
+     * copied, and all values for the row are read from the copy.
+     * @param explodedCookie the exploded cookie
+     * @return the index of the new row
+     */
+    public int add(Map<String, Object> explodedCookie) {
+        ensureCapacity(size + 1);
+        int row = size;
+        explodedMaps[row] = Collections.unmodifiableMap(new LinkedHashMap<>(explodedCookie));
+        size++;
+        return row;
+    }
+
+    public String getName(int row) {
+        return (String) get(row, StandardCookieExploder.FIELD_NAME);
+    }
+
+    public String getValue(int row) {
+        return (String) get(row, StandardCookieExploder.FIELD_VALUE);
+    }
+
+    @Nullable
+    public String getPath(int row) {
+        return (String) get(row, DeserializableCookie.FIELD_PATH);
+    }
+
+    @Nullable
+    public String getDomain(int row) {
+        return (String) get(row, DeserializableCookie.FIELD_DOMAIN);
+    }
+
+    /**
+     * Gets the attributes of the cookie in a row.
+     * @param row the row index
+     * @return the attributes, or null if the cookie has no attributes
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getAttributes(int row) {
+        return (Map<String, String>) get(row, DeserializableCookie.FIELD_ATTRIBUTES);
+    }
+
+    @Nullable
+    public Instant getExpiryDate(int row) {
+        return (Instant) get(row, DeserializableCookie.FIELD_EXPIRY_DATE);
+    }
+
+    @Nullable
+    public Instant getCreationDate(int row) {
+        return (Instant) get(row, DeserializableCookie.FIELD_CREATION_DATE);
+    }
+
+    @Nullable
+    public Instant getLastAccessed(int row) {
+        return (Instant) get(row, DeserializableCookie.FIELD_LAST_ACCESSED);
+    }
+
+    public boolean isSecure(int row) {
+        return Boolean.TRUE.equals(get(row, DeserializableCookie.FIELD_IS_SECURE));
+    }
+
+    public boolean isHttpOnly(int row) {
+        return Boolean.TRUE.equals(get(row, DeserializableCookie.FIELD_HTTP_ONLY));
+    }
+
+    @Nullable
+    public String getComment(int row) {
+        return (String) get(row, StandardCookieExploder.FIELD_COMMENT);
+    }
+
+    /**
+     * Gets the value that an exploded cookie map would contain for a given key.
+     * @param row the row index
+     * @param fieldName the key, which is the name of a {@link DeserializableCookie} field
+     * @return the value, or null if the map would not contain the key
+     * @see CookieExploder#explode(DeserializableCookie)
+     */
+    @Nullable
+    public Object get(int row, String fieldName) {
+        checkElementIndex(row, size);
+        if (explodedMaps[row] != null) {
+            return explodedMaps[row].get(fieldName);
+        }
+        switch (fieldName) {
+            case StandardCookieExploder.FIELD_NAME:
+                return names[row];
+            case StandardCookieExploder.FIELD_VALUE:
+                return values[row];
+            case DeserializableCookie.FIELD_PATH:
+                return paths[row];
+            case DeserializableCookie.FIELD_DOMAIN:
+                return domains[row];
+            case DeserializableCookie.FIELD_ATTRIBUTES:
+                return attributes[row];
+            case DeserializableCookie.FIELD_EXPIRY_DATE:
+                return expiryDates[row];
+            case DeserializableCookie.FIELD_CREATION_DATE:
+                return creationDates[row];
+            case DeserializableCookie.FIELD_LAST_ACCESSED:
+                return lastAccessedDates[row];
+            case DeserializableCookie.FIELD_IS_SECURE:
+                return secureFlags[row];
+            case DeserializableCookie.FIELD_HTTP_ONLY:
+                return httpOnlyFlags[row];
+            case StandardCookieExploder.FIELD_VERSION:
+                return versions[row];
+            case StandardCookieExploder.FIELD_COMMENT:
+                return comments[row];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Creates the exploded cookie map for a row.
+     * @param row the row index
+     * @return a new map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toMap(int row) {
+        checkElementIndex(row, size);
+        if (explodedMaps[row] != null) {
+            return new LinkedHashMap<>((Map<String, Object>) explodedMaps[row]);
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (String fieldName : StandardCookieExploder.FIELD_NAMES) {
+            Object value = get(row, fieldName);
+            if (value != null) {
+                map.put(fieldName, value);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size)
+                .add("capacity", names.length)
+                .toString();
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.mike10004.seleniumcapture;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Interface of a service that is notified when expired cookies are evicted from a collection.
+ * @see MergeableCookieCollection#evictExpired(Instant)
+ */
+public interface CookieEvictionListener {
+
+    /**
+     * Invoked after cookies have been evicted.
+     * @param evicted the evicted cookies, in order of expiry; never empty
+     * @param now the instant against which expiry was checked
+     */
+    void cookiesEvicted(List<DeserializableCookie> evicted, Instant now);
+
+}
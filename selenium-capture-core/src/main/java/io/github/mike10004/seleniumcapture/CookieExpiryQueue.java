@@ -0,0 +1,116 @@
+package io.github.mike10004.seleniumcapture;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Queue of cookies ordered by expiry. Removal is lazy: the owner of the queue
+ * reports entries that are no longer live with {@link #markStale(Predicate)}, and such
+ * entries are discarded when they reach the head of the queue or when the queue
+ * is compacted. Compaction happens when stale entries outnumber live ones, so
+ * its cost is amortized over the updates that made entries stale.
+ *
+ * <p>Instances are not safe for use by multiple threads.
+ */
+final class CookieExpiryQueue {
+
+    private static final int MIN_STALE_FOR_COMPACTION = 64;
+
+    private PriorityQueue<Entry> queue;
+    private int staleCount;
+
+    public CookieExpiryQueue() {
+        queue = new PriorityQueue<>();
+    }
+
+    /**
+     * Adds a cookie to the queue if it has an expiry.
+     * @param key the cookie key
+     * @param cookie the cookie
+     * @return true if the cookie was added
+     * @see DeserializableCookie#getBestExpiry()
+     */
+    public boolean offer(CookieKey key, DeserializableCookie cookie) {
+        @Nullable Instant expiry = cookie.getBestExpiry();
+        if (expiry == null) {
+            return false;
+        }
+        queue.add(new Entry(expiry, key, cookie));
+        return true;
+    }
+
+    /**
+     * Reports that an entry previously added is no longer live.
+     * @param isLive predicate used to identify live entries if the queue is compacted
+     */
+    public void markStale(Predicate<? super Entry> isLive) {
+        staleCount++;
+        if (staleCount >= MIN_STALE_FOR_COMPACTION && staleCount > queue.size() / 2) {
+            compact(isLive);
+        }
+    }
+
+    private void compact(Predicate<? super Entry> isLive) {
+        List<Entry> live = new ArrayList<>(queue.size() - staleCount);
+        for (Entry entry : queue) {
+            if (isLive.test(entry)) {
+                live.add(entry);
+            }
+        }
+        queue = new PriorityQueue<>(live);
+        staleCount = 0;
+    }
+
+    /**
+     * Removes entries that expire at or before the given instant. Live entries
+     * are passed to the consumer; stale entries are discarded.
+     * @param now the instant
+     * @param isLive predicate that identifies live entries
+     * @param expiredAction consumer of live expired entries
+     */
+    public void pollExpired(Instant now, Predicate<? super Entry> isLive, Consumer<? super Entry> expiredAction) {
+        requireNonNull(now, "now");
+        while (!queue.isEmpty() && !queue.peek().expiry.isAfter(now)) {
+            Entry entry = queue.poll();
+            if (isLive.test(entry)) {
+                expiredAction.accept(entry);
+            } else {
+                staleCount = Math.max(0, staleCount - 1);
+            }
+        }
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public void clear() {
+        queue.clear();
+        staleCount = 0;
+    }
+
+    static final class Entry implements Comparable<Entry> {
+
+        public final Instant expiry;
+        public final CookieKey key;
+        public final DeserializableCookie cookie;
+
+        private Entry(Instant expiry, CookieKey key, DeserializableCookie cookie) {
+            this.expiry = expiry;
+            this.key = key;
+            this.cookie = cookie;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return expiry.compareTo(other.expiry);
+        }
+    }
+}
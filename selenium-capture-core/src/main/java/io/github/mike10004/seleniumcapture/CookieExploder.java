@@ -1,5 +1,6 @@
 package io.github.mike10004.seleniumcapture;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -14,5 +15,20 @@ public interface CookieExploder {
 
     Map<String, Object> explode(DeserializableCookie cookie);
 
-}
+    /**
+     * Explodes a collection of cookies into a columnar buffer. The buffer is
+     * cleared first, and then contains one row per cookie, in iteration order.
+     * The default implementation adds the map produced by {@link #explode(DeserializableCookie)}
+     * for each cookie.
+     * @param cookies the cookies
+     * @param buffer the buffer to fill
+     */
+    default void explodeAll(Collection<? extends DeserializableCookie> cookies, CookieColumns buffer) {
+        buffer.clear();
+        buffer.ensureCapacity(cookies.size());
+        for (DeserializableCookie cookie : cookies) {
+            buffer.add(explode(cookie));
+        }
+    }
 
+}
@@ -0,0 +1,313 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.InternetDomainName;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index that answers the question of which cookies a browser would send with
+ * a request for a given URL. Cookies are stored in a trie of domain labels, from
+ * the top-level domain down, and within each domain node in buckets keyed by
+ * cookie path. A query visits one node per label of the URL host and, at each node,
+ * looks up only the buckets whose paths path-match the URL path, so its cost does not
+ * depend on the number of cookies in the index.
+ *
+ * <p>Domain and path matching follow RFC 6265 sections 5.1.3 and 5.1.4. A cookie
+ * without a {@code Domain} attribute is host-only: it matches only the host that set it.
+ * A cookie whose {@code Domain} attribute is a public suffix or an IP address is
+ * treated as host-only for that domain, as browsers do. Expired cookies and, for
+ * URLs with insecure schemes, secure cookies are excluded from query results.
+ *
+ * <p>As in a browser cookie jar, the index holds one cookie per domain/name/path
+ * key; when a cookie is added with the same key as an existing one, the more recently
+ * created cookie is retained. Instances are safe for use by multiple threads, and
+ * queries do not block while cookies are being added or removed.
+ */
+public final class CookieIndex {
+
+    private static final Comparator<DeserializableCookie> RESULT_ORDERING =
+            Comparator.<DeserializableCookie>comparingInt(cookie -> cookie.getPath() == null ? 0 : cookie.getPath().length()).reversed()
+                    .thenComparing(CookieCollection.orderingByCreationDate());
+
+    private final Comparator<? super DeserializableCookie> ordering;
+    private final Node root;
+    private final AtomicInteger size;
+
+    private CookieIndex() {
+        ordering = CookieCollection.orderingByCreationDate();
+        root = new Node();
+        size = new AtomicInteger(0);
+    }
+
+    /**
+     * Creates an empty index.
+     * @return a new index
+     */
+    public static CookieIndex create() {
+        return new CookieIndex();
+    }
+
+    /**
+     * Creates an index containing the given cookies.
+     * @param cookies the cookies
+     * @return a new index
+     */
+    public static CookieIndex build(Iterable<? extends DeserializableCookie> cookies) {
+        CookieIndex index = new CookieIndex();
+        for (DeserializableCookie cookie : cookies) {
+            index.add(cookie);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a cookie to the index.
+     * @param cookie the cookie
+     * @return true if the cookie was added, false if the cookie has no domain or an
+     * existing cookie with the same key was created more recently
+     */
+    public boolean add(DeserializableCookie cookie) {
+        requireNonNull(cookie, "cookie");
+        @Nullable Placement placement = Placement.of(cookie);
+        if (placement == null) {
+            return false;
+        }
+        Node node = root;
+        for (String label : placement.reversedLabels()) {
+            node = node.children.computeIfAbsent(label, k -> new Node());
+        }
+        ConcurrentMap<String, DeserializableCookie> bucket = node.paths(placement.hostOnly)
+                .computeIfAbsent(placement.path, k -> new ConcurrentHashMap<>(4));
+        boolean[] added = {false};
+        bucket.compute(cookie.getName(), (name, incumbent) -> {
+            if (incumbent == null) {
+                size.incrementAndGet();
+                added[0] = true;
+                return cookie;
+            }
+            if (ordering.compare(cookie, incumbent) > 0) {
+                added[0] = true;
+                return cookie;
+            }
+            return incumbent;
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes a cookie from the index.
+     * @param cookie the cookie
+     * @return true if the cookie was in the index
+     */
+    public boolean remove(DeserializableCookie cookie) {
+        requireNonNull(cookie, "cookie");
+        @Nullable Placement placement = Placement.of(cookie);
+        if (placement == null) {
+            return false;
+        }
+        Node node = root;
+        for (String label : placement.reversedLabels()) {
+            node = node.children.get(label);
+            if (node == null) {
+                return false;
+            }
+        }
+        @Nullable ConcurrentMap<String, DeserializableCookie> bucket = node.paths(placement.hostOnly).get(placement.path);
+        if (bucket != null && bucket.remove(cookie.getName(), cookie)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of cookies in the index.
+     * @return the number of cookies
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets the cookies that a browser would send with a request for a URL.
+     * The cookies are ordered as in a {@code Cookie} request header: cookies with
+     * longer paths first, and among cookies with equal path lengths, earlier-created
+     * cookies first.
+     * @param url the URL
+     * @param now the instant against which cookie expiry is checked
+     * @return a list of cookies
+     */
+    public ImmutableList<DeserializableCookie> cookiesFor(URI url, Instant now) {
+        requireNonNull(url, "url");
+        requireNonNull(now, "now");
+        @Nullable String host = url.getHost();
+        if (host == null || host.isEmpty()) {
+            return ImmutableList.of();
+        }
+        host = normalizeDomain(host);
+        boolean secureScheme = "https".equalsIgnoreCase(url.getScheme()) || "wss".equalsIgnoreCase(url.getScheme());
+        List<String> candidatePaths = getMatchingCookiePaths(url.getRawPath());
+        List<DeserializableCookie> cookies = new ArrayList<>();
+        Node node = root;
+        int end = host.length();
+        while (end > 0) {
+            int start = host.lastIndexOf('.', end - 1) + 1;
+            node = node.children.get(host.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            collect(node.domainPaths, candidatePaths, secureScheme, now, cookies);
+            if (start == 0) {
+                collect(node.hostOnlyPaths, candidatePaths, secureScheme, now, cookies);
+            }
+            end = start - 1;
+        }
+        cookies.sort(RESULT_ORDERING);
+        return ImmutableList.copyOf(cookies);
+    }
+
+    private static void collect(ConcurrentMap<String, ConcurrentMap<String, DeserializableCookie>> paths,
+                                List<String> candidatePaths, boolean secureScheme, Instant now,
+                                List<DeserializableCookie> destination) {
+        if (paths.isEmpty()) {
+            return;
+        }
+        for (String path : candidatePaths) {
+            @Nullable ConcurrentMap<String, DeserializableCookie> bucket = paths.get(path);
+            if (bucket != null) {
+                for (DeserializableCookie cookie : bucket.values()) {
+                    if ((secureScheme || !cookie.isSecure()) && !isExpired(cookie, now)) {
+                        destination.add(cookie);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isExpired(DeserializableCookie cookie, Instant now) {
+        @Nullable Instant expiry = cookie.getBestExpiry();
+        return expiry != null && !expiry.isAfter(now);
+    }
+
+    /**
+     * Gets the cookie paths that path-match a request path, as defined in RFC 6265 section 5.1.4.
+     * @param requestPath the raw request path
+     * @return a list of distinct cookie paths
+     */
+    static List<String> getMatchingCookiePaths(@Nullable String requestPath) {
+        if (requestPath == null || requestPath.isEmpty() || requestPath.charAt(0) != '/') {
+            requestPath = "/";
+        }
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < requestPath.length(); i++) {
+            if (requestPath.charAt(i) == '/') {
+                if (i > 0) {
+                    addIfAbsent(paths, requestPath.substring(0, i));
+                }
+                addIfAbsent(paths, requestPath.substring(0, i + 1));
+            }
+        }
+        addIfAbsent(paths, requestPath);
+        return paths;
+    }
+
+    private static void addIfAbsent(List<String> paths, String path) {
+        if (!paths.contains(path)) {
+            paths.add(path);
+        }
+    }
+
+    private static String normalizeDomain(String domain) {
+        domain = domain.toLowerCase(Locale.ROOT);
+        if (domain.startsWith(".")) {
+            domain = domain.substring(1);
+        }
+        if (domain.endsWith(".")) {
+            domain = domain.substring(0, domain.length() - 1);
+        }
+        return domain;
+    }
+
+    private static boolean isDomainCookieAllowed(String domain) {
+        if (!InternetDomainName.isValid(domain)) {
+            return false;
+        }
+        return !InternetDomainName.from(domain).isPublicSuffix();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size.get())
+                .toString();
+    }
+
+    private static final class Node {
+
+        final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>(4);
+        final ConcurrentMap<String, ConcurrentMap<String, DeserializableCookie>> hostOnlyPaths = new ConcurrentHashMap<>(2);
+        final ConcurrentMap<String, ConcurrentMap<String, DeserializableCookie>> domainPaths = new ConcurrentHashMap<>(2);
+
+        ConcurrentMap<String, ConcurrentMap<String, DeserializableCookie>> paths(boolean hostOnly) {
+            return hostOnly ? hostOnlyPaths : domainPaths;
+        }
+    }
+
+    private static final class Placement {
+
+        final String domain;
+        final boolean hostOnly;
+        final String path;
+
+        private Placement(String domain, boolean hostOnly, String path) {
+            this.domain = domain;
+            this.hostOnly = hostOnly;
+            this.path = path;
+        }
+
+        @Nullable
+        static Placement of(DeserializableCookie cookie) {
+            @Nullable String domainAttribute = cookie.getDomainAttribute();
+            String domain;
+            boolean hostOnly;
+            if (domainAttribute != null && !normalizeDomain(domainAttribute).isEmpty()) {
+                domain = normalizeDomain(domainAttribute);
+                hostOnly = !isDomainCookieAllowed(domain);
+            } else if (cookie.getDomain() != null && !normalizeDomain(cookie.getDomain()).isEmpty()) {
+                domain = normalizeDomain(cookie.getDomain());
+                hostOnly = true;
+            } else {
+                return null;
+            }
+            @Nullable String path = cookie.getPath();
+            if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+                path = "/";
+            }
+            return new Placement(domain, hostOnly, path);
+        }
+
+        List<String> reversedLabels() {
+            List<String> labels = new ArrayList<>();
+            int end = domain.length();
+            while (end > 0) {
+                int start = domain.lastIndexOf('.', end - 1) + 1;
+                labels.add(domain.substring(start, end));
+                end = start - 1;
+            }
+            return labels;
+        }
+    }
+}
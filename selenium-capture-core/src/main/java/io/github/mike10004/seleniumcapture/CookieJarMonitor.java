@@ -0,0 +1,176 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.HttpHeaders;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.MalformedCookieException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Traffic monitor that maintains a cookie jar as responses are received. Each
+ * {@code Set-Cookie} header is parsed when its response is received, and the jar keeps
+ * only the winning cookie for each domain/name/path triplet, as determined by
+ * {@link CookieCollection#orderingByCreationDate()}. The creation date of a cookie
+ * is the instant its response was received.
+ *
+ * <p>This produces the cookies that {@link HarAnalysis#findCookies()} followed by
+ * {@link CookieCollection#makeUltimateCookieList()} would produce, without capturing
+ * a HAR; only the creation dates differ, because they are not derived from HAR timings. Cookies
+ * that delete a cookie (by expiring it) replace the deleted cookie in the jar like any
+ * other; check expiry dates if that matters.
+ *
+ * <p>Instances are safe for use by multiple threads. Responses received concurrently
+ * update the jar concurrently, and {@link #getCookies()} returns a snapshot that reflects
+ * each response either entirely or not at all.
+ */
+public class CookieJarMonitor implements TrafficMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(CookieJarMonitor.class);
+
+    private final SetCookieHeaderParser cookieSpec;
+    private final Supplier<Instant> clock;
+    private final Comparator<? super DeserializableCookie> ordering;
+    private final ConcurrentMap<CookieKey, DeserializableCookie> cookies;
+    /**
+     * Lock that allows updates to proceed concurrently with each other but not with
+     * creation of a snapshot. Updates acquire the read lock, and snapshots acquire
+     * the write lock.
+     */
+    private final ReadWriteLock snapshotLock;
+    private final AtomicLong malformedCount;
+
+    /**
+     * Constructs an instance that uses the default cookie parser.
+     */
+    public CookieJarMonitor() {
+        this(SetCookieHeaderParser.create());
+    }
+
+    /**
+     * Constructs an instance that uses the given cookie parser.
+     * @param cookieSpec the parser; must be safe for use by multiple threads
+     */
+    public CookieJarMonitor(SetCookieHeaderParser cookieSpec) {
+        this(cookieSpec, Instant::now);
+    }
+
+    CookieJarMonitor(SetCookieHeaderParser cookieSpec, Supplier<Instant> clock) {
+        this.cookieSpec = requireNonNull(cookieSpec, "cookieSpec");
+        this.clock = requireNonNull(clock, "clock");
+        ordering = CookieCollection.orderingByCreationDate();
+        cookies = new ConcurrentHashMap<>();
+        snapshotLock = new ReentrantReadWriteLock();
+        malformedCount = new AtomicLong(0);
+    }
+
+    @Override
+    public void responseReceived(ImmutableHttpRequest httpRequest, ImmutableHttpResponse httpResponse) {
+        List<String> headerValues = httpResponse.getHeaderValues(HttpHeaders.SET_COOKIE)
+                .collect(ImmutableList.toImmutableList());
+        if (headerValues.isEmpty()) {
+            return;
+        }
+        URL originUrl;
+        try {
+            originUrl = httpRequest.url.toURL();
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            log.debug("cannot determine cookie origin from {}", httpRequest.url, e);
+            malformedCount.addAndGet(headerValues.size());
+            return;
+        }
+        Instant creationDate = clock.get();
+        ImmutableList.Builder<DeserializableCookie> parsed = ImmutableList.builder();
+        for (String headerValue : headerValues) {
+            try {
+                for (Cookie cookie : cookieSpec.parse(headerValue, originUrl, creationDate)) {
+                    parsed.add((DeserializableCookie) cookie);
+                }
+            } catch (MalformedCookieException e) {
+                log.debug("malformed cookie in response from {}: {}", httpRequest.url, e.toString());
+                malformedCount.incrementAndGet();
+            }
+        }
+        putAll(parsed.build());
+    }
+
+    private void putAll(List<DeserializableCookie> parsed) {
+        snapshotLock.readLock().lock();
+        try {
+            for (DeserializableCookie cookie : parsed) {
+                cookies.merge(CookieKey.from(cookie), cookie, this::selectWinner);
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    private DeserializableCookie selectWinner(DeserializableCookie incumbent, DeserializableCookie challenger) {
+        // consistent with Ordering.max, which keeps the first of equal elements
+        return ordering.compare(challenger, incumbent) > 0 ? challenger : incumbent;
+    }
+
+    /**
+     * Gets a snapshot of the cookies in the jar.
+     * @return a list of cookies with unique domain/name/path triplets
+     */
+    public ImmutableList<DeserializableCookie> getCookies() {
+        snapshotLock.writeLock().lock();
+        try {
+            return ImmutableList.copyOf(cookies.values());
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of cookies in the jar.
+     * @return the number of cookies
+     */
+    public int size() {
+        return cookies.size();
+    }
+
+    /**
+     * Removes all cookies from the jar.
+     */
+    public void clear() {
+        snapshotLock.writeLock().lock();
+        try {
+            cookies.clear();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of cookies that could not be parsed.
+     * @return the count of malformed cookies
+     */
+    public long getMalformedCount() {
+        return malformedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", cookies.size())
+                .add("malformedCount", malformedCount.get())
+                .toString();
+    }
+}
@@ -2,6 +2,8 @@ package io.github.mike10004.seleniumcapture;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import javax.annotation.Nullable;
 import java.util.Objects;
@@ -9,9 +11,13 @@ import java.util.Objects;
 import static java.util.Objects.requireNonNull;
 
 public class CookieKey {
+
+    private static final Interner<CookieKey> interner = Interners.newWeakInterner();
+
     public final String domain;
     public final String name;
     public final String path;
+    private transient int hash;
 
     private CookieKey(String domain, String name, String path) {
         this.domain = requireNonNull(domain);
@@ -44,7 +50,21 @@ public class CookieKey {
 
     @Override
     public int hashCode() {
-        return Objects.hash(domain, name, path);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(domain, name, path);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Returns the canonical instance equal to this key. Keys are held weakly,
+     * so a canonical instance can be garbage-collected once it is no longer referenced.
+     * @return the canonical instance
+     */
+    public CookieKey intern() {
+        return interner.intern(this);
     }
 
     public static CookieKey from(DeserializableCookie cookie) {
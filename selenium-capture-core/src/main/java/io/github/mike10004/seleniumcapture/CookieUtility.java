@@ -19,10 +19,11 @@ import org.apache.http.message.BasicHeader;
 import javax.annotation.Nullable;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
-import java.util.TimeZone;
+import java.util.Locale;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -141,6 +142,34 @@ public class CookieUtility {
 //                && Objects.equals(path, c.getPath());
 //    }
 
+    /**
+     * Returns a function that parses a {@code Set-Cookie} header value into cookies
+     * using the default {@link SetCookieHeaderParser}.
+     * @param cookieOrigin the origin of the response that contained the header
+     * @return the function
+     */
+    public static Function<String, Stream<Cookie>> headerToCookiesFunction(final CookieOrigin cookieOrigin) {
+        checkNotNull(cookieOrigin);
+        SetCookieHeaderParser parser = DirectSetCookieHeaderParser.getInstance();
+        return input -> {
+            try {
+                return parser.parse(input, cookieOrigin, null).stream();
+            } catch (MalformedCookieException e) {
+                throw new IllegalArgumentException(e);
+            }
+        };
+    }
+
+    /**
+     * Returns a function that parses a {@code Set-Cookie} header value into cookies
+     * using the given cookie spec.
+     * @param cookieOrigin the origin of the response that contained the header
+     * @param cookieSpec the cookie spec
+     * @return the function
+     * @deprecated use {@link #headerToCookiesFunction(CookieOrigin)}, which parses without
+     * creating intermediate header objects
+     */
+    @Deprecated
     public static Function<String, Stream<Cookie>> headerToCookiesFunction(final CookieOrigin cookieOrigin, final CookieSpec cookieSpec) {
         return input -> {
             Header header = new BasicHeader(HttpHeaders.SET_COOKIE, input);
@@ -226,7 +255,7 @@ public class CookieUtility {
      * @param referenceDate the date to use for comparison (usually the current time) to the cookie's expiry date
      * @return a predicate that returns true for a cookie that is not expired by the given date
      */
-    public synchronized Predicate<Cookie> notExpiredOn(final Date referenceDate) {
+    public Predicate<Cookie> notExpiredOn(final Date referenceDate) {
         checkNotNull(referenceDate, "date");
         return cookie -> {
             checkNotNull(cookie, "cookie");
@@ -348,20 +377,18 @@ public class CookieUtility {
     private static CharMatcher legalNameChars = CharMatcher.noneOf("=");
     private static CharMatcher legalOtherChars = CharMatcher.noneOf(";");
 
-    private static final SimpleDateFormat dateFormat;
-    static {
-        // Thu, 29-Nov-2018 19:22:24 GMT
-        dateFormat = new SimpleDateFormat("EEE, dd-MMM-yyyy HH:mm:ss zzz");
-        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-    }
+    // Thu, 29-Nov-2018 19:22:24 GMT
+    private static final DateTimeFormatter headerDateFormatter = DateTimeFormatter.ofPattern("EEE, dd-MMM-uuuu HH:mm:ss 'GMT'", Locale.US)
+            .withZone(ZoneOffset.UTC);
 
     protected static String formatDateForHeader(Instant instant) {
-        return formatDateForHeader(Date.from(instant));
+        checkNotNull(instant, "instant");
+        return headerDateFormatter.format(instant);
     }
 
     protected static String formatDateForHeader(Date date) {
         checkNotNull(date, "date");
-        return dateFormat.format(date);
+        return formatDateForHeader(date.toInstant());
     }
 
     protected static @Nullable String getDomain(org.apache.http.cookie.Cookie c) {
@@ -8,6 +8,7 @@ import com.browserup.harreader.model.HarRequest;
 import com.browserup.harreader.model.HarResponse;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -20,8 +21,20 @@ import java.util.Date;
 @VisibleForTesting
 class CustomHarMapperFactory implements MapperFactory {
 
+    private final boolean afterburner;
+
     public CustomHarMapperFactory() {
+        this(false);
+    }
+
+    /**
+     * Constructs an instance.
+     * @param afterburner true to register the Afterburner module, which generates bytecode
+     *                    for faster bean property access; the module must be on the classpath
+     */
+    public CustomHarMapperFactory(boolean afterburner) {
         super();
+        this.afterburner = afterburner;
     }
 
     @Override
@@ -35,9 +48,38 @@ class CustomHarMapperFactory implements MapperFactory {
         module.setMixInAnnotation(HarRequest.class, HarMessageMixin.class);
         module.setMixInAnnotation(HarResponse.class, HarMessageMixin.class);
         mapper.registerModule(module);
+        if (afterburner) {
+            mapper.registerModule(AfterburnerSupport.createModule());
+        }
         return mapper;
     }
 
+    /**
+     * Checks whether the Afterburner module is on the classpath.
+     * @return true if the module is available
+     */
+    static boolean isAfterburnerAvailable() {
+        try {
+            Class.forName("com.fasterxml.jackson.module.afterburner.AfterburnerModule", false, CustomHarMapperFactory.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Holder of the reference to the optional Afterburner module class, so that this
+     * factory can be loaded and verified without the module on the classpath.
+     */
+    private static final class AfterburnerSupport {
+
+        private AfterburnerSupport() {}
+
+        public static Module createModule() {
+            return new com.fasterxml.jackson.module.afterburner.AfterburnerModule();
+        }
+    }
+
     @SuppressWarnings("unused")
     private static abstract class HarMessageMixin {
         @JsonSerialize(using = DefaultSizeToNullSerializer.class)
@@ -23,7 +23,6 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
@@ -73,7 +72,13 @@ public class DeserializableCookie implements ClientCookie {
 
     private DeserializableCookie(Builder builder) {
         name = builder.name;
-        attribs = ImmutableMap.copyOf(builder.attribs.entrySet().stream().filter(e -> e.getValue() != null).collect(Collectors.toSet()));
+        ImmutableMap.Builder<String, String> attribs = ImmutableMap.builderWithExpectedSize(builder.attribs.size());
+        builder.attribs.forEach((key, value) -> {
+            if (value != null) {
+                attribs.put(key, value);
+            }
+        });
+        this.attribs = attribs.build();
         value = builder.value;
         cookieComment = builder.cookieComment;
         cookieDomain = builder.cookieDomain;
@@ -283,6 +288,21 @@ public class DeserializableCookie implements ClientCookie {
         return httpOnly !=  null && httpOnly.booleanValue();
     }
 
+    @Nullable
+    Boolean getSecureFlag() {
+        return isSecure;
+    }
+
+    @Nullable
+    Boolean getHttpOnlyFlag() {
+        return httpOnly;
+    }
+
+    @Nullable
+    Integer getVersionNumber() {
+        return cookieVersion;
+    }
+
     @Override
     public String toString() {
         MoreObjects.ToStringHelper h = MoreObjects.toStringHelper(this).omitNullValues();
@@ -377,6 +397,11 @@ public class DeserializableCookie implements ClientCookie {
             return this;
         }
 
+        Builder removeAttribute(String key) {
+            this.attribs.remove(key);
+            return this;
+        }
+
         @SuppressWarnings("unused")
         public Builder comment(String val) {
             cookieComment = val;
@@ -0,0 +1,186 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Type adapter for cookies that reads and writes fields directly instead of by reflection.
+ * The JSON representation is the same as that produced by a {@link Gson} instance without
+ * this adapter registered: fields have the same names and order, null fields are omitted,
+ * and instants are formatted as ISO-8601 strings. Instances are immutable and safe for
+ * use by multiple threads.
+ */
+public class DeserializableCookieTypeAdapter extends TypeAdapter<DeserializableCookie> {
+
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_VALUE = "value";
+    private static final String FIELD_VERSION = "cookieVersion";
+    private static final String FIELD_COMMENT = "cookieComment";
+
+    private static final DeserializableCookieTypeAdapter INSTANCE = new DeserializableCookieTypeAdapter();
+
+    private final DateTimeFormatter instantFormatter;
+    private final TypeAdapter<Instant> instantParser;
+
+    public DeserializableCookieTypeAdapter() {
+        instantFormatter = IsoFormatInstantTypeAdapter.getDefaultOutputFormatter();
+        instantParser = new DateTolerantInstantTypeAdapter();
+    }
+
+    /**
+     * Gets the shared instance.
+     * @return the instance
+     */
+    public static DeserializableCookieTypeAdapter getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void write(JsonWriter out, DeserializableCookie cookie) throws IOException {
+        if (cookie == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, FIELD_NAME, cookie.getName());
+        writeString(out, FIELD_VALUE, cookie.getValue());
+        writeString(out, DeserializableCookie.FIELD_PATH, cookie.getPath());
+        writeString(out, DeserializableCookie.FIELD_DOMAIN, cookie.getDomain());
+        ImmutableMap<String, String> attributes = cookie.copyAttributes();
+        out.name(DeserializableCookie.FIELD_ATTRIBUTES).beginObject();
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            out.name(attribute.getKey()).value(attribute.getValue());
+        }
+        out.endObject();
+        writeInstant(out, DeserializableCookie.FIELD_EXPIRY_DATE, cookie.getExpiryInstant());
+        writeInstant(out, DeserializableCookie.FIELD_CREATION_DATE, cookie.getCreationInstant());
+        writeInstant(out, DeserializableCookie.FIELD_LAST_ACCESSED, cookie.getLastAccessedInstant());
+        writeBoolean(out, DeserializableCookie.FIELD_IS_SECURE, cookie.getSecureFlag());
+        writeBoolean(out, DeserializableCookie.FIELD_HTTP_ONLY, cookie.getHttpOnlyFlag());
+        @Nullable Integer version = cookie.getVersionNumber();
+        if (version != null) {
+            out.name(FIELD_VERSION).value(version);
+        }
+        writeString(out, FIELD_COMMENT, cookie.getComment());
+        out.endObject();
+    }
+
+    private static void writeString(JsonWriter out, String name, @Nullable String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static void writeBoolean(JsonWriter out, String name, @Nullable Boolean value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private void writeInstant(JsonWriter out, String name, @Nullable Instant value) throws IOException {
+        if (value != null) {
+            out.name(name).value(instantFormatter.format(value));
+        }
+    }
+
+    @Override
+    public DeserializableCookie read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String name = "", value = "", path = null, domain = null, comment = null;
+        Instant expiry = null, creationDate = null, lastAccessed = null;
+        Boolean secure = null, httpOnly = null;
+        Integer version = null;
+        Map<String, String> attributes = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case FIELD_NAME:
+                    name = in.nextString();
+                    break;
+                case FIELD_VALUE:
+                    value = in.nextString();
+                    break;
+                case DeserializableCookie.FIELD_PATH:
+                    path = in.nextString();
+                    break;
+                case DeserializableCookie.FIELD_DOMAIN:
+                    domain = in.nextString();
+                    break;
+                case DeserializableCookie.FIELD_ATTRIBUTES:
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String attributeName = in.nextName();
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            attributes.put(attributeName, in.nextString());
+                        }
+                    }
+                    in.endObject();
+                    break;
+                case DeserializableCookie.FIELD_EXPIRY_DATE:
+                    expiry = instantParser.read(in);
+                    break;
+                case DeserializableCookie.FIELD_CREATION_DATE:
+                    creationDate = instantParser.read(in);
+                    break;
+                case DeserializableCookie.FIELD_LAST_ACCESSED:
+                    lastAccessed = instantParser.read(in);
+                    break;
+                case DeserializableCookie.FIELD_IS_SECURE:
+                    secure = in.nextBoolean();
+                    break;
+                case DeserializableCookie.FIELD_HTTP_ONLY:
+                    httpOnly = in.nextBoolean();
+                    break;
+                case FIELD_VERSION:
+                    version = in.nextInt();
+                    break;
+                case FIELD_COMMENT:
+                    comment = in.nextString();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        DeserializableCookie.Builder cookie = DeserializableCookie.builder(name, value)
+                .attributes(attributes)
+                .path(path)
+                .domain(domain)
+                .comment(comment)
+                .expiry(expiry)
+                .creationDate(creationDate)
+                .lastAccessed(lastAccessed);
+        if (secure != null) {
+            cookie.secure(secure);
+        }
+        if (httpOnly != null) {
+            cookie.httpOnly(httpOnly);
+        }
+        if (version != null) {
+            cookie.version(version);
+        }
+        return cookie.build();
+    }
+}
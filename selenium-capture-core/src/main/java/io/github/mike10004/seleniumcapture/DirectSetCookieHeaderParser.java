@@ -0,0 +1,471 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.apache.http.Header;
+import org.apache.http.cookie.ClientCookie;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.CookieOrigin;
+import org.apache.http.cookie.MalformedCookieException;
+import org.apache.http.cookie.SM;
+
+import javax.annotation.Nullable;
+import java.net.URL;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cookie parser that scans the header value directly. This parser produces the same cookies
+ * as {@link RFC6265SetCookieHeaderParser} with the default attribute handlers, but it does
+ * not create intermediate header, origin, or buffer objects, and names and values are
+ * substrings of the header value unless they contain whitespace that must be collapsed
+ * or quoted text.
+ *
+ * <p>As with the HttpClient {@code max-age} handler, the expiry date implied by a
+ * {@code Max-Age} attribute is relative to the current time, not the creation date.
+ */
+class DirectSetCookieHeaderParser implements SetCookieHeaderParser {
+
+    private static final String LOCAL_FILESYSTEM_DOMAIN = "local_filesystem";
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+
+    private static final DirectSetCookieHeaderParser INSTANCE = new DirectSetCookieHeaderParser();
+
+    private DirectSetCookieHeaderParser() {}
+
+    public static DirectSetCookieHeaderParser getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public List<Cookie> parse(Header header, CookieOrigin origin, @Nullable Instant creationDate) throws MalformedCookieException {
+        requireNonNull(header, "Header");
+        requireNonNull(origin, "Cookie origin");
+        if (!header.getName().equalsIgnoreCase(SM.SET_COOKIE)) {
+            throw new MalformedCookieException("Unrecognized cookie header: '" + header.toString() + "'");
+        }
+        String value = header.getValue();
+        if (value == null) {
+            throw new MalformedCookieException("Header value is null");
+        }
+        return parse(value, origin.getHost(), origin.getPath(), creationDate);
+    }
+
+    @Override
+    public List<Cookie> parse(String setCookieHeaderValue, URL originatingRequestUrl, @Nullable Instant creationDate) throws MalformedCookieException {
+        String host;
+        if ("file".equals(originatingRequestUrl.getProtocol())) {
+            host = LOCAL_FILESYSTEM_DOMAIN;
+        } else {
+            host = originatingRequestUrl.getHost();
+            if (isBlank(host)) {
+                throw new IllegalArgumentException("Host may not be blank");
+            }
+            host = host.toLowerCase(Locale.ROOT);
+        }
+        String path = originatingRequestUrl.getPath();
+        return parse(setCookieHeaderValue, host, isBlank(path) ? "/" : path, creationDate);
+    }
+
+    @Override
+    public List<Cookie> parse(String setCookieHeaderValue, CookieOrigin origin, @Nullable Instant creationDate) throws MalformedCookieException {
+        requireNonNull(setCookieHeaderValue, "header value");
+        requireNonNull(origin, "Cookie origin");
+        return parse(setCookieHeaderValue, origin.getHost(), origin.getPath(), creationDate);
+    }
+
+    /**
+     * Parses a header value.
+     * @param headerValue the value of the {@code Set-Cookie} header
+     * @param originHost the lowercase host of the originating request
+     * @param originPath the path of the originating request
+     * @param creationDate the creation date to assign to the cookie
+     * @return a list containing zero cookies or one cookie
+     * @throws MalformedCookieException if the header value is malformed
+     */
+    List<Cookie> parse(CharSequence headerValue, String originHost, String originPath, @Nullable Instant creationDate) throws MalformedCookieException {
+        Cursor cursor = new Cursor(headerValue);
+        String name = cursor.readToken(true, false);
+        if (name.isEmpty() || cursor.atEnd()) {
+            return Collections.emptyList();
+        }
+        if (cursor.next() != '=') {
+            throw new MalformedCookieException("Cookie value is invalid: '" + SM.SET_COOKIE + ": " + headerValue + "'");
+        }
+        String value = cursor.readToken(false, true);
+        cursor.skipDelimiter();
+        DeserializableCookie.Builder cookie = DeserializableCookie.builder(name, value)
+                .domain(originHost)
+                .path(RFC6265SetCookieHeaderParser.getDefaultPath(originPath))
+                .creationDate(creationDate);
+        String pathValue = null, maxAgeValue = null, expiresValue = null;
+        boolean path = false, maxAge = false, expires = false, secure = false;
+        while (!cursor.atEnd()) {
+            String paramName = cursor.readToken(true, false).toLowerCase(Locale.ROOT);
+            String paramValue = null;
+            if (!cursor.atEnd() && cursor.next() == '=') {
+                paramValue = cursor.readToken(false, false);
+                cursor.skipDelimiter();
+            }
+            cookie.attribute(paramName, paramValue);
+            switch (paramName) {
+                case ClientCookie.PATH_ATTR:
+                    path = true;
+                    pathValue = paramValue;
+                    break;
+                case ClientCookie.MAX_AGE_ATTR:
+                    maxAge = true;
+                    maxAgeValue = paramValue;
+                    break;
+                case ClientCookie.EXPIRES_ATTR:
+                    expires = true;
+                    expiresValue = paramValue;
+                    break;
+                case ClientCookie.SECURE_ATTR:
+                    secure = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (path) {
+            cookie.path(isBlank(pathValue) ? "/" : pathValue);
+        }
+        if (secure) {
+            cookie.secure(true);
+        }
+        if (maxAge) {
+            // Ignore 'Expires' if 'Max-Age' is present
+            cookie.removeAttribute(ClientCookie.EXPIRES_ATTR);
+            applyMaxAge(cookie, maxAgeValue);
+        } else if (expires && !isBlank(expiresValue)) {
+            cookie.expiry(parseExpires(expiresValue));
+        }
+        return Collections.singletonList(cookie.build());
+    }
+
+    private static void applyMaxAge(DeserializableCookie.Builder cookie, @Nullable String value) {
+        if (isBlank(value) || !isInteger(value)) {
+            return;
+        }
+        int age;
+        try {
+            age = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        cookie.expiry(age >= 0 ? Instant.ofEpochMilli(System.currentTimeMillis() + age * 1000L) : Instant.ofEpochMilli(Long.MIN_VALUE));
+    }
+
+    /**
+     * Parses the value of an {@code Expires} attribute with the algorithm of RFC 6265
+     * section 5.1.1, as implemented by HttpClient's {@code LaxExpiresHandler}.
+     */
+    static Instant parseExpires(String value) throws MalformedCookieException {
+        int hour = 0, minute = 0, second = 0, day = 0, month = 0, year = 0;
+        boolean foundTime = false, foundDay = false, foundMonth = false, foundYear = false;
+        int length = value.length(), pos = 0;
+        while (pos < length) {
+            while (pos < length && isDateDelimiter(value.charAt(pos))) {
+                pos++;
+            }
+            int start = pos;
+            while (pos < length && !isDateDelimiter(value.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                break;
+            }
+            int n;
+            if (!foundTime && (n = matchTime(value, start, pos)) >= 0) {
+                foundTime = true;
+                hour = n / 10000;
+                minute = (n / 100) % 100;
+                second = n % 100;
+            } else if (!foundDay && (n = matchDigits(value, start, pos, 1, 2)) >= 0) {
+                foundDay = true;
+                day = n;
+            } else if (!foundMonth && (n = matchMonth(value, start, pos)) >= 0) {
+                foundMonth = true;
+                month = n;
+            } else if (!foundYear && (n = matchDigits(value, start, pos, 2, 4)) >= 0) {
+                foundYear = true;
+                year = n;
+            }
+        }
+        if (!foundTime || !foundDay || !foundMonth || !foundYear) {
+            throw new MalformedCookieException("Invalid 'expires' attribute: " + value);
+        }
+        if (year >= 70 && year <= 99) {
+            year = 1900 + year;
+        }
+        if (year >= 0 && year <= 69) {
+            year = 2000 + year;
+        }
+        if (day < 1 || day > 31 || year < 1601 || hour > 23 || minute > 59 || second > 59) {
+            throw new MalformedCookieException("Invalid 'expires' attribute: " + value);
+        }
+        // days beyond the end of the month roll over, as with a lenient calendar
+        return LocalDate.of(year, month + 1, 1).plusDays(day - 1)
+                .atTime(hour, minute, second)
+                .toInstant(ZoneOffset.UTC);
+    }
+
+    private static boolean isDateDelimiter(char ch) {
+        return ch == '\t' || (ch >= 0x20 && ch <= 0x2f) || (ch >= 0x3b && ch <= 0x40) || (ch >= 0x5b && ch <= 0x60) || (ch >= 0x7b && ch <= 0x7e);
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    /**
+     * Checks whether a character is matched by {@code .} in a regular expression.
+     */
+    private static boolean isLineTerminator(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    /**
+     * Matches {@code [0-9]{min,max}([^0-9].*)?} in a region of a string.
+     * @return the value of the digits, or -1 if the region does not match
+     */
+    private static int matchDigits(String s, int start, int end, int minDigits, int maxDigits) {
+        int n = 0, i = start;
+        while (i < end && isDigit(s.charAt(i))) {
+            if (i - start == maxDigits) {
+                return -1;
+            }
+            n = n * 10 + (s.charAt(i) - '0');
+            i++;
+        }
+        if (i - start < minDigits || !matchesSuffix(s, i, end)) {
+            return -1;
+        }
+        return n;
+    }
+
+    /**
+     * Matches {@code ([^0-9].*)?} in a region of a string.
+     */
+    private static boolean matchesSuffix(String s, int start, int end) {
+        if (start == end) {
+            return true;
+        }
+        if (isDigit(s.charAt(start))) {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            if (isLineTerminator(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matches {@code [0-9]{1,2}:[0-9]{1,2}:[0-9]{1,2}([^0-9].*)?} in a region of a string.
+     * @return hours * 10000 + minutes * 100 + seconds, or -1 if the region does not match
+     */
+    private static int matchTime(String s, int start, int end) {
+        int result = 0, i = start;
+        for (int field = 0; field < 3; field++) {
+            if (field > 0) {
+                if (i >= end || s.charAt(i) != ':') {
+                    return -1;
+                }
+                i++;
+            }
+            int fieldStart = i, n = 0;
+            while (i < end && isDigit(s.charAt(i)) && i - fieldStart < 2) {
+                n = n * 10 + (s.charAt(i) - '0');
+                i++;
+            }
+            if (i == fieldStart) {
+                return -1;
+            }
+            result = result * 100 + n;
+        }
+        return matchesSuffix(s, i, end) ? result : -1;
+    }
+
+    /**
+     * Matches {@code (jan|feb|...|dec)(.*)?}, case-insensitively, in a region of a string.
+     * @return the zero-based month, or -1 if the region does not match
+     */
+    private static int matchMonth(String s, int start, int end) {
+        if (end - start < 3) {
+            return -1;
+        }
+        for (int i = start + 3; i < end; i++) {
+            if (isLineTerminator(s.charAt(i))) {
+                return -1;
+            }
+        }
+        for (int month = 0; month < MONTHS.length; month++) {
+            if (s.regionMatches(true, start, MONTHS[month], 0, 3)) {
+                return month;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isInteger(String value) {
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == value.length()) {
+            return false;
+        }
+        for (int i = start; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBlank(@Nullable CharSequence s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isWhitespace(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n';
+    }
+
+    /**
+     * Position in a header value. Tokens are read with the same whitespace and
+     * quoting rules as HttpClient's {@code TokenParser}.
+     */
+    private static final class Cursor {
+
+        private final CharSequence buffer;
+        private final int length;
+        private int pos;
+
+        public Cursor(CharSequence buffer) {
+            this.buffer = buffer;
+            length = buffer.length();
+        }
+
+        public boolean atEnd() {
+            return pos >= length;
+        }
+
+        public char next() {
+            return buffer.charAt(pos++);
+        }
+
+        public void skipDelimiter() {
+            if (pos < length) {
+                pos++;
+            }
+        }
+
+        private static boolean isDelimiter(char ch, boolean equalsIsDelimiter) {
+            return ch == ';' || (equalsIsDelimiter && ch == '=');
+        }
+
+        /**
+         * Reads a token up to the next delimiter. Leading and trailing whitespace is removed
+         * and interior whitespace is collapsed to a single space.
+         * @param equalsIsDelimiter true if {@code =} is a delimiter, in addition to {@code ;}
+         * @param quoted true if quoted text is to be unquoted
+         * @return the token
+         */
+        public String readToken(boolean equalsIsDelimiter, boolean quoted) {
+            int i = pos;
+            while (i < length && isWhitespace(buffer.charAt(i))) {
+                i++;
+            }
+            int start = i, end = i;
+            boolean simple = true, previousWhitespace = false;
+            for (; i < length; i++) {
+                char ch = buffer.charAt(i);
+                if (isDelimiter(ch, equalsIsDelimiter)) {
+                    break;
+                }
+                if (isWhitespace(ch)) {
+                    simple &= ch == ' ' && !previousWhitespace;
+                    previousWhitespace = true;
+                } else {
+                    simple &= !(quoted && ch == '"');
+                    previousWhitespace = false;
+                    end = i + 1;
+                }
+            }
+            if (simple) {
+                pos = i;
+                return buffer.subSequence(start, end).toString();
+            }
+            return readTokenSlowly(equalsIsDelimiter, quoted);
+        }
+
+        private String readTokenSlowly(boolean equalsIsDelimiter, boolean quoted) {
+            StringBuilder dst = new StringBuilder();
+            boolean whitespace = false;
+            while (pos < length) {
+                char ch = buffer.charAt(pos);
+                if (isDelimiter(ch, equalsIsDelimiter)) {
+                    break;
+                }
+                if (isWhitespace(ch)) {
+                    while (pos < length && isWhitespace(buffer.charAt(pos))) {
+                        pos++;
+                    }
+                    whitespace = true;
+                    continue;
+                }
+                if (whitespace && dst.length() > 0) {
+                    dst.append(' ');
+                }
+                whitespace = false;
+                if (quoted && ch == '"') {
+                    copyQuoted(dst);
+                } else {
+                    while (pos < length) {
+                        ch = buffer.charAt(pos);
+                        if (isDelimiter(ch, equalsIsDelimiter) || isWhitespace(ch) || (quoted && ch == '"')) {
+                            break;
+                        }
+                        dst.append(ch);
+                        pos++;
+                    }
+                }
+            }
+            return dst.toString();
+        }
+
+        private void copyQuoted(StringBuilder dst) {
+            pos++; // opening quote
+            boolean escaped = false;
+            while (pos < length) {
+                char ch = buffer.charAt(pos++);
+                if (escaped) {
+                    if (ch != '"' && ch != '\\') {
+                        dst.append('\\');
+                    }
+                    dst.append(ch);
+                    escaped = false;
+                } else if (ch == '"') {
+                    return;
+                } else if (ch == '\\') {
+                    escaped = true;
+                } else if (ch != '\r' && ch != '\n') {
+                    dst.append(ch);
+                }
+            }
+        }
+    }
+}
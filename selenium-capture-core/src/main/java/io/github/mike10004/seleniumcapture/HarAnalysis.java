@@ -1,7 +1,8 @@
 package io.github.mike10004.seleniumcapture;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.net.HttpHeaders;
 import com.browserup.harreader.model.Har;
 import com.browserup.harreader.model.HarEntry;
@@ -9,27 +10,23 @@ import com.browserup.harreader.model.HarHeader;
 import com.browserup.harreader.model.HarPostData;
 import com.browserup.harreader.model.HarRequest;
 import com.browserup.harreader.model.HarResponse;
-import org.apache.http.cookie.MalformedCookieException;
 
 import javax.annotation.Nullable;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class HarAnalysis {
 
     private final Har har;
+    private final Supplier<HarIndex> index;
 
     protected HarAnalysis(Har har) {
         this.har = checkNotNull(har);
+        index = Suppliers.memoize(() -> HarIndex.build(har));
     }
 
     public static HarAnalysis of(Har har) {
@@ -40,32 +37,46 @@ public class HarAnalysis {
         return findCookies(SetCookieHeaderParser.create());
     }
 
+    /**
+     * Finds the cookies set by responses in the HAR. The entries are scanned anew
+     * on each invocation, so changes to the HAR are reflected in the result; use
+     * {@link #index()} to query a HAR that is no longer changing.
+     * @param cookieSpec the parser of {@code Set-Cookie} headers
+     * @return the cookies
+     */
     public CookieCollection findCookies(final SetCookieHeaderParser cookieSpec) {
-        Stream<HarEntry> headerValues = findEntriesWithSetCookieHeaders();
         List<DeserializableCookie> cookies = new ArrayList<>();
-        headerValues.forEach(entry -> {
-            cookies.addAll(makeCookiesFromEntry(cookieSpec, entry));
-        });
+        List<String> headerValues = new ArrayList<>(2);
+        for (HarEntry entry : har.getLog().getEntries()) {
+            HarResponse response = entry.getResponse();
+            if (response == null) {
+                continue;
+            }
+            headerValues.clear();
+            for (HarHeader header : response.getHeaders()) {
+                if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(header.getName())) {
+                    headerValues.add(header.getValue());
+                }
+            }
+            if (!headerValues.isEmpty()) {
+                HarRequest request = entry.getRequest();
+                URL originUrl = HarIndex.parseUrl(null, request == null ? null : request.getUrl());
+                HarIndex.addCookies(cookieSpec, entry, originUrl, headerValues, cookies);
+            }
+        }
         return MultimapCookieCollection.build(cookies);
     }
 
-    private Stream<HarEntry> findEntriesWithSetCookieHeaders() {
-        Stream<HarEntry> entriesWithCookieHeaders = har.getLog().getEntries().stream()
-                .filter(ENTRY_HAS_SET_COOKIE_HEADER_IN_RESPONSE);
-        return entriesWithCookieHeaders;
+    /**
+     * Gets the index of the entries of the HAR. The index is built on the first
+     * invocation of this method and reused by subsequent invocations, so changes
+     * to the HAR after the first invocation are not reflected in the index.
+     * @return the index
+     */
+    public HarIndex index() {
+        return index.get();
     }
 
-    private static final Predicate<HarEntry> ENTRY_HAS_SET_COOKIE_HEADER_IN_RESPONSE = new Predicate<HarEntry>() {
-        @Override
-        public boolean test(HarEntry entry) {
-            HarResponse input = null;
-            if (entry != null) {
-                input = entry.getResponse();
-            }
-            return input != null && input.getHeaders().stream().anyMatch(header -> HttpHeaders.SET_COOKIE.equalsIgnoreCase(header.getName()));
-        }
-    };
-
     public static String describe(HarRequest request) {
         if (request == null) {
             return "null";
@@ -108,37 +119,4 @@ public class HarAnalysis {
                 .toString();
     }
 
-    private static Instant getResponseMoment(HarEntry entry) {
-        Instant requestInstant = entry.getStartedDateTime().toInstant();
-        long entryTimeMs = entry.getTime();
-        Instant responseInstant = requestInstant.plus(entryTimeMs, ChronoUnit.MILLIS);
-        return responseInstant;
-    }
-
-    @VisibleForTesting
-    static List<DeserializableCookie> makeCookiesFromEntry(final SetCookieHeaderParser cookieSpec, final HarEntry entry) {
-        URL originUrl;
-        Instant creationDate = getResponseMoment(entry);
-        try {
-            originUrl = new URL(entry.getRequest().getUrl());
-        } catch (MalformedURLException e) {
-            throw new IllegalArgumentException(e);
-        }
-        Stream<String> headerValues = entry.getResponse().getHeaders().stream()
-                .filter(header -> HttpHeaders.SET_COOKIE.equalsIgnoreCase(header.getName()))
-                .map(HarHeader::getValue);
-        final List<DeserializableCookie> cookies = new ArrayList<>();
-        headerValues.forEach(headerValue -> {
-            try {
-                List<org.apache.http.cookie.Cookie> parsed = cookieSpec.parse(headerValue, originUrl, creationDate);
-                Stream<DeserializableCookie> cookieStream = parsed.stream()
-                        .map(x -> (DeserializableCookie) x);
-                cookieStream.forEach(cookies::add);
-            } catch (MalformedCookieException e) {
-                throw new IllegalArgumentException(e);
-            }
-        });
-        return cookies;
-    }
-
 }
@@ -0,0 +1,81 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.filters.HarCaptureFilter;
+import com.browserup.bup.filters.HttpConnectHarCaptureFilter;
+import com.browserup.bup.proxy.CaptureType;
+import com.browserup.bup.util.BrowserUpProxyUtil;
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarCreatorBrowser;
+import com.browserup.harreader.model.HarLog;
+import com.browserup.harreader.model.HarPage;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+import org.littleshoot.proxy.impl.ProxyUtils;
+
+import javax.annotation.Nullable;
+import java.util.Date;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters source that captures a HAR in memory, like the proxy's own HAR capture,
+ * but only for requests that a capture selector selects. Filters that buffer content
+ * are not created for requests that are not selected.
+ */
+class HarCaptureFiltersSource extends HttpFiltersSourceAdapter {
+
+    static final String PAGE_ID = "Page 1";
+
+    private final Har har;
+    private final CaptureSelector captureSelector;
+    private final Set<CaptureType> captureTypes;
+
+    public HarCaptureFiltersSource(CaptureSelector captureSelector, Set<CaptureType> captureTypes) {
+        this.captureSelector = requireNonNull(captureSelector);
+        this.captureTypes = requireNonNull(captureTypes);
+        har = newHar();
+    }
+
+    private static Har newHar() {
+        HarCreatorBrowser creator = new HarCreatorBrowser();
+        creator.setName("BrowserUp Proxy");
+        creator.setVersion(BrowserUpProxyUtil.getVersionString());
+        HarPage page = new HarPage();
+        page.setId(PAGE_ID);
+        page.setTitle(PAGE_ID);
+        page.setStartedDateTime(new Date());
+        HarLog log = new HarLog();
+        log.setCreator(creator);
+        log.getPages().add(page);
+        Har har = new Har();
+        har.setLog(log);
+        return har;
+    }
+
+    /**
+     * Gets the HAR to which entries are added.
+     * @return the HAR
+     */
+    public Har getHar() {
+        return har;
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest) {
+        return filterRequest(originalRequest, null);
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest, @Nullable ChannelHandlerContext ctx) {
+        if (!captureSelector.isSelected(originalRequest, ctx)) {
+            return null;
+        }
+        if (ProxyUtils.isCONNECT(originalRequest)) {
+            return new HttpConnectHarCaptureFilter(originalRequest, ctx, har, PAGE_ID);
+        }
+        return new HarCaptureFilter(originalRequest, ctx, har, PAGE_ID, captureTypes);
+    }
+}
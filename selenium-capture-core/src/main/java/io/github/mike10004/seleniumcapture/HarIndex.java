@@ -0,0 +1,476 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarHeader;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.net.HttpHeaders;
+import org.apache.http.cookie.MalformedCookieException;
+
+import javax.annotation.Nullable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Index of the entries of a HAR log. The index is built in a single pass over the
+ * entries, after which queries are answered without rescanning the log. For large
+ * logs, entries are examined in parallel. Lists returned by query methods preserve
+ * the order of entries in the log.
+ *
+ * <p>An index is a snapshot; changes to the log after the index is built are not
+ * reflected in the index. Instances are immutable and safe for use by multiple threads.
+ */
+public final class HarIndex {
+
+    /**
+     * Minimum number of entries for which entries are examined in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 512;
+
+    private final ImmutableList<HarEntry> entries;
+    private final ImmutableListMultimap<String, HarEntry> byHost;
+    private final ImmutableListMultimap<Integer, HarEntry> byStatus;
+    private final ImmutableListMultimap<String, HarEntry> byMimeType;
+    private final ImmutableListMultimap<String, HarEntry> byRequestHeaderName;
+    private final ImmutableListMultimap<String, HarEntry> byResponseHeaderName;
+    private final ImmutableListMultimap<String, HarEntry> byCookieName;
+    private final ImmutableListMultimap<String, HarEntry> byUrl;
+    private final ImmutableList<EntryFacts> cookieSetters;
+    private final Map<HarEntry, EntryFacts> factsByEntry;
+    private final Supplier<ImmutableList<HarEntry>> bySizeDescending;
+
+    private HarIndex(List<EntryFacts> factsList) {
+        ImmutableList.Builder<HarEntry> entries = ImmutableList.builderWithExpectedSize(factsList.size());
+        ImmutableListMultimap.Builder<String, HarEntry> byHost = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<Integer, HarEntry> byStatus = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, HarEntry> byMimeType = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, HarEntry> byRequestHeaderName = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, HarEntry> byResponseHeaderName = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, HarEntry> byCookieName = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, HarEntry> byUrl = ImmutableListMultimap.builder();
+        ImmutableList.Builder<EntryFacts> cookieSetters = ImmutableList.builder();
+        Map<HarEntry, EntryFacts> factsByEntry = new IdentityHashMap<>(factsList.size());
+        for (EntryFacts facts : factsList) {
+            HarEntry entry = facts.entry;
+            entries.add(entry);
+            factsByEntry.put(entry, facts);
+            if (facts.host != null) {
+                byHost.put(facts.host, entry);
+            }
+            if (facts.url != null) {
+                byUrl.put(facts.url, entry);
+            }
+            if (facts.status != null) {
+                byStatus.put(facts.status, entry);
+            }
+            if (facts.mimeType != null) {
+                byMimeType.put(facts.mimeType, entry);
+            }
+            facts.requestHeaderNames.forEach(name -> byRequestHeaderName.put(name, entry));
+            facts.responseHeaderNames.forEach(name -> byResponseHeaderName.put(name, entry));
+            facts.cookieNames.forEach(name -> byCookieName.put(name, entry));
+            if (!facts.setCookieHeaderValues.isEmpty()) {
+                cookieSetters.add(facts);
+            }
+        }
+        this.entries = entries.build();
+        this.byHost = byHost.build();
+        this.byStatus = byStatus.build();
+        this.byMimeType = byMimeType.build();
+        this.byRequestHeaderName = byRequestHeaderName.build();
+        this.byResponseHeaderName = byResponseHeaderName.build();
+        this.byCookieName = byCookieName.build();
+        this.byUrl = byUrl.build();
+        this.cookieSetters = cookieSetters.build();
+        this.factsByEntry = Collections.unmodifiableMap(factsByEntry);
+        bySizeDescending = Suppliers.memoize(() -> factsList.stream()
+                .sorted(Comparator.comparingLong((EntryFacts facts) -> facts.responseSize).reversed())
+                .map(facts -> facts.entry)
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    /**
+     * Builds an index of the entries of a HAR.
+     * @param har the HAR
+     * @return a new index
+     */
+    public static HarIndex build(Har har) {
+        return build(har.getLog().getEntries());
+    }
+
+    /**
+     * Builds an index of the given entries.
+     * @param entries the entries
+     * @return a new index
+     */
+    public static HarIndex build(List<HarEntry> entries) {
+        requireNonNull(entries, "entries");
+        List<EntryFacts> factsList;
+        if (entries.size() >= PARALLEL_THRESHOLD) {
+            factsList = IntStream.range(0, entries.size()).parallel()
+                    .mapToObj(position -> EntryFacts.of(position, entries.get(position)))
+                    .collect(Collectors.toList());
+        } else {
+            factsList = new ArrayList<>(entries.size());
+            for (HarEntry entry : entries) {
+                factsList.add(EntryFacts.of(factsList.size(), entry));
+            }
+        }
+        return new HarIndex(factsList);
+    }
+
+    /**
+     * Gets all indexed entries.
+     * @return the entries
+     */
+    public List<HarEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Gets the entries whose request URL has the given host. Hosts are compared case-insensitively.
+     * @param host the host
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesByHost(String host) {
+        return byHost.get(host.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the entries whose response has the given status code.
+     * @param status the status code
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesByStatus(int status) {
+        return byStatus.get(status);
+    }
+
+    /**
+     * Gets the entries whose response content has the given MIME type. Parameters
+     * such as {@code charset} are ignored, and types are compared case-insensitively.
+     * @param mimeType the MIME type, e.g. {@code text/html}
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesByMimeType(String mimeType) {
+        String normalized = normalizeMimeType(mimeType);
+        return normalized == null ? ImmutableList.of() : byMimeType.get(normalized);
+    }
+
+    /**
+     * Gets the entries whose request has at least one header with the given name.
+     * @param headerName the header name, compared case-insensitively
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesWithRequestHeader(String headerName) {
+        return byRequestHeaderName.get(headerName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the entries whose response has at least one header with the given name.
+     * @param headerName the header name, compared case-insensitively
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesWithResponseHeader(String headerName) {
+        return byResponseHeaderName.get(headerName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the entries whose response sets a cookie with the given name.
+     * @param cookieName the cookie name
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesSettingCookie(String cookieName) {
+        return byCookieName.get(cookieName);
+    }
+
+    /**
+     * Gets the entries whose request URL is the given URL.
+     * @param url the URL
+     * @return the entries
+     */
+    public List<HarEntry> getEntriesByUrl(String url) {
+        return byUrl.get(url);
+    }
+
+    /**
+     * Gets the entries with the largest responses, largest first. The size of a
+     * response is its body size, or the size of its content if the body size is unknown.
+     * @param limit maximum number of entries to return
+     * @return the entries
+     */
+    public List<HarEntry> getLargestResponses(int limit) {
+        checkArgument(limit >= 0, "limit must be nonnegative: %s", limit);
+        List<HarEntry> sorted = bySizeDescending.get();
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    /**
+     * Gets the chain of redirects that begins with the given entry. The chain is followed
+     * by looking up the entry for the URL to which each redirect response points.
+     * The chain ends with the first entry whose response is not a redirect, or whose
+     * redirect target is not in the index, or that would begin a cycle.
+     * @param start the first entry in the chain; must be an entry in this index
+     * @return the chain, beginning with the given entry
+     */
+    public List<HarEntry> getRedirectChain(HarEntry start) {
+        EntryFacts facts = factsByEntry.get(start);
+        checkArgument(facts != null, "entry is not in this index");
+        List<HarEntry> chain = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        while (facts != null) {
+            chain.add(facts.entry);
+            if (facts.url != null) {
+                visited.add(facts.url);
+            }
+            String target = facts.redirectTarget;
+            if (target == null || visited.contains(target)) {
+                break;
+            }
+            facts = findFollowing(target, facts.position);
+        }
+        return chain;
+    }
+
+    /**
+     * Finds the first entry for a URL that follows the given position, or else
+     * the first entry for the URL.
+     */
+    @Nullable
+    private EntryFacts findFollowing(String url, int previousPosition) {
+        List<HarEntry> candidates = byUrl.get(url);
+        EntryFacts first = null;
+        for (HarEntry candidate : candidates) {
+            EntryFacts facts = factsByEntry.get(candidate);
+            if (facts.position > previousPosition) {
+                return facts;
+            }
+            if (first == null) {
+                first = facts;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Parses the cookies set by responses in the indexed entries.
+     * @param cookieSpec the parser
+     * @return the cookies
+     * @throws IllegalArgumentException if an entry that sets a cookie has a malformed
+     * request URL, or if a header value cannot be parsed
+     */
+    public List<DeserializableCookie> findCookies(SetCookieHeaderParser cookieSpec) {
+        List<DeserializableCookie> cookies = new ArrayList<>();
+        for (EntryFacts facts : cookieSetters) {
+            addCookies(cookieSpec, facts.entry, facts.parsedUrl, facts.setCookieHeaderValues, cookies);
+        }
+        return cookies;
+    }
+
+    /**
+     * Parses the cookies set by the response of an entry.
+     * @param cookieSpec the parser
+     * @param entry the entry
+     * @param originUrl the parsed request URL, or null if it could not be parsed
+     * @param setCookieHeaderValues values of the {@code Set-Cookie} headers of the response
+     * @param cookies collection to which the cookies are added
+     * @throws IllegalArgumentException if the origin URL is null or a header value cannot be parsed
+     */
+    static void addCookies(SetCookieHeaderParser cookieSpec, HarEntry entry, @Nullable URL originUrl,
+                           Iterable<String> setCookieHeaderValues, Collection<? super DeserializableCookie> cookies) {
+        if (originUrl == null) {
+            throw new IllegalArgumentException("malformed request URL: " + (entry.getRequest() == null ? null : entry.getRequest().getUrl()));
+        }
+        Instant creationDate = getResponseMoment(entry);
+        for (String headerValue : setCookieHeaderValues) {
+            try {
+                for (org.apache.http.cookie.Cookie cookie : cookieSpec.parse(headerValue, originUrl, creationDate)) {
+                    cookies.add((DeserializableCookie) cookie);
+                }
+            } catch (MalformedCookieException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+
+    private static Instant getResponseMoment(HarEntry entry) {
+        return entry.getStartedDateTime().toInstant().plus(entry.getTime(), ChronoUnit.MILLIS);
+    }
+
+    @Nullable
+    static URL parseUrl(@Nullable URL context, @Nullable String spec) {
+        if (spec == null) {
+            return null;
+        }
+        try {
+            return new URL(context, spec);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    static String normalizeMimeType(@Nullable String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        int semicolon = mimeType.indexOf(';');
+        String type = (semicolon >= 0 ? mimeType.substring(0, semicolon) : mimeType).trim();
+        return type.isEmpty() ? null : type.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("entries.size", entries.size())
+                .add("hosts.size", byHost.keySet().size())
+                .toString();
+    }
+
+    /**
+     * Values extracted from an entry. Instances are created independently of each
+     * other, so that they may be created concurrently.
+     */
+    private static final class EntryFacts {
+
+        public final int position;
+        public final HarEntry entry;
+        @Nullable
+        public final String url;
+        @Nullable
+        public final URL parsedUrl;
+        @Nullable
+        public final String host;
+        @Nullable
+        public final Integer status;
+        @Nullable
+        public final String mimeType;
+        public final long responseSize;
+        @Nullable
+        public final String redirectTarget;
+        public final Set<String> requestHeaderNames;
+        public final Set<String> responseHeaderNames;
+        public final List<String> setCookieHeaderValues;
+        public final Set<String> cookieNames;
+
+        private EntryFacts(int position, HarEntry entry) {
+            this.position = position;
+            this.entry = requireNonNull(entry, "entry");
+            HarRequest request = entry.getRequest();
+            HarResponse response = entry.getResponse();
+            url = request == null ? null : request.getUrl();
+            parsedUrl = parseUrl(null, url);
+            host = parsedUrl == null ? null : Strings.emptyToNull(parsedUrl.getHost().toLowerCase(Locale.ROOT));
+            requestHeaderNames = request == null ? Collections.emptySet() : collectHeaderNames(request.getHeaders());
+            if (response == null) {
+                status = null;
+                mimeType = null;
+                responseSize = -1;
+                redirectTarget = null;
+                responseHeaderNames = Collections.emptySet();
+                setCookieHeaderValues = Collections.emptyList();
+                cookieNames = Collections.emptySet();
+                return;
+            }
+            status = response.getStatus();
+            responseHeaderNames = collectHeaderNames(response.getHeaders());
+            String contentType = null, location = null;
+            List<String> setCookieHeaderValues = new ArrayList<>(2);
+            Set<String> cookieNames = new HashSet<>(4);
+            for (HarHeader header : response.getHeaders()) {
+                String name = header.getName();
+                if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(name)) {
+                    String value = header.getValue();
+                    setCookieHeaderValues.add(value);
+                    String cookieName = parseCookieName(value);
+                    if (cookieName != null) {
+                        cookieNames.add(cookieName);
+                    }
+                } else if (contentType == null && HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                    contentType = header.getValue();
+                } else if (location == null && HttpHeaders.LOCATION.equalsIgnoreCase(name)) {
+                    location = header.getValue();
+                }
+            }
+            this.setCookieHeaderValues = setCookieHeaderValues;
+            this.cookieNames = cookieNames;
+            String contentMimeType = response.getContent().getMimeType();
+            mimeType = normalizeMimeType(Strings.isNullOrEmpty(contentMimeType) ? contentType : contentMimeType);
+            Long bodySize = response.getBodySize();
+            Long contentSize = response.getContent().getSize();
+            if (bodySize != null && bodySize >= 0) {
+                responseSize = bodySize;
+            } else {
+                responseSize = contentSize == null ? -1 : contentSize;
+            }
+            redirectTarget = isRedirect(status) ? resolveRedirectTarget(response, location) : null;
+        }
+
+        public static EntryFacts of(int position, HarEntry entry) {
+            return new EntryFacts(position, entry);
+        }
+
+        private static boolean isRedirect(int status) {
+            return status >= 300 && status < 400 && status != 304;
+        }
+
+        @Nullable
+        private String resolveRedirectTarget(HarResponse response, @Nullable String location) {
+            String target = Strings.isNullOrEmpty(response.getRedirectURL()) ? location : response.getRedirectURL();
+            if (Strings.isNullOrEmpty(target)) {
+                return null;
+            }
+            URL resolved = parseUrl(parsedUrl, target);
+            return resolved == null ? target : resolved.toString();
+        }
+
+        private static Set<String> collectHeaderNames(List<HarHeader> headers) {
+            if (headers.isEmpty()) {
+                return Collections.emptySet();
+            }
+            Set<String> names = new HashSet<>(headers.size() * 2);
+            for (HarHeader header : headers) {
+                if (header.getName() != null) {
+                    names.add(header.getName().toLowerCase(Locale.ROOT));
+                }
+            }
+            return names;
+        }
+
+        @Nullable
+        private static String parseCookieName(@Nullable String headerValue) {
+            if (headerValue == null) {
+                return null;
+            }
+            int equals = headerValue.indexOf('=');
+            int semicolon = headerValue.indexOf(';');
+            if (equals < 0 || (semicolon >= 0 && semicolon < equals)) {
+                return null;
+            }
+            return Strings.emptyToNull(headerValue.substring(0, equals).trim());
+        }
+    }
+}
@@ -105,9 +105,20 @@ public final class HarInteractions {
     }
 
     public static ImmutableHttpResponse freeze(HarResponse harResponse) {
+        return freeze(harResponse, toContentSource(harResponse.getContent()));
+    }
+
+    /**
+     * Creates an immutable response from a HAR response, using the given content
+     * source instead of the content of the HAR response.
+     * @param harResponse the HAR response
+     * @param contentSource the content source
+     * @return the immutable response
+     */
+    public static ImmutableHttpResponse freeze(HarResponse harResponse, ImmutableHttpMessage.HttpContentSource contentSource) {
         return ImmutableHttpResponse.builder(harResponse.getStatus())
                 .addHeaders(harResponse.getHeaders().stream().map(pair -> new SimpleImmutableEntry<>(pair.getName(), pair.getValue())))
-                .content(toContentSource(harResponse.getContent()))
+                .content(contentSource)
                 .build();
     }
 
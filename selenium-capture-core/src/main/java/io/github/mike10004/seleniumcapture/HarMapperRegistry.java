@@ -0,0 +1,70 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry of object mappers, readers and writers for HARs, built once per reader mode.
+ * Jackson caches serializers and deserializers inside a mapper, so reusing a mapper
+ * avoids rediscovering them for every HAR. Instances are immutable and thread-safe.
+ */
+final class HarMapperRegistry {
+
+    private final Map<HarReaderMode, ObjectMapper> mappers;
+    private final Map<HarReaderMode, ObjectReader> readers;
+    private final ObjectWriter writer;
+
+    private HarMapperRegistry(CustomHarMapperFactory mapperFactory) {
+        mappers = new EnumMap<>(HarReaderMode.class);
+        readers = new EnumMap<>(HarReaderMode.class);
+        for (HarReaderMode mode : HarReaderMode.values()) {
+            ObjectMapper mapper = mapperFactory.instance(mode);
+            mappers.put(mode, mapper);
+            readers.put(mode, mapper.readerFor(Har.class));
+        }
+        writer = mappers.get(HarReaderMode.STRICT).writerFor(Har.class);
+    }
+
+    /**
+     * Creates a new registry.
+     * @param afterburner true to register the Afterburner module with each mapper
+     * @return a new registry
+     */
+    public static HarMapperRegistry create(boolean afterburner) {
+        return new HarMapperRegistry(new CustomHarMapperFactory(afterburner));
+    }
+
+    /**
+     * Gets the mapper for the given mode. Do not reconfigure the mapper.
+     * @param mode reader mode
+     * @return the mapper
+     */
+    public ObjectMapper getMapper(HarReaderMode mode) {
+        return mappers.get(requireNonNull(mode));
+    }
+
+    /**
+     * Gets a reader of {@link Har} instances for the given mode.
+     * @param mode reader mode
+     * @return the reader
+     */
+    public ObjectReader getReader(HarReaderMode mode) {
+        return readers.get(requireNonNull(mode));
+    }
+
+    /**
+     * Gets a writer of {@link Har} instances.
+     * @return the writer
+     */
+    public ObjectWriter getWriter() {
+        return writer;
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import org.littleshoot.proxy.HttpFilters;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters implementation that invokes a sequence of filters. Short-circuiting
+ * responses and modified objects are handled the same way the proxy server
+ * handles the filters it chains together itself.
+ */
+class HttpFiltersChain implements HttpFilters {
+
+    private final ImmutableList<HttpFilters> filters;
+
+    public HttpFiltersChain(List<? extends HttpFilters> filters) {
+        this.filters = ImmutableList.copyOf(filters);
+    }
+
+    @Override
+    public HttpResponse clientToProxyRequest(HttpObject httpObject) {
+        for (HttpFilters filter : filters) {
+            HttpResponse shortCircuitResponse = filter.clientToProxyRequest(httpObject);
+            if (shortCircuitResponse != null) {
+                return shortCircuitResponse;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public HttpResponse proxyToServerRequest(HttpObject httpObject) {
+        for (HttpFilters filter : filters) {
+            HttpResponse shortCircuitResponse = filter.proxyToServerRequest(httpObject);
+            if (shortCircuitResponse != null) {
+                return shortCircuitResponse;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void proxyToServerRequestSending() {
+        filters.forEach(HttpFilters::proxyToServerRequestSending);
+    }
+
+    @Override
+    public void proxyToServerRequestSent() {
+        filters.forEach(HttpFilters::proxyToServerRequestSent);
+    }
+
+    @Override
+    public HttpObject serverToProxyResponse(HttpObject httpObject) {
+        HttpObject processed = requireNonNull(httpObject);
+        for (HttpFilters filter : filters) {
+            processed = filter.serverToProxyResponse(processed);
+            if (processed == null) {
+                return null;
+            }
+        }
+        return processed;
+    }
+
+    @Override
+    public void serverToProxyResponseTimedOut() {
+        filters.forEach(HttpFilters::serverToProxyResponseTimedOut);
+    }
+
+    @Override
+    public void serverToProxyResponseReceiving() {
+        filters.forEach(HttpFilters::serverToProxyResponseReceiving);
+    }
+
+    @Override
+    public void serverToProxyResponseReceived() {
+        filters.forEach(HttpFilters::serverToProxyResponseReceived);
+    }
+
+    @Override
+    public HttpObject proxyToClientResponse(HttpObject httpObject) {
+        HttpObject processed = requireNonNull(httpObject);
+        for (HttpFilters filter : filters) {
+            processed = filter.proxyToClientResponse(processed);
+            if (processed == null) {
+                return null;
+            }
+        }
+        return processed;
+    }
+
+    @Override
+    public void proxyToServerConnectionQueued() {
+        filters.forEach(HttpFilters::proxyToServerConnectionQueued);
+    }
+
+    @Override
+    public InetSocketAddress proxyToServerResolutionStarted(String resolvingServerHostAndPort) {
+        InetSocketAddress overrideAddress = null;
+        for (HttpFilters filter : filters) {
+            InetSocketAddress filterResult = filter.proxyToServerResolutionStarted(resolvingServerHostAndPort);
+            if (overrideAddress == null) {
+                overrideAddress = filterResult;
+            }
+        }
+        return overrideAddress;
+    }
+
+    @Override
+    public void proxyToServerResolutionFailed(String hostAndPort) {
+        filters.forEach(filter -> filter.proxyToServerResolutionFailed(hostAndPort));
+    }
+
+    @Override
+    public void proxyToServerResolutionSucceeded(String serverHostAndPort, InetSocketAddress resolvedRemoteAddress) {
+        filters.forEach(filter -> filter.proxyToServerResolutionSucceeded(serverHostAndPort, resolvedRemoteAddress));
+    }
+
+    @Override
+    public void proxyToServerConnectionStarted() {
+        filters.forEach(HttpFilters::proxyToServerConnectionStarted);
+    }
+
+    @Override
+    public void proxyToServerConnectionSSLHandshakeStarted() {
+        filters.forEach(HttpFilters::proxyToServerConnectionSSLHandshakeStarted);
+    }
+
+    @Override
+    public void proxyToServerConnectionFailed() {
+        filters.forEach(HttpFilters::proxyToServerConnectionFailed);
+    }
+
+    @Override
+    public void proxyToServerConnectionSucceeded(ChannelHandlerContext serverCtx) {
+        filters.forEach(filter -> filter.proxyToServerConnectionSucceeded(serverCtx));
+    }
+}
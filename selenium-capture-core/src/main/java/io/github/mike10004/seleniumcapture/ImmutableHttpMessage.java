@@ -15,6 +15,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
@@ -138,6 +139,116 @@ public class ImmutableHttpMessage {
         static HttpContentSource fromBase64(String base64Data) {
             return new OriginalByteSource(Base64ByteSource.forBase64String(base64Data));
         }
+
+        /**
+         * Creates a content source backed by a buffer. No copy of the buffer content is made,
+         * so the buffer must not be modified afterwards. Decoding to text, or encoding
+         * to base64 if the content is not text, is deferred until character content is requested.
+         * @param buffer the buffer; content between its position and limit is used
+         * @param textCharset the charset of the content if it is text, or null if it is binary
+         * @return a new content source
+         */
+        static HttpContentSource fromBuffer(ByteBuffer buffer, @Nullable Charset textCharset) {
+            return new BufferContentSource(buffer, textCharset);
+        }
+    }
+
+    protected static final class BufferContentSource implements HttpContentSource {
+
+        private final ByteBuffer buffer;
+        @Nullable
+        private final Charset textCharset;
+
+        public BufferContentSource(ByteBuffer buffer, @Nullable Charset textCharset) {
+            this.buffer = buffer.asReadOnlyBuffer();
+            this.textCharset = textCharset;
+        }
+
+        @Override
+        public boolean isNativelyText() {
+            return textCharset != null;
+        }
+
+        @Override
+        public CharSource asChars(ImmutableHttpMessage message) {
+            ByteSource byteSource = asBytes(message);
+            if (textCharset != null) {
+                return byteSource.asCharSource(textCharset);
+            }
+            return encodeToBase64(byteSource);
+        }
+
+        @Override
+        public ByteSource asBytes(ImmutableHttpMessage message) {
+            return new ByteSource() {
+                @Override
+                public InputStream openStream() {
+                    return new ByteBufferInputStream(buffer.duplicate());
+                }
+
+                @Override
+                public com.google.common.base.Optional<Long> sizeIfKnown() {
+                    return com.google.common.base.Optional.of((long) buffer.remaining());
+                }
+
+                @Override
+                public long size() {
+                    return buffer.remaining();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return !buffer.hasRemaining();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "BufferContentSource{" +
+                    "nativelyText=" + isNativelyText() +
+                    ",buffer.remaining=" + buffer.remaining() +
+                    '}';
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
     }
 
     protected static final class OriginalByteSource implements HttpContentSource {
@@ -0,0 +1,67 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Codec for a JSON array of cookies. Elements are written and read one at a time
+ * with a {@link DeserializableCookieTypeAdapter}.
+ */
+final class JsonCookieCodec implements CookieCodec {
+
+    private static final JsonCookieCodec INSTANCE = new JsonCookieCodec(DeserializableCookieTypeAdapter.getInstance());
+
+    private final TypeAdapter<DeserializableCookie> cookieAdapter;
+
+    private JsonCookieCodec(TypeAdapter<DeserializableCookie> cookieAdapter) {
+        this.cookieAdapter = requireNonNull(cookieAdapter);
+    }
+
+    public static JsonCookieCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void encode(Iterable<? extends DeserializableCookie> cookies, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray();
+        for (DeserializableCookie cookie : cookies) {
+            cookieAdapter.write(writer, cookie);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+
+    @Override
+    public void decode(Reader in, Consumer<? super DeserializableCookie> sink) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                sink.accept(cookieAdapter.read(reader));
+            }
+            reader.endArray();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("malformed cookie array", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JsonCookieCodec{}";
+    }
+}
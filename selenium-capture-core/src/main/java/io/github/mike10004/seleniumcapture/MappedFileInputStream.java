@@ -0,0 +1,112 @@
+package io.github.mike10004.seleniumcapture;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Input stream that reads a file sequentially through a window of memory that is mapped
+ * to a region of the file. The window is remapped as reading progresses, so files larger
+ * than the maximum size of a mapped buffer can be read.
+ */
+class MappedFileInputStream extends InputStream {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    public MappedFileInputStream(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(File file, int windowSize) throws IOException {
+        checkArgument(windowSize > 0, "windowSize must be positive: %s", windowSize);
+        this.windowSize = windowSize;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            mapWindow(0L);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void mapWindow(long position) throws IOException {
+        long length = Math.min(windowSize, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        windowStart = position;
+    }
+
+    /**
+     * Ensures the window has bytes remaining, remapping it if necessary.
+     * @return false if the end of the file has been reached
+     */
+    private boolean ensureRemaining() throws IOException {
+        if (window.hasRemaining()) {
+            return true;
+        }
+        long position = windowStart + window.limit();
+        if (position >= fileSize) {
+            return false;
+        }
+        mapWindow(position);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long position = windowStart + window.position();
+        long skipped = Math.min(n, fileSize - position);
+        if (skipped <= window.remaining()) {
+            window.position(window.position() + (int) skipped);
+        } else {
+            mapWindow(position + skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        long remaining = fileSize - (windowStart + window.position());
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
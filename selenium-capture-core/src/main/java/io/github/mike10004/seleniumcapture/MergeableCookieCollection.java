@@ -0,0 +1,224 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cookie collection that is updated incrementally and retains only the winning
+ * cookie for each domain/name/path triplet. The winner is the greatest cookie
+ * according to an ordering fixed at construction; of equally great cookies, the
+ * first one added wins, as with {@link com.google.common.collect.Ordering#max(Iterable)}.
+ * Superseded cookies are discarded as soon as they lose, so memory use is
+ * proportional to the number of distinct keys rather than the number of cookies
+ * added, and keys are {@link CookieKey#intern() interned}.
+ *
+ * <p>Because superseded cookies are not retained, {@link #makeCookieList(Function)}
+ * cannot select winners by a different ordering; it rejects orderings that are not
+ * equal to this collection's ordering.
+ *
+ * <p>Winning cookies that have an expiry are also kept in a queue ordered by
+ * {@link DeserializableCookie#getBestExpiry() expiry}, so {@link #evictExpired(Instant)}
+ * costs time proportional to the number of expired cookies (times the logarithm of
+ * the queue size) rather than to the size of the collection.
+ *
+ * <p>Instances are not safe for use by multiple threads.
+ */
+public final class MergeableCookieCollection implements CookieCollection {
+
+    private final Comparator<? super DeserializableCookie> ordering;
+    private final Map<CookieKey, DeserializableCookie> winners;
+    private final CookieExpiryQueue expiryQueue;
+    private final List<CookieEvictionListener> evictionListeners;
+    private final Predicate<CookieExpiryQueue.Entry> isLive;
+
+    private MergeableCookieCollection(Comparator<? super DeserializableCookie> ordering) {
+        this.ordering = requireNonNull(ordering, "ordering");
+        winners = new LinkedHashMap<>();
+        expiryQueue = new CookieExpiryQueue();
+        evictionListeners = new CopyOnWriteArrayList<>();
+        isLive = entry -> winners.get(entry.key) == entry.cookie;
+    }
+
+    /**
+     * Creates an empty collection that retains the most recently created cookie for each key.
+     * @return a new collection
+     * @see CookieCollection#orderingByCreationDate()
+     */
+    public static MergeableCookieCollection create() {
+        return create(CookieCollection.orderingByCreationDate());
+    }
+
+    /**
+     * Creates an empty collection that retains the greatest cookie for each key by the given ordering.
+     * @param ordering the ordering
+     * @return a new collection
+     */
+    public static MergeableCookieCollection create(Comparator<? super DeserializableCookie> ordering) {
+        return new MergeableCookieCollection(ordering);
+    }
+
+    /**
+     * Adds a cookie to the collection.
+     * @param cookie the cookie
+     * @return true if the cookie is now the winner for its key
+     */
+    public boolean add(DeserializableCookie cookie) {
+        requireNonNull(cookie, "cookie");
+        CookieKey key = CookieKey.from(cookie);
+        DeserializableCookie incumbent = winners.get(key);
+        if (incumbent == null) {
+            key = key.intern();
+            winners.put(key, cookie);
+            expiryQueue.offer(key, cookie);
+            return true;
+        }
+        if (ordering.compare(cookie, incumbent) > 0) {
+            winners.put(key, cookie);
+            if (incumbent.getBestExpiry() != null) {
+                expiryQueue.markStale(isLive);
+            }
+            expiryQueue.offer(key, cookie);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes cookies that have expired by the given instant and notifies
+     * eviction listeners. A cookie has expired if its
+     * {@link DeserializableCookie#getBestExpiry() expiry} is at or before the instant.
+     * @param now the instant
+     * @return the evicted cookies, in order of expiry
+     */
+    public ImmutableList<DeserializableCookie> evictExpired(Instant now) {
+        ImmutableList.Builder<DeserializableCookie> evictedBuilder = ImmutableList.builder();
+        expiryQueue.pollExpired(now, isLive, entry -> {
+            winners.remove(entry.key);
+            evictedBuilder.add(entry.cookie);
+        });
+        ImmutableList<DeserializableCookie> evicted = evictedBuilder.build();
+        if (!evicted.isEmpty()) {
+            for (CookieEvictionListener listener : evictionListeners) {
+                listener.cookiesEvicted(evicted, now);
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Adds a listener to be notified when cookies are evicted.
+     * @param listener the listener
+     */
+    public void addEvictionListener(CookieEvictionListener listener) {
+        evictionListeners.add(requireNonNull(listener, "listener"));
+    }
+
+    /**
+     * Removes an eviction listener.
+     * @param listener the listener
+     * @return true if the listener had been added
+     */
+    public boolean removeEvictionListener(CookieEvictionListener listener) {
+        return evictionListeners.remove(listener);
+    }
+
+    /**
+     * Adds cookies to the collection.
+     * @param cookies the cookies
+     * @return this instance
+     */
+    public MergeableCookieCollection addAll(Iterable<? extends DeserializableCookie> cookies) {
+        for (DeserializableCookie cookie : cookies) {
+            add(cookie);
+        }
+        return this;
+    }
+
+    /**
+     * Merges another collection into this one. The cost is linear in the
+     * number of cookies retained by the other collection. If the other collection
+     * is not an instance of this class, its winners are selected by this
+     * collection's ordering first.
+     * @param other the other collection
+     * @return this instance
+     */
+    public MergeableCookieCollection merge(CookieCollection other) {
+        requireNonNull(other, "other");
+        if (other instanceof MergeableCookieCollection) {
+            ((MergeableCookieCollection) other).winners.values().forEach(this::add);
+        } else {
+            addAll(other.makeCookieList(ordering));
+        }
+        return this;
+    }
+
+    /**
+     * Gets the winning cookie for a key.
+     * @param key the key
+     * @return the winning cookie, or null if no cookie with the given key has been added
+     */
+    @Nullable
+    public DeserializableCookie get(CookieKey key) {
+        return winners.get(key);
+    }
+
+    /**
+     * Gets the number of cookies retained, which is the number of distinct keys
+     * among cookies added to this collection and not evicted.
+     * @return the number of retained cookies
+     */
+    public int size() {
+        return winners.size();
+    }
+
+    /**
+     * Gets the winning cookies, in the order their keys were first added.
+     * @return a list of cookies with unique domain/name/path triplets
+     */
+    @Override
+    public ImmutableList<DeserializableCookie> makeUltimateCookieList() {
+        return ImmutableList.copyOf(winners.values());
+    }
+
+    /**
+     * Gets the winning cookies, provided that the ordering for each key is equal to
+     * this collection's ordering. Winners cannot be selected by any other ordering,
+     * because superseded cookies are not retained.
+     * @param orderingFactory factory providing the ordering for each key
+     * @return a list of cookies with unique domain/name/path triplets
+     * @throws IllegalArgumentException if the ordering for any key differs from this collection's ordering
+     */
+    @Override
+    public ImmutableList<DeserializableCookie> makeCookieList(Function<? super CookieKey, Comparator<? super DeserializableCookie>> orderingFactory) {
+        requireNonNull(orderingFactory, "orderingFactory");
+        Comparator<? super DeserializableCookie> checked = ordering;
+        for (CookieKey key : winners.keySet()) {
+            Comparator<? super DeserializableCookie> requested = orderingFactory.apply(key);
+            if (requested != checked) {
+                checkArgument(ordering.equals(requested), "ordering for %s differs from this collection's ordering %s: %s", key, ordering, requested);
+                checked = requested;
+            }
+        }
+        return makeUltimateCookieList();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", winners.size())
+                .toString();
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Value class that defines how notifications are dispatched to a traffic monitor
+ * asynchronously, off the proxy's I/O threads.
+ * @see TrafficCollector.Builder#asyncMonitorDispatch(MonitorDispatchSettings)
+ * @see AsyncTrafficMonitor
+ */
+public final class MonitorDispatchSettings {
+
+    /**
+     * Enumeration of policies that apply when a notification arrives and the queue is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * Wait until the queue has room. This slows down the proxy if the monitor cannot keep up.
+         */
+        BLOCK,
+
+        /**
+         * Discard the oldest queued notification to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Discard the new notification.
+         */
+        DROP_NEWEST
+    }
+
+    /**
+     * Interface of a service that is notified when a notification is discarded instead of
+     * being delivered to the monitor. Listeners are invoked on the thread that caused the
+     * notification to be dropped, which is usually one of the proxy's I/O threads.
+     */
+    public interface DropListener {
+
+        /**
+         * Invoked when a notification is dropped.
+         * @param request the request of the dropped notification
+         * @param response the response of the dropped notification
+         */
+        void notificationDropped(ImmutableHttpRequest request, ImmutableHttpResponse response);
+
+    }
+
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final DropListener dropListener;
+
+    private MonitorDispatchSettings(Builder builder) {
+        queueCapacity = builder.queueCapacity;
+        overflowPolicy = builder.overflowPolicy;
+        executor = builder.executor;
+        dropListener = builder.dropListener;
+    }
+
+    /**
+     * Gets the maximum number of notifications that may be queued.
+     * @return the queue capacity
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Gets the policy that applies when the queue is full.
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the executor on which notifications are delivered. Notifications to a single
+     * monitor are delivered in order even if the executor uses multiple threads.
+     * @return the executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the listener that is notified when a notification is dropped.
+     * @return the drop listener
+     */
+    public DropListener getDropListener() {
+        return dropListener;
+    }
+
+    /**
+     * Returns a new builder of a settings instance.
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("queueCapacity", queueCapacity)
+                .add("overflowPolicy", overflowPolicy)
+                .add("executor", executor)
+                .add("dropListener", dropListener)
+                .toString();
+    }
+
+    private static final class DefaultExecutorHolder {
+
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("traffic-monitor-dispatch-%d")
+                .build());
+    }
+
+    /**
+     * Builder of monitor dispatch settings instances.
+     */
+    public static final class Builder {
+
+        private int queueCapacity = 1024;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private Executor executor;
+        private DropListener dropListener = (request, response) -> {};
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of notifications that may be queued.
+         * @param queueCapacity the capacity; must be positive
+         * @return this builder instance
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            checkArgument(queueCapacity > 0, "queueCapacity must be positive: %s", queueCapacity);
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the policy that applies when the queue is full. The default is {@link OverflowPolicy#BLOCK}.
+         * @param overflowPolicy the policy
+         * @return this builder instance
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = requireNonNull(overflowPolicy);
+            return this;
+        }
+
+        /**
+         * Sets the executor on which notifications are delivered. By default, a shared
+         * pool of daemon threads is used.
+         * @param executor the executor
+         * @return this builder instance
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * Sets the listener that is notified each time a notification is dropped, either
+         * because of the overflow policy or because the monitor was already closed.
+         * By default, drops are only counted and logged.
+         * @param dropListener the listener
+         * @return this builder instance
+         */
+        public Builder dropListener(DropListener dropListener) {
+            this.dropListener = requireNonNull(dropListener);
+            return this;
+        }
+
+        /**
+         * Builds a settings instance.
+         * @return a new settings instance
+         */
+        public MonitorDispatchSettings build() {
+            if (executor == null) {
+                executor = DefaultExecutorHolder.INSTANCE;
+            }
+            return new MonitorDispatchSettings(this);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Codec for the Netscape {@code cookies.txt} format. Each cookie is a line of
+ * seven tab-separated fields: domain, include-subdomains flag, path, secure flag,
+ * expiry in seconds since the epoch (zero for session cookies), name, and value.
+ * HttpOnly cookies have a {@code #HttpOnly_} prefix on the domain field.
+ */
+final class NetscapeCookieCodec implements CookieCodec {
+
+    static final String HEADER_LINE = "# Netscape HTTP Cookie File";
+    private static final String HTTP_ONLY_PREFIX = "#HttpOnly_";
+    private static final String TRUE = "TRUE", FALSE = "FALSE";
+    private static final int NUM_FIELDS = 7;
+    private static final CharMatcher ILLEGAL_FIELD_CHARS = CharMatcher.anyOf("\t\r\n");
+    private static final Splitter FIELD_SPLITTER = Splitter.on('\t');
+
+    private static final NetscapeCookieCodec INSTANCE = new NetscapeCookieCodec();
+
+    private NetscapeCookieCodec() {
+    }
+
+    public static NetscapeCookieCodec getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public void encode(Iterable<? extends DeserializableCookie> cookies, Writer out) throws IOException {
+        out.write(HEADER_LINE);
+        out.write('\n');
+        StringBuilder line = new StringBuilder(256);
+        for (DeserializableCookie cookie : cookies) {
+            line.setLength(0);
+            appendLine(cookie, line);
+            out.append(line);
+        }
+    }
+
+    private static void appendLine(DeserializableCookie cookie, StringBuilder line) {
+        @Nullable String domain = cookie.getBestDomainProperty();
+        checkArgument(domain != null && !domain.isEmpty(), "cookie has no domain: %s", cookie);
+        boolean includeSubdomains = cookie.getDomainAttribute() != null;
+        if (cookie.isHttpOnly()) {
+            line.append(HTTP_ONLY_PREFIX);
+        }
+        if (includeSubdomains && domain.charAt(0) != '.') {
+            line.append('.');
+        }
+        line.append(checkField(domain)).append('\t');
+        line.append(includeSubdomains ? TRUE : FALSE).append('\t');
+        @Nullable String path = cookie.getPath();
+        line.append(path == null ? "/" : checkField(path)).append('\t');
+        line.append(cookie.isSecure() ? TRUE : FALSE).append('\t');
+        @Nullable Instant expiry = cookie.getExpiryInstant();
+        line.append(expiry == null ? 0L : expiry.getEpochSecond()).append('\t');
+        line.append(checkField(cookie.getName())).append('\t');
+        line.append(checkField(cookie.getValue())).append('\n');
+    }
+
+    private static String checkField(String value) {
+        checkArgument(ILLEGAL_FIELD_CHARS.matchesNoneOf(value), "field value contains tab or line break: %s", value);
+        return value;
+    }
+
+    @Override
+    public void decode(Reader in, Consumer<? super DeserializableCookie> sink) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            boolean httpOnly = false;
+            if (line.startsWith(HTTP_ONLY_PREFIX)) {
+                httpOnly = true;
+                line = line.substring(HTTP_ONLY_PREFIX.length());
+            } else if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+            sink.accept(parseLine(line, httpOnly, lineNumber));
+        }
+    }
+
+    private static DeserializableCookie parseLine(String line, boolean httpOnly, int lineNumber) throws IOException {
+        List<String> fields = FIELD_SPLITTER.splitToList(line);
+        // a cookie with an empty value may lack the trailing tab
+        if (fields.size() != NUM_FIELDS && fields.size() != NUM_FIELDS - 1) {
+            throw new IOException("line " + lineNumber + " has " + fields.size() + " fields; expected " + NUM_FIELDS);
+        }
+        String domain = fields.get(0);
+        boolean includeSubdomains = parseFlag(fields.get(1), lineNumber);
+        boolean secure = parseFlag(fields.get(3), lineNumber);
+        @Nullable Instant expiry;
+        try {
+            long expirySeconds = Long.parseLong(fields.get(4));
+            expiry = expirySeconds == 0 ? null : Instant.ofEpochSecond(expirySeconds);
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new IOException("line " + lineNumber + " has invalid expiry " + fields.get(4), e);
+        }
+        String value = fields.size() == NUM_FIELDS ? fields.get(6) : "";
+        DeserializableCookie.Builder cookie = DeserializableCookie.builder(fields.get(5), value)
+                .domain(domain.startsWith(".") ? domain.substring(1) : domain)
+                .path(fields.get(2));
+        if (includeSubdomains) {
+            cookie.attribute("domain", domain);
+        }
+        if (secure) {
+            cookie.secure(true);
+        }
+        if (httpOnly) {
+            cookie.httpOnly(true);
+        }
+        if (expiry != null) {
+            cookie.expiry(expiry);
+        }
+        return cookie.build();
+    }
+
+    private static boolean parseFlag(String field, int lineNumber) throws IOException {
+        if (TRUE.equalsIgnoreCase(field)) {
+            return true;
+        }
+        if (FALSE.equalsIgnoreCase(field)) {
+            return false;
+        }
+        throw new IOException("line " + lineNumber + " has invalid flag " + field);
+    }
+
+    @Override
+    public String toString() {
+        return "NetscapeCookieCodec{}";
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Service that collects traffic from many generators, running up to a fixed number
+ * of browser sessions at a time. Each session uses its own intercepting proxy and
+ * web driver, created by the underlying collector. Generators are started in the
+ * order in which they are submitted.
+ *
+ * <p>A failure in one session does not affect other sessions. An exception thrown
+ * during a session is passed to the underlying collector's {@link ExceptionReactor};
+ * if the reactor throws, the future for that session completes exceptionally.
+ * @see TrafficCollector.Builder#buildParallel(int)
+ */
+public class ParallelTrafficCollector implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelTrafficCollector.class);
+
+    private final TrafficCollector collector;
+    private final int maxConcurrency;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Constructs a new instance. The underlying collector must support concurrent
+     * invocations of its collection methods; collectors created by a
+     * {@link TrafficCollector.Builder} do.
+     * @param collector the underlying collector
+     * @param maxConcurrency maximum number of concurrent sessions
+     */
+    public ParallelTrafficCollector(TrafficCollector collector, int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be positive: %s", maxConcurrency);
+        this.collector = requireNonNull(collector);
+        this.maxConcurrency = maxConcurrency;
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("parallel-traffic-collector-%d")
+                        .build());
+    }
+
+    /**
+     * Submits a generator for collection into a HAR. This invokes
+     * {@link #submit(TrafficGenerator, TrafficMonitor)} with a null monitor reference.
+     * @param generator the generator
+     * @param <R> type of result the generator returns
+     * @return a future that completes with the collected HAR and generator result
+     */
+    public <R> CompletableFuture<HarPlus<R>> submit(TrafficGenerator<R> generator) {
+        return submit(generator, null);
+    }
+
+    /**
+     * Submits a generator for collection into a HAR. The session starts when one of the
+     * concurrent session slots becomes available. Cancelling the returned future before
+     * the session starts prevents the session from starting; cancelling it after the session
+     * starts has no effect on the session.
+     * @param generator the generator
+     * @param monitor a monitor, or null; a monitor shared by multiple sessions must be thread-safe
+     * @param <R> type of result the generator returns
+     * @return a future that completes with the collected HAR and generator result
+     */
+    public <R> CompletableFuture<HarPlus<R>> submit(TrafficGenerator<R> generator, @Nullable TrafficMonitor monitor) {
+        requireNonNull(generator, "generator");
+        CompletableFuture<HarPlus<R>> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(collector.collect(generator, monitor));
+                } catch (Throwable t) {
+                    log.debug("session failed", t);
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new IOException("collector is closed", e));
+        }
+        return future;
+    }
+
+    /**
+     * Submits each of the given generators for collection into a HAR.
+     * @param generators the generators
+     * @param <R> type of result the generators return
+     * @return a list of futures, in the same order as the generators
+     */
+    public <R> List<CompletableFuture<HarPlus<R>>> collectAll(Collection<? extends TrafficGenerator<R>> generators) {
+        List<CompletableFuture<HarPlus<R>>> futures = new ArrayList<>(generators.size());
+        for (TrafficGenerator<R> generator : generators) {
+            futures.add(submit(generator));
+        }
+        return futures;
+    }
+
+    /**
+     * Gets the maximum number of concurrent sessions.
+     * @return the maximum concurrency
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Stops accepting generators, waits for sessions that have already been submitted to
+     * finish, and closes the underlying collector. Sessions that have not yet started
+     * still run unless their futures have been cancelled. If the calling thread is
+     * interrupted while waiting, this method returns early with the interrupt flag set
+     * and without closing the underlying collector.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("waiting for {} active sessions to finish", executor.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        collector.close();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("collector", collector)
+                .add("maxConcurrency", maxConcurrency)
+                .toString();
+    }
+}
@@ -0,0 +1,164 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.google.common.base.MoreObjects;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Value class that defines the parameters of a pool of intercepting proxy servers
+ * that are reused across traffic collection sessions.
+ * @see TrafficCollector.Builder#pooledProxies(ProxyPoolSettings)
+ */
+public final class ProxyPoolSettings {
+
+    private final int maxSize;
+    private final Duration maxIdleTime;
+    private final Duration borrowTimeout;
+    private final Predicate<? super BrowserUpProxy> healthCheck;
+
+    private ProxyPoolSettings(Builder builder) {
+        maxSize = builder.maxSize;
+        maxIdleTime = builder.maxIdleTime;
+        borrowTimeout = builder.borrowTimeout;
+        healthCheck = builder.healthCheck;
+    }
+
+    /**
+     * Gets the maximum number of proxy servers that may be alive at once.
+     * @return the maximum pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the duration after which an idle proxy server is stopped and removed from the pool.
+     * @return the maximum idle time
+     */
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * Gets the maximum duration to wait for a proxy server when all are in use.
+     * @return the borrow timeout
+     */
+    public Duration getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    /**
+     * Gets the predicate that is evaluated to decide whether a pooled proxy server
+     * may be reused. Unhealthy servers are stopped and discarded.
+     * @return the health check
+     */
+    public Predicate<? super BrowserUpProxy> getHealthCheck() {
+        return healthCheck;
+    }
+
+    /**
+     * Returns the default health check. A server is deemed healthy if it has been
+     * started, is not stopped, and is bound to a port.
+     * @return the default health check
+     */
+    public static Predicate<BrowserUpProxy> defaultHealthCheck() {
+        return proxy -> {
+            if (!proxy.isStarted() || proxy.getPort() <= 0) {
+                return false;
+            }
+            if (proxy instanceof BrowserUpProxyServer) {
+                return !((BrowserUpProxyServer) proxy).isStopped();
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Returns a new builder of a settings instance.
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxSize", maxSize)
+                .add("maxIdleTime", maxIdleTime)
+                .add("borrowTimeout", borrowTimeout)
+                .toString();
+    }
+
+    /**
+     * Builder of proxy pool settings instances.
+     */
+    public static final class Builder {
+
+        private int maxSize = 4;
+        private Duration maxIdleTime = Duration.ofMinutes(5);
+        private Duration borrowTimeout = Duration.ofMinutes(1);
+        private Predicate<? super BrowserUpProxy> healthCheck = defaultHealthCheck();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of proxy servers that may be alive at once.
+         * @param maxSize the maximum pool size; must be positive
+         * @return this builder instance
+         */
+        public Builder maxSize(int maxSize) {
+            checkArgument(maxSize > 0, "maxSize must be positive: %s", maxSize);
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Sets the duration after which an idle proxy server is stopped and removed from the pool.
+         * @param maxIdleTime the maximum idle time; must be positive
+         * @return this builder instance
+         */
+        public Builder maxIdleTime(Duration maxIdleTime) {
+            checkArgument(!maxIdleTime.isNegative() && !maxIdleTime.isZero(), "maxIdleTime must be positive: %s", maxIdleTime);
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        /**
+         * Sets the maximum duration to wait for a proxy server when all are in use.
+         * @param borrowTimeout the timeout; must not be negative
+         * @return this builder instance
+         */
+        public Builder borrowTimeout(Duration borrowTimeout) {
+            checkArgument(!borrowTimeout.isNegative(), "borrowTimeout must not be negative: %s", borrowTimeout);
+            this.borrowTimeout = borrowTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the predicate that decides whether a pooled proxy server may be reused.
+         * @param healthCheck the health check
+         * @return this builder instance
+         * @see #defaultHealthCheck()
+         */
+        public Builder healthCheck(Predicate<? super BrowserUpProxy> healthCheck) {
+            this.healthCheck = requireNonNull(healthCheck);
+            return this;
+        }
+
+        /**
+         * Builds a settings instance.
+         * @return a new settings instance
+         */
+        public ProxyPoolSettings build() {
+            return new ProxyPoolSettings(this);
+        }
+    }
+}
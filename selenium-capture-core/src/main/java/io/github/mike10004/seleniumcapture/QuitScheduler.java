@@ -0,0 +1,138 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executor of webdriver quit actions with deadlines. Quit actions run on a bounded
+ * pool of daemon threads that is shared by all sessions, and each action's deadline
+ * is tracked by a single scheduler thread. A deadline is measured from the time the
+ * action starts running, so time spent waiting for a pool thread does not count.
+ * If an action has not finished when its deadline passes, the action is cancelled
+ * and an escalation action is run on the pool, ahead of queued quit actions.
+ */
+final class QuitScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(QuitScheduler.class);
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final LinkedBlockingDeque<Runnable> quitQueue;
+    private final ThreadPoolExecutor quitExecutor;
+    private final ScheduledThreadPoolExecutor deadlineExecutor;
+
+    QuitScheduler(int maxThreads) {
+        checkArgument(maxThreads > 0, "maxThreads must be positive: %s", maxThreads);
+        quitQueue = new LinkedBlockingDeque<>();
+        quitExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                quitQueue, new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("webdriver-quit-%d")
+                        .build());
+        quitExecutor.allowCoreThreadTimeOut(true);
+        deadlineExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("webdriver-quit-deadline-%d")
+                .build());
+        deadlineExecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final class DefaultHolder {
+
+        private static final QuitScheduler INSTANCE = new QuitScheduler(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Gets the scheduler shared by all sessions.
+     * @return the shared scheduler
+     */
+    static QuitScheduler getInstance() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Submits a quit action.
+     * @param action the quit action
+     * @param timeout duration after which the action is abandoned, measured from
+     *                the time the action starts running
+     * @param escalation action to run if the timeout elapses first
+     * @return a future that completes when the action finishes, or completes
+     * exceptionally with a {@link TimeoutException} after the escalation has run
+     */
+    CompletableFuture<Void> submit(Runnable action, Duration timeout, Runnable escalation) {
+        requireNonNull(action, "action");
+        requireNonNull(timeout, "timeout");
+        requireNonNull(escalation, "escalation");
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // whichever of the action and the deadline finishes first decides the outcome
+        AtomicBoolean decided = new AtomicBoolean(false);
+        AtomicReference<Future<?>> taskRef = new AtomicReference<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            ScheduledFuture<?> deadline = deadlineExecutor.schedule(() -> {
+                if (decided.compareAndSet(false, true)) {
+                    log.debug("quit action did not finish within {}; escalating", timeout);
+                    taskRef.get().cancel(true);
+                    executeFirst(() -> escalate(escalation, timeout, result));
+                }
+            }, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                action.run();
+                if (decided.compareAndSet(false, true)) {
+                    result.complete(null);
+                }
+            } catch (Throwable t) {
+                if (decided.compareAndSet(false, true)) {
+                    result.completeExceptionally(t);
+                }
+            } finally {
+                deadline.cancel(false);
+            }
+        }, null);
+        taskRef.set(task);
+        quitExecutor.execute(task);
+        return result;
+    }
+
+    private static void escalate(Runnable escalation, Duration timeout, CompletableFuture<Void> result) {
+        try {
+            escalation.run();
+        } catch (Throwable t) {
+            log.info("escalation after quit timeout failed: {}", t.toString());
+        }
+        result.completeExceptionally(new TimeoutException("quit did not finish within " + timeout));
+    }
+
+    /**
+     * Executes a task on the quit pool ahead of any queued quit actions.
+     */
+    private void executeFirst(Runnable task) {
+        quitQueue.addFirst(task);
+        // the pool may have no idle thread to take the task if core threads have timed out
+        quitExecutor.prestartCoreThread();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("quitExecutor", quitExecutor)
+                .toString();
+    }
+}
@@ -132,7 +132,11 @@ class RFC6265SetCookieHeaderParser implements SetCookieHeaderParser {
     }
 
     static String getDefaultPath(final CookieOrigin origin) {
-        String defaultPath = origin.getPath();
+        return getDefaultPath(origin.getPath());
+    }
+
+    static String getDefaultPath(final String originPath) {
+        String defaultPath = originPath;
         int lastSlashIndex = defaultPath.lastIndexOf('/');
         if (lastSlashIndex >= 0) {
             if (lastSlashIndex == 0) {
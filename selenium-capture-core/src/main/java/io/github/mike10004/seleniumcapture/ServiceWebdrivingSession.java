@@ -3,8 +3,12 @@ package io.github.mike10004.seleniumcapture;
 import com.google.common.base.MoreObjects;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.service.DriverService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -14,6 +18,8 @@ import static java.util.Objects.requireNonNull;
  */
 public class ServiceWebdrivingSession extends SimpleWebdrivingSession {
 
+    private static final Logger log = LoggerFactory.getLogger(ServiceWebdrivingSession.class);
+
     private final DriverService service;
 
     public ServiceWebdrivingSession(WebDriver driver, DriverService service) {
@@ -34,6 +40,44 @@ public class ServiceWebdrivingSession extends SimpleWebdrivingSession {
         }
     }
 
+    /**
+     * Destroys the driver process and its descendants, which include the browser.
+     * The driver process is identified as the child of this process that was
+     * started with the service's port as an argument.
+     */
+    @Override
+    protected void destroyProcesses() {
+        int port = service.getUrl().getPort();
+        List<ProcessHandle> drivers = ProcessHandle.current().children()
+                .filter(p -> p.info().arguments().map(args -> isDriverCommandLine(args, port)).orElse(false))
+                .collect(Collectors.toList());
+        if (drivers.isEmpty()) {
+            log.info("no driver process found for port {}", port);
+        }
+        drivers.forEach(ServiceWebdrivingSession::destroyTree);
+    }
+
+    static boolean isDriverCommandLine(String[] args, int port) {
+        String portArg = String.valueOf(port);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port=" + portArg)) {
+                return true;
+            }
+            if (args[i].equals("--port") && i + 1 < args.length && args[i + 1].equals(portArg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void destroyTree(ProcessHandle root) {
+        // collect descendants first, because they are reparented when the root dies
+        List<ProcessHandle> descendants = root.descendants().collect(Collectors.toList());
+        log.info("destroying driver process {} and {} descendants", root.pid(), descendants.size());
+        root.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
     @Nullable
     @Override
     public DriverService getDriverService() {
@@ -0,0 +1,67 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.base.MoreObjects;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.MalformedCookieException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Codec for {@code Set-Cookie} header values, one per line. Decoded cookies are
+ * assigned the instant decoding started as their creation date.
+ */
+class SetCookieHeaderCodec implements CookieCodec {
+
+    private final SetCookieHeaderParser parser;
+    private final URL originUrl;
+
+    public SetCookieHeaderCodec(SetCookieHeaderParser parser, URL originUrl) {
+        this.parser = requireNonNull(parser, "parser");
+        this.originUrl = requireNonNull(originUrl, "originUrl");
+    }
+
+    @Override
+    public void encode(Iterable<? extends DeserializableCookie> cookies, Writer out) throws IOException {
+        CookieUtility utility = CookieUtility.getInstance();
+        for (DeserializableCookie cookie : cookies) {
+            out.write(utility.formatSetCookieHeader(cookie));
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void decode(Reader in, Consumer<? super DeserializableCookie> sink) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        Instant creationDate = Instant.now();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                for (Cookie cookie : parser.parse(line, originUrl, creationDate)) {
+                    sink.accept((DeserializableCookie) cookie);
+                }
+            } catch (MalformedCookieException e) {
+                throw new IOException("malformed cookie on line " + lineNumber, e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("originUrl", originUrl)
+                .toString();
+    }
+}
@@ -26,7 +26,20 @@ public interface SetCookieHeaderParser {
         return parse(header, origin, creationDate);
     }
 
+    /**
+     * Creates a parser. The parser is safe for use by multiple threads.
+     * @return a parser
+     */
     static SetCookieHeaderParser create() {
+        return DirectSetCookieHeaderParser.getInstance();
+    }
+
+    /**
+     * Creates a parser that delegates attribute parsing to HttpClient cookie attribute handlers.
+     * The parser produces the same cookies as the parser returned by {@link #create()}.
+     * @return a parser
+     */
+    static SetCookieHeaderParser createHttpClientBased() {
         return new RFC6265SetCookieHeaderParser(CookieAttributeHandlers.getDefaultAttributeHandlers());
     }
 
@@ -0,0 +1,34 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.mitm.CertificateAndKey;
+import com.browserup.bup.mitm.CertificateAndKeySource;
+import com.google.common.base.Suppliers;
+
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Certificate and key source that loads from another source at most once,
+ * so that concurrent sessions share the same certificate and key.
+ */
+class SharedCertificateAndKeySource implements CertificateAndKeySource {
+
+    private final CertificateAndKeySource delegate;
+    private final Supplier<CertificateAndKey> certificateAndKey;
+
+    public SharedCertificateAndKeySource(CertificateAndKeySource delegate) {
+        this.delegate = requireNonNull(delegate);
+        certificateAndKey = Suppliers.memoize(delegate::load);
+    }
+
+    @Override
+    public CertificateAndKey load() {
+        return certificateAndKey.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedCertificateAndKeySource{delegate=" + delegate + "}";
+    }
+}
@@ -9,10 +9,9 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.lang.ref.WeakReference;
 import java.time.Duration;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -34,17 +33,57 @@ public class SimpleWebdrivingSession implements WebdrivingSession {
         return driver;
     }
 
+    /**
+     * Tries to make the webdriver quit, imposing a timeout. The quit is performed on
+     * a thread pool shared by all sessions; see {@link #quitAsync(Duration)}.
+     * @param quitTimeout duration to wait before throwing an exception
+     * @throws WebdriverQuitException if {@link WebDriver#quit()} does not return before the timeout elapses
+     */
     @Override
     public void tryQuit(Duration quitTimeout) throws WebdriverQuitException {
-        ExecutorService service = Executors.newSingleThreadExecutor();
         try {
-            tryQuit(driver, quitTimeout, service);
-        } finally {
-            List<?> runnables = service.shutdownNow();
-            log.trace("shutting down executor service {} which had {} tasks", service, runnables.size());
+            quitAsync(quitTimeout).get();
+            log.trace("WebDriver quit() finished without timeout or interruption");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebdriverQuitException(new WeakReference<>(driver), "waiting for driver.quit aborted early", e);
+        } catch (ExecutionException e) {
+            throw new WebdriverQuitException(new WeakReference<>(driver), "waiting for driver.quit aborted early", e.getCause());
         }
     }
 
+    /**
+     * Makes the webdriver quit on a thread pool shared by all sessions. If
+     * {@link WebDriver#quit()} has not returned when the timeout elapses, measured
+     * from the time the quit starts,
+     * {@link #destroyProcesses()} is invoked and the returned future completes
+     * exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * @param quitTimeout duration to wait before destroying processes
+     * @return a future that completes when the driver has quit
+     */
+    public CompletableFuture<Void> quitAsync(Duration quitTimeout) {
+        requireNonNull(quitTimeout, "quitTimeout");
+        return QuitScheduler.getInstance().submit(this::quitQuietly, quitTimeout, this::destroyProcesses);
+    }
+
+    private void quitQuietly() {
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            LoggerFactory.getLogger(WebdrivingSession.class).info("driver.quit() failed due to " + e);
+        }
+    }
+
+    /**
+     * Forcibly terminates the processes that support this session. This is invoked
+     * when the driver does not quit before a timeout elapses. It is invoked on the
+     * quit thread pool shared by all sessions. This implementation does nothing,
+     * because the processes are not known.
+     */
+    protected void destroyProcesses() {
+        log.debug("processes of {} are unknown; not destroying", this);
+    }
+
     @Override
     public void close() {
         log.trace("webdriver quitting");
@@ -1,79 +1,97 @@
 package io.github.mike10004.seleniumcapture;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.internal.LinkedTreeMap;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.time.Instant;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Cookie exploder that reads cookie fields through accessor methods. The map
+ * keys are in the order the fields are declared in {@link DeserializableCookie}.
+ */
 public class StandardCookieExploder implements CookieExploder {
 
-    private static final Logger log = LoggerFactory.getLogger(StandardCookieExploder.class);
+    static final String FIELD_NAME = "name";
+    static final String FIELD_VALUE = "value";
+    static final String FIELD_VERSION = "cookieVersion";
+    static final String FIELD_COMMENT = "cookieComment";
 
-    private static final Gson gson = new GsonBuilder().create();
-
-    private static final ImmutableMap<String, String> IMPLIED_MISSING = ImmutableMap.<String, String>builder()
-            .put("cookieVersion", "0")
-            .put("cookieExpiryDate", "0")
-            .put("lastAccessed", "0")
-            .put("creationDate", "0")
-            .put("attribs", "{}")
-            .put("httpOnly", "false")
-            .put("isSecure", "false")
-            .build();
+    static final ImmutableList<String> FIELD_NAMES = ImmutableList.of(
+            FIELD_NAME,
+            FIELD_VALUE,
+            DeserializableCookie.FIELD_PATH,
+            DeserializableCookie.FIELD_DOMAIN,
+            DeserializableCookie.FIELD_ATTRIBUTES,
+            DeserializableCookie.FIELD_EXPIRY_DATE,
+            DeserializableCookie.FIELD_CREATION_DATE,
+            DeserializableCookie.FIELD_LAST_ACCESSED,
+            DeserializableCookie.FIELD_IS_SECURE,
+            DeserializableCookie.FIELD_HTTP_ONLY,
+            FIELD_VERSION,
+            FIELD_COMMENT);
 
     public StandardCookieExploder() {
     }
 
-
     @Override
     public Map<String, Object> explode(DeserializableCookie cookie) {
-        JsonObject json = gson.toJsonTree(cookie).getAsJsonObject();
-        removeDefaults(json);
-        Map<String, Object> map = gson.fromJson(json, getDeserializationTypeToken().getType());
-        dateify(cookie, map);
-        log.trace("cookie serialized as object with {} fields, converted to map with {} fields", json.size(), map.size());
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put(FIELD_NAME, cookie.getName());
+        map.put(FIELD_VALUE, cookie.getValue());
+        putIfNotNull(map, DeserializableCookie.FIELD_PATH, cookie.getPath());
+        putIfNotNull(map, DeserializableCookie.FIELD_DOMAIN, cookie.getDomain());
+        ImmutableMap<String, String> attributes = cookie.copyAttributes();
+        if (!attributes.isEmpty()) {
+            map.put(DeserializableCookie.FIELD_ATTRIBUTES, attributes);
+        }
+        putIfNotNull(map, DeserializableCookie.FIELD_EXPIRY_DATE, cookie.getExpiryInstant());
+        putIfNotNull(map, DeserializableCookie.FIELD_CREATION_DATE, cookie.getCreationInstant());
+        putIfNotNull(map, DeserializableCookie.FIELD_LAST_ACCESSED, cookie.getLastAccessedInstant());
+        if (cookie.isSecure()) {
+            map.put(DeserializableCookie.FIELD_IS_SECURE, Boolean.TRUE);
+        }
+        if (cookie.isHttpOnly()) {
+            map.put(DeserializableCookie.FIELD_HTTP_ONLY, Boolean.TRUE);
+        }
+        if (cookie.getVersion() != 0) {
+            map.put(FIELD_VERSION, cookie.getVersion());
+        }
+        putIfNotNull(map, FIELD_COMMENT, cookie.getComment());
         return map;
     }
 
-    private static TypeToken<LinkedTreeMap<String, Object>> getDeserializationTypeToken() {
-        return new TypeToken<LinkedTreeMap<String, Object>>() {};
-    }
-
-    private void maybeDateify(Map<String, Object> map, String key, Instant value) {
-        if (value == null) {
-            map.remove(key);
-            return;
-        }
-        if (!map.containsKey(key)) {
-            return;
+    private static void putIfNotNull(Map<String, Object> map, String key, @Nullable Object value) {
+        if (value != null) {
+            map.put(key, value);
         }
-        map.put(key, value);
     }
 
-    private void dateify(DeserializableCookie cookie, Map<String, Object> map) {
-        maybeDateify(map, "lastAccessed", cookie.getLastAccessedInstant());
-        maybeDateify(map, "creationDate", cookie.getCreationInstant());
-        maybeDateify(map, "cookieExpiryDate", cookie.getExpiryInstant());
+    /**
+     * Explodes a collection of cookies into a columnar buffer. The fields of each
+     * cookie are copied into the buffer's columns, so no map is created for any cookie.
+     * @param cookies the cookies
+     * @param buffer the buffer to fill
+     */
+    @Override
+    public void explodeAll(Collection<? extends DeserializableCookie> cookies, CookieColumns buffer) {
+        buffer.clear();
+        buffer.ensureCapacity(cookies.size());
+        for (DeserializableCookie cookie : cookies) {
+            buffer.add(cookie);
+        }
     }
 
-    private void removeDefaults(JsonObject object) {
-        for (String name : IMPLIED_MISSING.keySet()) {
-            String jsonEncodingThatImpliesAbsence = IMPLIED_MISSING.get(name);
-            JsonElement element = object.get(name);
-            if (element != null) {
-                String jsonEncodingOfField = element.toString();
-                if (jsonEncodingThatImpliesAbsence.equals(jsonEncodingOfField)) {
-                    object.remove(name);
-                }
-            }
-        }
+    /**
+     * Explodes a collection of cookies into a new buffer.
+     * @param cookies the cookies
+     * @return the buffer
+     */
+    public CookieColumns explodeAll(Collection<? extends DeserializableCookie> cookies) {
+        CookieColumns buffer = new CookieColumns(cookies.size());
+        explodeAll(cookies, buffer);
+        return buffer;
     }
 }
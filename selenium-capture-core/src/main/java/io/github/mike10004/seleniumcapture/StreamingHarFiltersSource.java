@@ -0,0 +1,162 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.HarCache;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HarTiming;
+import com.google.common.primitives.Ints;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+import org.littleshoot.proxy.impl.ProxyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters source that writes a HAR entry to a streaming writer as soon as each
+ * request/response interaction completes.
+ */
+class StreamingHarFiltersSource extends HttpFiltersSourceAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingHarFiltersSource.class);
+
+    private final StreamingHarWriter harWriter;
+    private final CaptureSelector captureSelector;
+
+    public StreamingHarFiltersSource(StreamingHarWriter harWriter, CaptureSelector captureSelector) {
+        this.harWriter = requireNonNull(harWriter);
+        this.captureSelector = requireNonNull(captureSelector);
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest) {
+        return filterRequest(originalRequest, null);
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest, @Nullable ChannelHandlerContext ctx) {
+        if (!ProxyUtils.isCONNECT(originalRequest) && captureSelector.isSelected(originalRequest, ctx)) {
+            return new EntryWritingFilter(originalRequest, ctx, harWriter, captureSelector);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Filter that writes an entry when the interaction completes. Phase timings are
+     * recorded from the proxy's callbacks; phases whose callbacks are not invoked
+     * for a request are reported as -1, or as zero for the required send, wait and
+     * receive phases.
+     */
+    private static class EntryWritingFilter extends TrafficMonitorFilter {
+
+        private static final long UNSET = Long.MIN_VALUE;
+
+        private final StreamingHarWriter harWriter;
+        private volatile long dnsStartNanos = UNSET;
+        private volatile long dnsEndNanos = UNSET;
+        private volatile long connectStartNanos = UNSET;
+        private volatile long sslStartNanos = UNSET;
+        private volatile long connectEndNanos = UNSET;
+        private volatile long sendStartNanos = UNSET;
+        private volatile long sendEndNanos = UNSET;
+        private volatile long receiveStartNanos = UNSET;
+
+        public EntryWritingFilter(HttpRequest originalRequest, ChannelHandlerContext ctx, StreamingHarWriter harWriter, CaptureSelector captureSelector) {
+            super(originalRequest, ctx, null, captureSelector);
+            this.harWriter = requireNonNull(harWriter);
+        }
+
+        @Override
+        public InetSocketAddress proxyToServerResolutionStarted(String resolvingServerHostAndPort) {
+            dnsStartNanos = System.nanoTime();
+            return super.proxyToServerResolutionStarted(resolvingServerHostAndPort);
+        }
+
+        @Override
+        public void proxyToServerResolutionSucceeded(String serverHostAndPort, InetSocketAddress resolvedRemoteAddress) {
+            dnsEndNanos = System.nanoTime();
+            super.proxyToServerResolutionSucceeded(serverHostAndPort, resolvedRemoteAddress);
+        }
+
+        @Override
+        public void proxyToServerConnectionStarted() {
+            connectStartNanos = System.nanoTime();
+            super.proxyToServerConnectionStarted();
+        }
+
+        @Override
+        public void proxyToServerConnectionSSLHandshakeStarted() {
+            sslStartNanos = System.nanoTime();
+            super.proxyToServerConnectionSSLHandshakeStarted();
+        }
+
+        @Override
+        public void proxyToServerConnectionSucceeded(ChannelHandlerContext serverCtx) {
+            connectEndNanos = System.nanoTime();
+            super.proxyToServerConnectionSucceeded(serverCtx);
+        }
+
+        @Override
+        public void proxyToServerRequestSending() {
+            sendStartNanos = System.nanoTime();
+            super.proxyToServerRequestSending();
+        }
+
+        @Override
+        public void proxyToServerRequestSent() {
+            sendEndNanos = System.nanoTime();
+            super.proxyToServerRequestSent();
+        }
+
+        @Override
+        public void serverToProxyResponseReceiving() {
+            receiveStartNanos = System.nanoTime();
+            super.serverToProxyResponseReceiving();
+        }
+
+        @Override
+        protected void responseCompleted(HarRequest harRequest, HarResponse harResponse) {
+            long completedNanos = System.nanoTime();
+            HarEntry entry = new HarEntry();
+            Date started = getRequestStartedDateTime();
+            entry.setStartedDateTime(started == null ? new Date() : started);
+            int elapsed = (int) Math.min(Integer.MAX_VALUE, getElapsedMillisSinceRequestStarted());
+            entry.setTime(elapsed);
+            entry.setRequest(harRequest);
+            entry.setResponse(harResponse);
+            entry.setCache(new HarCache());
+            HarTiming timings = new HarTiming();
+            timings.setDns(millisBetween(dnsStartNanos, dnsEndNanos, -1));
+            timings.setConnect(millisBetween(connectStartNanos, connectEndNanos, -1));
+            timings.setSsl(millisBetween(sslStartNanos, connectEndNanos, -1));
+            timings.setSend(millisBetween(sendStartNanos, sendEndNanos, 0));
+            timings.setWait(millisBetween(sendEndNanos, receiveStartNanos, 0));
+            timings.setReceive(millisBetween(receiveStartNanos, completedNanos, 0));
+            entry.setTimings(timings);
+            entry.setServerIPAddress(getServerIpAddress());
+            try {
+                harWriter.writeEntry(entry);
+            } catch (IOException e) {
+                log.warn("failed to write HAR entry for {}", harRequest.getUrl(), e);
+            }
+        }
+
+        static int millisBetween(long startNanos, long endNanos, int defaultValue) {
+            if (startNanos == UNSET || endNanos == UNSET || endNanos < startNanos) {
+                return defaultValue;
+            }
+            return Ints.saturatedCast(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.HarCreatorBrowser;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarLog;
+import com.browserup.harreader.model.HarPage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reader of a HAR document whose entries are deserialized one at a time as they are
+ * iterated, instead of all at once. Use this to process HARs that are too large to
+ * load into memory with {@link BrowserUpHars#readHar(File, Charset, HarReaderMode)}.
+ *
+ * <p>The log metadata (version, creator, browser, pages, and comment) that precedes
+ * the entries in the document is available as soon as the reader is opened. Metadata
+ * that follows the entries is available once iteration has finished. Entries may be
+ * iterated only once. Instances are not safe for use by multiple threads.
+ * @see StreamingHarWriter
+ */
+public class StreamingHarReader implements Closeable, Iterable<HarEntry> {
+
+    private static final TypeReference<List<HarPage>> PAGE_LIST_TYPE = new TypeReference<List<HarPage>>() {};
+
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private final ObjectReader entryReader;
+    private final HarLog log;
+    private boolean hasEntries;
+    private boolean iteratorCreated;
+
+    /**
+     * Constructs a reader and reads the beginning of the HAR document, up to the entries.
+     * @param parser the parser; closing this reader closes the parser
+     * @param mode reader mode
+     * @throws IOException on I/O error or if the document is not a HAR
+     */
+    protected StreamingHarReader(JsonParser parser, HarReaderMode mode) throws IOException {
+        this.parser = requireNonNull(parser);
+        mapper = BrowserUpHars.getHarMapper(mode);
+        entryReader = mapper.readerFor(HarEntry.class);
+        log = new HarLog();
+        log.setEntries(Collections.emptyList());
+        seekLog();
+        hasEntries = readLogFields();
+    }
+
+    /**
+     * Opens a reader of a HAR file. If the charset is UTF-8, the file is memory-mapped.
+     * @param harFile the file
+     * @param harCharset the character encoding of text in the file
+     * @param mode reader mode
+     * @return a new reader
+     * @throws IOException on I/O error or if the file is not a HAR
+     */
+    public static StreamingHarReader open(File harFile, Charset harCharset, HarReaderMode mode) throws IOException {
+        ObjectMapper mapper = BrowserUpHars.getHarMapper(mode);
+        JsonParser parser;
+        if (StandardCharsets.UTF_8.equals(harCharset)) {
+            parser = mapper.getFactory().createParser(new MappedFileInputStream(harFile));
+        } else {
+            parser = mapper.getFactory().createParser(new BufferedReader(new InputStreamReader(new FileInputStream(harFile), harCharset)));
+        }
+        return open(parser, mode);
+    }
+
+    /**
+     * Opens a reader of a HAR document in a byte stream. The character encoding is detected.
+     * @param inputStream the stream; closing the reader closes the stream
+     * @param mode reader mode
+     * @return a new reader
+     * @throws IOException on I/O error or if the document is not a HAR
+     */
+    public static StreamingHarReader open(InputStream inputStream, HarReaderMode mode) throws IOException {
+        return open(BrowserUpHars.getHarMapper(mode).getFactory().createParser(inputStream), mode);
+    }
+
+    private static StreamingHarReader open(JsonParser parser, HarReaderMode mode) throws IOException {
+        try {
+            return new StreamingHarReader(parser, mode);
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    private void seekLog() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("expected start of object at " + parser.getCurrentLocation());
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            token = parser.nextToken();
+            if ("log".equals(fieldName)) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("expected log object at " + parser.getCurrentLocation());
+                }
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IOException("no log object in document");
+    }
+
+    /**
+     * Reads log fields until the start of the entries array or the end of the log object.
+     * @return true if the parser is positioned at the start of the entries array
+     */
+    private boolean readLogFields() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (fieldName) {
+                case "entries":
+                    if (token != JsonToken.START_ARRAY) {
+                        throw new IOException("expected entries array at " + parser.getCurrentLocation());
+                    }
+                    return true;
+                case "version":
+                    log.setVersion(parser.getValueAsString());
+                    break;
+                case "comment":
+                    log.setComment(parser.getValueAsString());
+                    break;
+                case "creator":
+                    log.setCreator(mapper.readValue(parser, HarCreatorBrowser.class));
+                    break;
+                case "browser":
+                    log.setBrowser(mapper.readValue(parser, HarCreatorBrowser.class));
+                    break;
+                case "pages":
+                    log.setPages(mapper.readValue(parser, PAGE_LIST_TYPE));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("expected end of log object at " + parser.getCurrentLocation());
+        }
+        return false;
+    }
+
+    /**
+     * Gets the log metadata. The list of entries of the returned log is always empty.
+     * @return the log metadata
+     */
+    public HarLog getLog() {
+        return log;
+    }
+
+    /**
+     * Returns an iterator over the entries. The iterator throws {@link UncheckedIOException}
+     * if an I/O or parse error occurs.
+     * @return the iterator
+     * @throws IllegalStateException if this method has already been invoked
+     */
+    @Override
+    public Iterator<HarEntry> iterator() {
+        checkState(!iteratorCreated, "entries may only be iterated once");
+        iteratorCreated = true;
+        return new EntryIterator();
+    }
+
+    /**
+     * Returns a sequential stream of the entries. Closing the stream closes this reader.
+     * @return the stream
+     * @throws IllegalStateException if entries have already been iterated
+     */
+    public Stream<HarEntry> entries() {
+        Spliterator<HarEntry> spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private class EntryIterator implements Iterator<HarEntry> {
+
+        /**
+         * Flag indicating that the parser is positioned at the start of the next entry.
+         */
+        private boolean positioned;
+
+        @Override
+        public boolean hasNext() {
+            if (positioned) {
+                return true;
+            }
+            if (!hasEntries) {
+                return false;
+            }
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    hasEntries = false;
+                    readLogFields();
+                    return false;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("expected entry object at " + parser.getCurrentLocation());
+                }
+                positioned = true;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public HarEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            positioned = false;
+            try {
+                return entryReader.readValue(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.HarCreatorBrowser;
+import com.browserup.harreader.model.HarEntry;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writer of a HAR document whose entries are written one at a time as they become
+ * available, instead of being accumulated in memory. The document is a valid HAR
+ * once the writer is closed. Instances are safe for use by multiple threads.
+ * @see TrafficCollector#stream(TrafficGenerator, StreamingHarWriter)
+ */
+public class StreamingHarWriter implements Closeable, Flushable {
+
+    /**
+     * HAR format version written to the log.
+     */
+    public static final String HAR_VERSION = "1.2";
+
+    private final ObjectMapper mapper;
+    private final JsonGenerator generator;
+    private final Object lock = new Object();
+    private int entryCount;
+    private boolean closed;
+
+    /**
+     * Constructs a writer and writes the beginning of the HAR document.
+     * @param outputStream the stream to write to; closing this writer closes the stream
+     * @param creator the creator to record in the HAR log
+     * @throws IOException on I/O error
+     */
+    protected StreamingHarWriter(OutputStream outputStream, HarCreatorBrowser creator) throws IOException {
+        mapper = BrowserUpHars.getHarMapper(HarReaderMode.STRICT);
+        generator = mapper.getFactory().createGenerator(requireNonNull(outputStream), JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeFieldName("log");
+        generator.writeStartObject();
+        generator.writeStringField("version", HAR_VERSION);
+        generator.writeFieldName("creator");
+        mapper.writeValue(generator, requireNonNull(creator));
+        generator.writeFieldName("pages");
+        generator.writeStartArray();
+        generator.writeEndArray();
+        generator.writeFieldName("entries");
+        generator.writeStartArray();
+    }
+
+    /**
+     * Creates a writer that writes UTF-8-encoded JSON to a stream.
+     * @param outputStream the stream; closing the writer closes the stream
+     * @return a new writer
+     * @throws IOException on I/O error
+     */
+    public static StreamingHarWriter create(OutputStream outputStream) throws IOException {
+        return create(outputStream, defaultCreator());
+    }
+
+    /**
+     * Creates a writer that writes UTF-8-encoded JSON to a stream.
+     * @param outputStream the stream; closing the writer closes the stream
+     * @param creator the creator to record in the HAR log
+     * @return a new writer
+     * @throws IOException on I/O error
+     */
+    public static StreamingHarWriter create(OutputStream outputStream, HarCreatorBrowser creator) throws IOException {
+        return new StreamingHarWriter(outputStream, creator);
+    }
+
+    /**
+     * Creates a writer that writes UTF-8-encoded JSON to a file.
+     * @param harFile the file; it is created or overwritten
+     * @return a new writer
+     * @throws IOException on I/O error
+     */
+    public static StreamingHarWriter create(File harFile) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(harFile));
+        try {
+            return create(out);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    private static HarCreatorBrowser defaultCreator() {
+        HarCreatorBrowser creator = new HarCreatorBrowser();
+        creator.setName("selenium-capture");
+        String version = StreamingHarWriter.class.getPackage().getImplementationVersion();
+        creator.setVersion(version == null ? "unknown" : version);
+        return creator;
+    }
+
+    /**
+     * Writes an entry to the HAR document.
+     * @param entry the entry
+     * @throws IOException on I/O error or if this writer has been closed
+     */
+    public void writeEntry(HarEntry entry) throws IOException {
+        requireNonNull(entry, "entry");
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("writer is closed");
+            }
+            mapper.writeValue(generator, entry);
+            entryCount++;
+        }
+    }
+
+    /**
+     * Gets the number of entries written so far.
+     * @return the entry count
+     */
+    public int getEntryCount() {
+        synchronized (lock) {
+            return entryCount;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            if (!closed) {
+                generator.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes the end of the HAR document and closes the underlying stream.
+     * @throws IOException on I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeEndObject();
+            } finally {
+                generator.close();
+            }
+        }
+    }
+}
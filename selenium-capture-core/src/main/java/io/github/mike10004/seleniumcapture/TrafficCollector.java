@@ -7,6 +7,7 @@ import org.littleshoot.proxy.HttpFiltersSource;
 import org.openqa.selenium.WebDriverException;
 
 import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -19,7 +20,7 @@ import static java.util.Objects.requireNonNull;
 /**
  * Interface of a service that enables collection of HTTP traffic driven by a web-browsing session.
  */
-public interface TrafficCollector {
+public interface TrafficCollector extends Closeable {
 
     /**
      * Collects traffic generated by the given generator into a HAR. This invokes
@@ -67,6 +68,52 @@ public interface TrafficCollector {
      */
     <R> R drive(TrafficGenerator<R> generator) throws IOException, WebDriverException;
 
+    /**
+     * Collects traffic generated by the given generator, writing each HAR entry to the
+     * given writer as soon as the request/response interaction completes. Entries are
+     * not accumulated in memory, and HAR post-processors are not invoked. The caller
+     * is responsible for closing the writer. This invokes
+     * {@link #stream(TrafficGenerator, StreamingHarWriter, TrafficMonitor)} with a null monitor reference.
+     * @param generator the traffic generator
+     * @param harWriter the HAR writer
+     * @param <R> generator result type
+     * @return the generator result
+     * @throws IOException on I/O error
+     * @throws WebDriverException on webdriver error
+     */
+    default <R> R stream(TrafficGenerator<R> generator, StreamingHarWriter harWriter) throws IOException, WebDriverException {
+        return stream(generator, harWriter, null);
+    }
+
+    /**
+     * Collects traffic generated by the given generator, writing each HAR entry to the
+     * given writer as soon as the request/response interaction completes. Notifications of
+     * request/response interactions can be sent to the given monitor, optionally.
+     *
+     * <p>Entry timings are measured for each phase of the interaction as observed by the
+     * proxy. Phases that the proxy does not observe for a given request are reported as
+     * {@code -1}; this includes DNS resolution and connection setup when an existing
+     * connection is reused or when the request is tunneled over HTTPS. The send, wait and
+     * receive phases are reported as zero if they could not be measured.
+     * @param generator the traffic generator
+     * @param harWriter the HAR writer
+     * @param monitor a monitor, or null
+     * @param <R> generator result type
+     * @return the generator result
+     * @throws IOException on I/O error
+     * @throws WebDriverException on webdriver error
+     * @see #stream(TrafficGenerator, StreamingHarWriter)
+     */
+    <R> R stream(TrafficGenerator<R> generator, StreamingHarWriter harWriter, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException;
+
+    /**
+     * Releases resources held across sessions, such as pooled proxy servers.
+     * The default implementation does nothing.
+     */
+    @Override
+    default void close() {
+    }
+
     /**
      * Returns a new builder instance.
      * @param webDriverFactory the webdriver factory
@@ -88,6 +135,9 @@ public interface TrafficCollector {
         private Supplier<? extends BrowserUpProxy> interceptingProxyInstantiator = BrowserUpProxyServer::new;
         private final List<HarPostProcessor> harPostProcessors = new ArrayList<>();
         private ExceptionReactor exceptionReactor = ExceptionReactor.PROPAGATE;
+        private ProxyPoolSettings proxyPoolSettings = null;
+        private MonitorDispatchSettings monitorDispatchSettings = null;
+        private CaptureSelector captureSelector = CaptureSelector.all();
 
         Builder(WebDriverFactory webDriverFactory) {
             this.webDriverFactory = requireNonNull(webDriverFactory);
@@ -205,6 +255,49 @@ public interface TrafficCollector {
             return this;
         }
 
+        /**
+         * Configures the collector to reuse intercepting proxy servers from a pool instead of
+         * starting and stopping a new server for each session. Pooled servers are reset
+         * between sessions: a new HAR is begun and the filters are replaced. The pooled servers
+         * are stopped when the collector is closed.
+         * @param proxyPoolSettings the pool settings
+         * @return this builder instance
+         */
+        public Builder pooledProxies(ProxyPoolSettings proxyPoolSettings) {
+            this.proxyPoolSettings = requireNonNull(proxyPoolSettings);
+            return this;
+        }
+
+        /**
+         * Configures the collector to deliver response notifications to traffic monitors
+         * asynchronously, so that a slow monitor does not stall the intercepting proxy.
+         * By default, monitors are notified synchronously on the proxy's I/O threads.
+         * Queued notifications are delivered before a collection method returns.
+         * Notifications discarded under the overflow policy are reported to the settings'
+         * {@link MonitorDispatchSettings#getDropListener() drop listener}.
+         * @param monitorDispatchSettings the dispatch settings
+         * @return this builder instance
+         * @see AsyncTrafficMonitor
+         */
+        public Builder asyncMonitorDispatch(MonitorDispatchSettings monitorDispatchSettings) {
+            this.monitorDispatchSettings = requireNonNull(monitorDispatchSettings);
+            return this;
+        }
+
+        /**
+         * Configures the collector to capture only the interactions, and the parts of
+         * interactions, that the given selector specifies. By default, everything is captured.
+         * Host and URL selection and the capture types apply to all collection methods,
+         * including HARs captured in memory; content type and body size selection applies
+         * to monitors and streaming collection.
+         * @param captureSelector the selector
+         * @return this builder instance
+         */
+        public Builder captureSelector(CaptureSelector captureSelector) {
+            this.captureSelector = requireNonNull(captureSelector);
+            return this;
+        }
+
         /**
          * Builds a collector instance.
          * @return a new collector instance
@@ -213,7 +306,23 @@ public interface TrafficCollector {
             return new TrafficCollectorImpl(webDriverFactory,
                     certificateAndKeySource, upstreamConfigurator,
                     httpFiltersSources, interceptingProxyInstantiator,
-                    harPostProcessors, exceptionReactor);
+                    harPostProcessors, exceptionReactor, proxyPoolSettings, monitorDispatchSettings, captureSelector);
+        }
+
+        /**
+         * Builds a collector that runs up to the given number of sessions concurrently.
+         * Each session has its own proxy and web driver. If HTTPS collection is configured,
+         * the certificate and key are loaded once and shared by all sessions.
+         * @param maxConcurrency maximum number of concurrent sessions
+         * @return a new parallel collector instance
+         */
+        public ParallelTrafficCollector buildParallel(int maxConcurrency) {
+            CertificateAndKeySource sharedCertificateAndKeySource = certificateAndKeySource == null ? null : new SharedCertificateAndKeySource(certificateAndKeySource);
+            TrafficCollector collector = new TrafficCollectorImpl(webDriverFactory,
+                    sharedCertificateAndKeySource, upstreamConfigurator,
+                    httpFiltersSources, interceptingProxyInstantiator,
+                    harPostProcessors, exceptionReactor, proxyPoolSettings, monitorDispatchSettings, captureSelector);
+            return new ParallelTrafficCollector(collector, maxConcurrency);
         }
 
     }
@@ -4,6 +4,7 @@ import com.browserup.harreader.model.Har;
 import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpRequest;
 import com.browserup.bup.BrowserUpProxy;
@@ -21,7 +22,7 @@ import org.openqa.selenium.WebDriverException;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
-import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -41,6 +42,15 @@ public class TrafficCollectorImpl implements TrafficCollector {
     private final Supplier<? extends BrowserUpProxy> interceptingProxyInstantiator;
     private final ImmutableList<HarPostProcessor> harPostProcessors;
     private final ExceptionReactor exceptionReactor;
+    @Nullable
+    private final ProxyPoolSettings proxyPoolSettings;
+    @Nullable
+    private final MonitorDispatchSettings monitorDispatchSettings;
+    private final CaptureSelector captureSelector;
+    private final Object proxyPoolLock = new Object();
+    @Nullable
+    private BrowserUpProxyPool proxyPool;
+    private boolean closed;
 
     /**
      * Constructs an instance of the class. Should only be used by subclasses that know
@@ -61,6 +71,35 @@ public class TrafficCollectorImpl implements TrafficCollector {
                                Supplier<? extends BrowserUpProxy> interceptingProxyInstantiator,
                                Iterable<? extends HarPostProcessor> harPostProcessors,
                                ExceptionReactor exceptionReactor) {
+        this(webDriverFactory, certificateAndKeySource, upstreamConfigurator, httpFiltersSources, interceptingProxyInstantiator, harPostProcessors, exceptionReactor, null, null, CaptureSelector.all());
+    }
+
+    /**
+     * Constructs an instance of the class that optionally reuses proxy servers from a pool
+     * and optionally dispatches monitor notifications asynchronously.
+     * Should only be used by subclasses that know what they're doing. Otherwise, use
+     * {@link TrafficCollector#builder(WebDriverFactory)} to create an instance.
+     * @param webDriverFactory web driver factory to use
+     * @param certificateAndKeySource credential source
+     * @param upstreamConfigurator upstream proxy configurator
+     * @param httpFiltersSources list of filters sources; this should probably include {@link AnonymizingFiltersSource}
+     * @param interceptingProxyInstantiator supplier that constructs the local proxy instance
+     * @param harPostProcessors list of HAR post-processors
+     * @param exceptionReactor exception reactor
+     * @param proxyPoolSettings proxy pool settings, or null to start and stop a new proxy for each session
+     * @param monitorDispatchSettings monitor dispatch settings, or null to notify monitors on the proxy's threads
+     * @param captureSelector selector of interactions to capture
+     */
+    protected TrafficCollectorImpl(WebDriverFactory webDriverFactory,
+                            @Nullable CertificateAndKeySource certificateAndKeySource,
+                            InterceptedWebdrivingConfigurator upstreamConfigurator,
+                               Iterable<? extends HttpFiltersSource> httpFiltersSources,
+                               Supplier<? extends BrowserUpProxy> interceptingProxyInstantiator,
+                               Iterable<? extends HarPostProcessor> harPostProcessors,
+                               ExceptionReactor exceptionReactor,
+                               @Nullable ProxyPoolSettings proxyPoolSettings,
+                               @Nullable MonitorDispatchSettings monitorDispatchSettings,
+                               CaptureSelector captureSelector) {
         this.webDriverFactory = requireNonNull(webDriverFactory);
         this.certificateAndKeySource = certificateAndKeySource;
         this.httpFiltersSources = ImmutableList.copyOf(httpFiltersSources);
@@ -68,10 +107,13 @@ public class TrafficCollectorImpl implements TrafficCollector {
         this.interceptingProxyInstantiator = requireNonNull(interceptingProxyInstantiator);
         this.harPostProcessors = ImmutableList.copyOf(harPostProcessors);
         this.exceptionReactor = requireNonNull(exceptionReactor);
+        this.proxyPoolSettings = proxyPoolSettings;
+        this.monitorDispatchSettings = monitorDispatchSettings;
+        this.captureSelector = requireNonNull(captureSelector);
     }
 
     protected Set<CaptureType> getCaptureTypes() {
-        return EnumSet.allOf(CaptureType.class);
+        return Sets.newEnumSet(captureSelector.getCaptureTypes(), CaptureType.class);
     }
 
     @Override
@@ -82,20 +124,27 @@ public class TrafficCollectorImpl implements TrafficCollector {
     @Override
     public <R> HarPlus<R> collect(TrafficGenerator<R> generator, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException {
         requireNonNull(generator, "generator");
-        BrowserUpProxy bmp = instantiateProxy();
-        configureProxy(bmp, certificateAndKeySource, monitor);
-        bmp.enableHarCaptureTypes(getCaptureTypes());
-        bmp.newHar();
-        bmp.start();
+        AsyncTrafficMonitor asyncMonitor = maybeDispatchAsync(monitor);
+        if (asyncMonitor != null) {
+            monitor = asyncMonitor;
+        }
+        HarCaptureFiltersSource harCapture = new HarCaptureFiltersSource(captureSelector, getCaptureTypes());
+        ProxyLease lease = openProxy(monitor, harCapture);
         R result = null;
+        Har har = harCapture.getHar();
         try {
-            result = invokeGenerate(bmp, generator, monitor);
+            result = invokeGenerate(lease.getProxy(), generator, monitor);
         } catch (IOException | RuntimeException e) {
             exceptionReactor.reactTo(e);
         } finally {
-            bmp.stop();
+            try {
+                lease.finish();
+            } finally {
+                if (asyncMonitor != null) {
+                    asyncMonitor.close();
+                }
+            }
         }
-        Har har = bmp.getHar();
         for (HarPostProcessor harPostProcessor : harPostProcessors) {
             harPostProcessor.process(har);
         }
@@ -113,18 +162,129 @@ public class TrafficCollectorImpl implements TrafficCollector {
         return maybeMonitor(generator, null);
     }
 
+    @Override
+    public <R> R stream(TrafficGenerator<R> generator, StreamingHarWriter harWriter, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException {
+        requireNonNull(harWriter, "harWriter");
+        return maybeMonitor(generator, monitor, new StreamingHarFiltersSource(harWriter, captureSelector));
+    }
+
     private <R> R maybeMonitor(TrafficGenerator<R> generator, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException {
+        return maybeMonitor(generator, monitor, null);
+    }
+
+    private <R> R maybeMonitor(TrafficGenerator<R> generator, @Nullable TrafficMonitor monitor, @Nullable HttpFiltersSource captureFiltersSource) throws IOException, WebDriverException {
         requireNonNull(generator, "generator");
-        BrowserUpProxy bmp = instantiateProxy();
-        configureProxy(bmp, certificateAndKeySource, monitor);
-        bmp.start();
+        AsyncTrafficMonitor asyncMonitor = maybeDispatchAsync(monitor);
+        if (asyncMonitor != null) {
+            monitor = asyncMonitor;
+        }
+        ProxyLease lease = openProxy(monitor, captureFiltersSource);
         try {
-            return invokeGenerate(bmp, generator, monitor);
+            return invokeGenerate(lease.getProxy(), generator, monitor);
         } catch (IOException | RuntimeException e){
             exceptionReactor.reactTo(e);
             return null;
         } finally {
-            bmp.stop();
+            try {
+                lease.finish();
+            } finally {
+                if (asyncMonitor != null) {
+                    asyncMonitor.close();
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private AsyncTrafficMonitor maybeDispatchAsync(@Nullable TrafficMonitor monitor) {
+        if (monitor == null || monitorDispatchSettings == null) {
+            return null;
+        }
+        return new AsyncTrafficMonitor(monitor, monitorDispatchSettings);
+    }
+
+    /**
+     * Provides a started proxy for a single session. The capture filters source, if specified,
+     * precedes all other filters.
+     */
+    private ProxyLease openProxy(@Nullable TrafficMonitor monitor, @Nullable HttpFiltersSource captureFiltersSource) throws IOException {
+        if (proxyPoolSettings == null) {
+            BrowserUpProxy bmp = instantiateProxy();
+            configureProxy(bmp, certificateAndKeySource, monitor);
+            if (captureFiltersSource != null) {
+                bmp.addFirstHttpFilterFactory(captureFiltersSource);
+            }
+            bmp.start();
+            return new ProxyLease(bmp) {
+                @Override
+                public void finish() {
+                    bmp.stop();
+                }
+            };
+        }
+        // the collector's own filters are added to each pooled proxy by configureProxy
+        ImmutableList.Builder<HttpFiltersSource> filtersSources = ImmutableList.builder();
+        if (captureFiltersSource != null) {
+            filtersSources.add(captureFiltersSource);
+        }
+        if (monitor != null) {
+            filtersSources.add(new MonitorFiltersSource(monitor, captureSelector));
+        }
+        BrowserUpProxyPool.Lease poolLease = getProxyPool().borrow(filtersSources.build());
+        BrowserUpProxy bmp = poolLease.getProxy();
+        return new ProxyLease(bmp) {
+            @Override
+            public void finish() {
+                poolLease.release();
+            }
+        };
+    }
+
+    private abstract static class ProxyLease {
+
+        private final BrowserUpProxy proxy;
+
+        protected ProxyLease(BrowserUpProxy proxy) {
+            this.proxy = requireNonNull(proxy);
+        }
+
+        public BrowserUpProxy getProxy() {
+            return proxy;
+        }
+
+        /**
+         * Ends the session with the proxy.
+         */
+        public abstract void finish();
+    }
+
+    private BrowserUpProxyPool getProxyPool() throws IOException {
+        synchronized (proxyPoolLock) {
+            if (closed) {
+                throw new IOException("collector is closed");
+            }
+            if (proxyPool == null) {
+                proxyPool = new BrowserUpProxyPool(requireNonNull(proxyPoolSettings), this::instantiateProxy, bmp -> configureProxy(bmp, certificateAndKeySource, null));
+            }
+            return proxyPool;
+        }
+    }
+
+    /**
+     * Stops all pooled proxy servers, if this instance was configured to use a pool.
+     * Pooled proxy servers that are in use are stopped when the session using them ends.
+     * A collector that uses a pool may not be used after it has been closed.
+     */
+    @Override
+    public void close() {
+        BrowserUpProxyPool pool;
+        synchronized (proxyPoolLock) {
+            closed = true;
+            pool = proxyPool;
+            proxyPool = null;
+        }
+        if (pool != null) {
+            pool.close();
         }
     }
 
@@ -142,9 +302,11 @@ public class TrafficCollectorImpl implements TrafficCollector {
     private static class MonitorFiltersSource extends HttpFiltersSourceAdapter {
 
         private final TrafficMonitor monitor;
+        private final CaptureSelector captureSelector;
 
-        public MonitorFiltersSource(TrafficMonitor monitor) {
+        public MonitorFiltersSource(TrafficMonitor monitor, CaptureSelector captureSelector) {
             this.monitor = requireNonNull(monitor);
+            this.captureSelector = requireNonNull(captureSelector);
         }
 
         @Override
@@ -158,8 +320,8 @@ public class TrafficCollectorImpl implements TrafficCollector {
         }
 
         private HttpFilters doFilterRequest(HttpRequest originalRequest, @Nullable ChannelHandlerContext ctx) {
-            if (!ProxyUtils.isCONNECT(originalRequest)) {
-                return new TrafficMonitorFilter(originalRequest, ctx, monitor);
+            if (!ProxyUtils.isCONNECT(originalRequest) && captureSelector.isSelected(originalRequest, ctx)) {
+                return new TrafficMonitorFilter(originalRequest, ctx, monitor, captureSelector);
             } else {
                 return null;
             }
@@ -187,18 +349,33 @@ public class TrafficCollectorImpl implements TrafficCollector {
         return interceptingProxyInstantiator.get();
     }
 
+    /**
+     * Configures a proxy before it is started. If proxies are pooled, this is invoked
+     * once for each pooled proxy, with a null traffic monitor, and the filters of
+     * the monitor for each session are applied ahead of the filters added here.
+     * @param bmp the proxy
+     * @param certificateAndKeySource the certificate and key source, or null
+     * @param trafficMonitor the traffic monitor, or null
+     */
     protected void configureProxy(BrowserUpProxy bmp, CertificateAndKeySource certificateAndKeySource, @Nullable TrafficMonitor trafficMonitor) {
         if (certificateAndKeySource != null) {
             MitmManager mitmManager = createMitmManager(bmp, certificateAndKeySource);
             bmp.setMitmManager(mitmManager);
         }
-        if (trafficMonitor != null) {
-            bmp.addLastHttpFilterFactory(new MonitorFiltersSource(trafficMonitor));
-        }
-        httpFiltersSources.forEach(bmp::addLastHttpFilterFactory);
+        createFiltersSources(trafficMonitor).forEach(bmp::addLastHttpFilterFactory);
         upstreamConfigurator.configureUpstream(bmp);
     }
 
+    private List<HttpFiltersSource> createFiltersSources(@Nullable TrafficMonitor trafficMonitor) {
+        if (trafficMonitor == null) {
+            return httpFiltersSources;
+        }
+        return ImmutableList.<HttpFiltersSource>builder()
+                .add(new MonitorFiltersSource(trafficMonitor, captureSelector))
+                .addAll(httpFiltersSources)
+                .build();
+    }
+
     @Override
     public String toString() {
         MoreObjects.ToStringHelper h = MoreObjects.toStringHelper(this).omitNullValues();
@@ -211,6 +388,9 @@ public class TrafficCollectorImpl implements TrafficCollector {
         h.add("interceptingProxyInstantiator", interceptingProxyInstantiator);
         h.add("harPostProcessors.size", harPostProcessors.size());
         h.add("exceptionReactor", exceptionReactor);
+        h.add("proxyPoolSettings", proxyPoolSettings);
+        h.add("monitorDispatchSettings", monitorDispatchSettings);
+        h.add("captureSelector", captureSelector);
         return h.toString();
     }
 }
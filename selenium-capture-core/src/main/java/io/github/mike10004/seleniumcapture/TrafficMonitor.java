@@ -40,6 +40,18 @@ public interface TrafficMonitor {
         return 0;
     }
 
+    /**
+     * Determines whether response content delivered to this monitor is retained in the
+     * form in which it was received. If true, the response content is not decoded to text
+     * or encoded to base64 when the response is captured; that happens only if
+     * {@link ImmutableHttpMessage#getContentAsChars()} is invoked. This avoids copies of
+     * large response bodies that the monitor does not inspect as text.
+     * @return true if response content is to be retained without conversion
+     */
+    default boolean retainsRawResponseContent() {
+        return false;
+    }
+
     @SuppressWarnings("unused")
     default void sessionCreated(WeakReference<WebdrivingSession> session) {
         // no op
@@ -21,6 +21,7 @@ import com.browserup.bup.filters.HttpsAwareFiltersAdapter;
 import com.browserup.bup.filters.ResolvedHostnameCacheFilter;
 import com.browserup.bup.filters.ServerResponseCaptureFilter;
 import com.browserup.bup.filters.util.HarCaptureUtil;
+import com.browserup.bup.proxy.CaptureType;
 import com.browserup.bup.util.BrowserUpHttpUtil;
 import com.browserup.harreader.model.HarPostData;
 import com.browserup.harreader.model.HarPostDataParam;
@@ -32,10 +33,12 @@ import com.google.common.io.BaseEncoding;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.littleshoot.proxy.impl.ProxyUtils;
@@ -45,12 +48,15 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -81,7 +87,20 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
 
     private static final Logger log = LoggerFactory.getLogger(TrafficMonitorFilter.class);
 
+    /**
+     * Comment set on a HAR request or response content whose body exceeded the maximum
+     * body size after part of it had been received. The partial content is discarded.
+     */
+    static final String CONTENT_OMITTED_COMMENT = "content omitted because it exceeds the maximum body size";
+
+    @Nullable
     private final TrafficMonitor trafficMonitor;
+    private final CaptureSelector captureSelector;
+    private volatile boolean responseSkipped;
+    private volatile boolean requestContentOmitted;
+    private volatile boolean responseContentOmitted;
+    private long requestContentLength;
+    private long responseContentLength;
     private transient final Object notificationLock = new Object();
     private volatile boolean notifiedResponse;
     private final HarRequest harRequest = new HarRequest();
@@ -89,16 +108,20 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
 
     /**
      * The requestCaptureFilter captures all request content, including headers, trailing headers, and content. This filter
-     * delegates to it when the clientToProxyRequest() callback is invoked. If this request does not need content capture, the
-     * ClientRequestCaptureFilter filter will not be instantiated and will not capture content.
+     * delegates to it when the clientToProxyRequest() callback is invoked. If request content capture is not selected, or the
+     * content exceeds the maximum body size, the filter is not invoked for content; in the latter case it is also released
+     * along with the content buffered so far.
      */
-    private final ClientRequestCaptureFilter requestCaptureFilter;
+    @Nullable
+    private volatile ClientRequestCaptureFilter requestCaptureFilter;
 
     /**
-     * Like requestCaptureFilter above, HarCaptureFilter delegates to responseCaptureFilter to capture response contents. If content capture
-     * is not required for this request, the filter will not be instantiated or invoked.
+     * Like requestCaptureFilter above, this filter delegates to responseCaptureFilter to capture response contents. If the response
+     * is not selected, or response content capture is not selected, the filter is not invoked; if the content exceeds the maximum
+     * body size, it is released along with the content buffered so far.
      */
-    private final ServerResponseCaptureFilter responseCaptureFilter;
+    @Nullable
+    private volatile ServerResponseCaptureFilter responseCaptureFilter;
 
     /**
      * The "real" original request, as captured by the {@link #clientToProxyRequest(io.netty.handler.codec.http.HttpObject)} method.
@@ -111,8 +134,13 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
      */
     private volatile boolean addressResolved = false;
 
-    @SuppressWarnings("unused")
-    private String serverIpAddress;
+    private volatile String serverIpAddress;
+
+    @Nullable
+    private volatile ImmutableHttpMessage.HttpContentSource retainedResponseContent;
+
+    private volatile Date requestStartedDateTime;
+    private volatile long requestStartNanos;
 
     /**
      * Create a new instance of the HarCaptureFilter that will capture request and response information. If no har is specified in the
@@ -130,13 +158,28 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
      * @throws IllegalArgumentException if request method is {@code CONNECT}
      */
     public TrafficMonitorFilter(HttpRequest originalRequest, ChannelHandlerContext ctx, TrafficMonitor trafficMonitor) {
+        this(originalRequest, ctx, checkNotNull(trafficMonitor), CaptureSelector.all());
+    }
+
+    /**
+     * Constructs an instance that captures the parts of the interaction that the given selector specifies.
+     * If the response is not selected, no notification is sent. A subclass may pass a null monitor
+     * if it handles completed interactions itself by overriding {@link #responseCompleted(HarRequest, HarResponse)}.
+     * @param originalRequest the original HttpRequest from the HttpFiltersSource factory
+     * @param ctx channel handler context
+     * @param trafficMonitor traffic monitor (subscriber to notifications from this filter), or null
+     * @param captureSelector capture selector
+     * @throws IllegalArgumentException if request method is {@code CONNECT}
+     */
+    public TrafficMonitorFilter(HttpRequest originalRequest, ChannelHandlerContext ctx, @Nullable TrafficMonitor trafficMonitor, CaptureSelector captureSelector) {
         super(originalRequest, ctx);
         if (ProxyUtils.isCONNECT(originalRequest)) {
             throw new IllegalArgumentException("Attempted traffic listener capture for HTTP CONNECT request");
         }
         requestCaptureFilter = new ClientRequestCaptureFilter(originalRequest);
         responseCaptureFilter = new ServerResponseCaptureFilter(originalRequest, true);
-        this.trafficMonitor = checkNotNull(trafficMonitor);
+        this.trafficMonitor = trafficMonitor;
+        this.captureSelector = checkNotNull(captureSelector);
     }
 
     private void sendResponseNotification(HarResponse harResponse) {
@@ -145,12 +188,64 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
                 log.warn("already sent response notification; this will be suppressed: {}", harResponse);
                 return;
             }
-            ImmutableHttpRequest frozenRequest = HarInteractions.freeze(harRequest);
-            trafficMonitor.responseReceived(frozenRequest, HarInteractions.freeze(harResponse));
+            if (responseSkipped) {
+                return;
+            }
+            responseCompleted(harRequest, harResponse);
             notifiedResponse = true;
         }
     }
 
+    /**
+     * Handles a completed request/response interaction. This is invoked at most once
+     * per filter instance. The default implementation sends a notification to the
+     * traffic monitor.
+     * @param harRequest the request
+     * @param harResponse the response
+     */
+    protected void responseCompleted(HarRequest harRequest, HarResponse harResponse) {
+        if (trafficMonitor != null) {
+            ImmutableHttpRequest frozenRequest = HarInteractions.freeze(harRequest);
+            ImmutableHttpMessage.HttpContentSource retainedContent = retainedResponseContent;
+            ImmutableHttpResponse frozenResponse;
+            if (retainedContent != null && harResponse == normalHarResponse) {
+                frozenResponse = HarInteractions.freeze(harResponse, retainedContent);
+            } else {
+                frozenResponse = HarInteractions.freeze(harResponse);
+            }
+            trafficMonitor.responseReceived(frozenRequest, frozenResponse);
+        }
+    }
+
+    /**
+     * Gets the date and time at which the request was received from the client.
+     * @return the request date, or null if no request has been received yet
+     */
+    @Nullable
+    protected Date getRequestStartedDateTime() {
+        return requestStartedDateTime;
+    }
+
+    /**
+     * Gets the number of milliseconds elapsed since the request was received from the client.
+     * @return the elapsed time, or zero if no request has been received yet
+     */
+    protected long getElapsedMillisSinceRequestStarted() {
+        if (requestStartedDateTime == null) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestStartNanos);
+    }
+
+    /**
+     * Gets the IP address of the remote server, if it is known.
+     * @return the IP address, or null
+     */
+    @Nullable
+    protected String getServerIpAddress() {
+        return serverIpAddress;
+    }
+
     private static HarResponse _createDefaultResponse() {
         HarResponse defaultHarResponse = HarCaptureUtil.createHarResponseForFailure();
         defaultHarResponse.setAdditionalField("_error", HarCaptureUtil.getNoResponseReceivedErrorMessage());
@@ -161,20 +256,44 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
     public HttpResponse clientToProxyRequest(HttpObject httpObject) {
         // if a ServerResponseCaptureFilter is configured, delegate to it to collect the client request. if it is not
         // configured, we still need to capture basic information (timings, possibly client headers, etc.), just not content.
-        requestCaptureFilter.clientToProxyRequest(httpObject);
+        if (httpObject instanceof HttpRequest) {
+            requestContentOmitted = !captureSelector.isCaptureTypeEnabled(CaptureType.REQUEST_CONTENT)
+                    || HttpUtil.getContentLength((HttpRequest) httpObject, -1L) > captureSelector.getMaxBodySize();
+        }
+        if (!requestContentOmitted && httpObject instanceof HttpContent) {
+            requestContentLength += ((HttpContent) httpObject).content().readableBytes();
+            requestContentOmitted = requestContentLength > captureSelector.getMaxBodySize();
+            if (requestContentOmitted) {
+                // release the prefix buffered so far
+                requestCaptureFilter = null;
+                harRequest.setComment(CONTENT_OMITTED_COMMENT);
+            }
+        }
+        ClientRequestCaptureFilter requestCaptureFilter = this.requestCaptureFilter;
+        if (requestCaptureFilter != null && (!requestContentOmitted || httpObject instanceof HttpRequest)) {
+            requestCaptureFilter.clientToProxyRequest(httpObject);
+        }
         if (httpObject instanceof HttpRequest) {
             HttpRequest httpRequest = (HttpRequest) httpObject;
             this.capturedOriginalRequest = httpRequest;
+            requestStartNanos = System.nanoTime();
+            requestStartedDateTime = new Date();
             // associate this request's HarRequest object with the har entry
             populateHarRequestFromHttpRequest(httpRequest, harRequest);
             captureQueryParameters(httpRequest, harRequest);
-            captureRequestHeaders(httpRequest, harRequest);
+            if (captureSelector.isCaptureTypeEnabled(CaptureType.REQUEST_HEADERS)) {
+                captureRequestHeaders(httpRequest, harRequest);
+            }
         }
 
         if (httpObject instanceof LastHttpContent) {
             LastHttpContent lastHttpContent = (LastHttpContent) httpObject;
-            captureTrailingHeaders(lastHttpContent, harRequest);
-            captureRequestContent(requestCaptureFilter.getHttpRequest(), requestCaptureFilter.getFullRequestContents(), harRequest);
+            if (captureSelector.isCaptureTypeEnabled(CaptureType.REQUEST_HEADERS)) {
+                captureTrailingHeaders(lastHttpContent, harRequest);
+            }
+            if (!requestContentOmitted && requestCaptureFilter != null) {
+                captureRequestContent(requestCaptureFilter.getHttpRequest(), requestCaptureFilter.getFullRequestContents(), harRequest);
+            }
         }
         return null;
     }
@@ -230,20 +349,56 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
                 return;
             }
             responseObjectsAccumulated.add(httpObject);
+            if (responseSkipped) {
+                return;
+            }
+            if (httpObject instanceof HttpResponse) {
+                HttpResponse httpResponse = (HttpResponse) httpObject;
+                // check at response header time so that content of unwanted responses is never buffered
+                if (!captureSelector.isResponseSelected(httpResponse.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+                    responseSkipped = true;
+                    return;
+                }
+                responseContentOmitted = !isResponseContentCaptureEnabled(httpResponse)
+                        || HttpUtil.getContentLength(httpResponse, -1L) > captureSelector.getMaxBodySize();
+            }
+            if (!responseContentOmitted && httpObject instanceof HttpContent) {
+                responseContentLength += ((HttpContent) httpObject).content().readableBytes();
+                responseContentOmitted = responseContentLength > captureSelector.getMaxBodySize();
+                if (responseContentOmitted) {
+                    // release the prefix buffered so far
+                    responseCaptureFilter = null;
+                    normalHarResponse.getContent().setComment(CONTENT_OMITTED_COMMENT);
+                }
+            }
             // if a ServerResponseCaptureFilter is configured, delegate to it to collect the server's response. if it is not
             // configured, we still need to capture basic information (timings, HTTP status, etc.), just not content.
-            responseCaptureFilter.serverToProxyResponse(httpObject);
+            ServerResponseCaptureFilter responseCaptureFilter = this.responseCaptureFilter;
+            if (!responseContentOmitted && responseCaptureFilter != null) {
+                responseCaptureFilter.serverToProxyResponse(httpObject);
+            }
             if (httpObject instanceof HttpResponse) {
                 HttpResponse httpResponse = (HttpResponse) httpObject;
                 captureResponse(httpResponse, normalHarResponse);
             }
             if (httpObject instanceof LastHttpContent) {
-                captureResponseContent(responseCaptureFilter.getHttpResponse(), responseCaptureFilter.getFullResponseContents(), normalHarResponse);
+                if (!responseContentOmitted && responseCaptureFilter != null) {
+                    captureResponseContent(responseCaptureFilter.getHttpResponse(), responseCaptureFilter.getFullResponseContents(), normalHarResponse);
+                }
                 sendResponseNotification(normalHarResponse);
             }
+        }
+    }
 
-
+    private boolean isResponseContentCaptureEnabled(HttpResponse httpResponse) {
+        if (captureSelector.isCaptureTypeEnabled(CaptureType.RESPONSE_CONTENT)) {
+            if (captureSelector.isCaptureTypeEnabled(CaptureType.RESPONSE_BINARY_CONTENT)) {
+                return true;
+            }
+            String contentType = httpResponse.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            return contentType != null && BrowserUpHttpUtil.hasTextualContent(contentType);
         }
+        return false;
     }
 
     @Override
@@ -365,7 +520,8 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
             contentType = BrowserUpHttpUtil.UNKNOWN_CONTENT_TYPE;
         }
 
-        if (responseCaptureFilter.isResponseCompressed() && !responseCaptureFilter.isDecompressionSuccessful()) {
+        ServerResponseCaptureFilter responseCaptureFilter = this.responseCaptureFilter;
+        if (responseCaptureFilter != null && responseCaptureFilter.isResponseCompressed() && !responseCaptureFilter.isDecompressionSuccessful()) {
             log.warn("Unable to decompress content with encoding: {}. Contents will be encoded as base64 binary data.", responseCaptureFilter.getContentEncoding());
             forceBinary = true;
         }
@@ -384,9 +540,11 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
             log.debug("No charset specified; using charset {} to decode contents from {}", charset, originalRequest.uri());
         }
 
-        if (!forceBinary && BrowserUpHttpUtil.hasTextualContent(contentType)) {
-            String text = BrowserUpHttpUtil.getContentAsString(fullMessage, charset);
-            harResponse.getContent().setText(text);
+        boolean textual = !forceBinary && BrowserUpHttpUtil.hasTextualContent(contentType);
+        if (trafficMonitor != null && trafficMonitor.retainsRawResponseContent()) {
+            retainedResponseContent = ImmutableHttpMessage.HttpContentSource.fromBuffer(ByteBuffer.wrap(fullMessage), textual ? charset : null);
+        } else if (textual) {
+            harResponse.getContent().setText(BrowserUpHttpUtil.getContentAsString(fullMessage, charset));
         } else {
             harResponse.getContent().setText(BaseEncoding.base64().encode(fullMessage));
             harResponse.getContent().setEncoding("base64");
@@ -401,7 +559,9 @@ public class TrafficMonitorFilter extends HttpsAwareFiltersAdapter {
         harResponse.setHttpVersion(httpResponse.protocolVersion().text());
         captureResponseHeaderSize(httpResponse, harResponse);
         captureResponseMimeType(httpResponse, harResponse);
-        captureResponseHeaders(httpResponse, harResponse);
+        if (captureSelector.isCaptureTypeEnabled(CaptureType.RESPONSE_HEADERS)) {
+            captureResponseHeaders(httpResponse, harResponse);
+        }
         if (BrowserUpHttpUtil.isRedirect(httpResponse)) {
             captureRedirectUrl(httpResponse, harResponse);
         }
@@ -0,0 +1,68 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Static utility methods relating to webdriving sessions.
+ */
+public class WebdrivingSessions {
+
+    private static final Logger log = LoggerFactory.getLogger(WebdrivingSessions.class);
+
+    private WebdrivingSessions() {}
+
+    /**
+     * Closes sessions in parallel. Each session is given the same timeout, measured
+     * from the time its quit starts running. Sessions that are instances of
+     * {@link SimpleWebdrivingSession} are quit with {@link SimpleWebdrivingSession#quitAsync(Duration)},
+     * so their processes are destroyed if they do not quit in time; other sessions
+     * are {@link WebdrivingSession#close() closed} and abandoned if they do not finish in time.
+     * @param sessions the sessions
+     * @param timeout maximum time to wait for each session
+     * @return the sessions that did not close cleanly before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static List<WebdrivingSession> closeAll(Collection<? extends WebdrivingSession> sessions, Duration timeout) throws InterruptedException {
+        requireNonNull(timeout, "timeout");
+        List<WebdrivingSession> sessionList = new ArrayList<>(sessions);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(sessionList.size());
+        for (WebdrivingSession session : sessionList) {
+            futures.add(quitAsync(session, timeout));
+        }
+        List<WebdrivingSession> failures = new ArrayList<>();
+        for (int i = 0; i < sessionList.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                log.info("session {} did not close cleanly: {}", sessionList.get(i), e.getCause().toString());
+                failures.add(sessionList.get(i));
+            }
+        }
+        return failures;
+    }
+
+    private static CompletableFuture<Void> quitAsync(WebdrivingSession session, Duration timeout) {
+        if (session instanceof SimpleWebdrivingSession) {
+            return ((SimpleWebdrivingSession) session).quitAsync(timeout);
+        }
+        return QuitScheduler.getInstance().submit(() -> {
+            try {
+                session.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, timeout, () -> {});
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncTrafficMonitorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void preservesOrder() {
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        TrafficMonitor delegate = (request, response) -> received.add(response.status);
+        AsyncTrafficMonitor monitor = new AsyncTrafficMonitor(delegate, MonitorDispatchSettings.builder()
+                .queueCapacity(8)
+                .executor(executor)
+                .build());
+        int count = 500;
+        for (int i = 0; i < count; i++) {
+            monitor.responseReceived(request(), ImmutableHttpResponse.builder(i).build());
+        }
+        monitor.close();
+        assertEquals("received", IntStream.range(0, count).boxed().collect(Collectors.toList()), received);
+        assertEquals("dropped", 0, monitor.getDroppedCount());
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        CountDownLatch delegateEntered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        TrafficMonitor delegate = (request, response) -> {
+            delegateEntered.countDown();
+            awaitUninterruptibly(proceed);
+            received.add(response.status);
+        };
+        AsyncTrafficMonitor monitor = new AsyncTrafficMonitor(delegate, MonitorDispatchSettings.builder()
+                .queueCapacity(2)
+                .overflowPolicy(MonitorDispatchSettings.OverflowPolicy.DROP_NEWEST)
+                .executor(executor)
+                .build());
+        monitor.responseReceived(request(), ImmutableHttpResponse.builder(0).build());
+        assertTrue(delegateEntered.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            monitor.responseReceived(request(), ImmutableHttpResponse.builder(i).build());
+        }
+        assertEquals("dropped", 2, monitor.getDroppedCount());
+        proceed.countDown();
+        monitor.close();
+        assertEquals("received", Arrays.asList(0, 1, 2), received);
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        CountDownLatch delegateEntered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        TrafficMonitor delegate = (request, response) -> {
+            delegateEntered.countDown();
+            awaitUninterruptibly(proceed);
+            received.add(response.status);
+        };
+        AsyncTrafficMonitor monitor = new AsyncTrafficMonitor(delegate, MonitorDispatchSettings.builder()
+                .queueCapacity(2)
+                .overflowPolicy(MonitorDispatchSettings.OverflowPolicy.DROP_OLDEST)
+                .executor(executor)
+                .build());
+        monitor.responseReceived(request(), ImmutableHttpResponse.builder(0).build());
+        assertTrue(delegateEntered.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 4; i++) {
+            monitor.responseReceived(request(), ImmutableHttpResponse.builder(i).build());
+        }
+        assertEquals("dropped", 2, monitor.getDroppedCount());
+        proceed.countDown();
+        monitor.close();
+        assertEquals("received", Arrays.asList(0, 3, 4), received);
+    }
+
+    private static ImmutableHttpRequest request() {
+        return ImmutableHttpRequest.builder(URI.create("http://example.com/")).build();
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
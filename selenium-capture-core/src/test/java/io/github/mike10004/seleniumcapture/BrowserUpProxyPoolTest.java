@@ -0,0 +1,106 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.BrowserUpProxy;
+import com.browserup.bup.BrowserUpProxyServer;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BrowserUpProxyPoolTest {
+
+    private final AtomicLong nanos = new AtomicLong(0);
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final List<BrowserUpProxy> created = new ArrayList<>();
+
+    private BrowserUpProxyPool createPool(ProxyPoolSettings settings) {
+        return new BrowserUpProxyPool(settings, () -> {
+            BrowserUpProxy proxy = new BrowserUpProxyServer();
+            created.add(proxy);
+            return proxy;
+        }, proxy -> {}, ticker, false);
+    }
+
+    @Test
+    public void reuse() throws Exception {
+        try (BrowserUpProxyPool pool = createPool(ProxyPoolSettings.builder().maxSize(2).build())) {
+            BrowserUpProxyPool.Lease lease = pool.borrow(ImmutableList.of());
+            BrowserUpProxy first = lease.getProxy();
+            assertTrue("started", first.isStarted());
+            assertEquals("leased", 1, pool.getLeasedCount());
+            lease.release();
+            assertEquals("idle", 1, pool.getIdleCount());
+            lease = pool.borrow(ImmutableList.of());
+            assertSame("reused", first, lease.getProxy());
+            assertEquals("created count", 1, created.size());
+            lease.release();
+        }
+        assertTrue("stopped on close", ((BrowserUpProxyServer) created.get(0)).isStopped());
+    }
+
+    @Test
+    public void maxSize() throws Exception {
+        ProxyPoolSettings settings = ProxyPoolSettings.builder()
+                .maxSize(1)
+                .borrowTimeout(Duration.ofMillis(100))
+                .build();
+        try (BrowserUpProxyPool pool = createPool(settings)) {
+            BrowserUpProxyPool.Lease lease = pool.borrow(ImmutableList.of());
+            try {
+                pool.borrow(ImmutableList.of());
+                fail("should have timed out");
+            } catch (IOException expected) {
+            }
+            lease.release();
+            pool.borrow(ImmutableList.of()).release();
+        }
+    }
+
+    @Test
+    public void evictIdle() throws Exception {
+        ProxyPoolSettings settings = ProxyPoolSettings.builder()
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        try (BrowserUpProxyPool pool = createPool(settings)) {
+            pool.borrow(ImmutableList.of()).release();
+            nanos.addAndGet(Duration.ofSeconds(10).toNanos());
+            assertEquals("evicted before max idle time", 0, pool.evictIdle());
+            nanos.addAndGet(Duration.ofSeconds(30).toNanos());
+            assertEquals("evicted after max idle time", 1, pool.evictIdle());
+            assertEquals("idle count", 0, pool.getIdleCount());
+            assertTrue("stopped", ((BrowserUpProxyServer) created.get(0)).isStopped());
+        }
+    }
+
+    @Test
+    public void unhealthyReplaced() throws Exception {
+        try (BrowserUpProxyPool pool = createPool(ProxyPoolSettings.builder().build())) {
+            BrowserUpProxyPool.Lease lease = pool.borrow(ImmutableList.of());
+            BrowserUpProxy first = lease.getProxy();
+            lease.release();
+            first.stop();
+            lease = pool.borrow(ImmutableList.of());
+            assertNotSame("replaced", first, lease.getProxy());
+            lease.invalidate();
+            assertEquals("idle count after invalidate", 0, pool.getIdleCount());
+            assertFalse("health check", ProxyPoolSettings.defaultHealthCheck().test(lease.getProxy()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.proxy.CaptureType;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CaptureSelectorTest {
+
+    @Test
+    public void all() {
+        CaptureSelector selector = CaptureSelector.all();
+        assertTrue(selector.isRequestSelected("www.example.com", "https://www.example.com/"));
+        assertTrue(selector.isRequestSelected(null, null));
+        assertTrue(selector.isResponseSelected("video/mp4"));
+        assertTrue(selector.isResponseSelected(null));
+        assertEquals(CaptureSelector.UNLIMITED_BODY_SIZE, selector.getMaxBodySize());
+        assertEquals(EnumSet.allOf(CaptureType.class), selector.getCaptureTypes());
+    }
+
+    @Test
+    public void hostWildcard() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .host("*.example.com")
+                .build();
+        assertTrue(selector.isRequestSelected("www.example.com", "https://www.example.com/"));
+        assertTrue(selector.isRequestSelected("API.Example.COM", "https://api.example.com/"));
+        assertFalse(selector.isRequestSelected("example.org", "https://example.org/"));
+        assertFalse(selector.isRequestSelected(null, "https://www.example.com/"));
+    }
+
+    @Test
+    public void urlPattern() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .url(Pattern.compile("https://[^/]+/api/.*"))
+                .build();
+        assertTrue(selector.isRequestSelected("www.example.com", "https://www.example.com/api/items"));
+        assertFalse(selector.isRequestSelected("www.example.com", "https://www.example.com/static/app.js"));
+    }
+
+    @Test
+    public void hostAndUrl() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .host("www.example.com")
+                .url(Pattern.compile(".*\\.json"))
+                .build();
+        assertTrue(selector.isRequestSelected("www.example.com", "https://www.example.com/data.json"));
+        assertFalse(selector.isRequestSelected("www.example.com", "https://www.example.com/data.xml"));
+        assertFalse(selector.isRequestSelected("other.example.com", "https://other.example.com/data.json"));
+    }
+
+    @Test
+    public void nettyRequestWithoutContext() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .host("*.example.com")
+                .build();
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "http://www.example.com/");
+        request.headers().set(HttpHeaderNames.HOST, "www.example.com:8080");
+        assertTrue(selector.isSelected(request, null));
+        request.headers().set(HttpHeaderNames.HOST, "example.org");
+        assertFalse(selector.isSelected(request, null));
+    }
+
+    @Test
+    public void contentTypes() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .allowContentType("text/*")
+                .allowContentType("application/json")
+                .denyContentType("text/css")
+                .build();
+        assertTrue(selector.isResponseSelected("text/html; charset=UTF-8"));
+        assertTrue(selector.isResponseSelected("Application/JSON"));
+        assertFalse("deny takes precedence", selector.isResponseSelected("text/css"));
+        assertFalse(selector.isResponseSelected("image/png"));
+        assertFalse("missing content type", selector.isResponseSelected(null));
+    }
+
+    @Test
+    public void denyOnly() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .denyContentType("image/*")
+                .build();
+        assertFalse(selector.isResponseSelected("image/jpeg"));
+        assertTrue(selector.isResponseSelected("text/plain"));
+        assertTrue(selector.isResponseSelected(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void allowContentType_invalid() {
+        CaptureSelector.builder().allowContentType("json");
+    }
+
+    @Test
+    public void captureTypes() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .captureTypes(EnumSet.of(CaptureType.REQUEST_HEADERS, CaptureType.RESPONSE_HEADERS))
+                .maxBodySize(1024)
+                .build();
+        assertTrue(selector.isCaptureTypeEnabled(CaptureType.RESPONSE_HEADERS));
+        assertFalse(selector.isCaptureTypeEnabled(CaptureType.RESPONSE_CONTENT));
+        assertEquals(1024, selector.getMaxBodySize());
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CookieCodecTest {
+
+    private static List<DeserializableCookie> createCookies() {
+        return ImmutableList.of(
+                DeserializableCookie.builder("sid", "abc123")
+                        .domain("www.example.com")
+                        .path("/")
+                        .attribute("path", "/")
+                        .attribute("secure", null)
+                        .secure(true)
+                        .httpOnly(true)
+                        .expiry(Instant.parse("2022-10-01T12:00:00Z"))
+                        .creationDate(Instant.parse("2021-10-01T12:00:00Z"))
+                        .lastAccessed(Instant.parse("2021-10-01T12:30:00Z"))
+                        .build(),
+                DeserializableCookie.builder("theme", "dark")
+                        .domain("example.com")
+                        .path("/account")
+                        .attribute("domain", ".example.com")
+                        .build(),
+                DeserializableCookie.builder("empty", "")
+                        .domain("other.example.com")
+                        .path("/")
+                        .version(1)
+                        .comment("nothing here")
+                        .build());
+    }
+
+    @Test
+    public void json_sameAsGson() throws Exception {
+        List<DeserializableCookie> cookies = createCookies();
+        StringWriter out = new StringWriter();
+        CookieCodec.json().encode(cookies, out);
+        assertEquals("json", new Gson().toJson(cookies), out.toString());
+        List<DeserializableCookie> gsonDecoded = new Gson().fromJson(out.toString(), new TypeToken<List<DeserializableCookie>>(){}.getType());
+        assertEquals("gson decoded", cookies, gsonDecoded);
+    }
+
+    @Test
+    public void json_roundTrip() throws Exception {
+        List<DeserializableCookie> cookies = createCookies();
+        StringWriter out = new StringWriter();
+        CookieCodec.json().encode(cookies, out);
+        assertEquals("decoded", cookies, CookieCodec.json().decodeAll(new StringReader(out.toString())));
+    }
+
+    @Test
+    public void json_registeredAdapter() throws Exception {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(DeserializableCookie.class, DeserializableCookieTypeAdapter.getInstance())
+                .create();
+        DeserializableCookie cookie = createCookies().get(0);
+        String json = gson.toJson(cookie);
+        assertEquals("json", new Gson().toJson(cookie), json);
+        assertEquals("decoded", cookie, gson.fromJson(json, DeserializableCookie.class));
+    }
+
+    @Test
+    public void json_tolerantInput() throws Exception {
+        String json = "[{\"name\":\"foo\",\"value\":\"bar\",\"unknown\":[1,2],\"cookieDomain\":null,\"cookieExpiryDate\":\"Jun 7, 2019 2:07:27 PM\"},null]";
+        List<DeserializableCookie> cookies = CookieCodec.json().decodeAll(new StringReader(json));
+        assertEquals("size", 1, cookies.size());
+        DeserializableCookie cookie = cookies.get(0);
+        assertEquals("foo", cookie.getName());
+        assertNull("domain", cookie.getDomain());
+        assertEquals("expiry", Instant.parse("2019-06-07T14:07:27Z"), cookie.getExpiryInstant());
+    }
+
+    @Test(expected = IOException.class)
+    public void json_malformed() throws Exception {
+        CookieCodec.json().decodeAll(new StringReader("{\"name\":\"foo\"}"));
+    }
+
+    @Test
+    public void netscape_roundTrip() throws Exception {
+        List<DeserializableCookie> cookies = createCookies();
+        StringWriter out = new StringWriter();
+        CookieCodec.netscape().encode(cookies, out);
+        String text = out.toString();
+        assertTrue("header", text.startsWith(NetscapeCookieCodec.HEADER_LINE + "\n"));
+        assertTrue("http only", text.contains("\n#HttpOnly_www.example.com\tFALSE\t/\tTRUE\t1664625600\tsid\tabc123\n"));
+        assertTrue("subdomains", text.contains("\n.example.com\tTRUE\t/account\tFALSE\t0\ttheme\tdark\n"));
+        List<DeserializableCookie> decoded = CookieCodec.netscape().decodeAll(new StringReader(text));
+        assertEquals("size", cookies.size(), decoded.size());
+        for (int i = 0; i < cookies.size(); i++) {
+            DeserializableCookie expected = cookies.get(i), actual = decoded.get(i);
+            assertEquals("name", expected.getName(), actual.getName());
+            assertEquals("value", expected.getValue(), actual.getValue());
+            assertEquals("domain", expected.getBestDomainProperty(), actual.getBestDomainProperty());
+            assertEquals("path", expected.getPath(), actual.getPath());
+            assertEquals("secure", expected.isSecure(), actual.isSecure());
+            assertEquals("httpOnly", expected.isHttpOnly(), actual.isHttpOnly());
+            assertEquals("expiry", expected.getExpiryInstant(), actual.getExpiryInstant());
+        }
+    }
+
+    @Test
+    public void netscape_decodeCurlFile() throws Exception {
+        String text = "# Netscape HTTP Cookie File\n" +
+                "# https://curl.se/docs/http-cookies.html\n" +
+                "\n" +
+                ".example.com\tTRUE\t/\tFALSE\t0\tfoo\tbar\n" +
+                "www.example.com\tFALSE\t/a\ttrue\t1633089600\tnovalue\n";
+        List<DeserializableCookie> cookies = CookieCodec.netscape().decodeAll(new StringReader(text));
+        assertEquals("size", 2, cookies.size());
+        assertEquals("domain", "example.com", cookies.get(0).getDomain());
+        assertEquals("domain attribute", ".example.com", cookies.get(0).getDomainAttribute());
+        assertNull("expiry", cookies.get(0).getExpiryInstant());
+        assertEquals("value", "", cookies.get(1).getValue());
+        assertTrue("secure", cookies.get(1).isSecure());
+        assertFalse("httpOnly", cookies.get(1).isHttpOnly());
+        assertEquals("expiry", Instant.parse("2021-10-01T12:00:00Z"), cookies.get(1).getExpiryInstant());
+    }
+
+    @Test
+    public void netscape_malformed() throws Exception {
+        for (String line : new String[]{"example.com\tTRUE\t/\n", "example.com\tMAYBE\t/\tFALSE\t0\tfoo\tbar\n", "example.com\tTRUE\t/\tFALSE\tsoon\tfoo\tbar\n"}) {
+            try {
+                CookieCodec.netscape().decodeAll(new StringReader(line));
+                fail("should have thrown on " + line);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void setCookieHeaders_roundTrip() throws Exception {
+        List<DeserializableCookie> cookies = createCookies();
+        CookieCodec codec = CookieCodec.setCookieHeaders(new URL("https://www.example.com/"));
+        StringWriter out = new StringWriter();
+        codec.encode(cookies, out);
+        String text = out.toString();
+        assertTrue("expires", text.startsWith("sid=abc123; Expires=Sat, 01-Oct-2022 12:00:00 GMT; Domain=www.example.com; Path=/; Secure; HttpOnly\n"));
+        List<DeserializableCookie> decoded = codec.decodeAll(new StringReader(text));
+        assertEquals("size", cookies.size(), decoded.size());
+        for (int i = 0; i < cookies.size(); i++) {
+            DeserializableCookie expected = cookies.get(i), actual = decoded.get(i);
+            assertEquals("name", expected.getName(), actual.getName());
+            assertEquals("value", expected.getValue(), actual.getValue());
+            assertEquals("domain", expected.getBestDomainProperty(), actual.getDomainAttribute());
+            assertEquals("path", expected.getPath(), actual.getPath());
+            assertEquals("secure", expected.isSecure(), actual.isSecure());
+            assertEquals("expiry", expected.getExpiryInstant(), actual.getExpiryInstant());
+        }
+    }
+
+    @Test
+    public void formatDateForHeader_concurrent() throws Exception {
+        int numThreads = 4, numDates = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                long offset = t * 86400L * 37;
+                futures.add(executor.submit(() -> {
+                    int mismatches = 0;
+                    for (int i = 0; i < numDates; i++) {
+                        Instant instant = Instant.ofEpochSecond(1600000000L + offset + i * 3671L);
+                        String formatted = CookieUtility.formatDateForHeader(instant);
+                        if (!instant.equals(DirectSetCookieHeaderParser.parseExpires(formatted))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals("mismatches", 0, future.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.InternetDomainName;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CookieIndexTest {
+
+    private static final Instant NOW = Instant.parse("2021-10-01T12:00:00Z");
+
+    @Test
+    public void cookiesFor_domainAndHostOnly() {
+        DeserializableCookie hostOnly = cookie("a", "www.example.com", null, "/");
+        DeserializableCookie domain = cookie("b", "www.example.com", ".example.com", "/");
+        DeserializableCookie other = cookie("c", "other.example.com", null, "/");
+        CookieIndex index = CookieIndex.build(Arrays.asList(hostOnly, domain, other));
+        assertEquals("www", ImmutableSet.of(hostOnly, domain), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://www.example.com/"), NOW)));
+        assertEquals("apex", ImmutableSet.of(domain), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://example.com/"), NOW)));
+        assertEquals("sub", ImmutableSet.of(domain), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://deep.www.example.com/"), NOW)));
+        assertEquals("unrelated", ImmutableSet.of(), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://example.org/"), NOW)));
+    }
+
+    @Test
+    public void cookiesFor_publicSuffixDomainIsHostOnly() {
+        DeserializableCookie cookie = cookie("a", "foo.co.uk", "co.uk", "/");
+        CookieIndex index = CookieIndex.build(Arrays.asList(cookie));
+        assertEquals("foo.co.uk", ImmutableSet.of(), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://foo.co.uk/"), NOW)));
+        assertEquals("co.uk", ImmutableSet.of(cookie), ImmutableSet.copyOf(index.cookiesFor(URI.create("https://co.uk/"), NOW)));
+    }
+
+    @Test
+    public void cookiesFor_pathOrderSecureAndExpiry() {
+        DeserializableCookie root = cookie("root", "example.com", null, "/");
+        DeserializableCookie dir = cookie("dir", "example.com", null, "/a");
+        DeserializableCookie slash = cookie("slash", "example.com", null, "/a/b/");
+        DeserializableCookie partial = cookie("partial", "example.com", null, "/a/bc");
+        DeserializableCookie secure = DeserializableCookie.builder("secure", "1").domain("example.com").path("/").secure(true).build();
+        DeserializableCookie expired = DeserializableCookie.builder("expired", "1").domain("example.com").path("/").expiry(NOW.minusSeconds(1)).build();
+        DeserializableCookie maxAgeExpired = DeserializableCookie.builder("maxAge", "1").domain("example.com").path("/")
+                .attribute("max-age", "60").creationDate(NOW.minusSeconds(120)).build();
+        CookieIndex index = CookieIndex.build(Arrays.asList(root, dir, slash, partial, secure, expired, maxAgeExpired));
+        List<DeserializableCookie> cookies = index.cookiesFor(URI.create("http://example.com/a/b/c"), NOW);
+        assertEquals("cookies", Arrays.asList(slash, dir, root), cookies);
+        assertTrue("secure cookie on https", index.cookiesFor(URI.create("https://example.com/"), NOW).contains(secure));
+    }
+
+    @Test
+    public void addReplacesOlderAndRemove() {
+        CookieIndex index = CookieIndex.create();
+        DeserializableCookie older = DeserializableCookie.builder("a", "1").domain("example.com").path("/").creationDate(NOW.minusSeconds(10)).build();
+        DeserializableCookie newer = DeserializableCookie.builder("a", "2").domain("example.com").path("/").creationDate(NOW).build();
+        assertTrue(index.add(newer));
+        assertFalse(index.add(older));
+        assertEquals("size", 1, index.size());
+        assertEquals("value", "2", index.cookiesFor(URI.create("http://example.com/"), NOW).get(0).getValue());
+        assertFalse("remove loser", index.remove(older));
+        assertTrue("remove winner", index.remove(newer));
+        assertEquals("size", 0, index.size());
+        assertEquals("cookies", 0, index.cookiesFor(URI.create("http://example.com/"), NOW).size());
+    }
+
+    @Test
+    public void getMatchingCookiePaths() {
+        assertEquals(Arrays.asList("/"), CookieIndex.getMatchingCookiePaths(""));
+        assertEquals(Arrays.asList("/", "/a", "/a/", "/a/b"), CookieIndex.getMatchingCookiePaths("/a/b"));
+        assertEquals(Arrays.asList("/", "/a", "/a/"), CookieIndex.getMatchingCookiePaths("/a/"));
+    }
+
+    @Test
+    public void sameAsLinearFilter() {
+        Random random = new Random(777);
+        String[] hosts = {"example.com", "www.example.com", "a.b.example.com", "example.org", "foo.co.uk", "localhost", "10.0.0.1"};
+        String[] domainAttributes = {null, null, ".example.com", "example.com", "b.example.com", "co.uk", ".example.org"};
+        String[] paths = {"/", "/a", "/a/", "/a/b", "/ab", "/a/b/c"};
+        List<DeserializableCookie> cookies = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String host = hosts[random.nextInt(hosts.length)];
+            String domainAttribute = domainAttributes[random.nextInt(domainAttributes.length)];
+            if (domainAttribute != null && !domainMatches(host, domainAttribute.replaceFirst("^\\.", ""))) {
+                domainAttribute = null;
+            }
+            cookies.add(DeserializableCookie.builder("c" + i, "v")
+                    .domain(host)
+                    .attribute("domain", domainAttribute)
+                    .path(paths[random.nextInt(paths.length)])
+                    .secure(random.nextInt(4) == 0)
+                    .expiry(random.nextInt(4) == 0 ? NOW.plusSeconds(random.nextInt(200) - 100) : null)
+                    .build());
+        }
+        CookieIndex index = CookieIndex.build(cookies);
+        for (String scheme : new String[]{"http", "https"}) {
+            for (String host : hosts) {
+                for (String path : paths) {
+                    URI url = URI.create(scheme + "://" + host + path);
+                    Set<DeserializableCookie> expected = cookies.stream().filter(c -> linearMatch(c, url)).collect(Collectors.toSet());
+                    assertEquals(url.toString(), expected, ImmutableSet.copyOf(index.cookiesFor(url, NOW)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void concurrentReadsAndWrites() throws Exception {
+        CookieIndex index = CookieIndex.create();
+        URI url = URI.create("https://www.example.com/a/b");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                int offset = t * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        index.add(cookie("c" + (offset + i), "www.example.com", ".example.com", "/a"));
+                    }
+                }));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        index.cookiesFor(url, NOW);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("size", 2000, index.size());
+        assertEquals("cookies", 2000, index.cookiesFor(url, NOW).size());
+    }
+
+    private static boolean linearMatch(DeserializableCookie cookie, URI url) {
+        String host = url.getHost();
+        String domainAttribute = cookie.getDomainAttribute();
+        boolean hostMatch;
+        if (domainAttribute != null) {
+            String domain = domainAttribute.replaceFirst("^\\.", "");
+            boolean publicSuffixOrIp = !InternetDomainName.isValid(domain) || InternetDomainName.from(domain).isPublicSuffix();
+            hostMatch = publicSuffixOrIp ? host.equals(domain) : domainMatches(host, domain);
+        } else {
+            hostMatch = host.equals(cookie.getDomain());
+        }
+        String requestPath = url.getPath(), cookiePath = cookie.getPath();
+        boolean pathMatch = requestPath.equals(cookiePath)
+                || (requestPath.startsWith(cookiePath) && (cookiePath.endsWith("/") || requestPath.charAt(cookiePath.length()) == '/'));
+        boolean secureMatch = !cookie.isSecure() || "https".equals(url.getScheme());
+        boolean notExpired = cookie.getExpiryInstant() == null || cookie.getExpiryInstant().isAfter(NOW);
+        return hostMatch && pathMatch && secureMatch && notExpired;
+    }
+
+    private static boolean domainMatches(String host, String domain) {
+        return host.equals(domain) || host.endsWith("." + domain);
+    }
+
+    private static DeserializableCookie cookie(String name, String host, String domainAttribute, String path) {
+        return DeserializableCookie.builder(name, "v")
+                .domain(host)
+                .attribute("domain", domainAttribute)
+                .path(path)
+                .build();
+    }
+}
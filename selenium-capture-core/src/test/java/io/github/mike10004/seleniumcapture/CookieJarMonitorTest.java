@@ -0,0 +1,101 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.net.HttpHeaders;
+import org.junit.Test;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CookieJarMonitorTest {
+
+    @Test
+    public void keepsLatestPerKey() {
+        CookieJarMonitor monitor = new CookieJarMonitor(SetCookieHeaderParser.create(), tickingClock());
+        monitor.responseReceived(request("https://www.example.com/"), response("sid=1; Path=/", "theme=dark"));
+        monitor.responseReceived(request("https://www.example.com/account"), response("sid=2; Path=/"));
+        monitor.responseReceived(request("https://other.example.com/"), response("sid=3; Path=/"));
+        List<DeserializableCookie> cookies = monitor.getCookies();
+        assertEquals("cookie count", 3, cookies.size());
+        assertEquals("www sid", "2", find(cookies, "www.example.com", "sid").getValue());
+        assertEquals("other sid", "3", find(cookies, "other.example.com", "sid").getValue());
+        assertEquals("theme", "dark", find(cookies, "www.example.com", "theme").getValue());
+    }
+
+    @Test
+    public void olderCookieDoesNotReplaceNewer() {
+        Instant[] now = {Instant.parse("2021-10-01T12:00:00Z")};
+        CookieJarMonitor monitor = new CookieJarMonitor(SetCookieHeaderParser.create(), () -> now[0]);
+        monitor.responseReceived(request("https://www.example.com/"), response("sid=new"));
+        now[0] = now[0].minusSeconds(60);
+        monitor.responseReceived(request("https://www.example.com/"), response("sid=old"));
+        assertEquals("sid", "new", find(monitor.getCookies(), "www.example.com", "sid").getValue());
+    }
+
+    @Test
+    public void ignoresResponsesWithoutCookies() {
+        CookieJarMonitor monitor = new CookieJarMonitor();
+        monitor.responseReceived(request("https://www.example.com/"), ImmutableHttpResponse.builder(200).build());
+        assertEquals("size", 0, monitor.size());
+        assertEquals("malformed", 0, monitor.getMalformedCount());
+    }
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        CookieJarMonitor monitor = new CookieJarMonitor(SetCookieHeaderParser.create(), tickingClock());
+        int numThreads = 4, numResponses = 500;
+        AtomicInteger maxSnapshotSize = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            for (int t = 0; t < numThreads; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < numResponses; i++) {
+                        monitor.responseReceived(request("https://www.example.com/"), response("c" + (i % 10) + "=" + i));
+                        maxSnapshotSize.accumulateAndGet(monitor.getCookies().size(), Math::max);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        assertEquals("cookie count", 10, monitor.getCookies().size());
+        assertEquals("max snapshot size", 10, maxSnapshotSize.get());
+        monitor.clear();
+        assertEquals("cleared", 0, monitor.getCookies().size());
+    }
+
+    private static Supplier<Instant> tickingClock() {
+        AtomicLong millis = new AtomicLong(1633089600000L);
+        return () -> Instant.ofEpochMilli(millis.incrementAndGet());
+    }
+
+    private static DeserializableCookie find(List<DeserializableCookie> cookies, String domain, String name) {
+        return cookies.stream()
+                .filter(c -> domain.equals(c.getBestDomainProperty()) && name.equals(c.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("not found: " + domain + " " + name));
+    }
+
+    private static ImmutableHttpRequest request(String url) {
+        return ImmutableHttpRequest.builder(URI.create(url)).build();
+    }
+
+    private static ImmutableHttpResponse response(String... setCookieHeaderValues) {
+        ImmutableMultimap.Builder<String, String> headers = ImmutableMultimap.builder();
+        for (String value : setCookieHeaderValues) {
+            headers.put(HttpHeaders.SET_COOKIE, value);
+        }
+        return ImmutableHttpResponse.builder(200).headers(headers.build()).build();
+    }
+}
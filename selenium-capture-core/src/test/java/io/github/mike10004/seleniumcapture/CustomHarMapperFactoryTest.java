@@ -1,8 +1,10 @@
 package io.github.mike10004.seleniumcapture;
 
 import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
 import com.browserup.harreader.model.HarRequest;
 import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HttpMethod;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
@@ -39,4 +41,28 @@ public class CustomHarMapperFactoryTest {
         assertTrue("body size", bodySizeEl == null || bodySizeEl.isJsonNull());
     }
 
+    @Test
+    public void afterburnerProducesSameJson() throws Exception {
+        assertTrue("afterburner available", CustomHarMapperFactory.isAfterburnerAvailable());
+        HarRequest req = new HarRequest();
+        req.setMethod(HttpMethod.POST);
+        req.setUrl("https://www.example.com/");
+        req.setHttpVersion("HTTP/1.1");
+        req.setBodySize(17L);
+        String expected = new CustomHarMapperFactory(false).instance(HarReaderMode.STRICT).writeValueAsString(req);
+        String actual = new CustomHarMapperFactory(true).instance(HarReaderMode.STRICT).writeValueAsString(req);
+        assertEquals("json", expected, actual);
+    }
+
+    @Test
+    public void registry() throws Exception {
+        HarMapperRegistry registry = HarMapperRegistry.create(false);
+        assertSame("mapper reused", registry.getMapper(HarReaderMode.LAX), registry.getMapper(HarReaderMode.LAX));
+        assertNotSame("mapper per mode", registry.getMapper(HarReaderMode.LAX), registry.getMapper(HarReaderMode.STRICT));
+        Har har = new Har();
+        har.getLog().setVersion("1.2");
+        String json = registry.getWriter().writeValueAsString(har);
+        Har deserialized = registry.getReader(HarReaderMode.STRICT).readValue(json);
+        assertEquals("version", "1.2", deserialized.getLog().getVersion());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.gson.Gson;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.cookie.CookieOrigin;
+import org.apache.http.cookie.MalformedCookieException;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.impl.cookie.LaxExpiresHandler;
+import org.junit.Test;
+
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Conformance tests that compare the output of {@link DirectSetCookieHeaderParser}
+ * to the output of {@link RFC6265SetCookieHeaderParser}.
+ */
+public class DirectSetCookieHeaderParserTest {
+
+    private static final Instant CREATION_DATE = Instant.parse("2021-10-01T12:00:00Z");
+
+    private static final List<String> HEADER_VALUES = Arrays.asList(
+            "foo=bar",
+            "foo=",
+            "foo=bar; Path=/",
+            "foo=bar; path=/a/b; Domain=.example.com; Secure; HttpOnly",
+            "foo=bar; PATH=; secure=whatever",
+            "  foo  =  bar  ;  path  =  /x  ",
+            "foo=bar baz; Path=/",
+            "foo=bar  \t baz",
+            "foo=\"quoted value\"; Path=/",
+            "foo=\"quoted; with semicolon\"; Path=/",
+            "foo=\"escaped \\\" quote and \\\\ backslash and \\n\"",
+            "foo=\"unterminated",
+            "foo=a\"b\"c",
+            "foo=bar; Expires=Fri, 02-Jun-2017 21:54:46 GMT",
+            "foo=bar; expires=Wed, 09 Jun 21 10:18:14 GMT",
+            "foo=bar; expires=bogus",
+            "foo=bar; expires=",
+            "foo=bar; expires=Thu, 32 Jan 2020 00:00:00 GMT",
+            "foo=bar; expires=Sat, 01 Oct 2022 12:00:00 GMT; Max-Age=-1",
+            "foo=bar; Max-Age=-5",
+            "foo=bar; Max-Age=abc",
+            "foo=bar; Max-Age=",
+            "foo=bar; Max-Age=99999999999",
+            "foo=bar; Max-Age",
+            "foo=bar;;; ; SameSite=Lax",
+            "foo=bar; a=1; A=2",
+            "foo=bar; path=/first; path=/second",
+            "NID=91=oI2ExtvFoN4kD-2WpEnUakCOCF8v7hYBdstNvNjpytHSdD4J0Xe4HhQaCZrEfK_n1fBV4g; expires=Fri, 02-Jun-2017 21:54:46 GMT; path=/; domain=.google.com; HttpOnly",
+            "=novalue",
+            "",
+            "   ",
+            "nameonly",
+            "nameonly; Path=/"
+    );
+
+    private static final List<String> ATTRIBUTE_NAMES = Arrays.asList("path", "domain", "secure", "httponly", "expires", "max-age", "samesite", "a", "");
+
+    private static final List<String> URLS = Arrays.asList(
+            "https://www.example.com/",
+            "https://WWW.Example.COM/a/b/c.html?q=1",
+            "http://example.com",
+            "http://example.com:8080/dir/",
+            "file:///tmp/page.html"
+    );
+
+    @Test
+    public void conformance() throws Exception {
+        SetCookieHeaderParser expectedParser = SetCookieHeaderParser.createHttpClientBased();
+        SetCookieHeaderParser actualParser = DirectSetCookieHeaderParser.getInstance();
+        int comparisons = 0;
+        for (String url : URLS) {
+            for (String headerValue : HEADER_VALUES) {
+                String description = String.format("%s from %s", headerValue, url);
+                List<Cookie> expected = parse(expectedParser, headerValue, url);
+                List<Cookie> actual = parse(actualParser, headerValue, url);
+                if (expected == null) {
+                    assertEquals("malformed: " + description, null, actual);
+                    continue;
+                }
+                assertNotNull("expected malformed: " + description, actual);
+                assertEquals("size: " + description, expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertCookiesEqual(description, (DeserializableCookie) expected.get(i), (DeserializableCookie) actual.get(i));
+                    comparisons++;
+                }
+            }
+        }
+        assertTrue("comparisons", comparisons > 100);
+    }
+
+    private static final List<String> EXPIRES_VALUES = Arrays.asList(
+            "Sat, 01 Oct 2022 12:00:00 GMT",
+            "Fri, 02-Jun-2017 21:54:46 GMT",
+            "Wed, 09 Jun 21 10:18:14 GMT",
+            "Wednesday, 09-Jun-99 10:18:14 GMT",
+            "Thu Jan  1 00:00:00 1970",
+            "1 jan 2000 1:2:3",
+            "01 JANUARY 2000 01:02:03",
+            "31 Feb 2021 23:59:59",
+            "29 feb 2024 00:00:00",
+            "32 Jan 2020 00:00:00",
+            "0 Jan 2020 00:00:00",
+            "01 Jan 1600 00:00:00",
+            "01 Jan 1601 00:00:00",
+            "01 Jan 9999 23:59:59",
+            "01 Jan 12345 00:00:00",
+            "01 Jan 2020 24:00:00",
+            "01 Jan 2020 23:60:00",
+            "01 Jan 2020 23:59:60",
+            "01 Jan 2020 123:00:00",
+            "01 Jan 2020 12:00",
+            "01x Jan 2020 12:00:00",
+            "01 Jan 2020x 12:00:00z",
+            "01 Jan 2020 12:00:00GMT",
+            "1a2 Jan 2020 12:00:00",
+            "Jan\n 01 2020 12:00:00",
+            "01\n Jan 2020 12:00:00",
+            "01x\n Jan 2020 12:00:00",
+            "12:00:00 2020 Jan 01",
+            "2020 12:00:00 01 Jan 05",
+            "01 Ja 2020 12:00:00",
+            "01 Jan 2020",
+            "",
+            "  ",
+            "bogus"
+    );
+
+    @Test
+    public void expires() throws Exception {
+        LaxExpiresHandler expectedHandler = new LaxExpiresHandler();
+        for (String value : EXPIRES_VALUES) {
+            BasicClientCookie expectedCookie = new BasicClientCookie("foo", "bar");
+            Instant expected;
+            try {
+                expectedHandler.parse(expectedCookie, value);
+                expected = expectedCookie.getExpiryDate() == null ? null : expectedCookie.getExpiryDate().toInstant();
+            } catch (MalformedCookieException e) {
+                expected = Instant.MIN;
+            }
+            Instant actual;
+            try {
+                actual = DirectSetCookieHeaderParser.parseExpires(value);
+            } catch (MalformedCookieException e) {
+                actual = Instant.MIN;
+            }
+            if (expected != null) {
+                assertEquals(value, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void malformed() throws Exception {
+        try {
+            DirectSetCookieHeaderParser.getInstance().parse("foo;bar", new URL("https://www.example.com/"), CREATION_DATE);
+            fail("should have thrown");
+        } catch (MalformedCookieException expected) {
+        }
+    }
+
+    @Test
+    public void valueIsSubstringWhenSimple() throws Exception {
+        List<Cookie> cookies = DirectSetCookieHeaderParser.getInstance().parse("sid=abc123; Path=/app; Secure", new URL("https://www.example.com/"), CREATION_DATE);
+        DeserializableCookie cookie = (DeserializableCookie) cookies.get(0);
+        assertEquals("sid", cookie.getName());
+        assertEquals("abc123", cookie.getValue());
+        assertEquals("/app", cookie.getPath());
+        assertTrue(cookie.isSecure());
+        assertEquals(CREATION_DATE, cookie.getCreationInstant());
+    }
+
+    @Test
+    public void headerToCookiesFunction() throws Exception {
+        CookieOrigin origin = new CookieOrigin("www.example.com", 443, "/app/", true);
+        List<Cookie> cookies = CookieUtility.headerToCookiesFunction(origin)
+                .apply("sid=abc123; Path=/app; Secure")
+                .collect(Collectors.toList());
+        assertEquals("count", 1, cookies.size());
+        DeserializableCookie cookie = (DeserializableCookie) cookies.get(0);
+        assertEquals("sid", cookie.getName());
+        assertEquals("abc123", cookie.getValue());
+        assertEquals("www.example.com", cookie.getDomain());
+        assertEquals("/app", cookie.getPath());
+        assertTrue(cookie.isSecure());
+        try {
+            CookieUtility.headerToCookiesFunction(origin).apply("foo;bar");
+            fail("should have thrown");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static List<Cookie> parse(SetCookieHeaderParser parser, String headerValue, String url) throws Exception {
+        try {
+            return parser.parse(headerValue, new URL(url), CREATION_DATE);
+        } catch (MalformedCookieException e) {
+            return null;
+        }
+    }
+
+    private static void assertCookiesEqual(String description, DeserializableCookie expected, DeserializableCookie actual) {
+        Instant expectedExpiry = expected.getExpiryInstant(), actualExpiry = actual.getExpiryInstant();
+        if (expectedExpiry != null && actualExpiry != null && expected.containsAttribute("max-age")) {
+            // max-age expiry is relative to the current time
+            assertTrue("expiry: " + description, Duration.between(expectedExpiry, actualExpiry).abs().getSeconds() < 5);
+            assertEquals("name: " + description, expected.getName(), actual.getName());
+            assertEquals("value: " + description, expected.getValue(), actual.getValue());
+            assertEquals("domain: " + description, expected.getDomain(), actual.getDomain());
+            assertEquals("path: " + description, expected.getPath(), actual.getPath());
+            assertEquals("secure: " + description, expected.isSecure(), actual.isSecure());
+            assertEquals("creation: " + description, expected.getCreationInstant(), actual.getCreationInstant());
+            for (String name : ATTRIBUTE_NAMES) {
+                assertEquals("attribute " + name + ": " + description, expected.containsAttribute(name), actual.containsAttribute(name));
+                assertEquals("attribute " + name + ": " + description, expected.getAttribute(name), actual.getAttribute(name));
+            }
+        } else {
+            assertEquals(description, expected, actual);
+            // serialized form reflects attribute order
+            assertEquals("json: " + description, new Gson().toJson(expected), new Gson().toJson(actual));
+        }
+    }
+}
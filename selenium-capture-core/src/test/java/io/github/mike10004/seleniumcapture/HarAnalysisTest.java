@@ -1,5 +1,6 @@
 package io.github.mike10004.seleniumcapture;
 
+import com.browserup.harreader.model.Har;
 import com.browserup.harreader.model.HarTiming;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HttpHeaders;
@@ -21,6 +22,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HarAnalysisTest {
@@ -29,9 +31,9 @@ public class HarAnalysisTest {
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Test
-    public void makeCookieFromEntry() throws Exception {
+    public void findCookies_singleEntry() throws Exception {
         HarEntry entry = createHarEntry(new Date(), 10, ImmutableMap.of("foo", "bar"));
-        List<DeserializableCookie> cookieList = HarAnalysis.makeCookiesFromEntry(SetCookieHeaderParser.create(), entry);
+        List<DeserializableCookie> cookieList = cookiesFrom(entry);
         assertEquals("cookie count", 1, cookieList.size());
     }
 
@@ -42,14 +44,31 @@ public class HarAnalysisTest {
         long duration = 10;
         Map<String, String> data = ImmutableMap.of("foo", "bar");
         HarEntry entry1 = createHarEntry(entryStart, duration, data);
-        DeserializableCookie cookie1 = HarAnalysis.makeCookiesFromEntry(SetCookieHeaderParser.create(), entry1).iterator().next();
+        DeserializableCookie cookie1 = cookiesFrom(entry1).iterator().next();
         Thread.sleep(1000);
         HarEntry entry2 = createHarEntry(entryStart, duration, data);
         checkState(isEqual(entry1, entry2), "har entries are not equal");
-        DeserializableCookie cookie2 = HarAnalysis.makeCookiesFromEntry(SetCookieHeaderParser.create(), entry2).iterator().next();
+        DeserializableCookie cookie2 = cookiesFrom(entry2).iterator().next();
         assertEquals("cookies", cookie1, cookie2);
     }
 
+    @Test
+    public void findCookies_reflectsChangesToHar() throws Exception {
+        Har har = new Har();
+        HarAnalysis analysis = HarAnalysis.of(har);
+        assertEquals("cookies before entries are added", 0, analysis.findCookies().makeUltimateCookieList().size());
+        HarIndex index = analysis.index();
+        har.getLog().getEntries().add(createHarEntry(new Date(), 10, ImmutableMap.of("foo", "bar")));
+        assertEquals("cookies after entry is added", 1, analysis.findCookies().makeUltimateCookieList().size());
+        assertSame("index is reused", index, analysis.index());
+    }
+
+    private static List<DeserializableCookie> cookiesFrom(HarEntry entry) {
+        Har har = new Har();
+        har.getLog().getEntries().add(entry);
+        return HarAnalysis.of(har).findCookies().makeUltimateCookieList();
+    }
+
     private boolean isEqual(HarEntry entry1, HarEntry entry2) {
         Gson gson = new Gson();
         String json1 = gson.toJson(entry1);
@@ -0,0 +1,125 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarHeader;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HttpMethod;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HttpHeaders;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HarIndexTest {
+
+    @Test
+    public void queries() {
+        HarEntry page = createEntry("https://www.example.com/", 200, "text/html; charset=UTF-8", 1000,
+                header(HttpHeaders.SET_COOKIE, "sid=abc; Path=/"), header("X-Custom", "1"));
+        HarEntry script = createEntry("https://static.example.com/app.js", 200, "application/javascript", 5000);
+        HarEntry missing = createEntry("https://WWW.example.com/missing", 404, "TEXT/HTML", 200,
+                header(HttpHeaders.SET_COOKIE, "sid=def"), header("set-cookie", "theme=dark"));
+        HarIndex index = HarIndex.build(Arrays.asList(page, script, missing));
+        assertEquals("entries", Arrays.asList(page, script, missing), index.getEntries());
+        assertEquals("by host", Arrays.asList(page, missing), index.getEntriesByHost("www.EXAMPLE.com"));
+        assertEquals("by status", Collections.singletonList(missing), index.getEntriesByStatus(404));
+        assertEquals("by mime type", Arrays.asList(page, missing), index.getEntriesByMimeType("text/html"));
+        assertEquals("by response header", Collections.singletonList(page), index.getEntriesWithResponseHeader("x-custom"));
+        assertEquals("by cookie name", Arrays.asList(page, missing), index.getEntriesSettingCookie("sid"));
+        assertEquals("by cookie name", Collections.singletonList(missing), index.getEntriesSettingCookie("theme"));
+        assertEquals("largest", Arrays.asList(script, page), index.getLargestResponses(2));
+        assertEquals("largest", 3, index.getLargestResponses(10).size());
+        assertTrue("unknown host", index.getEntriesByHost("example.org").isEmpty());
+    }
+
+    @Test
+    public void redirectChain() {
+        HarEntry first = createEntry("http://example.com/", 301, "text/html", 0, header(HttpHeaders.LOCATION, "https://example.com/"));
+        HarEntry unrelated = createEntry("https://example.com/favicon.ico", 200, "image/x-icon", 100);
+        HarEntry second = createEntry("https://example.com/", 302, "text/html", 0, header(HttpHeaders.LOCATION, "/home"));
+        HarEntry third = createEntry("https://example.com/home", 200, "text/html", 100);
+        HarIndex index = HarIndex.build(Arrays.asList(first, unrelated, second, third));
+        assertEquals("chain", Arrays.asList(first, second, third), index.getRedirectChain(first));
+        assertEquals("chain from non-redirect", Collections.singletonList(third), index.getRedirectChain(third));
+    }
+
+    @Test
+    public void redirectCycle() {
+        HarEntry a = createEntry("https://example.com/a", 302, "text/html", 0, header(HttpHeaders.LOCATION, "/b"));
+        HarEntry b = createEntry("https://example.com/b", 302, "text/html", 0, header(HttpHeaders.LOCATION, "/a"));
+        HarIndex index = HarIndex.build(Arrays.asList(a, b));
+        assertEquals("chain", Arrays.asList(a, b), index.getRedirectChain(a));
+    }
+
+    @Test
+    public void parallelBuildPreservesOrder() {
+        int numEntries = HarIndex.PARALLEL_THRESHOLD * 2 + 1;
+        List<HarEntry> entries = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(createEntry("https://host" + (i % 7) + ".example.com/" + i, 200 + (i % 3), "text/plain", i,
+                    header(HttpHeaders.SET_COOKIE, "c" + (i % 5) + "=" + i)));
+        }
+        HarIndex index = HarIndex.build(entries);
+        assertEquals("entries", entries, index.getEntries());
+        List<HarEntry> expected = entries.stream().filter(e -> e.getRequest().getUrl().startsWith("https://host3.")).collect(Collectors.toList());
+        assertEquals("by host", expected, index.getEntriesByHost("host3.example.com"));
+        assertSame("largest", entries.get(numEntries - 1), index.getLargestResponses(1).get(0));
+        assertEquals("cookies", numEntries, index.findCookies(SetCookieHeaderParser.create()).size());
+    }
+
+    @Test
+    public void findCookiesMatchesHarAnalysisScan() {
+        HarEntry entry = createEntry("https://www.example.com/", 200, "text/html", 10,
+                header(HttpHeaders.SET_COOKIE, "foo=bar"), header(HttpHeaders.SET_COOKIE, "baz=qux; Path=/x"));
+        Har har = new Har();
+        har.getLog().getEntries().add(entry);
+        List<DeserializableCookie> expected = HarAnalysis.of(har).findCookies().makeUltimateCookieList();
+        List<DeserializableCookie> actual = HarIndex.build(Collections.singletonList(entry)).findCookies(SetCookieHeaderParser.create());
+        assertEquals("cookies", ImmutableSet.copyOf(expected), ImmutableSet.copyOf(actual));
+    }
+
+    @Test
+    public void harAnalysisReusesIndex() {
+        Har har = new Har();
+        har.getLog().getEntries().add(createEntry("https://www.example.com/", 200, "text/html", 10));
+        HarAnalysis analysis = HarAnalysis.of(har);
+        assertSame("index", analysis.index(), analysis.index());
+    }
+
+    private static HarHeader header(String name, String value) {
+        HarHeader header = new HarHeader();
+        header.setName(name);
+        header.setValue(value);
+        return header;
+    }
+
+    private static HarEntry createEntry(String url, int status, String contentType, long bodySize, HarHeader... responseHeaders) {
+        HarEntry entry = new HarEntry();
+        entry.setStartedDateTime(new Date(1633089600000L));
+        entry.setTime(10);
+        HarRequest request = new HarRequest();
+        request.setMethod(HttpMethod.GET);
+        request.setUrl(url);
+        request.setHttpVersion("HTTP/1.1");
+        entry.setRequest(request);
+        HarResponse response = new HarResponse();
+        response.setStatus(status);
+        response.setHttpVersion("HTTP/1.1");
+        response.getHeaders().add(header(HttpHeaders.CONTENT_TYPE, contentType));
+        response.getHeaders().addAll(Arrays.asList(responseHeaders));
+        response.setBodySize(bodySize);
+        entry.setResponse(response);
+        return entry;
+    }
+}
@@ -3,7 +3,10 @@ package io.github.mike10004.seleniumcapture;
 import com.google.common.collect.ImmutableMultimap;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
@@ -20,4 +23,28 @@ public class ImmutableHttpMessageTest {
         assertEquals("all values", Arrays.asList("Bar", "bar"), message.getHeaderValues("foo").collect(Collectors.toList()));
         assertEquals("all values", Arrays.asList("Bar", "bar"), message.getHeaderValues("Foo").collect(Collectors.toList()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void bufferContent_text() throws Exception {
+        String text = "h\u00e9llo, world";
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        ImmutableHttpResponse response = ImmutableHttpResponse.builder(200)
+                .content(ImmutableHttpMessage.HttpContentSource.fromBuffer(buffer, StandardCharsets.UTF_8))
+                .build();
+        assertEquals("chars", text, response.getContentAsChars().read());
+        assertArrayEquals("bytes", text.getBytes(StandardCharsets.UTF_8), response.getContentAsBytes().read());
+        assertArrayEquals("bytes read twice", text.getBytes(StandardCharsets.UTF_8), response.getContentAsBytes().read());
+        assertEquals("buffer position unchanged", 0, buffer.position());
+    }
+
+    @Test
+    public void bufferContent_binary() throws Exception {
+        byte[] bytes = {0, 1, 2, (byte) 0xFF, (byte) 0x80};
+        ImmutableHttpResponse response = ImmutableHttpResponse.builder(200)
+                .content(ImmutableHttpMessage.HttpContentSource.fromBuffer(ByteBuffer.wrap(bytes), null))
+                .build();
+        assertArrayEquals("bytes", bytes, response.getContentAsBytes().read());
+        assertEquals("size", bytes.length, response.getContentAsBytes().size());
+        assertEquals("chars", Base64.getEncoder().encodeToString(bytes), response.getContentAsChars().read());
+    }
+}
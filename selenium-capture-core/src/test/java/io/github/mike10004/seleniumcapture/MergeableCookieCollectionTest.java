@@ -0,0 +1,142 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MergeableCookieCollectionTest {
+
+    @Test
+    public void add_keepsLatest() {
+        MergeableCookieCollection collection = MergeableCookieCollection.create();
+        assertTrue(collection.add(cookie("example.com", "foo", "1", 1000)));
+        assertTrue(collection.add(cookie("example.com", "foo", "2", 2000)));
+        assertFalse(collection.add(cookie("example.com", "foo", "0", 500)));
+        assertFalse("tie keeps first", collection.add(cookie("example.com", "foo", "tie", 2000)));
+        assertTrue(collection.add(cookie("other.example.com", "foo", "3", 0)));
+        assertEquals("size", 2, collection.size());
+        assertEquals("winner", "2", collection.get(CookieKey.from("example.com", "foo", "/")).getValue());
+    }
+
+    @Test
+    public void sameAsMultimapCollection() {
+        List<DeserializableCookie> cookies = randomCookies(new Random(12345), 5000);
+        List<DeserializableCookie> expected = MultimapCookieCollection.build(cookies).makeUltimateCookieList();
+        List<DeserializableCookie> actual = MergeableCookieCollection.create().addAll(cookies).makeUltimateCookieList();
+        assertEquals("size", expected.size(), actual.size());
+        assertEquals("cookies", ImmutableSet.copyOf(expected), ImmutableSet.copyOf(actual));
+    }
+
+    @Test
+    public void merge() {
+        Random random = new Random(54321);
+        List<DeserializableCookie> first = randomCookies(random, 2000), second = randomCookies(random, 2000);
+        List<DeserializableCookie> all = new ArrayList<>(first);
+        all.addAll(second);
+        List<DeserializableCookie> expected = MergeableCookieCollection.create().addAll(all).makeUltimateCookieList();
+        MergeableCookieCollection merged = MergeableCookieCollection.create().addAll(first)
+                .merge(MergeableCookieCollection.create().addAll(second));
+        assertEquals("merged", ImmutableSet.copyOf(expected), ImmutableSet.copyOf(merged.makeUltimateCookieList()));
+        MergeableCookieCollection mergedWithMultimap = MergeableCookieCollection.create().addAll(first)
+                .merge(MultimapCookieCollection.build(second));
+        assertEquals("merged with multimap", ImmutableSet.copyOf(expected), ImmutableSet.copyOf(mergedWithMultimap.makeUltimateCookieList()));
+    }
+
+    @Test
+    public void customOrdering() {
+        Comparator<DeserializableCookie> byValue = Comparator.comparing(DeserializableCookie::getValue);
+        MergeableCookieCollection collection = MergeableCookieCollection.create(byValue);
+        collection.add(cookie("example.com", "foo", "b", 2000));
+        collection.add(cookie("example.com", "foo", "c", 1000));
+        collection.add(cookie("example.com", "foo", "a", 3000));
+        assertEquals("winner", "c", collection.makeUltimateCookieList().get(0).getValue());
+    }
+
+    @Test
+    public void makeCookieList_sameOrdering() {
+        Comparator<DeserializableCookie> byValue = Comparator.comparing(DeserializableCookie::getValue);
+        MergeableCookieCollection collection = MergeableCookieCollection.create(byValue);
+        collection.add(cookie("example.com", "foo", "a", 1000));
+        collection.add(cookie("example.com", "bar", "b", 1000));
+        assertEquals("cookies", collection.makeUltimateCookieList(), collection.makeCookieList(byValue));
+        assertEquals("default ordering", 1, MergeableCookieCollection.create()
+                .addAll(ImmutableList.of(cookie("example.com", "foo", "a", 1000)))
+                .makeCookieList(CookieCollection.orderingByCreationDate()).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void makeCookieList_differentOrdering() {
+        MergeableCookieCollection collection = MergeableCookieCollection.create();
+        collection.add(cookie("example.com", "foo", "a", 1000));
+        collection.makeCookieList(Comparator.comparing(DeserializableCookie::getValue));
+    }
+
+    @Test
+    public void keysInterned() {
+        CookieKey a = CookieKey.from("example.com", "foo", "/"), b = CookieKey.from("example.com", "foo", "/");
+        assertSame(a.intern(), b.intern());
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void evictExpired() {
+        Instant t0 = Instant.parse("2021-10-01T12:00:00Z");
+        MergeableCookieCollection collection = MergeableCookieCollection.create();
+        List<List<DeserializableCookie>> notifications = new ArrayList<>();
+        collection.addEvictionListener((evicted, now) -> notifications.add(evicted));
+        DeserializableCookie session = DeserializableCookie.builder("session", "1").domain("example.com").creationDate(t0).build();
+        DeserializableCookie soon = DeserializableCookie.builder("soon", "1").domain("example.com").creationDate(t0).expiry(t0.plusSeconds(10)).build();
+        DeserializableCookie maxAge = DeserializableCookie.builder("maxAge", "1").domain("example.com").creationDate(t0).attribute("max-age", "20").build();
+        DeserializableCookie later = DeserializableCookie.builder("later", "1").domain("example.com").creationDate(t0).expiry(t0.plusSeconds(30)).build();
+        DeserializableCookie laterReplaced = DeserializableCookie.builder("later", "2").domain("example.com").creationDate(t0.plusSeconds(1)).build();
+        collection.addAll(Arrays.asList(session, soon, maxAge, later, laterReplaced));
+        assertEquals("nothing expired", ImmutableList.of(), collection.evictExpired(t0.plusSeconds(5)));
+        assertEquals("no notification", 0, notifications.size());
+        assertEquals("first eviction", ImmutableList.of(soon, maxAge), collection.evictExpired(t0.plusSeconds(20)));
+        assertEquals("superseded cookie not evicted", ImmutableList.of(), collection.evictExpired(t0.plusSeconds(3600)));
+        assertEquals("notifications", ImmutableList.of(ImmutableList.of(soon, maxAge)), notifications);
+        assertEquals("remaining", ImmutableSet.of(session, laterReplaced), ImmutableSet.copyOf(collection.makeUltimateCookieList()));
+    }
+
+    @Test
+    public void evictExpired_manySuperseded() {
+        Instant t0 = Instant.parse("2021-10-01T12:00:00Z");
+        MergeableCookieCollection collection = MergeableCookieCollection.create();
+        for (int i = 0; i < 1000; i++) {
+            collection.add(DeserializableCookie.builder("c" + (i % 10), String.valueOf(i)).domain("example.com")
+                    .creationDate(t0.plusMillis(i)).expiry(t0.plusSeconds(1000 - i)).build());
+        }
+        assertEquals("size", 10, collection.size());
+        List<DeserializableCookie> evicted = collection.evictExpired(t0.plusSeconds(10000));
+        assertEquals("evicted", 10, evicted.size());
+        assertEquals("size after eviction", 0, collection.size());
+    }
+
+    private static List<DeserializableCookie> randomCookies(Random random, int count) {
+        List<DeserializableCookie> cookies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cookies.add(cookie("d" + random.nextInt(20) + ".example.com", "c" + random.nextInt(30), String.valueOf(i), random.nextInt(1000000)));
+        }
+        return cookies;
+    }
+
+    private static DeserializableCookie cookie(String domain, String name, String value, long creationMillis) {
+        return DeserializableCookie.builder(name, value)
+                .domain(domain)
+                .path("/")
+                .creationDate(Instant.ofEpochMilli(1633089600000L + creationMillis))
+                .build();
+    }
+}
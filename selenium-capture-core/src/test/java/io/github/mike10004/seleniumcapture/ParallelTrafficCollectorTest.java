@@ -0,0 +1,172 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.model.Har;
+import org.junit.Test;
+import org.openqa.selenium.WebDriverException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelTrafficCollectorTest {
+
+    @Test
+    public void boundedConcurrency() throws Exception {
+        int maxConcurrency = 3;
+        AtomicInteger active = new AtomicInteger(0);
+        AtomicInteger maxActive = new AtomicInteger(0);
+        FakeCollector collector = new FakeCollector();
+        List<TrafficGenerator<Integer>> generators = IntStream.range(0, 12).mapToObj(i -> (TrafficGenerator<Integer>) driver -> {
+            int current = active.incrementAndGet();
+            maxActive.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            active.decrementAndGet();
+            return i;
+        }).collect(Collectors.toList());
+        List<Integer> results = new ArrayList<>();
+        try (ParallelTrafficCollector parallel = new ParallelTrafficCollector(collector, maxConcurrency)) {
+            List<CompletableFuture<HarPlus<Integer>>> futures = parallel.collectAll(generators);
+            for (CompletableFuture<HarPlus<Integer>> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS).result);
+            }
+        }
+        assertEquals("results", IntStream.range(0, 12).boxed().collect(Collectors.toList()), results);
+        assertTrue("max active " + maxActive.get(), maxActive.get() <= maxConcurrency);
+        assertTrue("collector closed", collector.closed);
+    }
+
+    @Test
+    public void startsInSubmissionOrder() throws Exception {
+        List<Integer> started = Collections.synchronizedList(new ArrayList<>());
+        List<TrafficGenerator<Integer>> generators = IntStream.range(0, 20).mapToObj(i -> (TrafficGenerator<Integer>) driver -> {
+            started.add(i);
+            return i;
+        }).collect(Collectors.toList());
+        try (ParallelTrafficCollector parallel = new ParallelTrafficCollector(new FakeCollector(), 1)) {
+            CompletableFuture.allOf(parallel.collectAll(generators).toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals("start order", IntStream.range(0, 20).boxed().collect(Collectors.toList()), started);
+    }
+
+    @Test
+    public void failureIsolation() throws Exception {
+        try (ParallelTrafficCollector parallel = new ParallelTrafficCollector(new FakeCollector(), 2)) {
+            CompletableFuture<HarPlus<String>> bad = parallel.submit(driver -> {
+                throw new WebDriverException("purposeful");
+            });
+            CompletableFuture<HarPlus<String>> good = parallel.submit(driver -> "ok");
+            assertEquals("ok", good.get(5, TimeUnit.SECONDS).result);
+            try {
+                bad.get(5, TimeUnit.SECONDS);
+                fail("should have failed");
+            } catch (ExecutionException e) {
+                assertTrue("cause " + e.getCause(), e.getCause() instanceof WebDriverException);
+            }
+        }
+    }
+
+    @Test
+    public void errorCompletesFuture() throws Exception {
+        try (ParallelTrafficCollector parallel = new ParallelTrafficCollector(new FakeCollector(), 1)) {
+            CompletableFuture<HarPlus<String>> bad = parallel.submit(driver -> {
+                throw new AssertionError("purposeful");
+            });
+            try {
+                bad.get(5, TimeUnit.SECONDS);
+                fail("should have failed");
+            } catch (ExecutionException e) {
+                assertTrue("cause " + e.getCause(), e.getCause() instanceof AssertionError);
+            }
+        }
+    }
+
+    @Test
+    public void cancelBeforeStart() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger invocations = new AtomicInteger(0);
+        try (ParallelTrafficCollector parallel = new ParallelTrafficCollector(new FakeCollector(), 1)) {
+            CompletableFuture<HarPlus<Void>> first = parallel.submit(driver -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return null;
+            });
+            CompletableFuture<HarPlus<Void>> second = parallel.submit(driver -> {
+                invocations.incrementAndGet();
+                return null;
+            });
+            second.cancel(false);
+            blocker.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals("invocations of cancelled generator", 0, invocations.get());
+    }
+
+    @Test
+    public void submitAfterClose() throws Exception {
+        ParallelTrafficCollector parallel = new ParallelTrafficCollector(new FakeCollector(), 1);
+        parallel.close();
+        CompletableFuture<HarPlus<String>> future = parallel.submit(driver -> "x");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("should have failed");
+        } catch (ExecutionException e) {
+            assertTrue("cause " + e.getCause(), e.getCause() instanceof IOException);
+        }
+    }
+
+    private static class FakeCollector implements TrafficCollector {
+
+        public volatile boolean closed;
+
+        @Override
+        public <R> HarPlus<R> collect(TrafficGenerator<R> generator) throws IOException, WebDriverException {
+            return collect(generator, null);
+        }
+
+        @Override
+        public <R> HarPlus<R> collect(TrafficGenerator<R> generator, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException {
+            R result = generator.generate(null);
+            return new HarPlus<>(new Har(), result);
+        }
+
+        @Override
+        public <R> R monitor(TrafficGenerator<R> generator, TrafficMonitor monitor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <R> R drive(TrafficGenerator<R> generator) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <R> R stream(TrafficGenerator<R> generator, StreamingHarWriter harWriter, @Nullable TrafficMonitor monitor) throws IOException, WebDriverException {
+            return generator.generate(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
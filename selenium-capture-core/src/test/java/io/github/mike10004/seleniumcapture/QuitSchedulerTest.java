@@ -0,0 +1,71 @@
+package io.github.mike10004.seleniumcapture;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QuitSchedulerTest {
+
+    @Test
+    public void deadlineStartsWhenActionRuns() throws Exception {
+        QuitScheduler scheduler = new QuitScheduler(2);
+        AtomicInteger escalations = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(scheduler.submit(() -> sleep(100), Duration.ofMillis(1000), escalations::incrementAndGet));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals("escalations", 0, escalations.get());
+    }
+
+    @Test
+    public void errorCompletesFuture() throws Exception {
+        QuitScheduler scheduler = new QuitScheduler(1);
+        CompletableFuture<Void> future = scheduler.submit(() -> {
+            throw new AssertionError("quit failed");
+        }, Duration.ofSeconds(5), () -> {});
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("should have thrown");
+        } catch (ExecutionException e) {
+            assertTrue("cause " + e.getCause(), e.getCause() instanceof AssertionError);
+        }
+    }
+
+    @Test
+    public void escalatesWhenPoolIsSaturated() throws Exception {
+        QuitScheduler scheduler = new QuitScheduler(1);
+        CountDownLatch escalated = new CountDownLatch(1);
+        CompletableFuture<Void> future = scheduler.submit(() -> sleep(5000), Duration.ofMillis(100), escalated::countDown);
+        scheduler.submit(() -> sleep(5000), Duration.ofSeconds(30), () -> {});
+        assertTrue("escalated", escalated.await(5, TimeUnit.SECONDS));
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("should have thrown");
+        } catch (ExecutionException e) {
+            assertTrue("cause " + e.getCause(), e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
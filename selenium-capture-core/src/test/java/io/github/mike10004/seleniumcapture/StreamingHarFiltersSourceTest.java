@@ -0,0 +1,55 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarTiming;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.littleshoot.proxy.HttpFilters;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingHarFiltersSourceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void recordsPhaseTimings() throws Exception {
+        File harFile = temporaryFolder.newFile("streamed.har");
+        try (StreamingHarWriter writer = StreamingHarWriter.create(harFile)) {
+            StreamingHarFiltersSource source = new StreamingHarFiltersSource(writer, CaptureSelector.all());
+            HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "http://www.example.com/");
+            HttpFilters filters = source.filterRequest(request, null);
+            filters.clientToProxyRequest(request);
+            filters.proxyToServerResolutionStarted("www.example.com:80");
+            filters.proxyToServerResolutionSucceeded("www.example.com:80", new InetSocketAddress("127.0.0.1", 80));
+            filters.proxyToServerRequestSending();
+            filters.proxyToServerRequestSent();
+            Thread.sleep(50);
+            filters.serverToProxyResponseReceiving();
+            filters.serverToProxyResponse(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+            filters.serverToProxyResponse(new DefaultLastHttpContent());
+        }
+        Har har = BrowserUpHars.readHar(harFile, StandardCharsets.UTF_8, HarReaderMode.STRICT);
+        assertEquals("entries", 1, har.getLog().getEntries().size());
+        HarTiming timings = har.getLog().getEntries().get(0).getTimings();
+        assertTrue("wait " + timings.getWait(), timings.getWait() >= 50);
+        assertTrue("dns " + timings.getDns(), timings.getDns() >= 0);
+        assertEquals("connect not observed", -1, timings.getConnect());
+        assertEquals("ssl not observed", -1, timings.getSsl());
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HttpMethod;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingHarReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void readWrittenHar() throws Exception {
+        File harFile = temporaryFolder.newFile("streamed.har");
+        int numEntries = 25;
+        try (StreamingHarWriter writer = StreamingHarWriter.create(harFile)) {
+            for (int i = 0; i < numEntries; i++) {
+                writer.writeEntry(createEntry("https://www.example.com/" + i, 200 + i));
+            }
+        }
+        List<String> urls = new ArrayList<>();
+        try (StreamingHarReader reader = StreamingHarReader.open(harFile, StandardCharsets.UTF_8, HarReaderMode.STRICT)) {
+            assertEquals("version", StreamingHarWriter.HAR_VERSION, reader.getLog().getVersion());
+            assertEquals("creator", "selenium-capture", reader.getLog().getCreator().getName());
+            for (HarEntry entry : reader) {
+                urls.add(entry.getRequest().getUrl());
+            }
+            assertTrue("log entries always empty", reader.getLog().getEntries().isEmpty());
+        }
+        assertEquals("entry count", numEntries, urls.size());
+        assertEquals("last url", "https://www.example.com/" + (numEntries - 1), urls.get(numEntries - 1));
+    }
+
+    @Test
+    public void metadataAfterEntries() throws Exception {
+        String json = "{\"log\": {\"entries\": [" + ENTRY_JSON + "], \"version\": \"1.2\", \"unknown\": {\"a\": [1, 2]}, "
+                + "\"pages\": [{\"id\": \"page_1\", \"title\": \"Example\", \"startedDateTime\": \"2021-10-01T12:00:00.000Z\"}]}}";
+        try (StreamingHarReader reader = StreamingHarReader.open(toStream(json), HarReaderMode.STRICT)) {
+            assertTrue("pages not yet read", reader.getLog().getPages().isEmpty());
+            List<HarEntry> entries = reader.entries().collect(Collectors.toList());
+            assertEquals("entries", 1, entries.size());
+            assertEquals("version", "1.2", reader.getLog().getVersion());
+            assertEquals("pages", 1, reader.getLog().getPages().size());
+            assertEquals("page title", "Example", reader.getLog().getPages().get(0).getTitle());
+        }
+    }
+
+    @Test
+    public void hasNextIsIdempotent() throws Exception {
+        String json = "{\"log\": {\"version\": \"1.2\", \"entries\": [" + ENTRY_JSON + ", " + ENTRY_JSON + "]}}";
+        try (StreamingHarReader reader = StreamingHarReader.open(toStream(json), HarReaderMode.STRICT)) {
+            Iterator<HarEntry> it = reader.iterator();
+            assertTrue(it.hasNext());
+            assertTrue(it.hasNext());
+            assertNotNull(it.next());
+            assertNotNull(it.next());
+            assertFalse(it.hasNext());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void laxMode() throws Exception {
+        String badEntry = ENTRY_JSON.replace("2021-10-01T12:00:00.000Z", "not a date");
+        String json = "{\"log\": {\"version\": \"1.2\", \"entries\": [" + badEntry + "]}}";
+        try (StreamingHarReader reader = StreamingHarReader.open(toStream(json), HarReaderMode.STRICT);
+             Stream<HarEntry> entries = reader.entries()) {
+            entries.count();
+            fail("should have thrown in strict mode");
+        } catch (RuntimeException expected) {
+        }
+        try (StreamingHarReader reader = StreamingHarReader.open(toStream(json), HarReaderMode.LAX)) {
+            List<HarEntry> entries = reader.entries().collect(Collectors.toList());
+            assertEquals("entries", 1, entries.size());
+            assertEquals("url", "https://www.example.com/", entries.get(0).getRequest().getUrl());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void iterateTwice() throws Exception {
+        String json = "{\"log\": {\"entries\": []}}";
+        try (StreamingHarReader reader = StreamingHarReader.open(toStream(json), HarReaderMode.STRICT)) {
+            assertFalse(reader.iterator().hasNext());
+            reader.iterator();
+        }
+    }
+
+    @Test
+    public void notAHar() throws Exception {
+        try {
+            StreamingHarReader.open(toStream("{\"foo\": \"bar\"}"), HarReaderMode.STRICT);
+            fail("should have thrown");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void nonUtf8Charset() throws Exception {
+        Charset charset = StandardCharsets.UTF_16LE;
+        String json = "{\"log\": {\"version\": \"1.2\", \"comment\": \"café\", \"entries\": [" + ENTRY_JSON + "]}}";
+        File harFile = temporaryFolder.newFile("utf16.har");
+        Files.asCharSink(harFile, charset).write(json);
+        try (StreamingHarReader reader = StreamingHarReader.open(harFile, charset, HarReaderMode.STRICT)) {
+            assertEquals("comment", "café", reader.getLog().getComment());
+            assertEquals("entries", 1, reader.entries().count());
+        }
+    }
+
+    @Test
+    public void mappedFileInputStream_acrossWindows() throws Exception {
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        File file = temporaryFolder.newFile("data.bin");
+        Files.write(data, file);
+        byte[] copy;
+        try (InputStream in = new MappedFileInputStream(file, 999)) {
+            assertEquals("first byte", 0, in.read());
+            assertEquals("skipped", 1500, in.skip(1500));
+            assertEquals("available", data.length - 1501, in.available());
+            byte[] rest = new byte[data.length];
+            int total = 0, r;
+            while ((r = in.read(rest, total, rest.length - total)) != -1) {
+                total += r;
+            }
+            copy = Arrays.copyOf(rest, total);
+            assertEquals("eof", -1, in.read());
+        }
+        assertArrayEquals(Arrays.copyOfRange(data, 1501, data.length), copy);
+    }
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final String ENTRY_JSON = "{\"startedDateTime\": \"2021-10-01T12:00:00.000Z\", \"time\": 10, "
+            + "\"request\": {\"method\": \"GET\", \"url\": \"https://www.example.com/\", \"httpVersion\": \"HTTP/1.1\"}, "
+            + "\"response\": {\"status\": 200, \"httpVersion\": \"HTTP/1.1\"}}";
+
+    private static HarEntry createEntry(String url, int status) {
+        HarEntry entry = new HarEntry();
+        entry.setStartedDateTime(new Date());
+        entry.setTime(10);
+        HarRequest request = new HarRequest();
+        request.setMethod(HttpMethod.GET);
+        request.setUrl(url);
+        request.setHttpVersion("HTTP/1.1");
+        entry.setRequest(request);
+        HarResponse response = new HarResponse();
+        response.setStatus(status);
+        response.setHttpVersion("HTTP/1.1");
+        entry.setResponse(response);
+        return entry;
+    }
+}
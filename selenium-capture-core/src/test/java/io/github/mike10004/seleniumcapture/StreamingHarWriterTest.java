@@ -0,0 +1,81 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.harreader.HarReaderMode;
+import com.browserup.harreader.model.Har;
+import com.browserup.harreader.model.HarEntry;
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.browserup.harreader.model.HttpMethod;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamingHarWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeEntries() throws Exception {
+        File harFile = temporaryFolder.newFile("streamed.har");
+        int numEntries = 3;
+        try (StreamingHarWriter writer = StreamingHarWriter.create(harFile)) {
+            for (int i = 0; i < numEntries; i++) {
+                writer.writeEntry(createEntry("https://www.example.com/" + i, 200 + i));
+            }
+            assertEquals("entry count", numEntries, writer.getEntryCount());
+        }
+        Har har = BrowserUpHars.readHar(harFile, StandardCharsets.UTF_8, HarReaderMode.STRICT);
+        assertEquals("version", StreamingHarWriter.HAR_VERSION, har.getLog().getVersion());
+        assertEquals("creator", "selenium-capture", har.getLog().getCreator().getName());
+        assertEquals("entries", numEntries, har.getLog().getEntries().size());
+        for (int i = 0; i < numEntries; i++) {
+            HarEntry entry = har.getLog().getEntries().get(i);
+            assertEquals("url", "https://www.example.com/" + i, entry.getRequest().getUrl());
+            assertEquals("status", 200 + i, entry.getResponse().getStatus());
+        }
+    }
+
+    @Test
+    public void writeNoEntries() throws Exception {
+        File harFile = temporaryFolder.newFile("empty.har");
+        StreamingHarWriter.create(harFile).close();
+        Har har = BrowserUpHars.readHar(harFile, StandardCharsets.UTF_8, HarReaderMode.STRICT);
+        assertEquals("entries", 0, har.getLog().getEntries().size());
+    }
+
+    @Test
+    public void writeAfterClose() throws Exception {
+        StreamingHarWriter writer = StreamingHarWriter.create(temporaryFolder.newFile("closed.har"));
+        writer.close();
+        try {
+            writer.writeEntry(createEntry("https://www.example.com/", 200));
+            fail("should have thrown");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static HarEntry createEntry(String url, int status) {
+        HarEntry entry = new HarEntry();
+        entry.setStartedDateTime(new Date());
+        entry.setTime(10);
+        HarRequest request = new HarRequest();
+        request.setMethod(HttpMethod.GET);
+        request.setUrl(url);
+        request.setHttpVersion("HTTP/1.1");
+        entry.setRequest(request);
+        HarResponse response = new HarResponse();
+        response.setStatus(status);
+        response.setHttpVersion("HTTP/1.1");
+        entry.setResponse(response);
+        return entry;
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.browserup.bup.proxy.CaptureType;
+import com.browserup.harreader.model.HarEntry;
+import com.google.common.net.HostAndPort;
+import com.google.common.net.HttpHeaders;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrafficCollectorImplTest {
+
+    @Test
+    public void getCaptureTypes_empty() {
+        CaptureSelector selector = CaptureSelector.builder()
+                .captureTypes(EnumSet.noneOf(CaptureType.class))
+                .build();
+        TrafficCollectorImpl collector = (TrafficCollectorImpl) TrafficCollector.builder(config -> {
+            throw new UnsupportedOperationException();
+        }).captureSelector(selector).build();
+        assertEquals(EnumSet.noneOf(CaptureType.class), collector.getCaptureTypes());
+    }
+
+    @Test
+    public void monitor_reportsDroppedNotifications() throws Exception {
+        HttpServer server = startServer();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AtomicReference<WebdrivingConfig> configRef = new AtomicReference<>();
+            CountDownLatch delegateEntered = new CountDownLatch(1);
+            CountDownLatch proceed = new CountDownLatch(1);
+            List<String> received = Collections.synchronizedList(new ArrayList<>());
+            List<String> dropped = Collections.synchronizedList(new ArrayList<>());
+            TrafficMonitor slowMonitor = (request, response) -> {
+                delegateEntered.countDown();
+                awaitUninterruptibly(proceed);
+                received.add(request.url.getPath());
+            };
+            TrafficCollector collector = TrafficCollector.builder(config -> {
+                configRef.set(config);
+                return new SimpleWebdrivingSession(fakeDriver());
+            }).asyncMonitorDispatch(MonitorDispatchSettings.builder()
+                    .queueCapacity(1)
+                    .overflowPolicy(MonitorDispatchSettings.OverflowPolicy.DROP_NEWEST)
+                    .executor(executor)
+                    .dropListener((request, response) -> dropped.add(request.url.getPath()))
+                    .build())
+                    .build();
+            collector.monitor(driver -> {
+                Proxy proxy = toProxy(configRef.get());
+                String urlBase = "http://127.0.0.1:" + server.getAddress().getPort();
+                fetch(new URL(urlBase + "/0"), proxy);
+                assertTrue("delegate entered", awaitUninterruptibly(delegateEntered));
+                for (int i = 1; i <= 4; i++) {
+                    fetch(new URL(urlBase + "/" + i), proxy);
+                }
+                proceed.countDown();
+                return null;
+            }, slowMonitor);
+            assertEquals("received", Arrays.asList("/0", "/1"), received);
+            assertEquals("dropped", Arrays.asList("/2", "/3", "/4"), dropped);
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void collect_appliesSelectorToHar() throws Exception {
+        HttpServer server = startServer();
+        try {
+            AtomicReference<WebdrivingConfig> configRef = new AtomicReference<>();
+            CaptureSelector selector = CaptureSelector.builder()
+                    .url(Pattern.compile(".*/keep.*"))
+                    .captureTypes(EnumSet.of(CaptureType.RESPONSE_CONTENT))
+                    .build();
+            TrafficCollector collector = TrafficCollector.builder(config -> {
+                configRef.set(config);
+                return new SimpleWebdrivingSession(fakeDriver());
+            }).captureSelector(selector).build();
+            String urlBase = "http://127.0.0.1:" + server.getAddress().getPort();
+            HarPlus<Void> collection = collector.collect(driver -> {
+                Proxy proxy = toProxy(configRef.get());
+                fetch(new URL(urlBase + "/keep"), proxy);
+                fetch(new URL(urlBase + "/skip"), proxy);
+                return null;
+            });
+            List<HarEntry> entries = collection.har.getLog().getEntries();
+            assertEquals("urls", Collections.singletonList(urlBase + "/keep"), entries.stream().map(entry -> entry.getRequest().getUrl()).collect(Collectors.toList()));
+            assertEquals("content", "ok", entries.get(0).getResponse().getContent().getText());
+            assertEquals("request headers", Collections.emptyList(), entries.get(0).getRequest().getHeaders());
+            assertEquals("pages", 1, collection.har.getLog().getPages().size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        byte[] body = "ok".getBytes(StandardCharsets.US_ASCII);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static Proxy toProxy(WebdrivingConfig config) {
+        HostAndPort proxyAddress = HostAndPort.fromString(config.getProxySpecification().createWebdrivingProxy().getHttpProxy());
+        return new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyAddress.getHost(), proxyAddress.getPort()));
+    }
+
+    private static void fetch(URL url, Proxy proxy) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection(proxy);
+        try {
+            assertEquals("status", 200, conn.getResponseCode());
+            try (InputStream in = conn.getInputStream()) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static boolean awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static WebDriver fakeDriver() {
+        return (WebDriver) java.lang.reflect.Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[]{WebDriver.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "quit":
+                    return null;
+                case "toString":
+                    return "FakeWebDriver@" + System.identityHashCode(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -1,7 +1,23 @@
 package io.github.mike10004.seleniumcapture;
 
+import com.browserup.harreader.model.HarRequest;
+import com.browserup.harreader.model.HarResponse;
+import com.google.common.base.Strings;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.junit.Assert.*;
 
 public class TrafficMonitorFilterTest {
@@ -16,6 +32,29 @@ public class TrafficMonitorFilterTest {
         assertEquals("object anon subclass", "Object$", TrafficMonitorFilter.getSimpleClassName(new Object(){}));
     }
 
+    @Test
+    public void responseContentOmittedPartway() {
+        CaptureSelector selector = CaptureSelector.builder().maxBodySize(10).build();
+        AtomicReference<HarResponse> completed = new AtomicReference<>();
+        TrafficMonitorFilter filter = new TrafficMonitorFilter(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "http://www.example.com/"), null, null, selector) {
+            @Override
+            protected void responseCompleted(HarRequest harRequest, HarResponse harResponse) {
+                completed.set(harResponse);
+            }
+        };
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain");
+        filter.serverToProxyResponse(response);
+        filter.serverToProxyResponse(new DefaultHttpContent(Unpooled.copiedBuffer("01234567", StandardCharsets.US_ASCII)));
+        filter.serverToProxyResponse(new DefaultHttpContent(Unpooled.copiedBuffer("89abcdef", StandardCharsets.US_ASCII)));
+        filter.serverToProxyResponse(new DefaultLastHttpContent());
+        HarResponse harResponse = completed.get();
+        assertNotNull("response completed", harResponse);
+        assertEquals("status", 200, harResponse.getStatus());
+        assertTrue("text", Strings.isNullOrEmpty(harResponse.getContent().getText()));
+        assertEquals("comment", TrafficMonitorFilter.CONTENT_OMITTED_COMMENT, harResponse.getContent().getComment());
+    }
+
     private static class Something {
 
         public static class Nested {
@@ -0,0 +1,107 @@
+package io.github.mike10004.seleniumcapture;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WebdrivingSessionsTest {
+
+    @Test
+    public void closeAll_parallel() throws Exception {
+        int numSessions = 8;
+        long quitMillis = 250;
+        AtomicInteger quits = new AtomicInteger();
+        List<WebdrivingSession> sessions = new ArrayList<>();
+        for (int i = 0; i < numSessions; i++) {
+            sessions.add(new SimpleWebdrivingSession(fakeDriver(() -> {
+                sleep(quitMillis);
+                quits.incrementAndGet();
+            })));
+        }
+        long start = System.nanoTime();
+        List<WebdrivingSession> failures = WebdrivingSessions.closeAll(sessions, Duration.ofSeconds(30));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("failures", ImmutableList.of(), failures);
+        assertEquals("quits", numSessions, quits.get());
+        assertTrue("elapsed " + elapsedMillis + "ms should be less than serial teardown", elapsedMillis < quitMillis * numSessions);
+    }
+
+    @Test
+    public void closeAll_escalatesOnTimeout() throws Exception {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        AtomicInteger destroys = new AtomicInteger();
+        SimpleWebdrivingSession hanging = new SimpleWebdrivingSession(fakeDriver(() -> {
+            try {
+                neverReleased.await();
+            } catch (InterruptedException ignore) {
+            }
+        })) {
+            @Override
+            protected void destroyProcesses() {
+                destroys.incrementAndGet();
+            }
+        };
+        SimpleWebdrivingSession quick = new SimpleWebdrivingSession(fakeDriver(() -> {}));
+        List<WebdrivingSession> failures = WebdrivingSessions.closeAll(ImmutableList.of(hanging, quick), Duration.ofMillis(200));
+        assertEquals("failures", ImmutableList.of(hanging), failures);
+        assertEquals("destroys", 1, destroys.get());
+    }
+
+    @Test
+    public void tryQuit_timeout() {
+        SimpleWebdrivingSession hanging = new SimpleWebdrivingSession(fakeDriver(() -> sleep(5000)));
+        try {
+            hanging.tryQuit(Duration.ofMillis(100));
+            fail("should have thrown");
+        } catch (WebdrivingSession.WebdriverQuitException e) {
+            assertEquals("driver", hanging.getWebDriver(), e.getWebDriver());
+        }
+    }
+
+    @Test
+    public void ServiceWebdrivingSession_isDriverCommandLine() {
+        assertTrue(ServiceWebdrivingSession.isDriverCommandLine(new String[]{"--port=4444", "--log", "info"}, 4444));
+        assertTrue(ServiceWebdrivingSession.isDriverCommandLine(new String[]{"--port", "4444"}, 4444));
+        assertFalse(ServiceWebdrivingSession.isDriverCommandLine(new String[]{"--port=44445"}, 4444));
+        assertFalse(ServiceWebdrivingSession.isDriverCommandLine(new String[]{"--port"}, 4444));
+    }
+
+    private static WebDriver fakeDriver(Runnable quitAction) {
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[]{WebDriver.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "quit":
+                    quitAction.run();
+                    return null;
+                case "toString":
+                    return "FakeWebDriver@" + System.identityHashCode(proxy);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Converter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.io.CharSink;
 import com.google.common.io.CharSource;
 import com.opencsv.CSVReader;
@@ -12,16 +13,20 @@ import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.base.Preconditions.checkState;
 
 @SuppressWarnings("unused")
@@ -135,7 +140,7 @@ class Csvs {
                                       Iterable<Map<String, String>> rows, String defaultValue, UnknownKeyStrategy unknownKeyStrategy, CharSink sink) throws IOException {
         List<String> headersList = ImmutableList.copyOf(headers);
         int numOutputRows = 0;
-        try (CSVWriter out = new CSVWriter(sink.openStream())) {
+        try (CSVWriter out = new CSVWriter(sink.openBufferedStream())) {
             if (includeHeaders) {
                 out.writeNext(Iterables.toArray(headers, String.class));
             }
@@ -149,6 +154,24 @@ class Csvs {
         return numOutputRows;
     }
 
+    /**
+     * Opens a stream that supplies the CSV encoding of a header row followed by the given rows.
+     * Rows are encoded lazily as the stream is read, so at most one row is buffered at a time.
+     * @param headers the column headers
+     * @param rows the rows
+     * @param defaultValue value for missing cells
+     * @param unknownKeyStrategy strategy for keys that are not among the headers
+     * @param charset the output charset
+     * @return a new input stream
+     */
+    public static InputStream openRowMapsWithHeadersStream(Iterable<String> headers, Iterable<Map<String, String>> rows, String defaultValue, UnknownKeyStrategy unknownKeyStrategy, Charset charset) {
+        List<String> headersList = ImmutableList.copyOf(headers);
+        String[] headerRow = headersList.toArray(new String[0]);
+        Iterator<String[]> outputRows = Iterators.concat(Iterators.singletonIterator(headerRow),
+                Iterators.transform(rows.iterator(), rowInput -> makeRowFromMap(headersList, rowInput, defaultValue, unknownKeyStrategy)));
+        return new CsvRowInputStream(outputRows, charset);
+    }
+
     private static class CharBucket extends CharSink {
 
         private final StringWriter sw;
@@ -172,6 +195,69 @@ class Csvs {
         }
     }
 
+    private static class CsvRowInputStream extends InputStream {
+
+        private static final byte[] EMPTY = new byte[0];
+
+        private final Iterator<String[]> rows;
+        private final Charset charset;
+        private final StringWriter rowBuffer;
+        private final CSVWriter rowWriter;
+        private byte[] current;
+        private int position;
+
+        public CsvRowInputStream(Iterator<String[]> rows, Charset charset) {
+            this.rows = checkNotNull(rows);
+            this.charset = checkNotNull(charset);
+            rowBuffer = new StringWriter(256);
+            rowWriter = new CSVWriter(rowBuffer);
+            current = EMPTY;
+        }
+
+        private boolean fill() throws IOException {
+            while (position >= current.length) {
+                if (!rows.hasNext()) {
+                    return false;
+                }
+                rowBuffer.getBuffer().setLength(0);
+                rowWriter.writeNext(rows.next());
+                rowWriter.flush();
+                current = rowBuffer.toString().getBytes(charset);
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkPositionIndexes(off, off + len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            int total = 0;
+            while (total < len && fill()) {
+                int n = Math.min(len - total, current.length - position);
+                System.arraycopy(current, position, b, off + total, n);
+                position += n;
+                total += n;
+            }
+            return total == 0 ? -1 : total;
+        }
+
+        @Override
+        public void close() throws IOException {
+            rowWriter.close();
+        }
+    }
+
     public static String writeRowMapsWithHeadersToString(Iterable<String> headers, Iterable<Map<String, String>> rows, String defaultValue, UnknownKeyStrategy unknownKeyStrategy) throws IOException {
         return writeRowMapsToString(headers, true, rows, defaultValue, unknownKeyStrategy);
     }
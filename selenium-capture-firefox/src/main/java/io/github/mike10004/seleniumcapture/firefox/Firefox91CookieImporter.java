@@ -74,13 +74,17 @@ public class Firefox91CookieImporter extends FirefoxCookieImporterBase {
 
     @Override
     public void createEmptyCookiesDb(File destinationSqliteDbFile) throws IOException {
+        copyEmptyCookiesDb(destinationSqliteDbFile);
+    }
+
+    static void copyEmptyCookiesDb(File destinationSqliteDbFile) throws IOException {
         String resourcePath = getEmptyDbResourcePath();
-        URL resource = getClass().getResource(resourcePath);
+        URL resource = Firefox91CookieImporter.class.getResource(resourcePath);
         requireNonNull(resource, "not found: classpath:" + resourcePath);
         Resources.asByteSource(resource).copyTo(Files.asByteSink(destinationSqliteDbFile));
     }
 
-    private String getEmptyDbResourcePath() {
+    private static String getEmptyDbResourcePath() {
         return "/selenium-capture/firefox/empty-cookies-db-ff91.sqlite";
     }
 }
@@ -8,5 +8,15 @@ public class Firefox91CookieRowTransform extends FirefoxCookieRowTransformBase {
         super(new StandardCookieExploder(), Firefox91CookieImporter.getImportInfo().columnNames(), new Firefox91CookieValueGetter());
     }
 
+    /**
+     * Returns the name of this class, so a subclass that produces different
+     * records is identified separately.
+     * @return the class name
+     */
+    @Override
+    public String getCacheId() {
+        return getClass().getName();
+    }
+
 }
 
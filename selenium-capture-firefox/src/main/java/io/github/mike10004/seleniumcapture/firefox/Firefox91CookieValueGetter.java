@@ -1,5 +1,6 @@
 package io.github.mike10004.seleniumcapture.firefox;
 
+import io.github.mike10004.seleniumcapture.CookieColumns;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import io.github.mike10004.seleniumcapture.MapUtils;
 import com.google.common.base.Strings;
@@ -17,48 +18,71 @@ public class Firefox91CookieValueGetter implements FirefoxCookieValueGetter {
 
     @Override
     public Object getValueBySqlColumnName(Map<String, Object> explodedCookie, String sqlColumnName) {
-        Function<Map<String, Object>, Object> fn = VALUE_GETTER_MAP.get(sqlColumnName);
+        return getValue(explodedCookie::get, sqlColumnName);
+    }
+
+    @Override
+    public void supplementSqlFields(Map<String, Object> explodedCookie, Map<String, String> sqlRow) {
+        // noop
+    }
+
+    @Override
+    public Object getValueBySqlColumnName(CookieColumns cookies, int row, String sqlColumnName) {
+        return getValue(fieldName -> cookies.get(row, fieldName), sqlColumnName);
+    }
+
+    /**
+     * Gets the value of a database table field from the fields of a cookie.
+     * @param cookieField function that maps a cookie field name to the field value
+     * @param sqlColumnName the database table field name
+     * @return the value
+     */
+    private static Object getValue(Function<String, Object> cookieField, String sqlColumnName) {
+        Function<Function<String, Object>, Object> fn = VALUE_GETTER_MAP.get(sqlColumnName);
         if (fn != null) {
-            return fn.apply(explodedCookie);
+            return fn.apply(cookieField);
         }
-        return explodedCookie.get(sqlColumnName);
+        return cookieField.apply(sqlColumnName);
     }
 
     @Override
-    public void supplementSqlFields(Map<String, Object> explodedCookie, Map<String, String> sqlRow) {
+    public void supplementSqlFields(CookieColumns cookies, int row, Map<String, String> sqlRow) {
         // noop
     }
 
-    private static final ImmutableMap<String, Function<Map<String, Object>, Object>> VALUE_GETTER_MAP = ImmutableBiMap.<String, Function<Map<String, Object>, Object>>builder()
-            .put("path", FirefoxCookieRowTransformBase.valueByKey(DeserializableCookie.FIELD_PATH))
-            .put("expiry", FirefoxCookieRowTransformBase.valueByKey(DeserializableCookie.FIELD_EXPIRY_DATE))
-            .put("creationTime", FirefoxCookieRowTransformBase.valueByKey(DeserializableCookie.FIELD_CREATION_DATE))
-            .put("originAttributes", FirefoxCookieRowTransformBase.valueByKey(DeserializableCookie.FIELD_ATTRIBUTES))
-            .put("isHttpOnly", FirefoxCookieRowTransformBase.valueByKey(DeserializableCookie.FIELD_HTTP_ONLY))
+    private static final ImmutableMap<String, Function<Function<String, Object>, Object>> VALUE_GETTER_MAP = ImmutableBiMap.<String, Function<Function<String, Object>, Object>>builder()
+            .put("path", valueByKey(DeserializableCookie.FIELD_PATH))
+            .put("expiry", valueByKey(DeserializableCookie.FIELD_EXPIRY_DATE))
+            .put("creationTime", valueByKey(DeserializableCookie.FIELD_CREATION_DATE))
+            .put("originAttributes", valueByKey(DeserializableCookie.FIELD_ATTRIBUTES))
+            .put("isHttpOnly", valueByKey(DeserializableCookie.FIELD_HTTP_ONLY))
             .put("host", Firefox91CookieValueGetter::getHost)
             .put(Firefox91CookieImporter.COL_SAMESITE, Firefox91CookieValueGetter::getSameSite)
             .put("rawSameSite", Firefox91CookieValueGetter::getSameSite)
             .build();
 
-    private static Object getHost(Map<String, Object> explodedCookie) {
-        String domain = getAttribute(explodedCookie, "domain");
+    private static Function<Function<String, Object>, Object> valueByKey(String key) {
+        return cookieField -> cookieField.apply(key);
+    }
+
+    private static Object getHost(Function<String, Object> cookieField) {
+        String domain = MapUtils.getValueByCaseInsensitiveKey(getAttributes(cookieField), "domain");
         if (!Strings.isNullOrEmpty(domain)) {
             return domain;
         }
-        domain = (String) explodedCookie.get(DeserializableCookie.FIELD_DOMAIN);
-        return domain;
+        return cookieField.apply(DeserializableCookie.FIELD_DOMAIN);
     }
 
-    private static String getAttribute(Map<String, Object> explodedCookie, String key) {
-        @SuppressWarnings("unchecked")
-        @Nullable Map<String, String> attrs = (Map<String, String>) explodedCookie.get(DeserializableCookie.FIELD_ATTRIBUTES);
-        String value = MapUtils.getValueByCaseInsensitiveKey(attrs, key);
-        return value;
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static Map<String, String> getAttributes(Function<String, Object> cookieField) {
+        return (Map<String, String>) cookieField.apply(DeserializableCookie.FIELD_ATTRIBUTES);
     }
 
     @Nullable
-    private static Integer getSameSite(Map<String, Object> explodedCookie) {
-        String sameSiteAttrValue = getAttribute(explodedCookie, "SameSite");
+    private static Integer getSameSite(Function<String, Object> cookieField) {
+        Map<String, String> attrs = getAttributes(cookieField);
+        String sameSiteAttrValue = MapUtils.getValueByCaseInsensitiveKey(attrs, "SameSite");
         if (sameSiteAttrValue == null) {
             return null;
         }
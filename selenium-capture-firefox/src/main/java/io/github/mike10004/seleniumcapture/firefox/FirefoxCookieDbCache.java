@@ -0,0 +1,144 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.github.mike10004.seleniumcapture.CookieCodec;
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cache of prebuilt cookies databases. Each database is built once, in the cache
+ * directory, and copied into profile directories thereafter. Entries are keyed by
+ * a hash of the cookies, the importer's {@link FirefoxCookieImporter#getSchemaInfo() schema},
+ * and the importer's {@link FirefoxCookieImporter#getRowTransformId() row transform},
+ * so a change to any of them produces a new entry. Copies are used rather than links,
+ * because Firefox modifies the database in place.
+ *
+ * <p>Instances may be shared among threads and processes that use the same cache
+ * directory; entries are written to a temporary file and moved into place.
+ */
+public class FirefoxCookieDbCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FirefoxCookieDbCache.class);
+
+    private static final String ENTRY_SUFFIX = ".sqlite";
+
+    private final Path cacheDir;
+
+    private FirefoxCookieDbCache(Path cacheDir) {
+        this.cacheDir = requireNonNull(cacheDir, "cacheDir");
+    }
+
+    /**
+     * Creates a cache that stores databases in the given directory.
+     * The directory is created if it does not exist when the first entry is stored.
+     * @param cacheDir the cache directory
+     * @return a new cache
+     */
+    public static FirefoxCookieDbCache create(Path cacheDir) {
+        return new FirefoxCookieDbCache(cacheDir);
+    }
+
+    /**
+     * Installs a cookies database containing the given cookies at the given location.
+     * If the importer does not provide schema information or a row transform
+     * identifier, the database is built directly at the destination and nothing is cached.
+     * @param cookies the cookies
+     * @param importer the importer used to build the database on a cache miss
+     * @param destinationSqliteDbFile the destination file
+     * @param scratchDir scratch directory for the importer
+     * @throws SQLException on database error
+     * @throws IOException on I/O error
+     */
+    public void install(List<DeserializableCookie> cookies, FirefoxCookieImporter importer, File destinationSqliteDbFile, Path scratchDir) throws SQLException, IOException {
+        @Nullable Sqlite3ImportInfo schemaInfo = importer.getSchemaInfo();
+        @Nullable String rowTransformId = importer.getRowTransformId();
+        if (schemaInfo == null || rowTransformId == null) {
+            log.debug("importer {} provides no schema info or row transform id; not caching", importer);
+            build(cookies, importer, destinationSqliteDbFile, scratchDir);
+            return;
+        }
+        Path entry = resolveEntry(computeKey(cookies, importer, schemaInfo, rowTransformId));
+        if (!Files.isRegularFile(entry)) {
+            Files.createDirectories(cacheDir);
+            Path tempFile = Files.createTempFile(cacheDir, "cookies", ".tmp");
+            try {
+                Files.delete(tempFile);
+                build(cookies, importer, tempFile.toFile(), scratchDir);
+                moveIntoPlace(tempFile, entry);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } else {
+            log.debug("cache hit for {} cookies: {}", cookies.size(), entry);
+        }
+        Files.copy(entry, destinationSqliteDbFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void build(List<DeserializableCookie> cookies, FirefoxCookieImporter importer, File sqliteDbFile, Path scratchDir) throws SQLException, IOException {
+        importer.createEmptyCookiesDb(sqliteDbFile);
+        importer.importCookies(cookies, sqliteDbFile, scratchDir);
+    }
+
+    private static void moveIntoPlace(Path tempFile, Path entry) throws IOException {
+        try {
+            Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tempFile, entry);
+            } catch (FileAlreadyExistsException ignore) {
+                // another builder got there first; its entry is equivalent
+            }
+        }
+    }
+
+    Path resolveEntry(HashCode key) {
+        return cacheDir.resolve(key + ENTRY_SUFFIX);
+    }
+
+    static HashCode computeKey(Iterable<DeserializableCookie> cookies, FirefoxCookieImporter importer, Sqlite3ImportInfo schemaInfo, String rowTransformId) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(importer.getClass().getName(), StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(rowTransformId, StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(schemaInfo.tableName(), StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(String.valueOf(schemaInfo.idColumnName()), StandardCharsets.UTF_8).putByte((byte) 0);
+        for (String column : schemaInfo.columnNames()) {
+            hasher.putString(column, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        for (String stmt : schemaInfo.createTableSqlStatements()) {
+            hasher.putString(stmt, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        hasher.putString(schemaInfo.defaultCellValue(), StandardCharsets.UTF_8).putByte((byte) 0);
+        try (Writer out = new OutputStreamWriter(Funnels.asOutputStream(hasher), StandardCharsets.UTF_8)) {
+            CookieCodec.json().encode(cookies, out);
+        }
+        return hasher.hash();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("cacheDir", cacheDir)
+                .toString();
+    }
+}
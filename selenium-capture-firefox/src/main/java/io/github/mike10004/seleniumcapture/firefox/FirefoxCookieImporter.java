@@ -2,6 +2,7 @@ package io.github.mike10004.seleniumcapture.firefox;
 
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -16,4 +17,27 @@ public interface FirefoxCookieImporter {
 
     void createEmptyCookiesDb(File destinationSqliteDbFile) throws IOException;
 
+    /**
+     * Gets information about the schema of the table into which cookies are imported.
+     * Databases built by importers that return null are not cached.
+     * @return the schema information, or null if not available
+     * @see FirefoxCookieDbCache
+     */
+    @Nullable
+    default Sqlite3ImportInfo getSchemaInfo() {
+        return null;
+    }
+
+    /**
+     * Gets an identifier of the way this importer transforms cookies into records.
+     * Importers that produce different records from the same cookies must return
+     * different identifiers. Databases built by importers that return null are not cached.
+     * @return the identifier, or null if not available
+     * @see FirefoxCookieRowTransform#getCacheId()
+     */
+    @Nullable
+    default String getRowTransformId() {
+        return null;
+    }
+
 }
@@ -1,21 +1,21 @@
 package io.github.mike10004.seleniumcapture.firefox;
 
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static java.util.Objects.requireNonNull;
 
@@ -35,17 +35,38 @@ public abstract class FirefoxCookieImporterBase implements FirefoxCookieImporter
         this.cookieRowTransform = requireNonNull(cookieRowTransform);
     }
 
+    @Override
+    public Sqlite3ImportInfo getSchemaInfo() {
+        return importInfo;
+    }
+
+    @Nullable
+    @Override
+    public String getRowTransformId() {
+        return cookieRowTransform.getCacheId();
+    }
+
     @Override
     public void importCookies(Iterable<DeserializableCookie> cookies, File sqliteDbFile, Path scratchDir) throws SQLException, IOException {
-        log.debug("{} cookies from {} into database", Iterables.size(cookies), sqliteDbFile);
-        Iterable<Map<String, String>> rows = StreamSupport.stream(cookies.spliterator(), false)
-                .map(cookieRowTransform::apply)
-                .collect(Collectors.toList());
+        Collection<DeserializableCookie> cookieList = cookies instanceof Collection ? (Collection<DeserializableCookie>) cookies : Lists.newArrayList(cookies);
+        log.debug("{} cookies from {} into database", cookieList.size(), sqliteDbFile);
+        Iterable<Map<String, String>> rows = cookieRowTransform.applyAll(cookieList);
         importRows(rows, importInfo, sqliteDbFile, scratchDir);
     }
 
     private void importRows(Iterable<Map<String, String>> rows, Sqlite3ImportInfo importInfo, File sqliteDbFile, Path scratchDir) throws SQLException, IOException {
+        if (genericImporter.isSessionMode()) {
+            try (Sqlite3Session session = genericImporter.openSession(sqliteDbFile, scratchDir)) {
+                Integer maxIdValue = genericImporter.ensureTableCreated(session, importInfo);
+                genericImporter.doImportRows(session, assignIds(rows, maxIdValue), importInfo, scratchDir);
+            }
+            return;
+        }
         Integer maxIdValue = genericImporter.ensureTableCreated(importInfo, sqliteDbFile);
+        genericImporter.doImportRows(assignIds(rows, maxIdValue), importInfo, sqliteDbFile, scratchDir);
+    }
+
+    private static List<Map<String, String>> assignIds(Iterable<Map<String, String>> rows, @Nullable Integer maxIdValue) {
         if (maxIdValue == null) {
             log.warn("no max id value ascertained from database");
             maxIdValue = 0;
@@ -56,6 +77,6 @@ public abstract class FirefoxCookieImporterBase implements FirefoxCookieImporter
         for (Map<String, String> row : rowsWithIds) {
             row.put("id", String.valueOf(idFactory.incrementAndGet()));
         }
-        genericImporter.doImportRows(rowsWithIds, importInfo, sqliteDbFile, scratchDir);
+        return rowsWithIds;
     }
 }
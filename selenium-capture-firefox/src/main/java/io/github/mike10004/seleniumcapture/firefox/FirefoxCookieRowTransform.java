@@ -2,7 +2,11 @@ package io.github.mike10004.seleniumcapture.firefox;
 
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Interface of a service that transforms an exploded cookie
@@ -17,5 +21,26 @@ public interface FirefoxCookieRowTransform {
      */
     Map<String, String> apply(DeserializableCookie cookie);
 
+    /**
+     * Transforms cookies into maps that represent records in a sqlite database table.
+     * @param cookies cookies
+     * @return records, in the iteration order of the cookies
+     */
+    default List<Map<String, String>> applyAll(Collection<DeserializableCookie> cookies) {
+        return cookies.stream().map(this::apply).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets an identifier of the records this transform produces, for use in cache keys.
+     * Transforms that produce different records from the same cookies must return
+     * different identifiers. Databases built with transforms that return null are not cached.
+     * @return the identifier, or null if not available
+     * @see FirefoxCookieDbCache
+     */
+    @Nullable
+    default String getCacheId() {
+        return null;
+    }
+
 }
 
@@ -4,11 +4,14 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.math.LongMath;
+import io.github.mike10004.seleniumcapture.CookieColumns;
 import io.github.mike10004.seleniumcapture.CookieExploder;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 
-import java.math.BigInteger;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -51,6 +54,33 @@ public class FirefoxCookieRowTransformBase implements FirefoxCookieRowTransform
         return sqlRowMap;
     }
 
+    /**
+     * Transforms cookies into records. The cookies are exploded into a columnar
+     * buffer, and values are read from the buffer, so no exploded cookie map is
+     * created for any cookie.
+     * @param cookies cookies
+     * @return records
+     */
+    @Override
+    public List<Map<String, String>> applyAll(Collection<DeserializableCookie> cookies) {
+        CookieColumns explodedCookies = new CookieColumns(cookies.size());
+        cookieExploder.explodeAll(cookies, explodedCookies);
+        List<Map<String, String>> sqlRows = new ArrayList<>(explodedCookies.size());
+        for (int row = 0; row < explodedCookies.size(); row++) {
+            Map<String, String> sqlRowMap = new TreeMap<>();
+            for (String sqlFieldName : columnNames) {
+                Object value = cookieValueGetter.getValueBySqlColumnName(explodedCookies, row, sqlFieldName);
+                if (value != null) {
+                    String valueStr = stringifyCookieValue(value, sqlFieldName);
+                    sqlRowMap.put(sqlFieldName, valueStr);
+                }
+            }
+            cookieValueGetter.supplementSqlFields(explodedCookies, row, sqlRowMap);
+            sqlRows.add(sqlRowMap);
+        }
+        return sqlRows;
+    }
+
     private static int getCookieToSqlDateConversionExponentBySqlFieldName(String sqlFieldName) {
         switch (sqlFieldName) {
             case "expiry":
@@ -69,15 +99,13 @@ public class FirefoxCookieRowTransformBase implements FirefoxCookieRowTransform
             return ATTRIB_JOINER.join((Map<?, ?>) cookieFieldValue);
         } else if (cookieFieldValue instanceof Instant) {
             Instant instant = (Instant) cookieFieldValue;
-            BigInteger millis = BigInteger.valueOf(instant.toEpochMilli());
+            long millis = instant.toEpochMilli();
             int exponent = getCookieToSqlDateConversionExponentBySqlFieldName(sqlFieldName);
             final long value;
             if (exponent >= 0) {
-                BigInteger factor = BigInteger.TEN.pow(exponent);
-                value = millis.multiply(factor).longValueExact();
+                value = Math.multiplyExact(millis, LongMath.pow(10, exponent));
             } else {
-                BigInteger denominator = BigInteger.TEN.pow(-exponent);
-                value = millis.divide(denominator).longValueExact();
+                value = millis / LongMath.pow(10, -exponent);
             }
             return String.valueOf(value);
         } else if (cookieFieldValue instanceof Boolean) {
@@ -1,5 +1,7 @@
 package io.github.mike10004.seleniumcapture.firefox;
 
+import io.github.mike10004.seleniumcapture.CookieColumns;
+
 import java.util.Map;
 
 /**
@@ -23,4 +25,27 @@ public interface FirefoxCookieValueGetter {
      */
     void supplementSqlFields(Map<String, Object> explodedCookie, Map<String, String> sqlRow);
 
+    /**
+     * Gets the value of a database table field from a row of exploded cookies.
+     * The default implementation creates the exploded cookie map for the row;
+     * implementations should override this to read the columns directly.
+     * @param cookies exploded cookies
+     * @param row row index
+     * @param sqlColumnName field name
+     * @return value
+     */
+    default Object getValueBySqlColumnName(CookieColumns cookies, int row, String sqlColumnName) {
+        return getValueBySqlColumnName(cookies.toMap(row), sqlColumnName);
+    }
+
+    /**
+     * Fills the values of fields in a database table record from a row of exploded cookies.
+     * @param cookies exploded cookies
+     * @param row row index
+     * @param sqlRow record
+     */
+    default void supplementSqlFields(CookieColumns cookies, int row, Map<String, String> sqlRow) {
+        supplementSqlFields(cookies.toMap(row), sqlRow);
+    }
+
 }
@@ -0,0 +1,216 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Store of laid-out Firefox profile directories that are cloned for each session.
+ * A template is laid out once per key and kept until it is evicted to make room for
+ * another template or the JVM exits; sessions receive a copy, because Firefox modifies
+ * its profile directory while it runs.
+ */
+final class FirefoxProfileTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(FirefoxProfileTemplates.class);
+
+    private static final Set<String> LOCK_FILENAMES = ImmutableSet.of("lock", ".parentlock", "parent.lock");
+
+    static final int DEFAULT_MAX_TEMPLATES = 8;
+
+    /**
+     * Directories deleted by the shutdown hook. The hook is registered once for the class,
+     * not once per instance.
+     */
+    private static final Set<Path> dirsToDeleteOnExit = ConcurrentHashMap.newKeySet();
+
+    private static final class ShutdownHookHolder {
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dirsToDeleteOnExit.forEach(FirefoxProfileTemplates::deleteQuietly), "firefox-profile-templates-cleanup"));
+        }
+
+        static void deleteOnExit(Path dir) {
+            dirsToDeleteOnExit.add(dir);
+        }
+    }
+
+    private final Path parentDir;
+    private final int maxTemplates;
+    private final LinkedHashMap<HashCode, Template> templates;
+    private Path templatesDir;
+
+    public FirefoxProfileTemplates(Path parentDir) {
+        this(parentDir, DEFAULT_MAX_TEMPLATES);
+    }
+
+    /**
+     * Constructs an instance that retains at most the given number of templates.
+     * When another template is laid out, the least recently used template is deleted.
+     * @param parentDir parent of the directory in which clones are created
+     * @param maxTemplates maximum number of templates retained
+     */
+    public FirefoxProfileTemplates(Path parentDir, int maxTemplates) {
+        this.parentDir = requireNonNull(parentDir, "parentDir");
+        checkArgument(maxTemplates > 0, "maxTemplates must be positive: %s", maxTemplates);
+        this.maxTemplates = maxTemplates;
+        templates = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Creates a copy of the template with the given key, laying out the template first if necessary.
+     * @param key the template key
+     * @param layout supplier of a laid-out profile directory, invoked at most once per key
+     *               while the template is retained; the directory becomes owned by this instance
+     * @return a new profile directory that the caller owns
+     * @throws IOException on I/O error
+     */
+    public File cloneTemplate(HashCode key, Supplier<File> layout) throws IOException {
+        Template template = acquireTemplate(key, layout);
+        try {
+            Path clone = Files.createTempDirectory(getTemplatesDir(), "profile");
+            copyProfile(template.dir.toPath(), clone);
+            return clone.toFile();
+        } finally {
+            template.release();
+        }
+    }
+
+    private Template acquireTemplate(HashCode key, Supplier<File> layout) {
+        List<Template> evicted = new ArrayList<>(1);
+        Template template;
+        synchronized (templates) {
+            template = templates.get(key);
+            if (template == null) {
+                File dir = layout.get();
+                log.debug("laid out profile template {} at {}", key, dir);
+                template = new Template(dir);
+                templates.put(key, template);
+                Iterator<Template> eldest = templates.values().iterator();
+                while (templates.size() > maxTemplates) {
+                    evicted.add(eldest.next());
+                    eldest.remove();
+                }
+            }
+            template.acquire();
+        }
+        evicted.forEach(Template::evict);
+        return template;
+    }
+
+    /**
+     * Template directory that is deleted once it has been evicted and no clone is being copied from it.
+     */
+    private static final class Template {
+
+        public final File dir;
+        private int users;
+        private boolean evicted;
+
+        public Template(File dir) {
+            this.dir = requireNonNull(dir);
+        }
+
+        public synchronized void acquire() {
+            users++;
+        }
+
+        public void release() {
+            boolean delete;
+            synchronized (this) {
+                users--;
+                delete = evicted && users == 0;
+            }
+            if (delete) {
+                deleteQuietly(dir.toPath());
+            }
+        }
+
+        public void evict() {
+            boolean delete;
+            synchronized (this) {
+                evicted = true;
+                delete = users == 0;
+            }
+            if (delete) {
+                log.debug("evicting profile template at {}", dir);
+                deleteQuietly(dir.toPath());
+            }
+        }
+    }
+
+    private synchronized Path getTemplatesDir() throws IOException {
+        if (templatesDir == null) {
+            Path dir = Files.createTempDirectory(parentDir, "firefox-profile-templates");
+            ShutdownHookHolder.deleteOnExit(dir);
+            templatesDir = dir;
+        }
+        return templatesDir;
+    }
+
+    /**
+     * Copies a profile directory, skipping lock files.
+     * @param source the source directory
+     * @param destination the destination directory, which must exist
+     * @throws IOException on I/O error
+     */
+    static void copyProfile(Path source, Path destination) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(destination.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!LOCK_FILENAMES.contains(file.getFileName().toString())) {
+                    Files.copy(file, destination.resolve(source.relativize(file).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    static void deleteQuietly(Path dir) {
+        try {
+            MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+        } catch (NoSuchFileException ignore) {
+            // already deleted
+        } catch (IOException | UncheckedIOException e) {
+            log.info("failed to delete {}: {}", dir, e.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("parentDir", parentDir)
+                .add("maxTemplates", maxTemplates)
+                .toString();
+    }
+}
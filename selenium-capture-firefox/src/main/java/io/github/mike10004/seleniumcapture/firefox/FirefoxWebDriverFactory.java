@@ -6,6 +6,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.primitives.Ints;
 import io.github.mike10004.seleniumcapture.CapableWebDriverFactory;
 import io.github.mike10004.seleniumcapture.CapableWebDriverFactoryBuilder;
@@ -17,27 +20,35 @@ import io.github.mike10004.seleniumcapture.WebdrivingProxyDefinition;
 import io.github.mike10004.seleniumcapture.WebdrivingSession;
 import org.apache.commons.text.StringEscapeUtils;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.firefox.Extension;
 import org.openqa.selenium.firefox.FirefoxBinary;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxDriverLogLevel;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.firefox.FirefoxProfile;
 import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.remote.service.DriverService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.SQLException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -63,6 +74,10 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
     private final java.util.logging.Level webdriverLogLevel;
     private final GeckoDriverService.Builder geckoServiceBuilder;
     private final FirefoxCookieImporter cookieDbImporter;
+    @Nullable
+    private final FirefoxCookieDbCache cookieDbCache;
+    @Nullable
+    private final FirefoxProfileTemplates profileTemplates;
 
     protected FirefoxWebDriverFactory(Builder builder) {
         super(builder);
@@ -76,6 +91,8 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
         this.webdriverLogLevel = builder.webdriverLogLevel;
         this.geckoServiceBuilder = builder.geckoServiceBuider;
         this.cookieDbImporter = builder.cookieDbImporter;
+        this.cookieDbCache = builder.cookieDbCache;
+        this.profileTemplates = builder.profileTemplates ? new FirefoxProfileTemplates(scratchDir) : null;
     }
 
     protected ImmutableList<DeserializableCookie> getCookies() {
@@ -92,26 +109,45 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
     }
 
     private ServiceWebdrivingSession createWebDriverMaybeWithProxy(WebdrivingConfig config) throws IOException {
-        FirefoxOptions options = populateOptions(config);
-        FirefoxBinary binary = binarySupplier.get();
-        Map<String, String> environment = environmentSupplier.get();
-        GeckoDriverService service = geckoServiceBuilder
-                .usingFirefoxBinary(binary)
-                .withEnvironment(environment)
-                .build();
-        WebDriver driver = new FirefoxDriver(service, options);
-        return new ServiceWebdrivingSession(driver, service);
+        List<File> clonedProfileDirs = new ArrayList<>(1);
+        try {
+            FirefoxOptions options = populateOptions(config, clonedProfileDirs);
+            FirefoxBinary binary = binarySupplier.get();
+            Map<String, String> environment = environmentSupplier.get();
+            GeckoDriverService service = geckoServiceBuilder
+                    .usingFirefoxBinary(binary)
+                    .withEnvironment(environment)
+                    .build();
+            WebDriver driver = new FirefoxDriver(service, options);
+            if (clonedProfileDirs.isEmpty()) {
+                return new ServiceWebdrivingSession(driver, service);
+            }
+            return new ClonedProfileWebdrivingSession(driver, service, clonedProfileDirs);
+        } catch (IOException | RuntimeException e) {
+            clonedProfileDirs.forEach(dir -> FirefoxProfileTemplates.deleteQuietly(dir.toPath()));
+            throw e;
+        }
     }
 
     @VisibleForTesting
     FirefoxOptions populateOptions(WebdrivingConfig config) throws IOException {
+        return populateOptions(config, new ArrayList<>(1));
+    }
+
+    /**
+     * Populates options for a new session. If profile templates are enabled, the
+     * profile is cloned from a template and passed to Firefox by path; the cloned
+     * directory is added to the given list so that it may be deleted when the
+     * session ends.
+     */
+    private FirefoxOptions populateOptions(WebdrivingConfig config, List<File> clonedProfileDirs) throws IOException {
         List<FirefoxProfileFolderAction> actions = new ArrayList<>(2);
         List<DeserializableCookie> cookies_ = getCookies();
         if (!cookies.isEmpty()) {
-            actions.add(new CookieInstallingProfileAction(cookies_, cookieDbImporter, scratchDir));
+            actions.add(new CookieInstallingProfileAction(cookies_, cookieDbImporter, cookieDbCache, scratchDir));
         }
         actions.addAll(profileFolderActions);
-        FirefoxProfile profile = createFirefoxProfile(actions);
+        SupplementingFirefoxProfile profile = createFirefoxProfile(actions);
         FirefoxProfilePreferenceConfigurator profileConfigurator = new FirefoxProfilePreferenceConfigurator();
         profileConfigurator.disableSomeMediaSupport(profile);
         profileConfigurator.avoidAutomaticConnections(profile);
@@ -123,7 +159,14 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
         options.setAcceptInsecureCerts(false);
         configureLogging(options);
         configureProxy(options, profile, config);
-        options.setProfile(profile);
+        if (profileTemplates != null) {
+            File profileDir = profileTemplates.cloneTemplate(profile.fingerprint(), profile::layoutOnDisk);
+            clonedProfileDirs.add(profileDir);
+            profile.appendSessionPreferences(profileDir);
+            options.addArguments("-profile", profileDir.getAbsolutePath());
+        } else {
+            options.setProfile(profile);
+        }
         modifyOptions(options);
         return options;
     }
@@ -392,11 +435,18 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
 
         private final List<DeserializableCookie> cookies;
         private final FirefoxCookieImporter cookieImporter;
+        @Nullable
+        private final FirefoxCookieDbCache cookieDbCache;
         private final Path scratchDir;
 
         CookieInstallingProfileAction(List<DeserializableCookie> cookies, FirefoxCookieImporter cookieImporter, Path scratchDir) {
+            this(cookies, cookieImporter, null, scratchDir);
+        }
+
+        CookieInstallingProfileAction(List<DeserializableCookie> cookies, FirefoxCookieImporter cookieImporter, @Nullable FirefoxCookieDbCache cookieDbCache, Path scratchDir) {
             this.cookies = requireNonNull(cookies);
             this.cookieImporter = requireNonNull(cookieImporter);
+            this.cookieDbCache = cookieDbCache;
             this.scratchDir = requireNonNull(scratchDir);
         }
 
@@ -404,8 +454,12 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
         public void perform(File profileDir) {
             File sqliteDbFile = new File(profileDir, COOKIES_DB_FILENAME);
             try {
-                cookieImporter.createEmptyCookiesDb(sqliteDbFile);
-                cookieImporter.importCookies(cookies, sqliteDbFile, scratchDir);
+                if (cookieDbCache != null) {
+                    cookieDbCache.install(cookies, cookieImporter, sqliteDbFile, scratchDir);
+                } else {
+                    cookieImporter.createEmptyCookiesDb(sqliteDbFile);
+                    cookieImporter.importCookies(cookies, sqliteDbFile, scratchDir);
+                }
                 log.debug("imported {} cookies into firefox profile sqlite database {}", cookies.size(), sqliteDbFile);
             } catch (SQLException | IOException e) {
                 throw new ProfilePreparationException("failed to install cookies into " + sqliteDbFile, e);
@@ -463,10 +517,96 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
 
     private static final class SupplementingFirefoxProfile extends org.openqa.selenium.firefox.FirefoxProfile {
 
+        /**
+         * Preferences whose values are derived from the clock. These are excluded
+         * from the {@link #fingerprint() fingerprint} and written to each clone's
+         * {@code user.js} instead, so that they do not produce a new template for every session.
+         */
+        private static final ImmutableSet<String> SESSION_PREFERENCE_KEYS = ImmutableSet.of(
+                "services.settings.main.fxmonitor-breaches.last_check");
+
         private final ImmutableList<? extends FirefoxProfileFolderAction> profileFolderActions;
+        private final Map<String, String> recordedSettings;
+        private final Map<String, Object> sessionPreferences;
 
         public SupplementingFirefoxProfile(Iterable<? extends FirefoxProfileFolderAction> profileFolderActions) {
             this.profileFolderActions = ImmutableList.copyOf(profileFolderActions);
+            recordedSettings = new TreeMap<>();
+            sessionPreferences = new LinkedHashMap<>();
+        }
+
+        private void record(String key, Object value) {
+            recordedSettings.put(key, value.getClass().getName() + ":" + value);
+        }
+
+        @Override
+        public void setPreference(String key, Object value) {
+            super.setPreference(key, value);
+            if (SESSION_PREFERENCE_KEYS.contains(key)) {
+                sessionPreferences.put(key, value);
+            } else {
+                record("pref:" + key, value);
+            }
+        }
+
+        /**
+         * Appends the preferences that are excluded from the fingerprint to the
+         * {@code user.js} file of a profile directory cloned from a template.
+         * Firefox applies the last value set for a preference, so these override
+         * the values that were current when the template was laid out.
+         * @param profileDir the cloned profile directory
+         * @throws IOException on I/O error
+         */
+        public void appendSessionPreferences(File profileDir) throws IOException {
+            if (sessionPreferences.isEmpty()) {
+                return;
+            }
+            StringBuilder lines = new StringBuilder();
+            sessionPreferences.forEach((key, value) -> {
+                String valueJs = value instanceof String ? ("\"" + StringEscapeUtils.escapeEcmaScript((String) value) + "\"") : String.valueOf(value);
+                lines.append("user_pref(\"").append(StringEscapeUtils.escapeEcmaScript(key)).append("\", ").append(valueJs).append(");\n");
+            });
+            Files.write(new File(profileDir, "user.js").toPath(), lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void addExtension(String key, Extension extension) {
+            super.addExtension(key, extension);
+            record("extension:" + key, extension.getClass().getName());
+        }
+
+        @Override
+        public void setAcceptUntrustedCertificates(boolean acceptUntrustedSsl) {
+            super.setAcceptUntrustedCertificates(acceptUntrustedSsl);
+            record("acceptUntrustedCertificates", acceptUntrustedSsl);
+        }
+
+        @Override
+        public void setAssumeUntrustedCertificateIssuer(boolean untrustedIssuer) {
+            super.setAssumeUntrustedCertificateIssuer(untrustedIssuer);
+            record("assumeUntrustedCertificateIssuer", untrustedIssuer);
+        }
+
+        @Override
+        public void setAlwaysLoadNoFocusLib(boolean loadNoFocusLib) {
+            super.setAlwaysLoadNoFocusLib(loadNoFocusLib);
+            record("alwaysLoadNoFocusLib", loadNoFocusLib);
+        }
+
+        /**
+         * Computes a hash of the preferences, extensions and flags that have been set
+         * on this profile. Folder actions and cookies are not included, because they
+         * are fixed for the lifetime of the factory that creates the profile.
+         * @return the hash
+         */
+        public HashCode fingerprint() {
+            Hasher hasher = Hashing.sha256().newHasher();
+            recordedSettings.forEach((key, value) -> {
+                hasher.putString(key, StandardCharsets.UTF_8).putByte((byte) 0);
+                hasher.putString(value, StandardCharsets.UTF_8).putByte((byte) 0);
+            });
+            return hasher.hash();
         }
 
         @Override
@@ -479,6 +619,34 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
         }
     }
 
+    private static final class ClonedProfileWebdrivingSession extends ServiceWebdrivingSession {
+
+        private final ImmutableList<File> profileDirs;
+
+        public ClonedProfileWebdrivingSession(WebDriver driver, DriverService service, List<File> profileDirs) {
+            super(driver, service);
+            this.profileDirs = ImmutableList.copyOf(profileDirs);
+        }
+
+        @Override
+        public CompletableFuture<Void> quitAsync(Duration quitTimeout) {
+            return super.quitAsync(quitTimeout).whenComplete((r, e) -> deleteProfileDirs());
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } finally {
+                deleteProfileDirs();
+            }
+        }
+
+        private void deleteProfileDirs() {
+            profileDirs.forEach(dir -> FirefoxProfileTemplates.deleteQuietly(dir.toPath()));
+        }
+    }
+
     /**
      * Builder of Firefox web driver factories.
      */
@@ -493,11 +661,27 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
         private final List<FirefoxProfileFolderAction> profileFolderActions = new ArrayList<>();
         private GeckoDriverService.Builder geckoServiceBuider = new GeckoDriverService.Builder();
         private java.util.logging.Level webdriverLogLevel = null;
-        private FirefoxCookieImporter cookieDbImporter = new Firefox91CookieImporter(new Sqlite3GenericImporter(Sqlite3Runner.createDefault()));
+        private FirefoxCookieImporter cookieDbImporter = createDefaultCookieImporter();
+        private FirefoxCookieDbCache cookieDbCache = null;
+        private boolean profileTemplates = false;
 
         private Builder() {
         }
 
+        /**
+         * Creates the default cookie importer. The in-process JDBC importer is used
+         * if a SQLite JDBC driver is on the classpath; otherwise cookies are imported
+         * by executing {@code sqlite3}.
+         * @return a new cookie importer
+         */
+        @VisibleForTesting
+        static FirefoxCookieImporter createDefaultCookieImporter() {
+            if (JdbcFirefoxCookieImporter.isDriverAvailable()) {
+                return JdbcFirefoxCookieImporter.forFirefox91();
+            }
+            return new Firefox91CookieImporter(new Sqlite3GenericImporter(Sqlite3Runner.createDefault()));
+        }
+
         /**
          * Sets the webdriver log level.
          * @param webdriverLogLevel log level
@@ -696,6 +880,32 @@ public class FirefoxWebDriverFactory extends CapableWebDriverFactory<FirefoxOpti
             return this;
         }
 
+        /**
+         * Sets the cache of prebuilt cookie databases. By default, no cache is used
+         * and the cookie database is built for each session.
+         * @param cookieDbCache the cache, or null to disable caching
+         * @return this builder
+         */
+        public Builder cookieDatabaseCache(@Nullable FirefoxCookieDbCache cookieDbCache) {
+            this.cookieDbCache = cookieDbCache;
+            return this;
+        }
+
+        /**
+         * Sets whether profile templates are used. If enabled, the profile is laid
+         * out once for each distinct set of preferences, cookie and folder actions are
+         * performed only then, and each session gets a copy of the template that is
+         * passed to Firefox by path rather than serialized into capabilities. Profile
+         * actions and folder actions must therefore produce the same result every time.
+         * The copy is deleted when the session is closed. Disabled by default.
+         * @param profileTemplates true to enable profile templates
+         * @return this builder
+         */
+        public Builder profileTemplates(boolean profileTemplates) {
+            this.profileTemplates = profileTemplates;
+            return this;
+        }
+
         /**
          * Constructs and returns a new factory instance parameterized by this builder.
          * @return a new factory instance
@@ -0,0 +1,185 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cookie importer that writes to the cookies database in-process through a
+ * SQLite JDBC driver instead of launching {@code sqlite3} subprocesses.
+ * All rows are inserted on one connection, in one transaction, with batched
+ * prepared statements. A driver that accepts {@code jdbc:sqlite:} URLs, such as
+ * {@code org.xerial:sqlite-jdbc}, must be on the classpath at runtime;
+ * use {@link #isDriverAvailable()} to check.
+ */
+public class JdbcFirefoxCookieImporter implements FirefoxCookieImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcFirefoxCookieImporter.class);
+
+    static final String URL_PREFIX = "jdbc:sqlite:";
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final Sqlite3ImportInfo importInfo;
+    private final FirefoxCookieRowTransform cookieRowTransform;
+    private final int batchSize;
+
+    public JdbcFirefoxCookieImporter(Sqlite3ImportInfo importInfo, FirefoxCookieRowTransform cookieRowTransform) {
+        this(importInfo, cookieRowTransform, DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcFirefoxCookieImporter(Sqlite3ImportInfo importInfo, FirefoxCookieRowTransform cookieRowTransform, int batchSize) {
+        this.importInfo = requireNonNull(importInfo, "importInfo");
+        this.cookieRowTransform = requireNonNull(cookieRowTransform, "cookieRowTransform");
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates an importer for the Firefox 91+ cookies database schema.
+     * @return a new importer
+     */
+    public static JdbcFirefoxCookieImporter forFirefox91() {
+        return new JdbcFirefoxCookieImporter(Firefox91CookieImporter.getImportInfo(), new Firefox91CookieRowTransform());
+    }
+
+    /**
+     * Checks whether a JDBC driver for SQLite databases is registered.
+     * @return true if a driver is available
+     */
+    public static boolean isDriverAvailable() {
+        try {
+            DriverManager.getDriver(URL_PREFIX);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Sqlite3ImportInfo getSchemaInfo() {
+        return importInfo;
+    }
+
+    @Nullable
+    @Override
+    public String getRowTransformId() {
+        return cookieRowTransform.getCacheId();
+    }
+
+    @Override
+    public void importCookies(Iterable<DeserializableCookie> cookies, File sqliteDbFile, Path scratchDir) throws SQLException, IOException {
+        Collection<DeserializableCookie> cookieList = cookies instanceof Collection ? (Collection<DeserializableCookie>) cookies : Lists.newArrayList(cookies);
+        List<Map<String, String>> rows = cookieRowTransform.applyAll(cookieList);
+        try (Connection conn = DriverManager.getConnection(URL_PREFIX + sqliteDbFile.getAbsolutePath())) {
+            conn.setAutoCommit(false);
+            try {
+                int count = importRows(conn, rows);
+                conn.commit();
+                log.debug("inserted {} rows into {} in {}", count, importInfo.tableName(), sqliteDbFile);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private int importRows(Connection conn, Iterable<Map<String, String>> rows) throws SQLException {
+        int maxId = ensureTableCreated(conn);
+        List<String> columnNames = importInfo.columnNames();
+        String idColumnName = importInfo.idColumnName();
+        String defaultCellValue = importInfo.defaultCellValue();
+        int count = 0;
+        try (PreparedStatement insert = conn.prepareStatement(buildInsertSql())) {
+            for (Map<String, String> row : rows) {
+                for (int i = 0; i < columnNames.size(); i++) {
+                    String column = columnNames.get(i);
+                    String value = column.equals(idColumnName) ? String.valueOf(maxId + count + 1) : row.get(column);
+                    insert.setString(i + 1, value == null ? defaultCellValue : value);
+                }
+                insert.addBatch();
+                count++;
+                if (count % batchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                insert.executeBatch();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates the table if it does not exist.
+     * @param conn the connection
+     * @return the max value of the id column, or 0 if the table is empty or has no id column
+     */
+    private int ensureTableCreated(Connection conn) throws SQLException {
+        boolean exists;
+        try (ResultSet tables = conn.getMetaData().getTables(null, null, importInfo.tableName(), null)) {
+            exists = tables.next();
+        }
+        if (!exists) {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : importInfo.createTableSqlStatements()) {
+                    stmt.executeUpdate(sql);
+                }
+            }
+            return 0;
+        }
+        String idColumnName = importInfo.idColumnName();
+        if (idColumnName == null) {
+            return 0;
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(" + quote(idColumnName) + ") FROM " + quote(importInfo.tableName()))) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private String buildInsertSql() {
+        List<String> columnNames = importInfo.columnNames();
+        return "INSERT INTO " + quote(importInfo.tableName())
+                + " (" + columnNames.stream().map(JdbcFirefoxCookieImporter::quote).collect(Collectors.joining(", ")) + ")"
+                + " VALUES (" + columnNames.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public void createEmptyCookiesDb(File destinationSqliteDbFile) throws IOException {
+        Firefox91CookieImporter.copyEmptyCookiesDb(destinationSqliteDbFile);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("importInfo", importInfo)
+                .add("batchSize", batchSize)
+                .toString();
+    }
+}
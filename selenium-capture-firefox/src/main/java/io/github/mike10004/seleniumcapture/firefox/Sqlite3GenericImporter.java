@@ -3,7 +3,7 @@ package io.github.mike10004.seleniumcapture.firefox;
 import com.github.mike10004.nativehelper.Platform;
 import com.github.mike10004.nativehelper.Platforms;
 import io.github.mike10004.seleniumcapture.Subprocesses;
-import com.google.common.io.CharSource;
+import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import io.github.mike10004.subprocess.ProcessResult;
 import io.github.mike10004.subprocess.Subprocess;
@@ -14,6 +14,8 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.List;
@@ -27,9 +29,29 @@ public class Sqlite3GenericImporter {
     private static final Logger log = LoggerFactory.getLogger(Sqlite3GenericImporter.class);
 
     private final Sqlite3Runner sqliteRunner;
+    private final boolean sessionMode;
 
     public Sqlite3GenericImporter(Sqlite3Runner sqliteRunner) {
+        this(sqliteRunner, false);
+    }
+
+    /**
+     * Constructs an instance.
+     * @param sqliteRunner the sqlite3 runner
+     * @param sessionMode true if callers should perform a sequence of operations
+     *                    in one {@link Sqlite3Session} instead of a process per operation
+     */
+    public Sqlite3GenericImporter(Sqlite3Runner sqliteRunner, boolean sessionMode) {
         this.sqliteRunner = requireNonNull(sqliteRunner);
+        this.sessionMode = sessionMode;
+    }
+
+    public boolean isSessionMode() {
+        return sessionMode;
+    }
+
+    public Sqlite3Session openSession(File sqliteDbFile, Path scratchDir) throws SQLException {
+        return sqliteRunner.openSession(sqliteDbFile, scratchDir);
     }
 
     protected static String escapeSqlite3Token(String token) {
@@ -66,21 +88,71 @@ public class Sqlite3GenericImporter {
         return maxIdValue;
     }
 
+    /**
+     * Creates the table if it does not exist, using an existing session.
+     * @param session the session
+     * @param importInfo the import info
+     * @return max primary key value, if relevant
+     */
+    @Nullable
+    public Integer ensureTableCreated(Sqlite3Session session, Sqlite3ImportInfo importInfo) throws SQLException {
+        if (!session.queryTableNames().contains(importInfo.tableName())) {
+            for (String stmt : importInfo.createTableSqlStatements()) {
+                session.execute(stmt);
+            }
+            return 0;
+        }
+        String idColumnName = importInfo.idColumnName();
+        if (idColumnName == null) {
+            return null;
+        }
+        return session.findMaxValue(idColumnName, importInfo.tableName()).orElse(0);
+    }
+
+    /**
+     * Imports rows using an existing session. The rows are written to a CSV file
+     * in the scratch directory, because the session's standard input carries commands.
+     * @param session the session
+     * @param rows the rows
+     * @param importInfo the import info
+     * @param scratchDir the scratch directory
+     */
+    public void doImportRows(Sqlite3Session session,
+                             Iterable<Map<String, String>> rows,
+                             Sqlite3ImportInfo importInfo,
+                             Path scratchDir) throws SQLException, IOException {
+        File inputFile = File.createTempFile("firefox-cookie-import", ".csv", scratchDir.toFile());
+        try {
+            Csvs.writeRowMapsWithHeaders(importInfo.columnNames(), rows, importInfo.defaultCellValue(), Csvs.UnknownKeyStrategy.IGNORE, Files.asCharSink(inputFile, sqliteRunner.config.getEncoding()));
+            session.execute(String.format(".import \"%s\" %s", escapeSqlite3Token(inputFile.getAbsolutePath()), importInfo.tableName()));
+        } finally {
+            if (!inputFile.delete()) {
+                log.warn("failed to delete temporary input file {}", inputFile);
+            }
+        }
+    }
+
     public void doImportRows(Iterable<Map<String, String>> rows,
                              Sqlite3ImportInfo importInfo,
                              File sqliteDbFile,
                              Path scratchDir) throws SQLException, IOException {
-        String stdin = Csvs.writeRowMapsWithHeadersToString(importInfo.columnNames(), rows, importInfo.defaultCellValue(), Csvs.UnknownKeyStrategy.IGNORE);
-        CharSource stdinSource = CharSource.wrap(stdin);
+        Charset encoding = sqliteRunner.config.getEncoding();
+        ByteSource stdinSource;
         String stdinFilename;
         File inputFile = null;
         try {
             if (getPlatform().isWindows()) {
                 inputFile = File.createTempFile("firefox-cookie-import", ".csv", scratchDir.toFile());
-                stdinSource.copyTo(Files.asByteSink(inputFile).asCharSink(sqliteRunner.config.getEncoding()));
+                Csvs.writeRowMapsWithHeaders(importInfo.columnNames(), rows, importInfo.defaultCellValue(), Csvs.UnknownKeyStrategy.IGNORE, Files.asCharSink(inputFile, encoding));
                 stdinSource = null;
                 stdinFilename = escapeSqlite3Token(inputFile.getAbsolutePath());
             } else {
+                stdinSource = new ByteSource() {
+                    @Override
+                    public InputStream openStream() {
+                        return Csvs.openRowMapsWithHeadersStream(importInfo.columnNames(), rows, importInfo.defaultCellValue(), Csvs.UnknownKeyStrategy.IGNORE, encoding);
+                    }
+                };
                 stdinFilename = "/dev/stdin";
             }
             Subprocess program = sqliteRunner.getSqlite3Builder()
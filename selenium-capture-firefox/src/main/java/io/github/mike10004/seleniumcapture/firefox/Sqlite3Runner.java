@@ -12,6 +12,7 @@ import io.github.mike10004.subprocess.Subprocess;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
@@ -57,6 +58,23 @@ public class Sqlite3Runner {
         return Subprocesses.executeOrPropagateInterruption(subprocess, config.getEncoding(), stdinSource == null ? null : stdinSource.asByteSource(config.getEncoding()));
     }
 
+    /**
+     * Starts a long-lived sqlite3 process attached to a database file.
+     * The caller must close the session.
+     * @param sqliteDbFile the database file
+     * @param scratchDir directory in which to create the session's working files
+     * @return a new session
+     * @throws SQLException if sqlite3 is not available or could not be started
+     */
+    public Sqlite3Session openSession(File sqliteDbFile, Path scratchDir) throws SQLException {
+        assertSqlite3Available();
+        try {
+            return Sqlite3Session.start(config, sqliteDbFile, scratchDir);
+        } catch (IOException e) {
+            throw new SQLException("failed to start sqlite3", e);
+        }
+    }
+
     public Subprocess.Builder getSqlite3Builder() {
         return Subprocess.running(config.getExecutableName());
     }
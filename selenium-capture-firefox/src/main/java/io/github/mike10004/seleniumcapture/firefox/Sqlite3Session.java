@@ -0,0 +1,248 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import io.github.mike10004.seleniumcapture.ExecutableConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Long-lived {@code sqlite3} process attached to one database file. Commands are
+ * written to the process's standard input, so a sequence of commands costs one
+ * process launch and shares one page cache.
+ *
+ * <p>When its output is not a terminal, {@code sqlite3} buffers standard output,
+ * so output cannot be read from the pipe as each command completes. Instead, the
+ * output of each command is directed to a file with {@code .output}, and the end
+ * of the command is signalled by a second file that is written and closed after
+ * it. Standard error is unbuffered and is redirected to a file that is checked
+ * for new error messages after each command.
+ *
+ * <p>Instances are safe for use by multiple threads; commands are executed one at a time.
+ */
+public class Sqlite3Session implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(Sqlite3Session.class);
+
+    private static final String DONE_MARKER = "sqlite3-session-done";
+    private static final long MAX_POLL_INTERVAL_MILLIS = 10;
+    private static final long QUIT_TIMEOUT_MILLIS = 5000;
+
+    private final File sqliteDbFile;
+    private final Charset encoding;
+    private final Path workDir;
+    private final Process process;
+    private final Writer stdin;
+    private final File stderrFile;
+    private long stderrOffset;
+    private int commandCount;
+    private boolean closed;
+
+    private Sqlite3Session(File sqliteDbFile, Charset encoding, Path workDir, Process process, File stderrFile) {
+        this.sqliteDbFile = requireNonNull(sqliteDbFile);
+        this.encoding = requireNonNull(encoding);
+        this.workDir = requireNonNull(workDir);
+        this.process = requireNonNull(process);
+        this.stderrFile = requireNonNull(stderrFile);
+        stdin = new OutputStreamWriter(process.getOutputStream(), encoding);
+    }
+
+    /**
+     * Starts a session.
+     * @param config the sqlite3 executable config
+     * @param sqliteDbFile the database file
+     * @param scratchDir directory in which to create the session's working files
+     * @return a new session
+     * @throws IOException if the process could not be started
+     */
+    static Sqlite3Session start(ExecutableConfig config, File sqliteDbFile, Path scratchDir) throws IOException {
+        Path workDir = Files.createTempDirectory(scratchDir, "sqlite3-session");
+        File stderrFile = workDir.resolve("stderr.txt").toFile();
+        try {
+            Process process = new ProcessBuilder(config.getExecutableName(), "-batch", "-csv", sqliteDbFile.getAbsolutePath())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(stderrFile)
+                    .start();
+            return new Sqlite3Session(sqliteDbFile, config.getEncoding(), workDir, process, stderrFile);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(workDir);
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a command and returns its output. The command may be a dot-command
+     * or an SQL statement; a terminating semicolon is appended to SQL statements
+     * that lack one.
+     * @param command the command
+     * @return the output lines
+     * @throws SQLException if sqlite3 reports an error or exits
+     */
+    public synchronized List<String> execute(String command) throws SQLException {
+        requireNonNull(command, "command");
+        checkState(!closed, "session closed");
+        String trimmed = command.trim();
+        checkArgument(!trimmed.isEmpty(), "empty command");
+        if (!trimmed.startsWith(".") && !trimmed.endsWith(";")) {
+            trimmed += ";";
+        }
+        int index = commandCount++;
+        File outputFile = workDir.resolve("output-" + index + ".txt").toFile();
+        File doneFile = workDir.resolve("done-" + index + ".txt").toFile();
+        try {
+            stdin.write(".output " + quote(outputFile) + "\n");
+            stdin.write(trimmed + "\n");
+            stdin.write(".output " + quote(doneFile) + "\n");
+            stdin.write("SELECT '" + DONE_MARKER + "';\n");
+            stdin.write(".output stdout\n");
+            stdin.flush();
+            awaitDone(doneFile);
+            String errors = readNewErrors();
+            if (!errors.isEmpty()) {
+                throw new SQLException(errors.trim());
+            }
+            return ImmutableList.copyOf(Files.readAllLines(outputFile.toPath(), encoding));
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for sqlite3", e);
+        } catch (IOException e) {
+            throw new SQLException("communication with sqlite3 failed", e);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            outputFile.delete();
+            //noinspection ResultOfMethodCallIgnored
+            doneFile.delete();
+        }
+    }
+
+    private void awaitDone(File doneFile) throws IOException, SQLException {
+        long interval = 1;
+        while (doneFile.length() < DONE_MARKER.length()) {
+            if (!process.isAlive()) {
+                throw new SQLException("sqlite3 exited with status " + process.exitValue() + ": " + readNewErrors().trim());
+            }
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted");
+            }
+            interval = Math.min(interval * 2, MAX_POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    private String readNewErrors() throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(stderrFile, "r")) {
+            long length = in.length();
+            if (length <= stderrOffset) {
+                return "";
+            }
+            byte[] bytes = new byte[Math.toIntExact(length - stderrOffset)];
+            in.seek(stderrOffset);
+            in.readFully(bytes);
+            stderrOffset = length;
+            return new String(bytes, encoding);
+        }
+    }
+
+    private static String quote(File file) {
+        return "\"" + Sqlite3GenericImporter.escapeSqlite3Token(file.getAbsolutePath()) + "\"";
+    }
+
+    /**
+     * Queries the names of the tables in the database.
+     * @return the table names
+     * @throws SQLException on error
+     */
+    public List<String> queryTableNames() throws SQLException {
+        ImmutableList.Builder<String> tableNames = ImmutableList.builder();
+        for (String line : execute(".tables")) {
+            tableNames.addAll(Splitter.on(' ').omitEmptyStrings().trimResults().split(line));
+        }
+        return tableNames.build();
+    }
+
+    /**
+     * Finds the maximum value of an integer column.
+     * @param columnName the column name
+     * @param tableName the table name
+     * @return the maximum value, or empty if the table has no rows
+     * @throws SQLException on error
+     */
+    public Optional<Integer> findMaxValue(String columnName, String tableName) throws SQLException {
+        checkArgument(columnName.matches("[_A-Za-z]\\w*"), "illegal column name: %s", columnName);
+        List<String> lines = execute("SELECT MAX(" + columnName + ") FROM " + tableName + " WHERE 1");
+        String output = String.join("", lines).trim();
+        if (output.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(Integer.valueOf(output));
+        }
+    }
+
+    /**
+     * Ends the session. The process is asked to quit and is killed if it does not exit promptly.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            stdin.write(".quit\n");
+            stdin.close();
+        } catch (IOException e) {
+            log.debug("failed to send quit command to sqlite3: {}", e.toString());
+        }
+        try {
+            if (!process.waitFor(QUIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.info("sqlite3 did not exit within {} ms; destroying", QUIT_TIMEOUT_MILLIS);
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        } finally {
+            deleteQuietly(workDir);
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try {
+            MoreFiles.deleteRecursively(dir, RecursiveDeleteOption.ALLOW_INSECURE);
+        } catch (IOException e) {
+            log.info("failed to delete {}: {}", dir, e.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("sqliteDbFile", sqliteDbFile)
+                .add("commandCount", commandCount)
+                .add("closed", closed)
+                .toString();
+    }
+}
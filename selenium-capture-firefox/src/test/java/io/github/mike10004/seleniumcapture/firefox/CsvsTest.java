@@ -2,9 +2,13 @@ package io.github.mike10004.seleniumcapture.firefox;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharSource;
 import org.junit.Test;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -55,4 +59,19 @@ public class CsvsTest {
                 "*", Csvs.UnknownKeyStrategy.FAIL);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void openRowMapsWithHeadersStream_sameAsString() throws Exception {
+        List<String> headers = ImmutableList.of("A", "B", "C");
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(ImmutableMap.of("A", "a" + i, "C", "\"quoted\", \u00e9 " + i));
+        }
+        String expected = Csvs.writeRowMapsWithHeadersToString(headers, rows, "", Csvs.UnknownKeyStrategy.IGNORE);
+        byte[] actual;
+        try (InputStream in = Csvs.openRowMapsWithHeadersStream(headers, rows, "", Csvs.UnknownKeyStrategy.IGNORE, StandardCharsets.UTF_8)) {
+            actual = ByteStreams.toByteArray(in);
+        }
+        assertEquals(expected, new String(actual, StandardCharsets.UTF_8));
+    }
+
+}
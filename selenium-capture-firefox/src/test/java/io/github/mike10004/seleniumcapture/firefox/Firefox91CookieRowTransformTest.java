@@ -1,11 +1,14 @@
 package io.github.mike10004.seleniumcapture.firefox;
 
+import io.github.mike10004.seleniumcapture.CookieExploder;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import io.github.mike10004.seleniumcapture.StandardCookieExploder;
 import org.junit.Test;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -25,4 +28,45 @@ public class Firefox91CookieRowTransformTest {
         Map<String, String> row = t.apply(c);
         assertEquals("isHttpOnly", "1", row.get("isHttpOnly"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void applyAll() throws Exception {
+        Firefox91CookieRowTransform t = new Firefox91CookieRowTransform();
+        List<DeserializableCookie> cookies = Arrays.asList(
+                ExampleCookieSource.asDeserializableCookie(),
+                DeserializableCookie.builder("foo", "bar")
+                        .domain("example.com")
+                        .path("/a")
+                        .secure(true)
+                        .creationDate(Instant.parse("2021-10-01T12:00:00Z"))
+                        .attribute("SameSite", "Strict")
+                        .build(),
+                DeserializableCookie.builder("x", null).build());
+        List<Map<String, String>> rows = t.applyAll(cookies);
+        assertEquals("size", cookies.size(), rows.size());
+        for (int i = 0; i < cookies.size(); i++) {
+            assertEquals("row " + i, t.apply(cookies.get(i)), rows.get(i));
+        }
+        assertEquals("host", ".google.com", rows.get(0).get("host"));
+        assertEquals("sameSite", "2", rows.get(1).get(Firefox91CookieImporter.COL_SAMESITE));
+        assertEquals("creationTime", "1633089600000000", rows.get(1).get("creationTime"));
+    }
+
+    @Test
+    public void applyAll_customExploder() throws Exception {
+        CookieExploder exploder = cookie -> {
+            Map<String, Object> exploded = new StandardCookieExploder().explode(cookie);
+            exploded.put(DeserializableCookie.FIELD_PATH, "/custom");
+            return exploded;
+        };
+        FirefoxCookieRowTransformBase t = new FirefoxCookieRowTransformBase(exploder, Firefox91CookieImporter.getImportInfo().columnNames(), new Firefox91CookieValueGetter());
+        List<DeserializableCookie> cookies = Arrays.asList(
+                ExampleCookieSource.asDeserializableCookie(),
+                DeserializableCookie.builder("foo", "bar").domain("example.com").path("/a").build());
+        List<Map<String, String>> rows = t.applyAll(cookies);
+        for (int i = 0; i < cookies.size(); i++) {
+            assertEquals("row " + i, t.apply(cookies.get(i)), rows.get(i));
+            assertEquals("path " + i, "/custom", rows.get(i).get("path"));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.collect.ImmutableList;
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FirefoxCookieDbCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void install_buildsOncePerCookieSet() throws Exception {
+        Path cacheDir = temporaryFolder.getRoot().toPath().resolve("cache");
+        FirefoxCookieDbCache cache = FirefoxCookieDbCache.create(cacheDir);
+        CountingImporter importer = new CountingImporter();
+        List<DeserializableCookie> cookies = ImmutableList.of(cookie("a", "1"), cookie("b", "2"));
+        for (int i = 0; i < 3; i++) {
+            File profileDb = new File(temporaryFolder.newFolder(), "cookies.sqlite");
+            cache.install(cookies, importer, profileDb, temporaryFolder.getRoot().toPath());
+            assertEquals("content", "a=1;b=2;", new String(Files.readAllBytes(profileDb.toPath()), StandardCharsets.UTF_8));
+        }
+        assertEquals("builds", 1, importer.builds);
+        cache.install(ImmutableList.of(cookie("a", "3")), importer, new File(temporaryFolder.newFolder(), "cookies.sqlite"), temporaryFolder.getRoot().toPath());
+        assertEquals("builds after change", 2, importer.builds);
+        assertEquals("entries", 2, Files.list(cacheDir).count());
+    }
+
+    @Test
+    public void computeKey_dependsOnSchema() throws Exception {
+        List<DeserializableCookie> cookies = ImmutableList.of(cookie("a", "1"));
+        CountingImporter importer = new CountingImporter();
+        Sqlite3ImportInfo schema = Firefox91CookieImporter.getImportInfo();
+        Sqlite3ImportInfo otherSchema = Sqlite3ImportInfo.create(schema.tableName(), schema.columnNames().subList(0, 5), schema.createTableSqlStatements(), schema.idColumnName());
+        assertEquals(FirefoxCookieDbCache.computeKey(cookies, importer, schema, "t"), FirefoxCookieDbCache.computeKey(ImmutableList.of(cookie("a", "1")), importer, schema, "t"));
+        assertNotEquals(FirefoxCookieDbCache.computeKey(cookies, importer, schema, "t"), FirefoxCookieDbCache.computeKey(cookies, importer, otherSchema, "t"));
+        assertNotEquals(FirefoxCookieDbCache.computeKey(cookies, importer, schema, "t"), FirefoxCookieDbCache.computeKey(cookies, importer, schema, "u"));
+    }
+
+    @Test
+    public void install_distinguishesRowTransforms() throws Exception {
+        Path cacheDir = temporaryFolder.getRoot().toPath().resolve("cache");
+        FirefoxCookieDbCache cache = FirefoxCookieDbCache.create(cacheDir);
+        List<DeserializableCookie> cookies = ImmutableList.of(cookie("a", "1"));
+        Firefox91CookieRowTransform standard = new Firefox91CookieRowTransform();
+        FirefoxCookieRowTransform prefixing = new FirefoxCookieRowTransform() {
+            @Override
+            public Map<String, String> apply(DeserializableCookie cookie) {
+                Map<String, String> row = new HashMap<>(standard.apply(cookie));
+                row.put("value", "x" + row.get("value"));
+                return row;
+            }
+
+            @Override
+            public String getCacheId() {
+                return "prefixing";
+            }
+        };
+        File standardDb = new File(temporaryFolder.newFolder(), "cookies.sqlite");
+        cache.install(cookies, new JdbcFirefoxCookieImporter(Firefox91CookieImporter.getImportInfo(), standard), standardDb, temporaryFolder.getRoot().toPath());
+        File prefixedDb = new File(temporaryFolder.newFolder(), "cookies.sqlite");
+        cache.install(cookies, new JdbcFirefoxCookieImporter(Firefox91CookieImporter.getImportInfo(), prefixing), prefixedDb, temporaryFolder.getRoot().toPath());
+        assertEquals("standard value", "1", queryValue(standardDb));
+        assertEquals("prefixed value", "x1", queryValue(prefixedDb));
+        assertEquals("entries", 2, Files.list(cacheDir).count());
+    }
+
+    @Test
+    public void install_notCachedWithoutRowTransformId() throws Exception {
+        Path cacheDir = temporaryFolder.getRoot().toPath().resolve("cache");
+        FirefoxCookieRowTransform anonymous = new Firefox91CookieRowTransform()::apply;
+        File dbFile = new File(temporaryFolder.newFolder(), "cookies.sqlite");
+        FirefoxCookieDbCache.create(cacheDir).install(ImmutableList.of(cookie("a", "1")), new JdbcFirefoxCookieImporter(Firefox91CookieImporter.getImportInfo(), anonymous), dbFile, temporaryFolder.getRoot().toPath());
+        assertEquals("value", "1", queryValue(dbFile));
+        assertFalse("cache dir created", Files.exists(cacheDir));
+    }
+
+    private static String queryValue(File dbFile) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(JdbcFirefoxCookieImporter.URL_PREFIX + dbFile.getAbsolutePath());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT value FROM moz_cookies")) {
+            assertTrue("has row", rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    private static DeserializableCookie cookie(String name, String value) {
+        return DeserializableCookie.builder(name, value).domain("example.com").path("/").build();
+    }
+
+    private static class CountingImporter implements FirefoxCookieImporter {
+
+        public int builds;
+
+        @Override
+        public void importCookies(Iterable<DeserializableCookie> cookies, File sqliteDbFile, Path scratchDir) throws IOException {
+            builds++;
+            String content = ImmutableList.copyOf(cookies).stream().map(c -> c.getName() + "=" + c.getValue() + ";").collect(Collectors.joining());
+            Files.write(sqliteDbFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void createEmptyCookiesDb(File destinationSqliteDbFile) throws IOException {
+            Files.write(destinationSqliteDbFile.toPath(), new byte[0]);
+        }
+
+        @Override
+        public Sqlite3ImportInfo getSchemaInfo() {
+            return Firefox91CookieImporter.getImportInfo();
+        }
+
+        @Override
+        public String getRowTransformId() {
+            return "counting";
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import com.google.common.hash.HashCode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FirefoxProfileTemplatesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void cloneTemplate_laysOutOncePerKey() throws Exception {
+        FirefoxProfileTemplates templates = new FirefoxProfileTemplates(temporaryFolder.newFolder("scratch").toPath());
+        List<File> layouts = new ArrayList<>();
+        HashCode key = HashCode.fromInt(1);
+        File clone1 = templates.cloneTemplate(key, layout("a", layouts));
+        File clone2 = templates.cloneTemplate(key, layout("a", layouts));
+        assertEquals("layouts", 1, layouts.size());
+        assertEquals("content", "a", read(new File(clone1, "prefs.js")));
+        assertEquals("content", "a", read(new File(clone2, "prefs.js")));
+        assertFalse("lock file copied", new File(clone1, "lock").exists());
+    }
+
+    @Test
+    public void cloneTemplate_evictsLeastRecentlyUsed() throws Exception {
+        FirefoxProfileTemplates templates = new FirefoxProfileTemplates(temporaryFolder.newFolder("scratch").toPath(), 2);
+        List<File> layouts = new ArrayList<>();
+        templates.cloneTemplate(HashCode.fromInt(1), layout("a", layouts));
+        templates.cloneTemplate(HashCode.fromInt(2), layout("b", layouts));
+        templates.cloneTemplate(HashCode.fromInt(1), layout("a", layouts));
+        templates.cloneTemplate(HashCode.fromInt(3), layout("c", layouts));
+        assertEquals("layouts", 3, layouts.size());
+        assertTrue("template a retained", layouts.get(0).isDirectory());
+        assertFalse("template b deleted", layouts.get(1).exists());
+        assertTrue("template c retained", layouts.get(2).isDirectory());
+        File clone = templates.cloneTemplate(HashCode.fromInt(2), layout("b", layouts));
+        assertEquals("layouts after re-use of evicted key", 4, layouts.size());
+        assertEquals("content", "b", read(new File(clone, "prefs.js")));
+        assertFalse("template a deleted", layouts.get(0).exists());
+    }
+
+    private Supplier<File> layout(String content, List<File> layouts) {
+        return () -> {
+            try {
+                File dir = temporaryFolder.newFolder();
+                Files.write(new File(dir, "prefs.js").toPath(), content.getBytes(StandardCharsets.UTF_8));
+                Files.write(new File(dir, "lock").toPath(), new byte[0]);
+                layouts.add(dir);
+                return dir;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
@@ -2,16 +2,31 @@ package io.github.mike10004.seleniumcapture.firefox;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.github.mike10004.seleniumcapture.WebdrivingConfig;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openqa.selenium.firefox.FirefoxOptions;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class FirefoxWebDriverFactoryBasicTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void checkPreferencesValues() {
         FirefoxWebDriverFactory.checkPreferencesValues(ImmutableMap.<String, Object>of().entrySet()); // these are ok if no exception is thrown
@@ -54,4 +69,31 @@ public class FirefoxWebDriverFactoryBasicTest {
         Map<String, String> actual = factory.supplyEnvironment();
         assertEquals("environment", expected, actual);
     }
+
+    @Test
+    public void populateOptions_profileTemplates() throws Exception {
+        AtomicInteger folderActionCount = new AtomicInteger();
+        FirefoxWebDriverFactory factory = FirefoxWebDriverFactory.builder()
+                .scratchDir(temporaryFolder.getRoot().toPath())
+                .preference("foo.bar", "baz")
+                .profileFolderAction(profileDir -> folderActionCount.incrementAndGet())
+                .profileTemplates(true)
+                .build();
+        List<String> profileDirs = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            FirefoxOptions options = factory.populateOptions(WebdrivingConfig.nonCapturing());
+            @SuppressWarnings("unchecked")
+            List<String> args = (List<String>) ((Map<String, Object>) options.asMap().get(FirefoxOptions.FIREFOX_OPTIONS)).get("args");
+            int index = args.indexOf("-profile");
+            assertTrue("-profile arg present", index >= 0);
+            File profileDir = new File(args.get(index + 1));
+            assertTrue("user.js in clone", new File(profileDir, "user.js").isFile());
+            List<String> userJsLines = Files.readAllLines(new File(profileDir, "user.js").toPath(), StandardCharsets.UTF_8);
+            String lastLine = userJsLines.get(userJsLines.size() - 1);
+            assertTrue("session preference appended: " + lastLine, lastLine.matches("user_pref\\(\"services\\.settings\\.main\\.fxmonitor-breaches\\.last_check\", \\d+\\);"));
+            profileDirs.add(profileDir.getAbsolutePath());
+        }
+        assertEquals("folder actions performed once", 1, folderActionCount.get());
+        assertEquals("distinct clones", 2, new HashSet<>(profileDirs).size());
+    }
 }
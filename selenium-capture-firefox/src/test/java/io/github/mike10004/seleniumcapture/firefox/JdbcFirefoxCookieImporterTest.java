@@ -0,0 +1,60 @@
+package io.github.mike10004.seleniumcapture.firefox;
+
+import io.github.mike10004.seleniumcapture.DeserializableCookie;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JdbcFirefoxCookieImporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void importCookies() throws Exception {
+        JdbcFirefoxCookieImporter importer = new JdbcFirefoxCookieImporter(Firefox91CookieImporter.getImportInfo(), new Firefox91CookieRowTransform(), 7);
+        File dbFile = new File(temporaryFolder.getRoot(), "cookies.sqlite");
+        importer.createEmptyCookiesDb(dbFile);
+        importer.importCookies(cookies(0, 20), dbFile, temporaryFolder.getRoot().toPath());
+        importer.importCookies(cookies(20, 5), dbFile, temporaryFolder.getRoot().toPath());
+        try (Connection conn = DriverManager.getConnection(JdbcFirefoxCookieImporter.URL_PREFIX + dbFile.getAbsolutePath());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MAX(id), MIN(id) FROM moz_cookies WHERE host = 'example.com'")) {
+            rs.next();
+            assertEquals("count", 25, rs.getInt(1));
+            assertEquals("max id", 25, rs.getInt(2));
+            assertEquals("min id", 1, rs.getInt(3));
+        }
+    }
+
+    @Test
+    public void defaultImporterUsesJdbc() {
+        assertTrue("driver available", JdbcFirefoxCookieImporter.isDriverAvailable());
+        assertTrue("default importer", FirefoxWebDriverFactory.Builder.createDefaultCookieImporter() instanceof JdbcFirefoxCookieImporter);
+    }
+
+    private static List<DeserializableCookie> cookies(int offset, int count) {
+        List<DeserializableCookie> cookies = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            cookies.add(DeserializableCookie.builder("c" + i, "v" + i)
+                    .domain("example.com")
+                    .path("/")
+                    .creationDate(Instant.parse("2021-10-01T12:00:00Z"))
+                    .expiry(Instant.parse("2031-10-01T12:00:00Z"))
+                    .build());
+        }
+        return cookies;
+    }
+}
@@ -18,10 +18,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class Sqlite3RunnerTest {
 
@@ -78,6 +80,27 @@ public class Sqlite3RunnerTest {
         }
     }
 
+    @Test
+    public void session() throws Exception {
+        Sqlite3Runner runner = createRunner();
+        File sqliteDbFile = tmp.newFile();
+        Sqlite3ImportInfo importInfo = Sqlite3ImportInfo.create(SAMPLE_DB_TABLE_NAME, Arrays.asList("id", "value"), Collections.singletonList(createTableSql), "id");
+        Sqlite3GenericImporter importer = new Sqlite3GenericImporter(runner, true);
+        try (Sqlite3Session session = runner.openSession(sqliteDbFile, tmp.getRoot().toPath())) {
+            assertEquals("max id of new table", Integer.valueOf(0), importer.ensureTableCreated(session, importInfo));
+            importer.doImportRows(session, Arrays.asList(ImmutableMap.of("id", "1", "value", "a"), ImmutableMap.of("id", "7", "value", "b,c")), importInfo, tmp.getRoot().toPath());
+            assertEquals("tables", Collections.singletonList(SAMPLE_DB_TABLE_NAME), session.queryTableNames());
+            assertEquals("max id", Optional.of(7), session.findMaxValue("id", SAMPLE_DB_TABLE_NAME));
+            assertEquals("values", Arrays.asList("a", "\"b,c\""), session.execute("SELECT value FROM " + SAMPLE_DB_TABLE_NAME + " ORDER BY id"));
+            try {
+                session.execute("SELECT * FROM no_such_table");
+                fail("expected exception");
+            } catch (SQLException ignore) {
+            }
+            assertEquals("usable after error", Arrays.asList("2"), session.execute("SELECT COUNT(*) FROM " + SAMPLE_DB_TABLE_NAME));
+        }
+    }
+
     private static final String SAMPLE_DB_TABLE_NAME = "foo";
     private static final String createTableSql = "CREATE TABLE " + SAMPLE_DB_TABLE_NAME + " (" +
             "id INTEGER PRIMARY KEY, " +
@@ -1,5 +1,6 @@
 package io.github.mike10004.seleniumcapture.firefox;
 
+import io.github.mike10004.seleniumcapture.CookieColumns;
 import io.github.mike10004.seleniumcapture.DeserializableCookie;
 import io.github.mike10004.seleniumcapture.CookieExploder;
 import io.github.mike10004.seleniumcapture.StandardCookieExploder;
@@ -12,7 +13,10 @@ import org.junit.Test;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -116,4 +120,37 @@ public class StandardCookieExploderTest {
         Map<String, String> attribs = (Map<String, String>) new StandardCookieExploder().explode(c).get(DeserializableCookie.FIELD_ATTRIBUTES);
         assertNull("attribs", attribs);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void explode_version() {
+        DeserializableCookie c = DeserializableCookie.builder("foo", "bar")
+                .version(1)
+                .comment("hello")
+                .build();
+        Map<String, Object> exploded = new StandardCookieExploder().explode(c);
+        assertEquals("version", 1, exploded.get("cookieVersion"));
+        assertEquals("comment", "hello", exploded.get("cookieComment"));
+    }
+
+    @Test
+    public void explodeAll() {
+        StandardCookieExploder exploder = new StandardCookieExploder();
+        List<DeserializableCookie> cookies = Arrays.asList(
+                ExampleCookieSource.asDeserializableCookie(),
+                DeserializableCookie.builder("x", null).build(),
+                DeserializableCookie.builder("foo", "bar").domain("example.com").secure(true).version(1).attribute("SameSite", "Lax").build());
+        CookieColumns columns = exploder.explodeAll(cookies);
+        assertEquals("size", cookies.size(), columns.size());
+        for (int row = 0; row < cookies.size(); row++) {
+            Map<String, Object> expected = exploder.explode(cookies.get(row));
+            assertEquals("row " + row, expected, columns.toMap(row));
+            assertEquals("key order", new ArrayList<>(expected.keySet()), new ArrayList<>(columns.toMap(row).keySet()));
+        }
+        // refill the same buffer
+        exploder.explodeAll(cookies.subList(1, 2), columns);
+        assertEquals("size after refill", 1, columns.size());
+        assertEquals("name", "x", columns.getName(0));
+        assertNull("attributes", columns.getAttributes(0));
+        assertFalse("secure", columns.isSecure(0));
+    }
+}